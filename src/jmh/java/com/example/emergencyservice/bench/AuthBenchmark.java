@@ -0,0 +1,78 @@
+package com.example.emergencyservice.bench;
+
+import com.example.emergencyservice.auth.PasswordVerifier.Verification;
+import com.example.emergencyservice.config.AuthConfig;
+import com.example.emergencyservice.config.LogConfig;
+import com.example.emergencyservice.service.AuthService;
+import com.example.emergencyservice.service.FileService;
+import com.example.emergencyservice.service.LogService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login of the default admin user, with and without the verified-credential cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthBenchmark {
+
+    @Param({"false", "true"})
+    boolean cacheEnabled;
+
+    private Path directory;
+    private LogService logService;
+    private AuthService authService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("bench-auth");
+        Files.createDirectories(directory.resolve("templates"));
+        FileService fileService = new FileService();
+        ReflectionTestUtils.setField(fileService, "dataDirectory", directory + "/");
+        ReflectionTestUtils.setField(fileService, "templatesDir", directory + "/templates/");
+
+        LogConfig logConfig = new LogConfig();
+        logConfig.setDirectory(directory + "/");
+        logService = new LogService(logConfig, new ObjectMapper());
+
+        AuthConfig authConfig = new AuthConfig();
+        authConfig.getCache().setEnabled(cacheEnabled);
+        authService = new AuthService(fileService, logService, authConfig, new SimpleMeterRegistry(),
+                directory + "/", "users.txt");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        authService.close();
+        logService.close();
+        Benchmarks.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public Verification authenticate() {
+        return authService.authenticate("admin", "admin123");
+    }
+}
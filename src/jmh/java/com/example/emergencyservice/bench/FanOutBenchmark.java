@@ -0,0 +1,172 @@
+package com.example.emergencyservice.bench;
+
+import com.example.emergencyservice.config.AppConfig;
+import com.example.emergencyservice.config.DispatchConfig;
+import com.example.emergencyservice.config.HttpClientConfig;
+import com.example.emergencyservice.config.LogConfig;
+import com.example.emergencyservice.config.MailPoolConfig;
+import com.example.emergencyservice.config.ResilienceConfig;
+import com.example.emergencyservice.config.SmsConfig;
+import com.example.emergencyservice.config.TelegramConfig;
+import com.example.emergencyservice.metrics.DeliveryMetrics;
+import com.example.emergencyservice.model.DeliveryResult;
+import com.example.emergencyservice.service.ContentRepository;
+import com.example.emergencyservice.service.DispatchService;
+import com.example.emergencyservice.service.FileService;
+import com.example.emergencyservice.service.LogService;
+import com.example.emergencyservice.service.MessageService;
+import com.example.emergencyservice.transport.HttpPoolMetrics;
+import com.example.emergencyservice.transport.SmsTransport;
+import com.example.emergencyservice.transport.SmtpTransportPool;
+import com.example.emergencyservice.transport.TelegramTransport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.icegreen.greenmail.util.GreenMail;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One broadcast through DispatchService and MessageService to a local stub Telegram API and a GreenMail
+ * SMTP server, half chats and half emails. Channel rate limits are lifted, so the score is the cost of
+ * the send path itself and not the configured throttling.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class FanOutBenchmark {
+
+    private static final byte[] TELEGRAM_OK = "{\"ok\":true,\"result\":{}}".getBytes(StandardCharsets.UTF_8);
+
+    @Param({"100", "1000"})
+    int recipients;
+
+    private Path directory;
+    private HttpServer telegramStub;
+    private ExecutorService stubExecutor;
+    private GreenMail greenMail;
+    private ConnectionProvider connectionProvider;
+    private SmtpTransportPool smtpTransportPool;
+    private LogService logService;
+    private ContentRepository contentRepository;
+    private DispatchService dispatchService;
+    private List<String> targets;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("bench-fanout");
+        Files.createDirectories(directory.resolve("templates"));
+
+        telegramStub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        telegramStub.createContext("/botbench/sendMessage", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(200, TELEGRAM_OK.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(TELEGRAM_OK);
+            }
+        });
+        stubExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        telegramStub.setExecutor(stubExecutor);
+        telegramStub.start();
+
+        greenMail = new GreenMail(ServerSetupTest.SMTP.dynamicPort());
+        greenMail.start();
+
+        TelegramConfig telegramConfig = new TelegramConfig();
+        telegramConfig.getBot().setToken("bench");
+        telegramConfig.getBot().setApiUrl("http://127.0.0.1:" + telegramStub.getAddress().getPort());
+        telegramConfig.getBot().setGlobalRatePerSecond(1_000_000);
+        telegramConfig.getBot().setGroupChatRatePerSecond(1_000_000);
+
+        AppConfig appConfig = new AppConfig();
+        HttpClientConfig httpClientConfig = new HttpClientConfig();
+        connectionProvider = appConfig.outboundConnectionProvider(httpClientConfig,
+                new HttpPoolMetrics(new SimpleMeterRegistry()));
+        WebClient webClient = appConfig.webClient(appConfig.outboundHttpClient(connectionProvider, httpClientConfig));
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(greenMail.getSmtp().getPort());
+        MailPoolConfig mailPoolConfig = new MailPoolConfig();
+        smtpTransportPool = new SmtpTransportPool(mailSender, mailPoolConfig);
+
+        LogConfig logConfig = new LogConfig();
+        logConfig.setDirectory(directory + "/");
+        logService = new LogService(logConfig, objectMapper);
+
+        FileService fileService = new FileService();
+        ReflectionTestUtils.setField(fileService, "dataDirectory", directory + "/");
+        ReflectionTestUtils.setField(fileService, "templatesDir", directory + "/templates/");
+        contentRepository = new ContentRepository(fileService, directory + "/", directory + "/templates/");
+
+        DispatchConfig dispatchConfig = new DispatchConfig();
+        dispatchConfig.setTelegram(new DispatchConfig.Limits(64, 1_000_000, 1_000_000));
+        dispatchConfig.setEmail(new DispatchConfig.Limits(mailPoolConfig.getSize(), 1_000_000, 1_000_000));
+
+        SmsTransport smsTransport = new SmsTransport(new SmsConfig(), webClient, objectMapper);
+        MessageService messageService = new MessageService(smtpTransportPool,
+                new TelegramTransport(telegramConfig, webClient, objectMapper), smsTransport, logService,
+                new DeliveryMetrics(new SimpleMeterRegistry()), dispatchConfig, new ResilienceConfig());
+        dispatchService = new DispatchService(messageService, dispatchConfig, mailPoolConfig, smsTransport,
+                contentRepository);
+
+        targets = new ArrayList<>(recipients);
+        for (int i = 0; i < recipients; i++) {
+            targets.add(i % 2 == 0 ? String.valueOf(100_000 + i) : "user" + i + "@example.com");
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void purgeMail() throws Exception {
+        greenMail.purgeEmailFromAllMailboxes();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        smtpTransportPool.close();
+        connectionProvider.dispose();
+        greenMail.stop();
+        telegramStub.stop(0);
+        stubExecutor.close();
+        contentRepository.close();
+        logService.close();
+        Benchmarks.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<DeliveryResult> broadcast() {
+        return dispatchService.dispatch(targets, "Плановые работы с 10:00 до 12:00", "admin");
+    }
+}
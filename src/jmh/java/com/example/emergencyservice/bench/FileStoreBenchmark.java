@@ -0,0 +1,104 @@
+package com.example.emergencyservice.bench;
+
+import com.example.emergencyservice.service.FileService;
+import com.example.emergencyservice.service.RecipientCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and writing of {@code name:address} recipient files of growing size.
+ * <p>
+ * {@code splitLines} is the former {@code readAllLines}/{@code split}/{@code trim} parser, kept as a
+ * baseline for {@link RecipientCodec}. Run with {@code -prof gc} to compare {@code gc.alloc.rate.norm},
+ * the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileStoreBenchmark {
+
+    @Param({"1000", "100000"})
+    int recipients;
+
+    private Path directory;
+    private FileService fileService;
+    private List<String[]> list;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("bench-files");
+        fileService = new FileService();
+        ReflectionTestUtils.setField(fileService, "dataDirectory", directory + "/");
+        ReflectionTestUtils.setField(fileService, "templatesDir", directory + "/");
+
+        list = new ArrayList<>(recipients);
+        for (int i = 0; i < recipients; i++) {
+            list.add(new String[]{"Получатель " + i, "user" + i + "@example.com"});
+        }
+        fileService.saveRecipients("email_recipients.txt", list);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Benchmarks.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<String[]> loadRecipients() {
+        return fileService.loadRecipients("email_recipients.txt");
+    }
+
+    @Benchmark
+    public void visitRecipients(Blackhole blackhole) {
+        fileService.forEachRecipient("email_recipients.txt", (name, address) -> {
+            blackhole.consume(address);
+            return true;
+        });
+    }
+
+    @Benchmark
+    public String findRecipientName() {
+        return fileService.findRecipientName("email_recipients.txt", "user" + (recipients / 2) + "@example.com");
+    }
+
+    @Benchmark
+    public List<String[]> splitLines() throws IOException {
+        List<String[]> result = new ArrayList<>();
+        for (String line : Files.readAllLines(directory.resolve("email_recipients.txt"))) {
+            if (line.trim().isEmpty()) continue;
+            String[] parts = line.split(":", 2);
+            if (parts.length == 2) {
+                result.add(new String[]{parts[0].trim(), parts[1].trim()});
+            }
+        }
+        return result;
+    }
+
+    @Benchmark
+    public void saveRecipients() {
+        fileService.saveRecipients("saved_recipients.txt", list);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.emergencyservice.bench;
+
+import com.example.emergencyservice.config.LogConfig;
+import com.example.emergencyservice.service.LogService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivery logging throughput with eight threads logging at once, as during a broadcast.
+ * Files are rotated at a small size so the disk does not fill up during long runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class LogServiceBenchmark {
+
+    private Path directory;
+    private LogService logService;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("bench-logs");
+        LogConfig config = new LogConfig();
+        config.setDirectory(directory + "/");
+        config.setMaxFileSize(64 * 1024 * 1024);
+        config.setMaxHistory(1);
+        logService = new LogService(config, new ObjectMapper());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        logService.close();
+        Benchmarks.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void logMessage() {
+        logService.logMessage("telegram", "-1001234567890", "Плановые работы с 10:00 до 12:00",
+                "admin", "success");
+    }
+}
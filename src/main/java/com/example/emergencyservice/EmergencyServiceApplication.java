@@ -1,7 +1,18 @@
 package com.example.emergencyservice;
 
+import com.example.emergencyservice.config.AuthConfig;
+import com.example.emergencyservice.config.ClusterConfig;
+import com.example.emergencyservice.config.DispatchConfig;
+import com.example.emergencyservice.config.HttpClientConfig;
+import com.example.emergencyservice.config.LogConfig;
+import com.example.emergencyservice.config.MailPoolConfig;
+import com.example.emergencyservice.config.QueueConfig;
+import com.example.emergencyservice.config.ResilienceConfig;
+import com.example.emergencyservice.config.ScheduleConfig;
+import com.example.emergencyservice.config.SessionConfig;
 import com.example.emergencyservice.config.SmsConfig;
 import com.example.emergencyservice.config.TelegramConfig;
+import com.example.emergencyservice.service.BroadcastJobService;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
@@ -13,9 +24,17 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 
 @SpringBootApplication
-@EnableConfigurationProperties({TelegramConfig.class, SmsConfig.class})
+@EnableConfigurationProperties({TelegramConfig.class, SmsConfig.class, DispatchConfig.class, QueueConfig.class,
+        HttpClientConfig.class, MailPoolConfig.class, LogConfig.class, AuthConfig.class,
+        ResilienceConfig.class, ClusterConfig.class, SessionConfig.class, ScheduleConfig.class})
 public class EmergencyServiceApplication {
 
+    private final BroadcastJobService broadcastJobService;
+
+    public EmergencyServiceApplication(BroadcastJobService broadcastJobService) {
+        this.broadcastJobService = broadcastJobService;
+    }
+
     public static void main(String[] args) {
         SpringApplication.run(EmergencyServiceApplication.class, args);
     }
@@ -26,4 +45,12 @@ public class EmergencyServiceApplication {
         Files.createDirectories(Paths.get("./data/logs"));
         System.out.println("Data directories created successfully");
     }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void replayPendingDeliveries() {
+        int resumed = broadcastJobService.resumePending();
+        if (resumed > 0) {
+            System.out.println("Resumed " + resumed + " pending deliveries from the outbound queue");
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,195 @@
+package com.example.emergencyservice.audience;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * A boolean audience selector such as {@code region:tashkent AND (team:network OR team:power)}.
+ * <p>
+ * Terms are tags, compared case-insensitively. {@code AND}, {@code OR} and {@code NOT} are keywords in
+ * any case, with the usual precedence ({@code NOT} binds tightest, then {@code AND}) and parentheses
+ * for grouping. Two terms with no operator between them are ANDed. The expression is parsed once into
+ * a tree that evaluates to a {@link RoaringBitmap} of recipient IDs.
+ */
+public final class AudienceExpression {
+
+    private final Node root;
+    private final String source;
+
+    private AudienceExpression(Node root, String source) {
+        this.root = root;
+        this.source = source;
+    }
+
+    /**
+     * Parses an expression, throwing {@link IllegalArgumentException} with the offending position if
+     * it is malformed.
+     */
+    public static AudienceExpression parse(String source) {
+        Parser parser = new Parser(tokenize(source), source);
+        Node root = parser.or();
+        if (parser.position < parser.tokens.size()) {
+            throw parser.error("unexpected '" + parser.tokens.get(parser.position) + "'");
+        }
+        return new AudienceExpression(root, source);
+    }
+
+    /**
+     * IDs selected by the expression. {@code terms} maps a lower-cased term to its bitmap and
+     * {@code universe} is every known recipient, which {@code NOT} is taken against.
+     */
+    public RoaringBitmap evaluate(Function<String, RoaringBitmap> terms, RoaringBitmap universe) {
+        return root.evaluate(terms, universe).and(universe);
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    private static List<String> tokenize(String source) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else {
+                int start = i;
+                while (i < source.length() && !Character.isWhitespace(source.charAt(i))
+                        && source.charAt(i) != '(' && source.charAt(i) != ')') {
+                    i++;
+                }
+                tokens.add(source.substring(start, i));
+            }
+        }
+        return tokens;
+    }
+
+    private sealed interface Node permits Term, And, Or, Not {
+        RoaringBitmap evaluate(Function<String, RoaringBitmap> terms, RoaringBitmap universe);
+    }
+
+    private record Term(String name) implements Node {
+        @Override
+        public RoaringBitmap evaluate(Function<String, RoaringBitmap> terms, RoaringBitmap universe) {
+            RoaringBitmap bitmap = terms.apply(name);
+            return bitmap != null ? bitmap : new RoaringBitmap();
+        }
+    }
+
+    private record And(Node left, Node right) implements Node {
+        @Override
+        public RoaringBitmap evaluate(Function<String, RoaringBitmap> terms, RoaringBitmap universe) {
+            // A negated side is subtracted instead of being materialized against the universe
+            if (right instanceof Not not) {
+                return left.evaluate(terms, universe).andNot(not.operand().evaluate(terms, universe));
+            }
+            if (left instanceof Not not) {
+                return right.evaluate(terms, universe).andNot(not.operand().evaluate(terms, universe));
+            }
+            return left.evaluate(terms, universe).and(right.evaluate(terms, universe));
+        }
+    }
+
+    private record Or(Node left, Node right) implements Node {
+        @Override
+        public RoaringBitmap evaluate(Function<String, RoaringBitmap> terms, RoaringBitmap universe) {
+            return left.evaluate(terms, universe).or(right.evaluate(terms, universe));
+        }
+    }
+
+    private record Not(Node operand) implements Node {
+        @Override
+        public RoaringBitmap evaluate(Function<String, RoaringBitmap> terms, RoaringBitmap universe) {
+            return universe.andNot(operand.evaluate(terms, universe));
+        }
+    }
+
+    private static final class Parser {
+        private final List<String> tokens;
+        private final String source;
+        private int position;
+
+        Parser(List<String> tokens, String source) {
+            this.tokens = tokens;
+            this.source = source;
+        }
+
+        Node or() {
+            Node node = and();
+            while (accept("OR")) {
+                node = new Or(node, and());
+            }
+            return node;
+        }
+
+        Node and() {
+            Node node = not();
+            while (true) {
+                if (accept("AND")) {
+                    node = new And(node, not());
+                } else if (startsOperand()) {
+                    node = new And(node, not());
+                } else {
+                    return node;
+                }
+            }
+        }
+
+        Node not() {
+            if (accept("NOT")) {
+                return new Not(not());
+            }
+            return primary();
+        }
+
+        Node primary() {
+            if (position == tokens.size()) {
+                throw error("expression ends early");
+            }
+            String token = tokens.get(position++);
+            if (token.equals("(")) {
+                Node node = or();
+                if (!accept(")")) {
+                    throw error("missing ')'");
+                }
+                return node;
+            }
+            if (token.equals(")") || isKeyword(token)) {
+                throw error("unexpected '" + token + "'");
+            }
+            return new Term(token.toLowerCase(Locale.ROOT));
+        }
+
+        private boolean startsOperand() {
+            if (position == tokens.size()) {
+                return false;
+            }
+            String token = tokens.get(position);
+            return !token.equals(")") && !token.equalsIgnoreCase("OR") && !token.equalsIgnoreCase("AND");
+        }
+
+        private boolean accept(String token) {
+            if (position < tokens.size() && tokens.get(position).equalsIgnoreCase(token)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private static boolean isKeyword(String token) {
+            return token.equalsIgnoreCase("AND") || token.equalsIgnoreCase("OR") || token.equalsIgnoreCase("NOT");
+        }
+
+        IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid audience '" + source + "' at token " + (position + 1)
+                    + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,449 @@
+package com.example.emergencyservice.audience;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of non-negative ints in the roaring layout: values are grouped by their high 16 bits
+ * into chunks of 65536, and each chunk is a sorted {@code char[]} while it holds at most
+ * {@value #ARRAY_MAX} values and a 1024-word bitmap beyond that. Sparse sets stay small, dense ones
+ * cost 8 KB per chunk, and the set operations work chunk by chunk on whichever form both sides have.
+ * <p>
+ * {@link #add} is for building a set; the set operations never modify their operands and return new
+ * bitmaps, so a published bitmap can be shared between threads as long as nobody adds to it.
+ */
+public final class RoaringBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+
+    private char[] keys;
+    private Object[] chunks;
+    private int size;
+
+    public RoaringBitmap() {
+        this(4);
+    }
+
+    private RoaringBitmap(int capacity) {
+        keys = new char[capacity];
+        chunks = new Object[capacity];
+    }
+
+    public static RoaringBitmap of(int... values) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+
+    public void add(int value) {
+        char key = (char) (value >>> 16);
+        char low = (char) value;
+        int index = find(key);
+        if (index < 0) {
+            index = -index - 1;
+            insert(index, key, new char[]{low});
+            return;
+        }
+        Object chunk = chunks[index];
+        if (chunk instanceof long[] words) {
+            words[low >>> 6] |= 1L << low;
+            return;
+        }
+        char[] values = (char[]) chunk;
+        int position = Arrays.binarySearch(values, low);
+        if (position >= 0) {
+            return;
+        }
+        position = -position - 1;
+        if (values.length >= ARRAY_MAX) {
+            long[] words = toWords(values);
+            words[low >>> 6] |= 1L << low;
+            chunks[index] = words;
+            return;
+        }
+        char[] grown = new char[values.length + 1];
+        System.arraycopy(values, 0, grown, 0, position);
+        grown[position] = low;
+        System.arraycopy(values, position, grown, position + 1, values.length - position);
+        chunks[index] = grown;
+    }
+
+    public boolean contains(int value) {
+        int index = find((char) (value >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        char low = (char) value;
+        Object chunk = chunks[index];
+        return chunk instanceof long[] words
+                ? (words[low >>> 6] & (1L << low)) != 0
+                : Arrays.binarySearch((char[]) chunk, low) >= 0;
+    }
+
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += cardinality(chunks[i]);
+        }
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public RoaringBitmap and(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap(Math.max(1, Math.min(size, other.size)));
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.append(keys[i], and(chunks[i], other.chunks[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public RoaringBitmap or(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap(Math.max(1, size + other.size));
+        int i = 0;
+        int j = 0;
+        while (i < size || j < other.size) {
+            if (j == other.size || i < size && keys[i] < other.keys[j]) {
+                result.append(keys[i], copy(chunks[i]));
+                i++;
+            } else if (i == size || keys[i] > other.keys[j]) {
+                result.append(other.keys[j], copy(other.chunks[j]));
+                j++;
+            } else {
+                result.append(keys[i], or(chunks[i], other.chunks[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public RoaringBitmap andNot(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap(Math.max(1, size));
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            while (j < other.size && other.keys[j] < keys[i]) {
+                j++;
+            }
+            boolean both = j < other.size && other.keys[j] == keys[i];
+            result.append(keys[i], both ? andNot(chunks[i], other.chunks[j]) : copy(chunks[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Passes every value to the consumer in ascending order.
+     */
+    public void forEach(IntConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            int high = keys[i] << 16;
+            if (chunks[i] instanceof long[] words) {
+                for (int w = 0; w < WORDS; w++) {
+                    long word = words[w];
+                    while (word != 0) {
+                        consumer.accept(high | (w << 6) + Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                for (char low : (char[]) chunks[i]) {
+                    consumer.accept(high | low);
+                }
+            }
+        }
+    }
+
+    /**
+     * The smallest {@code limit} values in ascending order, or all of them if there are fewer.
+     */
+    public int[] first(int limit) {
+        int[] values = new int[Math.min(Math.max(limit, 0), cardinality())];
+        int next = 0;
+        for (int i = 0; i < size && next < values.length; i++) {
+            int high = keys[i] << 16;
+            if (chunks[i] instanceof long[] words) {
+                for (int w = 0; w < WORDS && next < values.length; w++) {
+                    long word = words[w];
+                    while (word != 0 && next < values.length) {
+                        values[next++] = high | (w << 6) + Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                for (char low : (char[]) chunks[i]) {
+                    if (next == values.length) {
+                        break;
+                    }
+                    values[next++] = high | low;
+                }
+            }
+        }
+        return values;
+    }
+
+    public int[] toArray() {
+        int[] values = new int[cardinality()];
+        int[] next = {0};
+        forEach(value -> values[next[0]++] = value);
+        return values;
+    }
+
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size; i++) {
+            out.writeChar(keys[i]);
+            if (chunks[i] instanceof long[] words) {
+                out.writeBoolean(true);
+                for (long word : words) {
+                    out.writeLong(word);
+                }
+            } else {
+                char[] values = (char[]) chunks[i];
+                out.writeBoolean(false);
+                out.writeShort(values.length - 1);
+                for (char value : values) {
+                    out.writeChar(value);
+                }
+            }
+        }
+    }
+
+    public static RoaringBitmap readFrom(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        RoaringBitmap bitmap = new RoaringBitmap(Math.max(1, count));
+        for (int i = 0; i < count; i++) {
+            char key = in.readChar();
+            if (in.readBoolean()) {
+                long[] words = new long[WORDS];
+                for (int w = 0; w < WORDS; w++) {
+                    words[w] = in.readLong();
+                }
+                bitmap.append(key, words);
+            } else {
+                char[] values = new char[in.readUnsignedShort() + 1];
+                for (int v = 0; v < values.length; v++) {
+                    values[v] = in.readChar();
+                }
+                bitmap.append(key, values);
+            }
+        }
+        return bitmap;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof RoaringBitmap that && Arrays.equals(toArray(), that.toArray());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(toArray());
+    }
+
+    private int find(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insert(int index, char key, Object chunk) {
+        ensureCapacity();
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(chunks, index, chunks, index + 1, size - index);
+        keys[index] = key;
+        chunks[index] = chunk;
+        size++;
+    }
+
+    /**
+     * Appends a chunk whose key is above every existing key, dropping it if it is empty.
+     */
+    private void append(char key, Object chunk) {
+        if (chunk == null) {
+            return;
+        }
+        ensureCapacity();
+        keys[size] = key;
+        chunks[size] = chunk;
+        size++;
+    }
+
+    private void ensureCapacity() {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            chunks = Arrays.copyOf(chunks, size * 2);
+        }
+    }
+
+    private static int cardinality(Object chunk) {
+        if (chunk instanceof long[] words) {
+            int count = 0;
+            for (long word : words) {
+                count += Long.bitCount(word);
+            }
+            return count;
+        }
+        return ((char[]) chunk).length;
+    }
+
+    private static Object copy(Object chunk) {
+        return chunk instanceof long[] words ? words.clone() : ((char[]) chunk).clone();
+    }
+
+    private static Object and(Object a, Object b) {
+        if (a instanceof long[] x && b instanceof long[] y) {
+            long[] words = new long[WORDS];
+            for (int w = 0; w < WORDS; w++) {
+                words[w] = x[w] & y[w];
+            }
+            return normalize(words);
+        }
+        if (a instanceof long[] words) {
+            return filter((char[]) b, words, true);
+        }
+        if (b instanceof long[] words) {
+            return filter((char[]) a, words, true);
+        }
+        char[] x = (char[]) a;
+        char[] y = (char[]) b;
+        char[] out = new char[Math.min(x.length, y.length)];
+        int n = 0;
+        for (int i = 0, j = 0; i < x.length && j < y.length; ) {
+            if (x[i] < y[j]) {
+                i++;
+            } else if (x[i] > y[j]) {
+                j++;
+            } else {
+                out[n++] = x[i];
+                i++;
+                j++;
+            }
+        }
+        return n > 0 ? Arrays.copyOf(out, n) : null;
+    }
+
+    private static Object or(Object a, Object b) {
+        if (a instanceof char[] x && b instanceof char[] y && x.length + y.length <= ARRAY_MAX) {
+            char[] out = new char[x.length + y.length];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < x.length || j < y.length) {
+                if (j == y.length || i < x.length && x[i] < y[j]) {
+                    out[n++] = x[i++];
+                } else if (i == x.length || x[i] > y[j]) {
+                    out[n++] = y[j++];
+                } else {
+                    out[n++] = x[i++];
+                    j++;
+                }
+            }
+            return Arrays.copyOf(out, n);
+        }
+        long[] words = a instanceof long[] x ? x.clone() : toWords((char[]) a);
+        if (b instanceof long[] y) {
+            for (int w = 0; w < WORDS; w++) {
+                words[w] |= y[w];
+            }
+        } else {
+            for (char value : (char[]) b) {
+                words[value >>> 6] |= 1L << value;
+            }
+        }
+        return normalize(words);
+    }
+
+    private static Object andNot(Object a, Object b) {
+        if (a instanceof long[] x) {
+            long[] words = x.clone();
+            if (b instanceof long[] y) {
+                for (int w = 0; w < WORDS; w++) {
+                    words[w] &= ~y[w];
+                }
+            } else {
+                for (char value : (char[]) b) {
+                    words[value >>> 6] &= ~(1L << value);
+                }
+            }
+            return normalize(words);
+        }
+        if (b instanceof long[] words) {
+            return filter((char[]) a, words, false);
+        }
+        char[] x = (char[]) a;
+        char[] y = (char[]) b;
+        char[] out = new char[x.length];
+        int n = 0;
+        int j = 0;
+        for (char value : x) {
+            while (j < y.length && y[j] < value) {
+                j++;
+            }
+            if (j == y.length || y[j] != value) {
+                out[n++] = value;
+            }
+        }
+        return n > 0 ? Arrays.copyOf(out, n) : null;
+    }
+
+    /**
+     * Values of {@code values} that are ({@code keep}) or are not set in {@code words}.
+     */
+    private static char[] filter(char[] values, long[] words, boolean keep) {
+        char[] out = new char[values.length];
+        int n = 0;
+        for (char value : values) {
+            if (((words[value >>> 6] & (1L << value)) != 0) == keep) {
+                out[n++] = value;
+            }
+        }
+        return n > 0 ? Arrays.copyOf(out, n) : null;
+    }
+
+    private static long[] toWords(char[] values) {
+        long[] words = new long[WORDS];
+        for (char value : values) {
+            words[value >>> 6] |= 1L << value;
+        }
+        return words;
+    }
+
+    /**
+     * A bitmap chunk in its smaller form: null when empty, an array when sparse enough.
+     */
+    private static Object normalize(long[] words) {
+        int count = cardinality(words);
+        if (count == 0) {
+            return null;
+        }
+        if (count > ARRAY_MAX) {
+            return words;
+        }
+        char[] values = new char[count];
+        int n = 0;
+        for (int w = 0; w < WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                values[n++] = (char) ((w << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.emergencyservice.auth;
+
+import org.springframework.session.MapSession;
+import org.springframework.session.SessionRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Spring Session store that keeps each session in its own file, so every instance sharing the directory
+ * sees the same logins. A file is replaced atomically on every save, and concurrent saves of one session
+ * from different instances end with the last one written.
+ * <p>
+ * Expired sessions are dropped when they are looked up, and the whole directory is swept for them at most
+ * once per cleanup interval, on some save.
+ */
+public class FileSessionRepository implements SessionRepository<MapSession> {
+
+    private static final int VERSION = 1;
+    private static final String SUFFIX = ".session";
+    private static final Pattern VALID_ID = Pattern.compile("[A-Za-z0-9-]{1,64}");
+
+    private final Path directory;
+    private final Duration maxInactiveInterval;
+    private final long cleanupIntervalMillis;
+    private final AtomicLong nextCleanup = new AtomicLong();
+
+    public FileSessionRepository(Path directory, Duration maxInactiveInterval, long cleanupIntervalMillis) {
+        this.directory = directory;
+        this.maxInactiveInterval = maxInactiveInterval;
+        this.cleanupIntervalMillis = cleanupIntervalMillis;
+    }
+
+    @Override
+    public MapSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(maxInactiveInterval);
+        return session;
+    }
+
+    @Override
+    public void save(MapSession session) {
+        try {
+            Files.createDirectories(directory);
+            if (!session.getId().equals(session.getOriginalId()) && isValid(session.getOriginalId())) {
+                Files.deleteIfExists(file(session.getOriginalId()));
+            }
+            Path temp = Files.createTempFile(directory, session.getId(), ".tmp");
+            try {
+                Files.write(temp, serialize(session));
+                try {
+                    Files.move(temp, file(session.getId()), StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, file(session.getId()), StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error saving session", e);
+        }
+        cleanupIfDue();
+    }
+
+    @Override
+    public MapSession findById(String id) {
+        if (!isValid(id)) {
+            return null;
+        }
+        MapSession session;
+        try {
+            session = deserialize(id, Files.readAllBytes(file(id)));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("Error reading session, discarding it: " + e.getMessage());
+            deleteById(id);
+            return null;
+        }
+        if (session.isExpired()) {
+            deleteById(id);
+            return null;
+        }
+        return session;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        if (!isValid(id)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file(id));
+        } catch (IOException e) {
+            System.err.println("Error deleting session: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the files of all expired sessions. Returns how many were deleted.
+     */
+    public int cleanup() {
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path path : files) {
+                String name = path.getFileName().toString();
+                String id = name.substring(0, name.length() - SUFFIX.length());
+                MapSession session;
+                try {
+                    session = deserialize(id, Files.readAllBytes(path));
+                } catch (NoSuchFileException e) {
+                    continue;
+                } catch (IOException | ClassNotFoundException e) {
+                    session = null;
+                }
+                if (session == null || session.isExpired()) {
+                    Files.deleteIfExists(path);
+                    deleted++;
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Error cleaning up sessions: " + e.getMessage());
+        }
+        return deleted;
+    }
+
+    private void cleanupIfDue() {
+        long now = System.currentTimeMillis();
+        long due = nextCleanup.get();
+        if (now >= due && nextCleanup.compareAndSet(due, now + cleanupIntervalMillis)) {
+            cleanup();
+        }
+    }
+
+    private Path file(String id) {
+        return directory.resolve(id + SUFFIX);
+    }
+
+    /**
+     * Session IDs come from a cookie, so anything that could leave the directory is rejected.
+     */
+    private static boolean isValid(String id) {
+        return id != null && VALID_ID.matcher(id).matches();
+    }
+
+    private static byte[] serialize(MapSession session) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeInt(VERSION);
+            out.writeLong(session.getCreationTime().toEpochMilli());
+            out.writeLong(session.getLastAccessedTime().toEpochMilli());
+            out.writeLong(session.getMaxInactiveInterval().toMillis());
+            out.writeInt(session.getAttributeNames().size());
+            for (String name : session.getAttributeNames()) {
+                Object value = session.getAttribute(name);
+                out.writeUTF(name);
+                try {
+                    out.writeObject(value);
+                } catch (NotSerializableException e) {
+                    throw new NotSerializableException("Session attribute " + name + " is not serializable");
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static MapSession deserialize(String id, byte[] data) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            if (in.readInt() != VERSION) {
+                throw new IOException("unrecognized session format");
+            }
+            MapSession session = new MapSession(id);
+            session.setCreationTime(Instant.ofEpochMilli(in.readLong()));
+            session.setLastAccessedTime(Instant.ofEpochMilli(in.readLong()));
+            session.setMaxInactiveInterval(Duration.ofMillis(in.readLong()));
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                session.setAttribute(name, in.readObject());
+            }
+            return session;
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.emergencyservice.auth;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+
+/**
+ * Checks passwords against BCrypt hashes on a small dedicated pool, so a burst of logins can use at
+ * most {@code threads} cores and never ties up request threads doing hashing.
+ * <p>
+ * When the pool and its queue are full a login is rejected immediately instead of queuing without
+ * bound. Successful checks can be cached for a short TTL: the cache keeps an HMAC of the stored hash
+ * and the password under a per-process random key, never the password itself, and an entry stops
+ * matching as soon as the stored hash changes.
+ */
+public class PasswordVerifier implements Closeable {
+
+    public enum Verification {
+        MATCH, MISMATCH, REJECTED
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final BiPredicate<String, String> checker;
+    private final long timeoutMillis;
+    private final boolean cacheEnabled;
+    private final long cacheTtlNanos;
+    private final int cacheMaxEntries;
+    private final SecretKeySpec cacheKey;
+    private final Map<String, CachedCredential> cache = new ConcurrentHashMap<>();
+
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public PasswordVerifier(int threads, int queueCapacity, long timeoutMillis,
+                            boolean cacheEnabled, long cacheTtlMillis, int cacheMaxEntries) {
+        this(threads, queueCapacity, timeoutMillis, cacheEnabled, cacheTtlMillis, cacheMaxEntries, BCrypt::checkpw);
+    }
+
+    /**
+     * Checks passwords with {@code checker} instead of BCrypt, for tests that need a check to take a while.
+     */
+    PasswordVerifier(int threads, int queueCapacity, long timeoutMillis, boolean cacheEnabled,
+                     long cacheTtlMillis, int cacheMaxEntries, BiPredicate<String, String> checker) {
+        this.checker = checker;
+        int poolSize = Math.max(1, threads);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                task -> {
+                    Thread thread = new Thread(task, "password-verifier-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.timeoutMillis = timeoutMillis;
+        this.cacheEnabled = cacheEnabled;
+        this.cacheTtlNanos = TimeUnit.MILLISECONDS.toNanos(cacheTtlMillis);
+        this.cacheMaxEntries = Math.max(1, cacheMaxEntries);
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.cacheKey = new SecretKeySpec(key, "HmacSHA256");
+    }
+
+    public Verification verify(String username, String password, String hash) {
+        byte[] digest = cacheEnabled ? digest(hash, password) : null;
+        if (digest != null) {
+            CachedCredential cached = cache.get(username);
+            if (cached != null && System.nanoTime() - cached.expiresAt < 0
+                    && MessageDigest.isEqual(cached.digest, digest)) {
+                cacheHits.increment();
+                return Verification.MATCH;
+            }
+        }
+
+        long submitted = System.nanoTime();
+        Future<Boolean> result;
+        try {
+            result = executor.submit(() -> {
+                long started = System.nanoTime();
+                record(waitNanos, maxWaitNanos, started - submitted);
+                try {
+                    return checker.test(password, hash);
+                } finally {
+                    record(hashNanos, maxHashNanos, System.nanoTime() - started);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return Verification.REJECTED;
+        }
+
+        boolean match;
+        try {
+            match = result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            timedOut.increment();
+            return Verification.REJECTED;
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            return Verification.REJECTED;
+        } catch (CancellationException e) {
+            return Verification.REJECTED;
+        } catch (ExecutionException e) {
+            // Malformed stored hash
+            match = false;
+        }
+        verified.increment();
+
+        if (match && digest != null) {
+            if (cache.size() >= cacheMaxEntries) {
+                long now = System.nanoTime();
+                cache.values().removeIf(entry -> now - entry.expiresAt >= 0);
+                if (cache.size() >= cacheMaxEntries) {
+                    cache.clear();
+                }
+            }
+            cache.put(username, new CachedCredential(digest, System.nanoTime() + cacheTtlNanos));
+        } else if (!match) {
+            cache.remove(username);
+        }
+        return match ? Verification.MATCH : Verification.MISMATCH;
+    }
+
+    public void invalidate(String username) {
+        cache.remove(username);
+    }
+
+    public Metrics metrics() {
+        long count = verified.sum();
+        return new Metrics(count,
+                rejected.sum(),
+                timedOut.sum(),
+                cacheHits.sum(),
+                cache.size(),
+                executor.getActiveCount(),
+                executor.getQueue().size(),
+                count > 0 ? hashNanos.sum() / count / 1e6 : 0,
+                maxHashNanos.get() / 1e6,
+                count > 0 ? waitNanos.sum() / count / 1e6 : 0,
+                maxWaitNanos.get() / 1e6);
+    }
+
+    @Override
+    public void close() {
+        // Release callers still waiting on queued checks instead of leaving them to time out
+        for (Runnable task : executor.shutdownNow()) {
+            if (task instanceof Future<?> future) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    private byte[] digest(String hash, String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(cacheKey);
+            mac.update(hash.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            return null;
+        }
+    }
+
+    private static void record(LongAdder total, AtomicLong max, long nanos) {
+        total.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    private record CachedCredential(byte[] digest, long expiresAt) {
+    }
+
+    /**
+     * Verification counters and latencies in milliseconds. Hash time is the BCrypt computation itself;
+     * wait time is how long a check sat in the queue before a verifier thread picked it up.
+     */
+    public record Metrics(long verified, long rejected, long timedOut, long cacheHits, int cacheSize,
+                          int active, int queued, double meanHashMs, double maxHashMs,
+                          double meanWaitMs, double maxWaitMs) {
+    }
+}
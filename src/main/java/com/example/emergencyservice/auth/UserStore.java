@@ -0,0 +1,178 @@
+package com.example.emergencyservice.auth;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of users and their BCrypt hashes, backed by a {@code name:hash} file.
+ * <p>
+ * Readers see an immutable snapshot and never lock. Writers are serialized, build a modified copy,
+ * persist it by writing a temp file and renaming it over the original, and only then publish it, so
+ * the file and the index never disagree. A watcher thread reloads the index when the file is changed
+ * by something other than this store.
+ */
+public class UserStore implements Closeable {
+
+    private final Path file;
+    private final Object writeLock = new Object();
+
+    private volatile Map<String, String> users = Map.of();
+    private FileTime lastWritten;
+    private WatchService watchService;
+    private Thread watcher;
+
+    public UserStore(Path file) {
+        this.file = file.toAbsolutePath();
+    }
+
+    /**
+     * Loads the file and starts watching its directory for external edits.
+     */
+    public void open() throws IOException {
+        Files.createDirectories(file.getParent());
+        reload();
+        watchService = file.getFileSystem().newWatchService();
+        file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        watcher = new Thread(this::runWatcher, "user-store-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * BCrypt hash of the user's password, or null if there is no such user.
+     */
+    public String passwordHash(String username) {
+        return users.get(username);
+    }
+
+    public boolean add(String username, String passwordHash) throws IOException {
+        synchronized (writeLock) {
+            if (users.containsKey(username)) {
+                return false;
+            }
+            Map<String, String> updated = new LinkedHashMap<>(users);
+            updated.put(username, passwordHash);
+            publish(updated);
+            return true;
+        }
+    }
+
+    public boolean remove(String username) throws IOException {
+        synchronized (writeLock) {
+            if (!users.containsKey(username)) {
+                return false;
+            }
+            Map<String, String> updated = new LinkedHashMap<>(users);
+            updated.remove(username);
+            publish(updated);
+            return true;
+        }
+    }
+
+    /**
+     * Username/hash pairs in file order.
+     */
+    public List<String[]> list() {
+        List<String[]> result = new ArrayList<>();
+        users.forEach((username, hash) -> result.add(new String[]{username, hash}));
+        return result;
+    }
+
+    /**
+     * Re-reads the file unless it is the one this store wrote last. A missing file keeps the current index.
+     */
+    public void reload() throws IOException {
+        synchronized (writeLock) {
+            FileTime modified;
+            List<String> lines;
+            try {
+                modified = Files.getLastModifiedTime(file);
+                if (modified.equals(lastWritten)) {
+                    return;
+                }
+                lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+            } catch (NoSuchFileException e) {
+                return;
+            }
+
+            Map<String, String> loaded = new LinkedHashMap<>();
+            for (String line : lines) {
+                if (line.trim().isEmpty()) continue;
+                String[] parts = line.split(":", 2);
+                if (parts.length == 2) {
+                    loaded.put(parts[0].trim(), parts[1].trim());
+                }
+            }
+            users = Collections.unmodifiableMap(loaded);
+            lastWritten = modified;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private void publish(Map<String, String> updated) throws IOException {
+        List<String> lines = new ArrayList<>(updated.size());
+        updated.forEach((username, hash) -> lines.add(username + ":" + hash));
+
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temp, lines, StandardCharsets.UTF_8);
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        lastWritten = Files.getLastModifiedTime(file);
+        users = Collections.unmodifiableMap(updated);
+    }
+
+    private void runWatcher() {
+        Path name = file.getFileName();
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            boolean changed = false;
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context())) {
+                    changed = true;
+                }
+            }
+            if (changed) {
+                try {
+                    reload();
+                } catch (IOException e) {
+                    System.err.println("Error reloading users: " + e.getMessage());
+                }
+            }
+            if (!key.reset()) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.example.emergencyservice.cluster;
+
+import com.example.emergencyservice.model.BroadcastJob;
+import com.example.emergencyservice.model.DeliveryStatus;
+import com.example.emergencyservice.model.Priority;
+import com.example.emergencyservice.util.Fingerprints;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Broadcast state that instances exchange through the shared directory.
+ * <ul>
+ *     <li>{@code inbox/shard-NNN/} holds handoffs: the part of a broadcast whose recipients hash to that
+ *     shard, written by the instance that accepted the broadcast and consumed by the shard's owner.</li>
+ *     <li>{@code jobs/<id>/} holds a manifest listing the shards of a broadcast and, per shard, the
+ *     progress last reported by its owner, so any instance can answer for any job.</li>
+ *     <li>{@code keys/} holds idempotency key claims, one file per key fingerprint.</li>
+ * </ul>
+ * Files are written to a temp name and renamed into place, so readers never see partial content.
+ */
+public class ClusterFiles {
+
+    private static final int MAGIC = 0x434c5331;
+    private static final String HANDOFF_SUFFIX = ".job";
+    private static final String MANIFEST = "manifest";
+
+    private final Path inbox;
+    private final Path jobs;
+    private final Path keys;
+    private final int shards;
+
+    public ClusterFiles(Path directory, int shards) {
+        this.inbox = directory.resolve("inbox");
+        this.jobs = directory.resolve("jobs");
+        this.keys = directory.resolve("keys");
+        this.shards = Math.max(1, shards);
+    }
+
+    public int shardOf(String recipient) {
+        return Math.floorMod(Fingerprints.of(recipient), shards);
+    }
+
+    /**
+     * Splits a broadcast by shard and writes one handoff per shard, then the manifest listing the shards
+     * handed off. Returns the recipients of shards whose handoff could not be written, which nobody else
+     * will deliver. A broadcast whose manifest could not be written still goes out but cannot be looked up.
+     */
+    public List<String> publish(BroadcastJob job, String message) {
+        Map<Integer, List<String>> byShard = new TreeMap<>();
+        for (String recipient : job.getRecipients()) {
+            byShard.computeIfAbsent(shardOf(recipient), key -> new ArrayList<>()).add(recipient);
+        }
+        // Zero-padded time first, so a directory listing is in arrival order
+        String name = String.format("%015d-%s%s", System.currentTimeMillis(), job.getId(), HANDOFF_SUFFIX);
+        List<Integer> published = new ArrayList<>(byShard.size());
+        List<String> remaining = new ArrayList<>();
+        for (Map.Entry<Integer, List<String>> shard : byShard.entrySet()) {
+            try {
+                write(shardInbox(shard.getKey()).resolve(name), out -> {
+                    out.writeInt(MAGIC);
+                    out.writeUTF(job.getId());
+                    out.writeUTF(job.getUsername());
+                    out.writeUTF(job.getPriority().getName());
+                    writeText(out, message);
+                    writeRecipients(out, shard.getValue());
+                });
+                published.add(shard.getKey());
+            } catch (IOException e) {
+                System.err.println("Error handing off shard " + shard.getKey() + " of job " + job.getId() + ": "
+                        + e.getMessage());
+                remaining.addAll(shard.getValue());
+            }
+        }
+        if (published.isEmpty()) {
+            return remaining;
+        }
+        try {
+            write(jobs.resolve(job.getId()).resolve(MANIFEST), out -> {
+                out.writeInt(MAGIC);
+                out.writeUTF(job.getUsername());
+                out.writeUTF(job.getPriority().getName());
+                out.writeLong(job.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+                out.writeInt(published.size());
+                for (int shard : published) {
+                    out.writeInt(shard);
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Error writing manifest of job " + job.getId() + ": " + e.getMessage());
+        }
+        return remaining;
+    }
+
+    /**
+     * Handoffs waiting in a shard's inbox, oldest first. Unreadable files are skipped.
+     */
+    public List<Handoff> inbox(int shard) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(shardInbox(shard))) {
+            files = stream.filter(path -> path.getFileName().toString().endsWith(HANDOFF_SUFFIX))
+                    .sorted(Comparator.comparing(path -> path.getFileName().toString()))
+                    .toList();
+        } catch (NoSuchFileException e) {
+            return List.of();
+        }
+        List<Handoff> handoffs = new ArrayList<>(files.size());
+        for (Path file : files) {
+            try (DataInputStream in = open(file)) {
+                String jobId = in.readUTF();
+                String username = in.readUTF();
+                Priority priority = Priority.byName(in.readUTF());
+                String message = readText(in);
+                handoffs.add(new Handoff(file, shard, jobId, username, priority, message, readRecipients(in)));
+            } catch (NoSuchFileException e) {
+                // Taken by a previous owner that had not yet let go of the shard
+            } catch (IOException e) {
+                System.err.println("Error reading handoff " + file + ": " + e.getMessage());
+            }
+        }
+        return handoffs;
+    }
+
+    public void remove(Handoff handoff) throws IOException {
+        Files.deleteIfExists(handoff.file());
+    }
+
+    /**
+     * Records the current state of a shard's part of a broadcast.
+     */
+    public void writeProgress(int shard, BroadcastJob part) throws IOException {
+        write(jobs.resolve(part.getId()).resolve(shardName(shard)), out -> {
+            out.writeInt(MAGIC);
+            out.writeBoolean(part.getState() == BroadcastJob.State.COMPLETED);
+            List<String> recipients = part.getRecipients();
+            out.writeInt(recipients.size());
+            for (int i = 0; i < recipients.size(); i++) {
+                out.writeUTF(recipients.get(i));
+                out.writeByte(part.status(i).ordinal());
+            }
+        });
+    }
+
+    /**
+     * A broadcast as reported by the owners of its shards, or null if it is unknown. Shards whose owner
+     * has not picked up the handoff yet count as queued.
+     */
+    public BroadcastJob job(String jobId) throws IOException {
+        if (jobId.isEmpty() || !jobId.chars().allMatch(Character::isLetterOrDigit)) {
+            return null;
+        }
+        Path directory = jobs.resolve(jobId);
+        String username;
+        Priority priority;
+        LocalDateTime createdAt;
+        int[] jobShards;
+        try (DataInputStream in = open(directory.resolve(MANIFEST))) {
+            username = in.readUTF();
+            priority = Priority.byName(in.readUTF());
+            createdAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(in.readLong()), ZoneId.systemDefault());
+            jobShards = new int[in.readInt()];
+            for (int i = 0; i < jobShards.length; i++) {
+                jobShards[i] = in.readInt();
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        List<String> recipients = new ArrayList<>();
+        List<DeliveryStatus> statuses = new ArrayList<>();
+        boolean started = false;
+        boolean completed = true;
+        for (int shard : jobShards) {
+            try (DataInputStream in = open(directory.resolve(shardName(shard)))) {
+                started = true;
+                completed &= in.readBoolean();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    recipients.add(in.readUTF());
+                    statuses.add(DeliveryStatus.values()[in.readUnsignedByte()]);
+                }
+                continue;
+            } catch (NoSuchFileException e) {
+                completed = false;
+            }
+            for (Handoff handoff : inbox(shard)) {
+                if (handoff.jobId().equals(jobId)) {
+                    recipients.addAll(handoff.recipients());
+                    handoff.recipients().forEach(recipient -> statuses.add(DeliveryStatus.QUEUED));
+                }
+            }
+        }
+
+        BroadcastJob job = new BroadcastJob(jobId, username, recipients, priority, createdAt);
+        for (int i = 0; i < statuses.size(); i++) {
+            job.update(i, statuses.get(i));
+        }
+        if (started) {
+            job.setState(completed ? BroadcastJob.State.COMPLETED : BroadcastJob.State.RUNNING);
+        }
+        return job;
+    }
+
+    /**
+     * Claims an idempotency key for {@code jobId}. Returns {@code jobId} if this call claimed it, or the
+     * job that claimed it first.
+     */
+    public String claim(long key, String jobId) throws IOException {
+        Files.createDirectories(keys);
+        Path file = keys.resolve(String.format("%016x", key));
+        Path temp = Files.createTempFile(keys, "claim", ".tmp");
+        try {
+            Files.writeString(temp, jobId, StandardCharsets.UTF_8);
+            // A hard link cannot replace an existing file, which makes the claim atomic
+            Files.createLink(file, temp);
+            return jobId;
+        } catch (FileAlreadyExistsException e) {
+            return Files.readString(file, StandardCharsets.UTF_8);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Deletes broadcasts and key claims last written more than the given times ago.
+     */
+    public void cleanup(long jobRetentionMillis, long keyTtlMillis) throws IOException {
+        long now = System.currentTimeMillis();
+        if (Files.isDirectory(jobs)) {
+            try (DirectoryStream<Path> directories = Files.newDirectoryStream(jobs)) {
+                for (Path directory : directories) {
+                    Path manifest = directory.resolve(MANIFEST);
+                    if (Files.exists(manifest) && olderThan(manifest, now - jobRetentionMillis)) {
+                        deleteDirectory(directory);
+                    }
+                }
+            }
+        }
+        if (Files.isDirectory(keys)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(keys)) {
+                for (Path file : files) {
+                    if (olderThan(file, now - keyTtlMillis)) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean olderThan(Path file, long cutoff) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis() < cutoff;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    private Path shardInbox(int shard) {
+        return inbox.resolve(shardName(shard));
+    }
+
+    private static String shardName(int shard) {
+        return String.format("shard-%03d", shard);
+    }
+
+    private static DataInputStream open(Path file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("unrecognized format");
+            }
+            return in;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static void write(Path file, Writer writer) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                writer.write(out);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Messages are written as length-prefixed UTF-8, since {@code writeUTF} stops at 64 KB.
+     */
+    private static void writeText(DataOutputStream out, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeRecipients(DataOutputStream out, List<String> recipients) throws IOException {
+        out.writeInt(recipients.size());
+        for (String recipient : recipients) {
+            out.writeUTF(recipient);
+        }
+    }
+
+    private static List<String> readRecipients(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        List<String> recipients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            recipients.add(in.readUTF());
+        }
+        return recipients;
+    }
+
+    private interface Writer {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * The part of a broadcast that one shard owner delivers.
+     */
+    public record Handoff(Path file, int shard, String jobId, String username, Priority priority, String message,
+                          List<String> recipients) {
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.emergencyservice.cluster;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Time-limited ownership of shards, kept as files in a directory shared by all instances.
+ * <p>
+ * Every instance has a heartbeat file under {@code nodes/} and holds its shards through files under
+ * {@code leases/}, each naming the owner and an expiry time. {@link #renew} runs under an exclusive lock
+ * on {@code leases.lock}: it refreshes the heartbeat and the owned leases, then claims free or expired
+ * shards up to a fair share, {@code ceil(shards / live nodes)}. Shards owned beyond the fair share are
+ * reported as surplus; the caller winds them down and hands them back on a later renewal, which lets a
+ * joining instance take its share.
+ * <p>
+ * Expiry times are wall-clock milliseconds, so instances on different machines need synchronized clocks.
+ * An instance that misses renewals for a whole TTL loses its shards to others and must stop working on
+ * them as soon as a renewal no longer lists them.
+ */
+public class ShardLeases {
+
+    /**
+     * File locks are held per process, so instances within one JVM also take an in-process lock.
+     */
+    private static final Map<Path, ReentrantLock> LOCAL_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private final Path nodes;
+    private final Path leases;
+    private final String nodeId;
+    private final int shards;
+    private final long ttlMillis;
+    private final ReentrantLock localLock;
+
+    public ShardLeases(Path directory, String nodeId, int shards, long ttlMillis) {
+        if (nodeId.isBlank() || nodeId.contains(" ") || nodeId.contains("/")) {
+            throw new IllegalArgumentException("Invalid node ID: " + nodeId);
+        }
+        this.directory = directory.toAbsolutePath().normalize();
+        this.nodes = this.directory.resolve("nodes");
+        this.leases = this.directory.resolve("leases");
+        this.nodeId = nodeId;
+        this.shards = Math.max(1, shards);
+        this.ttlMillis = ttlMillis;
+        this.localLock = LOCAL_LOCKS.computeIfAbsent(this.directory, key -> new ReentrantLock());
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public int shards() {
+        return shards;
+    }
+
+    /**
+     * Hands back the shards in {@code release}, renews the rest and claims free shards up to the fair share.
+     */
+    public Assignment renew(Set<Integer> release) throws IOException {
+        return locked(() -> {
+            long now = System.currentTimeMillis();
+            write(nodes.resolve(nodeId), Long.toString(now + ttlMillis));
+            int liveNodes = liveNodes(now);
+            int fairShare = (shards + liveNodes - 1) / liveNodes;
+
+            TreeSet<Integer> owned = new TreeSet<>();
+            TreeSet<Integer> free = new TreeSet<>();
+            for (int shard = 0; shard < shards; shard++) {
+                Lease lease = read(shard);
+                boolean mine = lease != null && lease.owner.equals(nodeId) && lease.expiresAt > now;
+                if (mine && release.contains(shard)) {
+                    Files.deleteIfExists(leaseFile(shard));
+                    free.add(shard);
+                } else if (mine) {
+                    owned.add(shard);
+                } else if (lease == null || lease.expiresAt <= now) {
+                    free.add(shard);
+                }
+            }
+            for (int shard : free) {
+                if (owned.size() >= fairShare) {
+                    break;
+                }
+                if (!release.contains(shard)) {
+                    owned.add(shard);
+                }
+            }
+            for (int shard : owned) {
+                write(leaseFile(shard), nodeId + " " + (now + ttlMillis));
+            }
+
+            TreeSet<Integer> surplus = new TreeSet<>();
+            for (int shard : owned.descendingSet()) {
+                if (owned.size() - surplus.size() <= fairShare) {
+                    break;
+                }
+                surplus.add(shard);
+            }
+            return new Assignment(Collections.unmodifiableSet(owned), Collections.unmodifiableSet(surplus),
+                    liveNodes);
+        });
+    }
+
+    /**
+     * Gives up every shard and the heartbeat, for a clean shutdown.
+     */
+    public void releaseAll() throws IOException {
+        locked(() -> {
+            for (int shard = 0; shard < shards; shard++) {
+                Lease lease = read(shard);
+                if (lease != null && lease.owner.equals(nodeId)) {
+                    Files.deleteIfExists(leaseFile(shard));
+                }
+            }
+            Files.deleteIfExists(nodes.resolve(nodeId));
+            return null;
+        });
+    }
+
+    private int liveNodes(long now) throws IOException {
+        int live = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(nodes)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    continue;
+                }
+                long expiresAt = parseLong(readString(file));
+                if (expiresAt > now) {
+                    live++;
+                } else if (expiresAt < now - ttlMillis) {
+                    // Long gone; other instances would only keep counting it as dead
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+        return Math.max(1, live);
+    }
+
+    private Lease read(int shard) throws IOException {
+        String content = readString(leaseFile(shard));
+        int space = content == null ? -1 : content.indexOf(' ');
+        if (space < 0) {
+            return null;
+        }
+        return new Lease(content.substring(0, space), parseLong(content.substring(space + 1).trim()));
+    }
+
+    private Path leaseFile(int shard) {
+        return leases.resolve(String.format("shard-%03d", shard));
+    }
+
+    private <T> T locked(LockedAction<T> action) throws IOException {
+        Files.createDirectories(nodes);
+        Files.createDirectories(leases);
+        localLock.lock();
+        try (FileChannel channel = FileChannel.open(directory.resolve("leases.lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock()) {
+            return action.run();
+        } finally {
+            localLock.unlock();
+        }
+    }
+
+    private static String readString(Path file) throws IOException {
+        try {
+            return Files.readString(file, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static long parseLong(String value) {
+        try {
+            return value == null ? 0 : Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void write(Path file, String content) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.writeString(temp, content, StandardCharsets.UTF_8);
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private interface LockedAction<T> {
+        T run() throws IOException;
+    }
+
+    private record Lease(String owner, long expiresAt) {
+    }
+
+    /**
+     * Shards this instance now holds, the ones among them it should hand back, and the number of live
+     * instances counted.
+     */
+    public record Assignment(Set<Integer> owned, Set<Integer> surplus, int liveNodes) {
+    }
+}
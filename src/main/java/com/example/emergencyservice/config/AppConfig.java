@@ -1,14 +1,56 @@
 package com.example.emergencyservice.config;
 
+import com.example.emergencyservice.transport.HttpPoolMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
 
 @Configuration
 public class AppConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public HttpPoolMetrics httpPoolMetrics(MeterRegistry meterRegistry) {
+        return new HttpPoolMetrics(meterRegistry);
+    }
+
+    /**
+     * Shared pool for all outbound channel calls. Reactor Netty keeps one pool per remote host,
+     * so the limits below apply per host.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider outboundConnectionProvider(HttpClientConfig httpClientConfig,
+                                                         HttpPoolMetrics httpPoolMetrics) {
+        return ConnectionProvider.builder("outbound")
+                .maxConnections(httpClientConfig.getMaxConnectionsPerHost())
+                .pendingAcquireMaxCount(httpClientConfig.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(Duration.ofMillis(httpClientConfig.getPendingAcquireTimeoutMs()))
+                .maxIdleTime(Duration.ofMillis(httpClientConfig.getMaxIdleTimeMs()))
+                .maxLifeTime(Duration.ofMillis(httpClientConfig.getMaxLifeTimeMs()))
+                .evictInBackground(Duration.ofMillis(httpClientConfig.getEvictionIntervalMs()))
+                .metrics(true, () -> httpPoolMetrics)
+                .build();
+    }
+
+    @Bean
+    public HttpClient outboundHttpClient(ConnectionProvider outboundConnectionProvider,
+                                         HttpClientConfig httpClientConfig) {
+        return HttpClient.create(outboundConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, httpClientConfig.getConnectTimeoutMs())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(Duration.ofMillis(httpClientConfig.getResponseTimeoutMs()));
+    }
+
+    @Bean
+    public WebClient webClient(HttpClient outboundHttpClient) {
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(outboundHttpClient))
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,95 @@
+package com.example.emergencyservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Several instances sharing one directory. Recipients are split into {@code shards} by hash, and each
+ * shard has its own outbound queue that only the instance holding its lease works on. Leases and node
+ * heartbeats expire after {@code leaseTtlMs} and are renewed every {@code heartbeatMs}.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.cluster")
+public class ClusterConfig {
+    private boolean enabled = false;
+    private String directory = "./data/cluster/";
+    private String nodeId = "";
+    private int shards = 16;
+    private long leaseTtlMs = 15_000;
+    private long heartbeatMs = 3_000;
+    private long pollMs = 100;
+    private long progressIntervalMs = 500;
+    private long retentionMs = 3_600_000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public void setNodeId(String nodeId) {
+        this.nodeId = nodeId;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public void setShards(int shards) {
+        this.shards = shards;
+    }
+
+    public long getLeaseTtlMs() {
+        return leaseTtlMs;
+    }
+
+    public void setLeaseTtlMs(long leaseTtlMs) {
+        this.leaseTtlMs = leaseTtlMs;
+    }
+
+    public long getHeartbeatMs() {
+        return heartbeatMs;
+    }
+
+    public void setHeartbeatMs(long heartbeatMs) {
+        this.heartbeatMs = heartbeatMs;
+    }
+
+    public long getPollMs() {
+        return pollMs;
+    }
+
+    public void setPollMs(long pollMs) {
+        this.pollMs = pollMs;
+    }
+
+    public long getProgressIntervalMs() {
+        return progressIntervalMs;
+    }
+
+    public void setProgressIntervalMs(long progressIntervalMs) {
+        this.progressIntervalMs = progressIntervalMs;
+    }
+
+    public long getRetentionMs() {
+        return retentionMs;
+    }
+
+    public void setRetentionMs(long retentionMs) {
+        this.retentionMs = retentionMs;
+    }
+}
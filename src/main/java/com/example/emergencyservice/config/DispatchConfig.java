@@ -0,0 +1,329 @@
+package com.example.emergencyservice.config;
+
+import com.example.emergencyservice.model.Channel;
+import com.example.emergencyservice.model.Priority;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "dispatch")
+public class DispatchConfig {
+    private Limits telegram = new Limits(8, 25, 25);
+    private Limits email = new Limits(4, 10, 10);
+    private Limits sms = new Limits(2, 5, 5);
+    private Jobs jobs = new Jobs();
+    private Retry retry = new Retry();
+    private Dedup dedup = new Dedup();
+    private Priorities priorities = new Priorities();
+    private Reactive reactive = new Reactive();
+
+    public static class Jobs {
+        private int retained = 200;
+        private long eventIntervalMs = 250;
+
+        public int getRetained() {
+            return retained;
+        }
+
+        public void setRetained(int retained) {
+            this.retained = retained;
+        }
+
+        public long getEventIntervalMs() {
+            return eventIntervalMs;
+        }
+
+        public void setEventIntervalMs(long eventIntervalMs) {
+            this.eventIntervalMs = eventIntervalMs;
+        }
+    }
+
+    /**
+     * Retries of transient failures. The n-th retry waits a random time between half and all of
+     * {@code initialDelayMs * multiplier^(n-1)}, capped at {@code maxDelayMs}. A delivery that still
+     * fails after {@code maxAttempts} attempts in total goes to the dead-letter file. Refusals by an open
+     * circuit are counted apart, with the same delays, and a delivery refused {@code maxRefusals} times
+     * goes there as well.
+     */
+    public static class Retry {
+        private int maxAttempts = 5;
+        private int maxRefusals = 10;
+        private long initialDelayMs = 2000;
+        private long maxDelayMs = 120000;
+        private double multiplier = 2.0;
+        private String deadLetterFile = "dead_letters.txt";
+
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        public void setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        public int getMaxRefusals() {
+            return maxRefusals;
+        }
+
+        public void setMaxRefusals(int maxRefusals) {
+            this.maxRefusals = maxRefusals;
+        }
+
+        public long getInitialDelayMs() {
+            return initialDelayMs;
+        }
+
+        public void setInitialDelayMs(long initialDelayMs) {
+            this.initialDelayMs = initialDelayMs;
+        }
+
+        public long getMaxDelayMs() {
+            return maxDelayMs;
+        }
+
+        public void setMaxDelayMs(long maxDelayMs) {
+            this.maxDelayMs = maxDelayMs;
+        }
+
+        public double getMultiplier() {
+            return multiplier;
+        }
+
+        public void setMultiplier(double multiplier) {
+            this.multiplier = multiplier;
+        }
+
+        public String getDeadLetterFile() {
+            return deadLetterFile;
+        }
+
+        public void setDeadLetterFile(String deadLetterFile) {
+            this.deadLetterFile = deadLetterFile;
+        }
+    }
+
+    /**
+     * Duplicate /send detection. A repeated idempotency key attaches to its original job for
+     * {@code keyTtlMs}. The same message to the same recipients attaches to the earlier job while that
+     * job is still in flight, within {@code windowMs}. Each window holds at most {@code maxEntries}.
+     */
+    public static class Dedup {
+        private long windowMs = 120000;
+        private long keyTtlMs = 3600000;
+        private int maxEntries = 10000;
+
+        public long getWindowMs() {
+            return windowMs;
+        }
+
+        public void setWindowMs(long windowMs) {
+            this.windowMs = windowMs;
+        }
+
+        public long getKeyTtlMs() {
+            return keyTtlMs;
+        }
+
+        public void setKeyTtlMs(long keyTtlMs) {
+            this.keyTtlMs = keyTtlMs;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+    }
+
+    /**
+     * Priority lanes. Within each channel, waiting deliveries get free slots in proportion to the weight
+     * of their lane, and a lane that had nothing waiting is served next. Broadcasts without an explicit
+     * priority are urgent if the message starts with "СРОЧНО", and bulk from {@code bulkThreshold}
+     * recipients on (0 turns that off).
+     */
+    public static class Priorities {
+        private int urgentWeight = 16;
+        private int normalWeight = 4;
+        private int bulkWeight = 1;
+        private int bulkThreshold = 1000;
+
+        public int getUrgentWeight() {
+            return urgentWeight;
+        }
+
+        public void setUrgentWeight(int urgentWeight) {
+            this.urgentWeight = urgentWeight;
+        }
+
+        public int getNormalWeight() {
+            return normalWeight;
+        }
+
+        public void setNormalWeight(int normalWeight) {
+            this.normalWeight = normalWeight;
+        }
+
+        public int getBulkWeight() {
+            return bulkWeight;
+        }
+
+        public void setBulkWeight(int bulkWeight) {
+            this.bulkWeight = bulkWeight;
+        }
+
+        public int getBulkThreshold() {
+            return bulkThreshold;
+        }
+
+        public void setBulkThreshold(int bulkThreshold) {
+            this.bulkThreshold = bulkThreshold;
+        }
+
+        public int getWeight(Priority priority) {
+            return switch (priority) {
+                case URGENT -> urgentWeight;
+                case NORMAL -> normalWeight;
+                case BULK -> bulkWeight;
+            };
+        }
+    }
+
+    /**
+     * Non-blocking Telegram sends. When enabled, a broadcast's Telegram deliveries are fanned out on the
+     * HTTP client's event loop, at most {@code maxInFlight} at a time, instead of taking a virtual thread
+     * each. Channel limits, priorities and breakers apply as before.
+     */
+    public static class Reactive {
+        private boolean enabled = false;
+        private int maxInFlight = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        public void setMaxInFlight(int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+    }
+
+    public static class Limits {
+        private int maxConcurrency;
+        private double ratePerSecond;
+        private int burst;
+
+        public Limits() {
+        }
+
+        public Limits(int maxConcurrency, double ratePerSecond, int burst) {
+            this.maxConcurrency = maxConcurrency;
+            this.ratePerSecond = ratePerSecond;
+            this.burst = burst;
+        }
+
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        public double getRatePerSecond() {
+            return ratePerSecond;
+        }
+
+        public void setRatePerSecond(double ratePerSecond) {
+            this.ratePerSecond = ratePerSecond;
+        }
+
+        public int getBurst() {
+            return burst;
+        }
+
+        public void setBurst(int burst) {
+            this.burst = burst;
+        }
+    }
+
+    public Limits getLimits(Channel channel) {
+        return switch (channel) {
+            case TELEGRAM -> telegram;
+            case EMAIL -> email;
+            case SMS -> sms;
+        };
+    }
+
+    public Limits getTelegram() {
+        return telegram;
+    }
+
+    public void setTelegram(Limits telegram) {
+        this.telegram = telegram;
+    }
+
+    public Limits getEmail() {
+        return email;
+    }
+
+    public void setEmail(Limits email) {
+        this.email = email;
+    }
+
+    public Limits getSms() {
+        return sms;
+    }
+
+    public void setSms(Limits sms) {
+        this.sms = sms;
+    }
+
+    public Jobs getJobs() {
+        return jobs;
+    }
+
+    public void setJobs(Jobs jobs) {
+        this.jobs = jobs;
+    }
+
+    public Retry getRetry() {
+        return retry;
+    }
+
+    public void setRetry(Retry retry) {
+        this.retry = retry;
+    }
+
+    public Dedup getDedup() {
+        return dedup;
+    }
+
+    public void setDedup(Dedup dedup) {
+        this.dedup = dedup;
+    }
+
+    public Priorities getPriorities() {
+        return priorities;
+    }
+
+    public void setPriorities(Priorities priorities) {
+        this.priorities = priorities;
+    }
+
+    public Reactive getReactive() {
+        return reactive;
+    }
+
+    public void setReactive(Reactive reactive) {
+        this.reactive = reactive;
+    }
+}
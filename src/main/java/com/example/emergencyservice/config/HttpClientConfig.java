@@ -0,0 +1,81 @@
+package com.example.emergencyservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "http.client")
+public class HttpClientConfig {
+    private int connectTimeoutMs = 3_000;
+    private int responseTimeoutMs = 10_000;
+    private int maxConnectionsPerHost = 50;
+    private int pendingAcquireMaxCount = 500;
+    private long pendingAcquireTimeoutMs = 5_000;
+    private long maxIdleTimeMs = 30_000;
+    private long maxLifeTimeMs = 300_000;
+    private long evictionIntervalMs = 15_000;
+
+    public int getConnectTimeoutMs() {
+        return connectTimeoutMs;
+    }
+
+    public void setConnectTimeoutMs(int connectTimeoutMs) {
+        this.connectTimeoutMs = connectTimeoutMs;
+    }
+
+    public int getResponseTimeoutMs() {
+        return responseTimeoutMs;
+    }
+
+    public void setResponseTimeoutMs(int responseTimeoutMs) {
+        this.responseTimeoutMs = responseTimeoutMs;
+    }
+
+    public int getMaxConnectionsPerHost() {
+        return maxConnectionsPerHost;
+    }
+
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    public int getPendingAcquireMaxCount() {
+        return pendingAcquireMaxCount;
+    }
+
+    public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) {
+        this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+    }
+
+    public long getPendingAcquireTimeoutMs() {
+        return pendingAcquireTimeoutMs;
+    }
+
+    public void setPendingAcquireTimeoutMs(long pendingAcquireTimeoutMs) {
+        this.pendingAcquireTimeoutMs = pendingAcquireTimeoutMs;
+    }
+
+    public long getMaxIdleTimeMs() {
+        return maxIdleTimeMs;
+    }
+
+    public void setMaxIdleTimeMs(long maxIdleTimeMs) {
+        this.maxIdleTimeMs = maxIdleTimeMs;
+    }
+
+    public long getMaxLifeTimeMs() {
+        return maxLifeTimeMs;
+    }
+
+    public void setMaxLifeTimeMs(long maxLifeTimeMs) {
+        this.maxLifeTimeMs = maxLifeTimeMs;
+    }
+
+    public long getEvictionIntervalMs() {
+        return evictionIntervalMs;
+    }
+
+    public void setEvictionIntervalMs(long evictionIntervalMs) {
+        this.evictionIntervalMs = evictionIntervalMs;
+    }
+}
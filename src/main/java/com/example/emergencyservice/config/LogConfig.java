@@ -0,0 +1,81 @@
+package com.example.emergencyservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.log")
+public class LogConfig {
+    private String directory = "./data/";
+    private int capacity = 8192;
+    private int flushBytes = 64 * 1024;
+    private long flushIntervalMs = 200;
+    private long maxFileSize = 10 * 1024 * 1024;
+    private int maxHistory = 5;
+    private long drainTimeoutMs = 5_000;
+    private boolean console = false;
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getFlushBytes() {
+        return flushBytes;
+    }
+
+    public void setFlushBytes(int flushBytes) {
+        this.flushBytes = flushBytes;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    public void setMaxFileSize(long maxFileSize) {
+        this.maxFileSize = maxFileSize;
+    }
+
+    public int getMaxHistory() {
+        return maxHistory;
+    }
+
+    public void setMaxHistory(int maxHistory) {
+        this.maxHistory = maxHistory;
+    }
+
+    public long getDrainTimeoutMs() {
+        return drainTimeoutMs;
+    }
+
+    public void setDrainTimeoutMs(long drainTimeoutMs) {
+        this.drainTimeoutMs = drainTimeoutMs;
+    }
+
+    public boolean isConsole() {
+        return console;
+    }
+
+    public void setConsole(boolean console) {
+        this.console = console;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.emergencyservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "mail.pool")
+public class MailPoolConfig {
+    private String from = "no-reply@paynet.uz";
+    private int size = 3;
+    private int maxMessagesPerConnection = 100;
+    private long borrowTimeoutMs = 10_000;
+    private boolean bccEnabled = false;
+    private int bccBatchSize = 50;
+
+    public String getFrom() {
+        return from;
+    }
+
+    public void setFrom(String from) {
+        this.from = from;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public int getMaxMessagesPerConnection() {
+        return maxMessagesPerConnection;
+    }
+
+    public void setMaxMessagesPerConnection(int maxMessagesPerConnection) {
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+    }
+
+    public long getBorrowTimeoutMs() {
+        return borrowTimeoutMs;
+    }
+
+    public void setBorrowTimeoutMs(long borrowTimeoutMs) {
+        this.borrowTimeoutMs = borrowTimeoutMs;
+    }
+
+    public boolean isBccEnabled() {
+        return bccEnabled;
+    }
+
+    public void setBccEnabled(boolean bccEnabled) {
+        this.bccEnabled = bccEnabled;
+    }
+
+    public int getBccBatchSize() {
+        return bccBatchSize;
+    }
+
+    public void setBccBatchSize(int bccBatchSize) {
+        this.bccBatchSize = bccBatchSize;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.emergencyservice.config;
+
+import com.example.emergencyservice.model.Channel;
+import com.example.emergencyservice.service.AuthService;
+import com.example.emergencyservice.service.DeadLetterStore;
+import com.example.emergencyservice.service.MessageService;
+import com.example.emergencyservice.service.OutboundQueue;
+import com.example.emergencyservice.service.RetryScheduler;
+import com.example.emergencyservice.util.CircuitBreaker;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Gauges over state owned by other components. Delivery meters live in
+ * {@link com.example.emergencyservice.metrics.DeliveryMetrics}.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder outboundQueueMetrics(OutboundQueue outboundQueue) {
+        return registry -> Gauge.builder("outbound.queue.depth", outboundQueue, OutboundQueue::pendingCount)
+                .description("Journaled deliveries not yet attempted")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder retryMetrics(RetryScheduler retryScheduler, DeadLetterStore deadLetterStore) {
+        return registry -> {
+            Gauge.builder("delivery.retry.pending", retryScheduler, RetryScheduler::pendingCount)
+                    .description("Failed deliveries waiting for their next attempt")
+                    .register(registry);
+            Gauge.builder("delivery.dead.letters", deadLetterStore, DeadLetterStore::count)
+                    .description("Deliveries in the dead-letter file awaiting re-drive")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder passwordVerifierMetrics(AuthService authService) {
+        return registry -> {
+            Gauge.builder("auth.verifier.queued", authService, service -> service.verificationMetrics().queued())
+                    .description("Password checks waiting for a verifier thread")
+                    .register(registry);
+            Gauge.builder("auth.verifier.active", authService, service -> service.verificationMetrics().active())
+                    .description("Password checks in progress")
+                    .register(registry);
+            FunctionCounter.builder("auth.verifier.rejected", authService,
+                            service -> service.verificationMetrics().rejected())
+                    .description("Logins rejected because the verifier pool was full")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder channelGuardMetrics(MessageService messageService) {
+        return registry -> {
+            for (Channel channel : Channel.values()) {
+                Gauge.builder("delivery.concurrency.limit", messageService,
+                                service -> service.concurrencyLimit(channel))
+                        .description("Current adaptive concurrency limit")
+                        .tag("channel", channel.getName())
+                        .register(registry);
+                Gauge.builder("delivery.circuit.open", messageService,
+                                service -> service.circuitState(channel) == CircuitBreaker.State.OPEN ? 1 : 0)
+                        .description("1 while the channel's circuit breaker is refusing calls")
+                        .tag("channel", channel.getName())
+                        .register(registry);
+            }
+        };
+    }
+}
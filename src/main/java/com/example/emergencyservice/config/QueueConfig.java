@@ -0,0 +1,63 @@
+package com.example.emergencyservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.queue")
+public class QueueConfig {
+    private String directory = "./data/queue/";
+    private int segmentSize = 16 * 1024 * 1024;
+    private int syncBatchSize = 256;
+    private long syncIntervalMs = 5;
+    private long compactionIntervalMs = 30_000;
+    private double compactionThreshold = 0.25;
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public int getSyncBatchSize() {
+        return syncBatchSize;
+    }
+
+    public void setSyncBatchSize(int syncBatchSize) {
+        this.syncBatchSize = syncBatchSize;
+    }
+
+    public long getSyncIntervalMs() {
+        return syncIntervalMs;
+    }
+
+    public void setSyncIntervalMs(long syncIntervalMs) {
+        this.syncIntervalMs = syncIntervalMs;
+    }
+
+    public long getCompactionIntervalMs() {
+        return compactionIntervalMs;
+    }
+
+    public void setCompactionIntervalMs(long compactionIntervalMs) {
+        this.compactionIntervalMs = compactionIntervalMs;
+    }
+
+    public double getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    public void setCompactionThreshold(double compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+}
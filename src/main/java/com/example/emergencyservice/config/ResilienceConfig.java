@@ -0,0 +1,173 @@
+package com.example.emergencyservice.config;
+
+import com.example.emergencyservice.model.Channel;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "resilience")
+public class ResilienceConfig {
+    private Breaker telegram = new Breaker();
+    private Breaker email = new Breaker();
+    private Breaker sms = new Breaker();
+    private Adaptive adaptive = new Adaptive();
+
+    public enum WhenOpen {
+        /**
+         * Fail the call immediately.
+         */
+        FAIL_FAST,
+        /**
+         * Hold the call for up to {@code max-wait-ms} until the breaker lets calls through again.
+         */
+        WAIT
+    }
+
+    public static class Breaker {
+        private boolean enabled = true;
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private double failureRateThreshold = 0.5;
+        private long openDurationMs = 30000;
+        private int halfOpenProbes = 3;
+        private WhenOpen whenOpen = WhenOpen.FAIL_FAST;
+        private long maxWaitMs = 0;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(int windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public double getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(double failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public long getOpenDurationMs() {
+            return openDurationMs;
+        }
+
+        public void setOpenDurationMs(long openDurationMs) {
+            this.openDurationMs = openDurationMs;
+        }
+
+        public int getHalfOpenProbes() {
+            return halfOpenProbes;
+        }
+
+        public void setHalfOpenProbes(int halfOpenProbes) {
+            this.halfOpenProbes = halfOpenProbes;
+        }
+
+        public WhenOpen getWhenOpen() {
+            return whenOpen;
+        }
+
+        public void setWhenOpen(WhenOpen whenOpen) {
+            this.whenOpen = whenOpen;
+        }
+
+        public long getMaxWaitMs() {
+            return maxWaitMs;
+        }
+
+        public void setMaxWaitMs(long maxWaitMs) {
+            this.maxWaitMs = maxWaitMs;
+        }
+    }
+
+    /**
+     * Latency-driven concurrency limit per channel, capped by {@code dispatch.<channel>.max-concurrency}.
+     */
+    public static class Adaptive {
+        private boolean enabled = true;
+        private double latencyTolerance = 2.0;
+        private double backoffRatio = 0.75;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public double getLatencyTolerance() {
+            return latencyTolerance;
+        }
+
+        public void setLatencyTolerance(double latencyTolerance) {
+            this.latencyTolerance = latencyTolerance;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+    }
+
+    public Breaker getBreaker(Channel channel) {
+        return switch (channel) {
+            case TELEGRAM -> telegram;
+            case EMAIL -> email;
+            case SMS -> sms;
+        };
+    }
+
+    public Breaker getTelegram() {
+        return telegram;
+    }
+
+    public void setTelegram(Breaker telegram) {
+        this.telegram = telegram;
+    }
+
+    public Breaker getEmail() {
+        return email;
+    }
+
+    public void setEmail(Breaker email) {
+        this.email = email;
+    }
+
+    public Breaker getSms() {
+        return sms;
+    }
+
+    public void setSms(Breaker sms) {
+        this.sms = sms;
+    }
+
+    public Adaptive getAdaptive() {
+        return adaptive;
+    }
+
+    public void setAdaptive(Adaptive adaptive) {
+        this.adaptive = adaptive;
+    }
+}
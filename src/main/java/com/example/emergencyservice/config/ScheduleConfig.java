@@ -0,0 +1,36 @@
+package com.example.emergencyservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.schedule")
+public class ScheduleConfig {
+    private String file = "schedules.dat";
+    private long tickMs = 1000;
+    private long catchUpWindowMs = 6 * 60 * 60 * 1000L;
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public long getTickMs() {
+        return tickMs;
+    }
+
+    public void setTickMs(long tickMs) {
+        this.tickMs = tickMs;
+    }
+
+    public long getCatchUpWindowMs() {
+        return catchUpWindowMs;
+    }
+
+    public void setCatchUpWindowMs(long catchUpWindowMs) {
+        this.catchUpWindowMs = catchUpWindowMs;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.emergencyservice.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Where HTTP sessions live: {@code container} keeps them in the servlet container's memory, {@code file}
+ * stores them in {@code directory} so that instances sharing it see the same logins.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.session")
+public class SessionConfig {
+    private String store = "container";
+    private String directory = "./data/sessions/";
+    private long maxInactiveMs = 1_800_000;
+    private long cleanupIntervalMs = 60_000;
+
+    public String getStore() {
+        return store;
+    }
+
+    public void setStore(String store) {
+        this.store = store;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public long getMaxInactiveMs() {
+        return maxInactiveMs;
+    }
+
+    public void setMaxInactiveMs(long maxInactiveMs) {
+        this.maxInactiveMs = maxInactiveMs;
+    }
+
+    public long getCleanupIntervalMs() {
+        return cleanupIntervalMs;
+    }
+
+    public void setCleanupIntervalMs(long cleanupIntervalMs) {
+        this.cleanupIntervalMs = cleanupIntervalMs;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.emergencyservice.config;
+
+import com.example.emergencyservice.auth.FileSessionRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Replaces the container's sessions with Spring Session backed by {@link FileSessionRepository} when
+ * {@code app.session.store=file}. Controllers keep using {@code HttpSession} either way.
+ */
+@Configuration
+@EnableSpringHttpSession
+@ConditionalOnProperty(prefix = "app.session", name = "store", havingValue = "file")
+public class SessionStoreConfig {
+
+    @Bean
+    public FileSessionRepository sessionRepository(SessionConfig sessionConfig) {
+        return new FileSessionRepository(Paths.get(sessionConfig.getDirectory()),
+                Duration.ofMillis(sessionConfig.getMaxInactiveMs()), sessionConfig.getCleanupIntervalMs());
+    }
+}
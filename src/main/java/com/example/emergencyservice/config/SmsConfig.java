@@ -12,6 +12,8 @@ public class SmsConfig {
         private String url;
         private String token;
         private boolean enabled = true;
+        private int batchSize = 100;
+        private long timeoutMs = 10_000;
 
         public String getUrl() {
             return url;
@@ -36,6 +38,22 @@ public class SmsConfig {
         public void setEnabled(boolean enabled) {
             this.enabled = enabled;
         }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getTimeoutMs() {
+            return timeoutMs;
+        }
+
+        public void setTimeoutMs(long timeoutMs) {
+            this.timeoutMs = timeoutMs;
+        }
     }
 
     public Api getApi() {
@@ -45,4 +63,4 @@ public class SmsConfig {
     public void setApi(Api api) {
         this.api = api;
     }
-}
\ No newline at end of file
+}
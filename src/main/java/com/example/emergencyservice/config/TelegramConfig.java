@@ -10,6 +10,12 @@ public class TelegramConfig {
 
     public static class Bot {
         private String token;
+        private String apiUrl = "https://api.telegram.org";
+        private double globalRatePerSecond = 30;
+        private double groupChatRatePerSecond = 1;
+        private int maxRetries = 3;
+        private int maxRetryAfterSeconds = 60;
+        private long timeoutMs = 10_000;
 
         public String getToken() {
             return token;
@@ -18,6 +24,54 @@ public class TelegramConfig {
         public void setToken(String token) {
             this.token = token;
         }
+
+        public String getApiUrl() {
+            return apiUrl;
+        }
+
+        public void setApiUrl(String apiUrl) {
+            this.apiUrl = apiUrl;
+        }
+
+        public double getGlobalRatePerSecond() {
+            return globalRatePerSecond;
+        }
+
+        public void setGlobalRatePerSecond(double globalRatePerSecond) {
+            this.globalRatePerSecond = globalRatePerSecond;
+        }
+
+        public double getGroupChatRatePerSecond() {
+            return groupChatRatePerSecond;
+        }
+
+        public void setGroupChatRatePerSecond(double groupChatRatePerSecond) {
+            this.groupChatRatePerSecond = groupChatRatePerSecond;
+        }
+
+        public int getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(int maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        public int getMaxRetryAfterSeconds() {
+            return maxRetryAfterSeconds;
+        }
+
+        public void setMaxRetryAfterSeconds(int maxRetryAfterSeconds) {
+            this.maxRetryAfterSeconds = maxRetryAfterSeconds;
+        }
+
+        public long getTimeoutMs() {
+            return timeoutMs;
+        }
+
+        public void setTimeoutMs(long timeoutMs) {
+            this.timeoutMs = timeoutMs;
+        }
     }
 
     public Bot getBot() {
@@ -27,4 +81,4 @@ public class TelegramConfig {
     public void setBot(Bot bot) {
         this.bot = bot;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,99 @@
+package com.example.emergencyservice.controller;
+
+import com.example.emergencyservice.service.AudienceService;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/audience")
+public class AudienceController {
+
+    private static final int SAMPLE_SIZE = 20;
+
+    private final AudienceService audienceService;
+
+    public AudienceController(AudienceService audienceService) {
+        this.audienceService = audienceService;
+    }
+
+    /**
+     * Size of the audience an expression selects, with the first few addresses as a preview.
+     */
+    @GetMapping
+    public ResponseEntity<?> preview(@RequestParam String q, HttpSession session) {
+        if (session.getAttribute("username") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            return ResponseEntity.ok(new Preview(audienceService.count(q), audienceService.sample(q, SAMPLE_SIZE)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/tags")
+    public ResponseEntity<Map<String, Integer>> tags(HttpSession session) {
+        if (session.getAttribute("username") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(audienceService.tags());
+    }
+
+    @PutMapping("/tags/{tag}")
+    public ResponseEntity<?> setTag(@PathVariable String tag, @RequestBody List<String> addresses,
+                                    HttpSession session) {
+        return update(session, () -> audienceService.setTag(tag, addresses));
+    }
+
+    @PostMapping("/tags/{tag}")
+    public ResponseEntity<?> addToTag(@PathVariable String tag, @RequestBody List<String> addresses,
+                                      HttpSession session) {
+        return update(session, () -> audienceService.addToTag(tag, addresses));
+    }
+
+    @PostMapping("/tags/{tag}/remove")
+    public ResponseEntity<?> removeFromTag(@PathVariable String tag, @RequestBody List<String> addresses,
+                                           HttpSession session) {
+        return update(session, () -> audienceService.removeFromTag(tag, addresses));
+    }
+
+    @DeleteMapping("/tags/{tag}")
+    public ResponseEntity<?> deleteTag(@PathVariable String tag, HttpSession session) {
+        return update(session, () -> audienceService.setTag(tag, List.of()));
+    }
+
+    private ResponseEntity<?> update(HttpSession session, TagUpdate update) {
+        if (session.getAttribute("username") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        try {
+            return ResponseEntity.ok(Map.of("members", update.apply()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error saving recipient tags: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    private interface TagUpdate {
+        int apply() throws IOException;
+    }
+
+    public record Preview(int count, List<String> sample) {
+    }
+}
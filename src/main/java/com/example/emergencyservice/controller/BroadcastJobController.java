@@ -0,0 +1,112 @@
+package com.example.emergencyservice.controller;
+
+import com.example.emergencyservice.config.DispatchConfig;
+import com.example.emergencyservice.model.BroadcastJob;
+import com.example.emergencyservice.model.DeliveryStatus;
+import com.example.emergencyservice.service.BroadcastJobService;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/jobs")
+public class BroadcastJobController {
+
+    private final BroadcastJobService broadcastJobService;
+    private final Duration eventInterval;
+
+    public BroadcastJobController(BroadcastJobService broadcastJobService, DispatchConfig dispatchConfig) {
+        this.broadcastJobService = broadcastJobService;
+        this.eventInterval = Duration.ofMillis(Math.max(10, dispatchConfig.getJobs().getEventIntervalMs()));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<BroadcastJob.Progress> progress(@PathVariable String id, HttpSession session) {
+        if (session.getAttribute("username") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        return broadcastJobService.findJob(id)
+                .map(job -> ResponseEntity.ok(job.progress()))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Server-sent events of a job: a {@code recipient} event whenever a recipient's status changes, then a
+     * {@code progress} event with the totals. The stream ends after the job completes. A client that
+     * reconnects gets every recipient that is no longer queued once more.
+     */
+    @GetMapping(path = "/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<Object>>> events(@PathVariable String id, HttpSession session) {
+        if (session.getAttribute("username") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (broadcastJobService.findJob(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Flux<ServerSentEvent<Object>> events = Flux.defer(() -> {
+            List<DeliveryStatus> seen = new ArrayList<>();
+            // Jobs of other cluster instances are read from disk, hence the elastic scheduler
+            return Flux.interval(Duration.ZERO, eventInterval, Schedulers.boundedElastic())
+                    .map(tick -> broadcastJobService.findJob(id))
+                    .takeWhile(Optional::isPresent)
+                    .map(Optional::get)
+                    .takeUntil(job -> job.getState() == BroadcastJob.State.COMPLETED)
+                    .concatMapIterable(job -> changes(job, seen));
+        });
+        return ResponseEntity.ok(events);
+    }
+
+    /**
+     * Events for the recipients whose status differs from {@code seen}, which is brought up to date, and
+     * the totals if anything changed or the job is complete.
+     */
+    private static List<ServerSentEvent<Object>> changes(BroadcastJob job, List<DeliveryStatus> seen) {
+        List<ServerSentEvent<Object>> events = new ArrayList<>();
+        List<String> recipients = job.getRecipients();
+        boolean first = seen.isEmpty();
+        for (int i = 0; i < recipients.size(); i++) {
+            DeliveryStatus status = job.status(i);
+            if (i == seen.size()) {
+                seen.add(DeliveryStatus.QUEUED);
+            }
+            if (status != seen.get(i)) {
+                seen.set(i, status);
+                events.add(ServerSentEvent.builder((Object) new RecipientEvent(i, recipients.get(i), status))
+                        .event("recipient")
+                        .build());
+            }
+        }
+
+        boolean completed = job.getState() == BroadcastJob.State.COMPLETED;
+        if (first || completed || !events.isEmpty()) {
+            BroadcastJob.Progress progress = job.progress();
+            events.add(ServerSentEvent.builder((Object) new ProgressEvent(progress.state(), progress.total(),
+                            progress.queued(), progress.retrying(), progress.sent(), progress.failed()))
+                    .event("progress")
+                    .build());
+        }
+        return events;
+    }
+
+    public record RecipientEvent(int index, String recipient, DeliveryStatus status) {
+    }
+
+    public record ProgressEvent(BroadcastJob.State state, int total, int queued, int retrying, int sent,
+                                int failed) {
+    }
+}
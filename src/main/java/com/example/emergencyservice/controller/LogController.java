@@ -0,0 +1,69 @@
+package com.example.emergencyservice.controller;
+
+import com.example.emergencyservice.logging.LogSearch;
+import com.example.emergencyservice.service.LogService;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/logs")
+public class LogController {
+
+    private static final Map<String, String> FILES = Map.of(
+            "messages", "logs.txt",
+            "auth", "auth_logs.txt",
+            "errors", "error_logs.txt");
+    private static final int MAX_PAGE_SIZE = 500;
+
+    private final LogService logService;
+
+    public LogController(LogService logService) {
+        this.logService = logService;
+    }
+
+    @GetMapping("/{log}")
+    public ResponseEntity<LogSearch.LogPage> search(@PathVariable String log,
+                                                    @RequestParam(required = false) String user,
+                                                    @RequestParam(required = false) String channel,
+                                                    @RequestParam(required = false) String status,
+                                                    @RequestParam(required = false)
+                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                    LocalDateTime from,
+                                                    @RequestParam(required = false)
+                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                    LocalDateTime to,
+                                                    @RequestParam(defaultValue = "0") int page,
+                                                    @RequestParam(defaultValue = "50") int size,
+                                                    HttpSession session) {
+        if (session.getAttribute("username") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        String file = FILES.get(log);
+        if (file == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (page < 0 || size < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        LogSearch.LogQuery query = new LogSearch.LogQuery(user, channel, status, from, to, page,
+                Math.min(size, MAX_PAGE_SIZE));
+        try {
+            return ResponseEntity.ok(logService.search(file, query));
+        } catch (IOException e) {
+            System.err.println("Error searching " + file + ": " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
@@ -1,31 +1,53 @@
 package com.example.emergencyservice.controller;
 
+import com.example.emergencyservice.model.BroadcastJob;
+import com.example.emergencyservice.model.Channel;
+import com.example.emergencyservice.model.Priority;
+import com.example.emergencyservice.model.ScheduledBroadcast;
 import com.example.emergencyservice.service.*;
+import com.example.emergencyservice.template.MessageTemplate;
+import com.example.emergencyservice.util.PhoneNumbers;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import jakarta.servlet.http.HttpSession;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.UUID;
 
 @Controller
 @RequestMapping("/")
 public class MessageController {
 
     private final AuthService authService;
-    private final MessageService messageService;
-    private final FileService fileService;
-
-    public MessageController(AuthService authService, MessageService messageService,
-                             FileService fileService) {
+    private final BroadcastJobService broadcastJobService;
+    private final ContentRepository contentRepository;
+    private final DeadLetterStore deadLetterStore;
+    private final AudienceService audienceService;
+    private final BroadcastScheduleService broadcastScheduleService;
+
+    public MessageController(AuthService authService, BroadcastJobService broadcastJobService,
+                             ContentRepository contentRepository, DeadLetterStore deadLetterStore,
+                             AudienceService audienceService, BroadcastScheduleService broadcastScheduleService) {
         this.authService = authService;
-        this.messageService = messageService;
-        this.fileService = fileService;
+        this.broadcastJobService = broadcastJobService;
+        this.contentRepository = contentRepository;
+        this.deadLetterStore = deadLetterStore;
+        this.audienceService = audienceService;
+        this.broadcastScheduleService = broadcastScheduleService;
     }
 
     @GetMapping
@@ -46,12 +68,16 @@ public class MessageController {
                         @RequestParam String password,
                         HttpSession session,
                         RedirectAttributes redirectAttributes) {
-        if (authService.authenticate(username, password)) {
-            session.setAttribute("username", username);
-            redirectAttributes.addFlashAttribute("success", "Успешный вход в систему");
-            return "redirect:/dashboard";
+        switch (authService.authenticate(username, password)) {
+            case MATCH -> {
+                session.setAttribute("username", username);
+                redirectAttributes.addFlashAttribute("success", "Успешный вход в систему");
+                return "redirect:/dashboard";
+            }
+            case REJECTED -> redirectAttributes.addFlashAttribute("error",
+                    "Сервер перегружен, повторите попытку через несколько секунд");
+            case MISMATCH -> redirectAttributes.addFlashAttribute("error", "Неверное имя пользователя или пароль");
         }
-        redirectAttributes.addFlashAttribute("error", "Неверное имя пользователя или пароль");
         return "redirect:/login";
     }
 
@@ -66,8 +92,15 @@ public class MessageController {
     }
 
     @PostMapping("/send")
-    public String sendMessage(@RequestParam List<String> recipients,
+    public String sendMessage(@RequestParam(required = false) List<String> recipients,
+                              @RequestParam(required = false) String audience,
                               @RequestParam String message,
+                              @RequestParam(required = false) String idempotencyKey,
+                              @RequestParam(required = false) String priority,
+                              @RequestParam(required = false) String sendAt,
+                              @RequestParam(required = false) String repeat,
+                              @RequestParam(required = false) String catchUp,
+                              @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyHeader,
                               HttpSession session,
                               RedirectAttributes redirectAttributes) {
         String username = (String) session.getAttribute("username");
@@ -80,42 +113,104 @@ public class MessageController {
             return "redirect:/dashboard";
         }
 
+        if (audience != null && !audience.isBlank()) {
+            try {
+                recipients = audienceService.resolve(audience);
+            } catch (IllegalArgumentException e) {
+                redirectAttributes.addFlashAttribute("error", "Неверное выражение аудитории: " + e.getMessage());
+                return "redirect:/dashboard";
+            }
+        }
+
         if (recipients == null || recipients.isEmpty()) {
             redirectAttributes.addFlashAttribute("error", "Выберите хотя бы одного получателя");
             return "redirect:/dashboard";
         }
 
-        int successCount = 0;
-        int totalCount = recipients.size();
-        StringBuilder notSend= new StringBuilder();
+        Priority lane = Priority.byName(priority);
+        if (lane == null && priority != null && !priority.isBlank()) {
+            redirectAttributes.addFlashAttribute("error", "Неизвестный приоритет: " + priority);
+            return "redirect:/dashboard";
+        }
 
-        for (String recipient : recipients) {
-            boolean success;
-            if (recipient.contains("@")) {
-                success = messageService.sendEmail(recipient, "Сообщение от сервиса", message, username);
-            } else {
-                success = messageService.sendTelegramMessage(recipient, message, username);
-            }
+        if ((sendAt != null && !sendAt.isBlank()) || (repeat != null && !repeat.isBlank())) {
+            return schedule(username, message, recipients, audience, lane, sendAt, repeat, catchUp,
+                    redirectAttributes);
+        }
 
-            if (success) {
-                successCount++;
-            }else {
-                notSend.append(recipient).append(", ");
-            }
+        String key = idempotencyHeader != null ? idempotencyHeader : idempotencyKey;
+        BroadcastJobService.Submission submission =
+                broadcastJobService.submit(recipients, message, username, key, lane);
 
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
+        if (submission.duplicate()) {
+            redirectAttributes.addFlashAttribute("success",
+                    "Эта рассылка уже отправлена (ID: " + submission.jobId() + "), повторная отправка не выполнялась");
+        } else {
+            redirectAttributes.addFlashAttribute("success", "Рассылка запущена (ID: " + submission.jobId()
+                    + "). Получателей: " + submission.job().getRecipients().size());
+        }
+        if (submission.job() != null) {
+            redirectAttributes.addFlashAttribute("jobId", submission.jobId());
         }
 
-        if (successCount > 0) {
-            redirectAttributes.addFlashAttribute("success",
-                    "Сообщения отправлены! Успешно: " + successCount + " из " + totalCount + ";\nНе удалось отправить сообщения: " + notSend);
+        return "redirect:/dashboard";
+    }
+
+    /**
+     * Schedules the broadcast instead of sending it. An audience is resolved again on every run.
+     */
+    private String schedule(String username, String message, List<String> recipients, String audience,
+                            Priority lane, String sendAt, String repeat, String catchUp,
+                            RedirectAttributes redirectAttributes) {
+        try {
+            LocalDateTime at = sendAt != null && !sendAt.isBlank() ? LocalDateTime.parse(sendAt) : null;
+            ScheduledBroadcast.CatchUp policy = catchUp != null && !catchUp.isBlank()
+                    ? ScheduledBroadcast.CatchUp.valueOf(catchUp.trim().toUpperCase(Locale.ROOT)) : null;
+            ScheduledBroadcast schedule = broadcastScheduleService.schedule(username, message, recipients, audience,
+                    lane, at, repeat, policy);
+            redirectAttributes.addFlashAttribute("success", "Рассылка запланирована (ID: " + schedule.id()
+                    + "), следующий запуск: "
+                    + schedule.getNextRunTime().format(DateTimeFormatter.ofPattern("dd.MM.yyyy HH:mm")));
+        } catch (DateTimeParseException e) {
+            redirectAttributes.addFlashAttribute("error", "Неверное время отправки: " + sendAt);
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("error", "Не удалось запланировать рассылку: " + e.getMessage());
+        }
+        return "redirect:/dashboard";
+    }
+
+    @PostMapping("/schedules/{id}/cancel")
+    public String cancelSchedule(@PathVariable String id, HttpSession session, RedirectAttributes redirectAttributes) {
+        if (session.getAttribute("username") == null) {
+            return "redirect:/login";
+        }
+
+        if (broadcastScheduleService.cancel(id)) {
+            redirectAttributes.addFlashAttribute("success", "Запланированная рассылка отменена");
         } else {
-            redirectAttributes.addFlashAttribute("error",
-                    "Не удалось отправить сообщения ни одному получателю");
+            redirectAttributes.addFlashAttribute("error", "Запланированная рассылка не найдена");
+        }
+        return "redirect:/dashboard";
+    }
+
+    @PostMapping("/dead-letters/redrive")
+    public String redriveDeadLetters(HttpSession session, RedirectAttributes redirectAttributes) {
+        String username = (String) session.getAttribute("username");
+        if (username == null) {
+            return "redirect:/login";
+        }
+
+        List<BroadcastJob> jobs = broadcastJobService.redriveDeadLetters(username);
+        if (jobs.isEmpty()) {
+            redirectAttributes.addFlashAttribute("error", "Нет недоставленных сообщений");
+            return "redirect:/dashboard";
+        }
+
+        int recipients = jobs.stream().mapToInt(job -> job.getRecipients().size()).sum();
+        redirectAttributes.addFlashAttribute("success",
+                "Повторная отправка запущена. Рассылок: " + jobs.size() + ", получателей: " + recipients);
+        if (jobs.size() == 1) {
+            redirectAttributes.addFlashAttribute("jobId", jobs.get(0).getId());
         }
 
         return "redirect:/dashboard";
@@ -135,12 +230,30 @@ public class MessageController {
             return "redirect:/dashboard";
         }
 
-        fileService.saveTemplate(templateName, templateContent);
+        contentRepository.saveTemplate(templateName, templateContent);
         redirectAttributes.addFlashAttribute("success", "Шаблон сохранен успешно!");
 
         return "redirect:/dashboard";
     }
 
+    /**
+     * Renders a saved template on the server, with request parameters as placeholder values.
+     */
+    @GetMapping("/templates/{name}/render")
+    @ResponseBody
+    public ResponseEntity<String> renderTemplate(@PathVariable String name,
+                                                 @RequestParam Map<String, String> values,
+                                                 HttpSession session) {
+        if (session.getAttribute("username") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        MessageTemplate template = contentRepository.getCompiledTemplate(name);
+        if (template == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(template.render(values::get));
+    }
+
     @GetMapping("/dashboard")
     public String dashboard(Model model, HttpSession session) {
         if (session.getAttribute("username") == null) {
@@ -148,17 +261,17 @@ public class MessageController {
         }
 
         model.addAttribute("username", session.getAttribute("username"));
-        model.addAttribute("templates", fileService.getTemplateNames());
-
-        Map<String, String> templateContents = new HashMap<>();
-        for (String templateName : fileService.getTemplateNames()) {
-            templateContents.put(templateName, fileService.loadTemplate(templateName));
-        }
+        Map<String, String> templateContents = contentRepository.getTemplates();
+        model.addAttribute("templates", templateContents.keySet());
         model.addAttribute("templateContents", templateContents);
 
-        model.addAttribute("telegramRecipients", fileService.loadRecipients("telegram_recipients.txt"));
-        model.addAttribute("emailRecipients", fileService.loadRecipients("email_recipients.txt"));
-        model.addAttribute("smsRecipients", fileService.loadRecipients("sms_recipients.txt"));
+        model.addAttribute("telegramRecipients", contentRepository.getRecipients("telegram_recipients.txt"));
+        model.addAttribute("emailRecipients", contentRepository.getRecipients("email_recipients.txt"));
+        model.addAttribute("smsRecipients", contentRepository.getRecipients("sms_recipients.txt"));
+        model.addAttribute("deadLetterCount", deadLetterStore.count());
+        model.addAttribute("audienceTags", audienceService.tags());
+        model.addAttribute("schedules", broadcastScheduleService.list());
+        model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
 
         return "dashboard";
     }
@@ -175,7 +288,15 @@ public class MessageController {
         String filename = getFilenameForChannel(channel);
         if (filename != null) {
             List<String[]> recipientList = parseRecipients(recipients);
-            fileService.saveRecipients(filename, recipientList);
+            if ("sms".equals(channel)) {
+                List<String> invalid = normalizePhones(recipientList);
+                if (!invalid.isEmpty()) {
+                    redirectAttributes.addFlashAttribute("error",
+                            "Неверный формат номера (ожидается +998XXXXXXXXX): " + String.join(", ", invalid));
+                    return "redirect:/dashboard";
+                }
+            }
+            contentRepository.saveRecipients(filename, recipientList);
             redirectAttributes.addFlashAttribute("success", "Получатели сохранены успешно!");
         } else {
             redirectAttributes.addFlashAttribute("error", "Неверный канал");
@@ -184,6 +305,46 @@ public class MessageController {
         return "redirect:/dashboard";
     }
 
+    @PostMapping("/import-recipients")
+    public String importRecipients(@RequestParam String channel,
+                                   @RequestParam MultipartFile file,
+                                   HttpSession session,
+                                   RedirectAttributes redirectAttributes) {
+        if (session.getAttribute("username") == null) {
+            return "redirect:/login";
+        }
+
+        String filename = getFilenameForChannel(channel);
+        if (filename == null) {
+            redirectAttributes.addFlashAttribute("error", "Неверный канал");
+            return "redirect:/dashboard";
+        }
+        if (file.isEmpty()) {
+            redirectAttributes.addFlashAttribute("error", "Файл не выбран или пуст");
+            return "redirect:/dashboard";
+        }
+
+        RecipientImport.Result result;
+        try (InputStream in = file.getInputStream()) {
+            result = contentRepository.importRecipients(filename, Channel.valueOf(channel.toUpperCase(Locale.ROOT)), in);
+        } catch (IOException e) {
+            System.err.println("Error importing recipients: " + e.getMessage());
+            redirectAttributes.addFlashAttribute("error", "Ошибка импорта: " + e.getMessage());
+            return "redirect:/dashboard";
+        }
+
+        String summary = "Импортировано: " + result.imported() + ", дубликатов: " + result.duplicates()
+                + ", с ошибками: " + result.invalid();
+        if (result.imported() == 0) {
+            redirectAttributes.addFlashAttribute("error", "Нет корректных получателей, список не изменён. " + summary);
+        } else if (result.invalid() > 0) {
+            redirectAttributes.addFlashAttribute("error", summary + ". Строки: " + String.join("; ", result.rejected()));
+        } else {
+            redirectAttributes.addFlashAttribute("success", summary);
+        }
+        return "redirect:/dashboard";
+    }
+
     private String getFilenameForChannel(String channel) {
         return switch (channel) {
             case "telegram" -> "telegram_recipients.txt";
@@ -209,4 +370,18 @@ public class MessageController {
 
         return result;
     }
-}
\ No newline at end of file
+
+    private List<String> normalizePhones(List<String[]> recipients) {
+        List<String> invalid = new ArrayList<>();
+        for (String[] recipient : recipients) {
+            String phone = recipient[1].startsWith("+") ? recipient[1] : "+" + recipient[1];
+            String normalized = PhoneNumbers.normalize(phone);
+            if (normalized == null) {
+                invalid.add(recipient[1]);
+            } else {
+                recipient[1] = normalized;
+            }
+        }
+        return invalid;
+    }
+}
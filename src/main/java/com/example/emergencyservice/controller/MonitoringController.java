@@ -0,0 +1,54 @@
+package com.example.emergencyservice.controller;
+
+import com.example.emergencyservice.auth.PasswordVerifier;
+import com.example.emergencyservice.service.AuthService;
+import com.example.emergencyservice.service.ContentRepository;
+import com.example.emergencyservice.transport.HttpPoolMetrics;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/monitoring")
+public class MonitoringController {
+
+    private final HttpPoolMetrics httpPoolMetrics;
+    private final AuthService authService;
+    private final ContentRepository contentRepository;
+
+    public MonitoringController(HttpPoolMetrics httpPoolMetrics, AuthService authService,
+                                ContentRepository contentRepository) {
+        this.httpPoolMetrics = httpPoolMetrics;
+        this.authService = authService;
+        this.contentRepository = contentRepository;
+    }
+
+    @GetMapping("/http-pools")
+    public ResponseEntity<List<HttpPoolMetrics.PoolSnapshot>> httpPools(HttpSession session) {
+        if (session.getAttribute("username") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(httpPoolMetrics.snapshot());
+    }
+
+    @GetMapping("/auth")
+    public ResponseEntity<PasswordVerifier.Metrics> auth(HttpSession session) {
+        if (session.getAttribute("username") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(authService.verificationMetrics());
+    }
+
+    @GetMapping("/content-cache")
+    public ResponseEntity<ContentRepository.Stats> contentCache(HttpSession session) {
+        if (session.getAttribute("username") == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        return ResponseEntity.ok(contentRepository.stats());
+    }
+}
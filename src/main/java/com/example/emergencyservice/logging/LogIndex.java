@@ -0,0 +1,301 @@
+package com.example.emergencyservice.logging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index of one JSON-lines log file, built line by line as the file is written.
+ * <p>
+ * It keeps the byte offset of every line, a sparse time index holding the timestamp of every
+ * {@value #SPARSE_INTERVAL}th line, and for each indexed field a postings list of the offsets of the
+ * lines carrying each value. All lists are in file order, so a time range maps to an offset range by
+ * binary search and postings intersect by merging. Terms are case-insensitive and cut at the first
+ * colon, so a status of {@code "error: timeout"} is indexed as {@code error}.
+ * <p>
+ * One thread adds lines while any number of threads query, under a read-write lock.
+ */
+public class LogIndex {
+
+    static final int SPARSE_INTERVAL = 128;
+
+    private static final int MAGIC = 0x4C4F4749;
+    private static final int VERSION = 1;
+
+    private final Set<String> fields;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongList lines = new LongList();
+    private final LongList sparseTimes = new LongList();
+    private final Map<String, Map<String, LongList>> postings = new HashMap<>();
+    private long indexedSize;
+
+    public LogIndex(Set<String> fields) {
+        this.fields = Set.copyOf(fields);
+        for (String field : this.fields) {
+            postings.put(field, new HashMap<>());
+        }
+    }
+
+    /**
+     * Adds the line at {@code offset}, {@code length} bytes long including its newline.
+     */
+    public void add(long offset, long length, LocalDateTime timestamp, Map<String, String> values) {
+        lock.writeLock().lock();
+        try {
+            if (lines.size % SPARSE_INTERVAL == 0) {
+                sparseTimes.add(timeKey(timestamp));
+            }
+            lines.add(offset);
+            for (String field : fields) {
+                String value = values.get(field);
+                if (value != null) {
+                    postings.get(field).computeIfAbsent(term(value), key -> new LongList()).add(offset);
+                }
+            }
+            indexedSize = offset + length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * File size covered by the index: the end of the last indexed line.
+     */
+    public long indexedSize() {
+        lock.readLock().lock();
+        try {
+            return indexedSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int lineCount() {
+        lock.readLock().lock();
+        try {
+            return lines.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Offsets of lines in {@code [fromOffset, toOffset)} that carry every given term, in file order.
+     * A field that is not indexed matches nothing.
+     */
+    long[] match(Map<String, String> terms, long fromOffset, long toOffset) {
+        lock.readLock().lock();
+        try {
+            long[] result = null;
+            for (Map.Entry<String, String> entry : terms.entrySet()) {
+                Map<String, LongList> byTerm = postings.get(entry.getKey());
+                LongList list = byTerm != null ? byTerm.get(term(entry.getValue())) : null;
+                if (list == null) {
+                    return new long[0];
+                }
+                long[] offsets = list.range(fromOffset, toOffset);
+                result = result == null ? offsets : intersect(result, offsets);
+            }
+            return result != null ? result : lines.range(fromOffset, toOffset);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Line number from which a scan for lines at or after {@code time} must start: the sparse entry
+     * before the last one older than {@code time}, which leaves room for slightly out-of-order stamps.
+     */
+    int scanStart(LocalDateTime time) {
+        long key = timeKey(time);
+        lock.readLock().lock();
+        try {
+            int low = 0;
+            int high = sparseTimes.size - 1;
+            int found = 0;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (sparseTimes.get(mid) < key) {
+                    found = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return Math.max(0, found - 1) * SPARSE_INTERVAL;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Offset of line {@code line}, or -1 past the last line.
+     */
+    long lineOffset(int line) {
+        lock.readLock().lock();
+        try {
+            return line < lines.size ? lines.get(line) : -1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the index next to its log, through a temporary file so a crash never leaves a torn index.
+     */
+    public void save(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        lock.readLock().lock();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(indexedSize);
+            lines.writeTo(out);
+            sparseTimes.writeTo(out);
+            out.writeInt(postings.size());
+            for (Map.Entry<String, Map<String, LongList>> field : postings.entrySet()) {
+                out.writeUTF(field.getKey());
+                out.writeInt(field.getValue().size());
+                for (Map.Entry<String, LongList> term : field.getValue().entrySet()) {
+                    out.writeUTF(term.getKey());
+                    term.getValue().writeTo(out);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Reads an index saved by {@link #save}. Returns null if the file is missing, unreadable or was
+     * written for a different set of fields.
+     */
+    public static LogIndex load(Path file, Set<String> fields) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            LogIndex index = new LogIndex(fields);
+            index.indexedSize = in.readLong();
+            index.lines.readFrom(in);
+            index.sparseTimes.readFrom(in);
+            int fieldCount = in.readInt();
+            for (int i = 0; i < fieldCount; i++) {
+                String field = in.readUTF();
+                Map<String, LongList> byTerm = index.postings.get(field);
+                if (byTerm == null) {
+                    return null;
+                }
+                int terms = in.readInt();
+                for (int j = 0; j < terms; j++) {
+                    String term = in.readUTF();
+                    LongList list = new LongList();
+                    list.readFrom(in);
+                    byTerm.put(term, list);
+                }
+            }
+            return fieldCount == fields.size() ? index : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public static long timeKey(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1000 + timestamp.getNano() / 1_000_000;
+    }
+
+    public static String term(String value) {
+        int colon = value.indexOf(':');
+        return (colon >= 0 ? value.substring(0, colon) : value).trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long[] intersect(long[] a, long[] b) {
+        long[] out = new long[Math.min(a.length, b.length)];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static class LongList {
+        private long[] values = new long[16];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long get(int index) {
+            return values[index];
+        }
+
+        /**
+         * Copy of the values in {@code [from, to)}; the list must be sorted.
+         */
+        long[] range(long from, long to) {
+            int start = lowerBound(from);
+            int end = lowerBound(to);
+            return start < end ? Arrays.copyOfRange(values, start, end) : new long[0];
+        }
+
+        private int lowerBound(long value) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        void writeTo(DataOutputStream out) throws IOException {
+            out.writeInt(size);
+            for (int i = 0; i < size; i++) {
+                out.writeLong(values[i]);
+            }
+        }
+
+        void readFrom(DataInputStream in) throws IOException {
+            size = in.readInt();
+            values = new long[Math.max(16, size)];
+            for (int i = 0; i < size; i++) {
+                values[i] = in.readLong();
+            }
+        }
+    }
+}
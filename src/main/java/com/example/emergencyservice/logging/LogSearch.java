@@ -0,0 +1,125 @@
+package com.example.emergencyservice.logging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Filtered, paginated queries over a log file and its rotated segments, newest entries first.
+ * <p>
+ * Each segment is narrowed with its {@link LogIndex}: the time range becomes an offset range through
+ * the sparse time index plus a short forward scan, the field filters become an intersection of
+ * postings, and only the lines on the requested page are read, through a {@link MappedLog}. The file
+ * being written uses the writer's live index; rotated segments use their saved indexes, cached until
+ * the segment changes.
+ */
+public class LogSearch {
+
+    private final Path directory;
+    private final int maxHistory;
+    private final LogWriter writer;
+    private final ObjectMapper objectMapper;
+    private final Map<Path, CachedIndex> cache = new ConcurrentHashMap<>();
+
+    public LogSearch(Path directory, int maxHistory, LogWriter writer, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.maxHistory = maxHistory;
+        this.writer = writer;
+        this.objectMapper = objectMapper;
+    }
+
+    public LogPage search(String file, LogQuery query) throws IOException {
+        Map<String, String> terms = new LinkedHashMap<>();
+        putIfPresent(terms, "user", query.user());
+        putIfPresent(terms, "channel", query.channel());
+        putIfPresent(terms, "status", query.status());
+
+        long skip = (long) query.page() * query.size();
+        long total = 0;
+        List<Map<String, String>> entries = new ArrayList<>();
+        for (int segment = 0; segment <= maxHistory; segment++) {
+            Path path = segment == 0 ? directory.resolve(file) : directory.resolve(file + "." + segment);
+            if (!Files.exists(path)) {
+                continue;
+            }
+            try (MappedLog log = new MappedLog(path)) {
+                LogIndex index = segment == 0 && writer.index(file) != null ? writer.index(file) : cached(path);
+                long limit = Math.min(log.size(), index.indexedSize());
+                long from = query.from() != null ? firstAtOrAfter(log, index, query.from(), limit) : 0;
+                long to = query.to() != null ? firstAtOrAfter(log, index, query.to(), limit) : limit;
+                long[] matches = index.match(terms, from, to);
+                total += matches.length;
+                for (int i = matches.length - 1; i >= 0 && entries.size() < query.size(); i--) {
+                    if (skip > 0) {
+                        skip--;
+                        continue;
+                    }
+                    Map<String, String> fields = log.fields(matches[i], objectMapper);
+                    if (!fields.isEmpty()) {
+                        entries.add(fields);
+                    }
+                }
+            }
+        }
+        return new LogPage(entries, query.page(), query.size(), total);
+    }
+
+    /**
+     * Offset of the first line stamped at or after {@code time}, or {@code limit} if there is none.
+     */
+    private long firstAtOrAfter(MappedLog log, LogIndex index, LocalDateTime time, long limit)
+            throws IOException {
+        for (int line = index.scanStart(time); ; line++) {
+            long offset = index.lineOffset(line);
+            if (offset < 0 || offset >= limit) {
+                return limit;
+            }
+            Map<String, String> fields = log.fields(offset, objectMapper);
+            if (!MappedLog.timestamp(fields, time).isBefore(time)) {
+                return offset;
+            }
+        }
+    }
+
+    private LogIndex cached(Path path) throws IOException {
+        long size = Files.size(path);
+        FileTime modified = Files.getLastModifiedTime(path);
+        CachedIndex cached = cache.get(path);
+        if (cached == null || cached.size != size || !cached.modified.equals(modified)) {
+            LogIndex index = MappedLog.openIndex(path, LogWriter.indexFile(path), writer.indexedFields(),
+                    objectMapper);
+            cached = new CachedIndex(size, modified, index);
+            cache.put(path, cached);
+        }
+        return cached.index;
+    }
+
+    private static void putIfPresent(Map<String, String> terms, String field, String value) {
+        if (value != null && !value.isBlank()) {
+            terms.put(field, value);
+        }
+    }
+
+    private record CachedIndex(long size, FileTime modified, LogIndex index) {
+    }
+
+    /**
+     * Filters are matched on the indexed term, so {@code status=error} finds every error status.
+     * {@code from} is inclusive and {@code to} exclusive; null means unbounded.
+     */
+    public record LogQuery(String user, String channel, String status, LocalDateTime from, LocalDateTime to,
+                           int page, int size) {
+    }
+
+    public record LogPage(List<Map<String, String>> entries, int page, int size, long total) {
+    }
+}
@@ -0,0 +1,376 @@
+package com.example.emergencyservice.logging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Single-writer pipeline for JSON-lines log files.
+ * <p>
+ * Producers put entries into a bounded ring buffer and return immediately; they only block while the
+ * ring is full. A background thread drains the ring in batches, serializes each entry with Jackson and
+ * copies it into a per-file buffer in front of a {@link FileChannel} that stays open. A buffer is written
+ * out when it fills up, when the flush interval has passed, or when a caller asks for a drain.
+ * A file that would grow past the size limit is rotated to {@code name.1}, {@code name.2}, and so on.
+ * <p>
+ * Every line is also added to its file's {@link LogIndex} as it is buffered. The index is saved next to
+ * the file as {@code name.idx} on rotation and shutdown and rotates along with it; on startup a saved
+ * index is caught up with whatever was appended after it was written.
+ */
+public class LogWriter implements Closeable {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private final Path directory;
+    private final int flushBytes;
+    private final long flushIntervalNanos;
+    private final long maxFileSize;
+    private final int maxHistory;
+    private final ObjectMapper objectMapper;
+    private final Set<String> indexedFields;
+    private final Map<String, LogIndex> indexes = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+
+    private final Entry[] ring;
+    private long head;
+    private long tail;
+    private long flushedSeq;
+    private boolean flushRequested;
+    private boolean closed;
+    private Thread writer;
+
+    // Owned by the writer thread
+    private final Map<String, Sink> sinks = new HashMap<>();
+
+    public LogWriter(Path directory, int capacity, int flushBytes, long flushIntervalMillis,
+                     long maxFileSize, int maxHistory, ObjectMapper objectMapper, Set<String> indexedFields) {
+        this.directory = directory;
+        this.ring = new Entry[Math.max(1, capacity)];
+        this.flushBytes = Math.max(1024, flushBytes);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, flushIntervalMillis));
+        this.maxFileSize = maxFileSize;
+        this.maxHistory = Math.max(0, maxHistory);
+        this.objectMapper = objectMapper;
+        this.indexedFields = Set.copyOf(indexedFields);
+    }
+
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        writer = new Thread(this::runWriter, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Queues one line for {@code file}. The timestamp is taken here; the fields follow it in
+     * iteration order. Returns false if the writer is closed or the caller was interrupted while
+     * waiting for room in the ring.
+     */
+    public boolean append(String file, Map<String, String> fields) {
+        Entry entry = new Entry(file, LocalDateTime.now(), fields);
+        lock.lock();
+        try {
+            while (tail - head == ring.length && !closed) {
+                notFull.await();
+            }
+            if (closed) {
+                return false;
+            }
+            boolean wasEmpty = head == tail;
+            ring[(int) (tail++ % ring.length)] = entry;
+            if (wasEmpty) {
+                notEmpty.signal();
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Live index of {@code file}, or null if nothing has been written to it since startup.
+     * It may cover lines that are still buffered, so readers must stop at the file's current size.
+     */
+    public LogIndex index(String file) {
+        return indexes.get(file);
+    }
+
+    public Set<String> indexedFields() {
+        return indexedFields;
+    }
+
+    /**
+     * Sidecar file holding the saved index of {@code log}.
+     */
+    public static Path indexFile(Path log) {
+        return log.resolveSibling(log.getFileName() + ".idx");
+    }
+
+    /**
+     * Waits until everything appended before this call has been written to the files.
+     * Returns false on timeout.
+     */
+    public boolean flush(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        try {
+            long target = tail;
+            flushRequested = true;
+            notEmpty.signal();
+            while (flushedSeq < target && !closed) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                flushed.awaitNanos(remaining);
+            }
+            return flushedSeq >= target;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting entries, drains the ring to disk and closes the files.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (writer != null) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void runWriter() {
+        List<Entry> batch = new ArrayList<>();
+        long lastFlush = System.nanoTime();
+        boolean unflushed = false;
+        while (true) {
+            long batchEnd;
+            boolean flushNow;
+            boolean stop;
+            lock.lock();
+            try {
+                while (head == tail && !closed && !flushRequested) {
+                    if (!unflushed) {
+                        notEmpty.await();
+                        continue;
+                    }
+                    long remaining = flushIntervalNanos - (System.nanoTime() - lastFlush);
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    notEmpty.awaitNanos(remaining);
+                }
+                while (head < tail) {
+                    int index = (int) (head++ % ring.length);
+                    batch.add(ring[index]);
+                    ring[index] = null;
+                }
+                notFull.signalAll();
+                batchEnd = head;
+                stop = closed;
+                flushNow = flushRequested || stop;
+                flushRequested = false;
+            } catch (InterruptedException e) {
+                // Only close() stops the writer, so it never exits with entries still in the ring
+                continue;
+            } finally {
+                lock.unlock();
+            }
+
+            // Serialize and write outside the lock so producers keep filling the ring meanwhile
+            for (Entry entry : batch) {
+                write(entry);
+            }
+            unflushed |= !batch.isEmpty();
+            batch.clear();
+
+            if (flushNow || (unflushed && System.nanoTime() - lastFlush >= flushIntervalNanos)) {
+                for (Sink sink : sinks.values()) {
+                    sink.flush();
+                }
+                unflushed = false;
+                lastFlush = System.nanoTime();
+                lock.lock();
+                try {
+                    flushedSeq = batchEnd;
+                    flushed.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            if (stop) {
+                for (Sink sink : sinks.values()) {
+                    sink.close();
+                }
+                return;
+            }
+        }
+    }
+
+    private void write(Entry entry) {
+        Sink sink = sinks.get(entry.file);
+        try {
+            if (sink == null) {
+                sink = new Sink(entry.file);
+                sinks.put(entry.file, sink);
+            }
+            ObjectNode node = objectMapper.createObjectNode();
+            node.put("timestamp", entry.timestamp.format(TIMESTAMP));
+            entry.fields.forEach(node::put);
+            sink.write(objectMapper.writeValueAsBytes(node), entry);
+        } catch (IOException e) {
+            System.err.println("Error writing log entry to " + entry.file + ": " + e.getMessage());
+        }
+    }
+
+    private record Entry(String file, LocalDateTime timestamp, Map<String, String> fields) {
+    }
+
+    private class Sink {
+        private final String file;
+        private final Path path;
+        private final ByteBuffer buffer = ByteBuffer.allocate(flushBytes);
+        private FileChannel channel;
+        private long size;
+        private LogIndex index;
+
+        Sink(String file) throws IOException {
+            this.file = file;
+            this.path = directory.resolve(file);
+            openChannel();
+            try {
+                index = MappedLog.openIndex(path, indexFile(path), indexedFields, objectMapper);
+            } catch (IOException e) {
+                System.err.println("Error indexing log " + file + ", starting a new index: " + e.getMessage());
+                index = new LogIndex(indexedFields);
+            }
+            indexes.put(file, index);
+        }
+
+        void write(byte[] line, Entry entry) throws IOException {
+            int length = line.length + 1;
+            // Rotate before buffering, so the offset given to the index is the line's final position
+            long end = size + buffer.position();
+            if (end > 0 && end + length > maxFileSize) {
+                flush();
+                rotate();
+            }
+            if (buffer.remaining() < length) {
+                flush();
+            }
+            long offset = size + buffer.position();
+            if (buffer.remaining() < length) {
+                // Larger than the whole buffer: write it through
+                ByteBuffer direct = ByteBuffer.allocate(length).put(line).put((byte) '\n').flip();
+                writeOut(direct);
+            } else {
+                buffer.put(line).put((byte) '\n');
+            }
+            index.add(offset, length, entry.timestamp, entry.fields);
+        }
+
+        void flush() {
+            buffer.flip();
+            try {
+                if (buffer.hasRemaining()) {
+                    writeOut(buffer);
+                }
+            } catch (IOException e) {
+                System.err.println("Error flushing log " + path.getFileName() + ": " + e.getMessage());
+            } finally {
+                buffer.clear();
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+                index.save(indexFile(path));
+            } catch (IOException e) {
+                System.err.println("Error closing log " + path.getFileName() + ": " + e.getMessage());
+            }
+        }
+
+        private void writeOut(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                size += channel.write(bytes);
+            }
+        }
+
+        private void rotate() throws IOException {
+            channel.close();
+            String name = path.getFileName().toString();
+            if (maxHistory == 0) {
+                Files.deleteIfExists(path);
+                Files.deleteIfExists(indexFile(path));
+            } else {
+                index.save(indexFile(path));
+                Path oldest = path.resolveSibling(name + "." + maxHistory);
+                Files.deleteIfExists(oldest);
+                Files.deleteIfExists(indexFile(oldest));
+                for (int i = maxHistory - 1; i >= 0; i--) {
+                    Path rotated = i == 0 ? path : path.resolveSibling(name + "." + i);
+                    Path target = path.resolveSibling(name + "." + (i + 1));
+                    if (Files.exists(rotated)) {
+                        Files.move(rotated, target, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    if (Files.exists(indexFile(rotated))) {
+                        Files.move(indexFile(rotated), indexFile(target), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+            }
+            openChannel();
+            index = new LogIndex(indexedFields);
+            indexes.put(file, index);
+        }
+
+        private void openChannel() throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+            size = channel.size();
+        }
+    }
+}
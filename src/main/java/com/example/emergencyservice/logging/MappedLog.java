@@ -0,0 +1,162 @@
+package com.example.emergencyservice.logging;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read-only view of a JSON-lines log through memory-mapped windows, so reading a line is a lookup in
+ * the page cache rather than a read call. Windows are mapped on first use; a line that crosses a
+ * window boundary is read with a plain positional read.
+ */
+final class MappedLog implements Closeable {
+
+    private static final long WINDOW = 1L << 28;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final TypeReference<LinkedHashMap<String, String>> FIELDS = new TypeReference<>() {
+    };
+
+    private final FileChannel channel;
+    private final long size;
+    private final Map<Long, MappedByteBuffer> windows = new HashMap<>();
+
+    MappedLog(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.size = channel.size();
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Bytes of the line starting at {@code offset}, without its newline. Returns null for a final line
+     * that has no newline yet.
+     */
+    byte[] line(long offset) throws IOException {
+        long base = offset / WINDOW * WINDOW;
+        MappedByteBuffer window = window(base);
+        int start = (int) (offset - base);
+        int end = start;
+        while (end < window.limit() && window.get(end) != '\n') {
+            end++;
+        }
+        if (end < window.limit()) {
+            byte[] bytes = new byte[end - start];
+            window.get(start, bytes);
+            return bytes;
+        }
+        return base + end < size ? readAcross(offset) : null;
+    }
+
+    /**
+     * Fields of the line at {@code offset}. A line that is not a JSON object, such as one left by an
+     * older version of the service, comes back as a single {@code raw} field.
+     */
+    Map<String, String> fields(long offset, ObjectMapper objectMapper) throws IOException {
+        byte[] line = line(offset);
+        return line != null ? parse(line, objectMapper) : Map.of();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Index of {@code file}: the saved one if it still matches the log, caught up with any lines
+     * appended since, or else one rebuilt from scratch.
+     */
+    static LogIndex openIndex(Path file, Path indexFile, Set<String> fields, ObjectMapper objectMapper)
+            throws IOException {
+        LogIndex index = LogIndex.load(indexFile, fields);
+        try (MappedLog log = new MappedLog(file)) {
+            if (index == null || index.indexedSize() > log.size()) {
+                index = new LogIndex(fields);
+            }
+            log.catchUp(index, objectMapper);
+        }
+        return index;
+    }
+
+    private void catchUp(LogIndex index, ObjectMapper objectMapper) throws IOException {
+        long offset = index.indexedSize();
+        LocalDateTime last = EPOCH;
+        while (offset < size) {
+            byte[] line = line(offset);
+            if (line == null) {
+                return;
+            }
+            Map<String, String> values = parse(line, objectMapper);
+            last = timestamp(values, last);
+            index.add(offset, line.length + 1, last, values);
+            offset += line.length + 1;
+        }
+    }
+
+    private static Map<String, String> parse(byte[] line, ObjectMapper objectMapper) {
+        try {
+            return objectMapper.readValue(line, FIELDS);
+        } catch (IOException e) {
+            return Map.of("raw", new String(line, StandardCharsets.UTF_8));
+        }
+    }
+
+    static LocalDateTime timestamp(Map<String, String> values, LocalDateTime fallback) {
+        String timestamp = values.get("timestamp");
+        if (timestamp == null) {
+            return fallback;
+        }
+        try {
+            return LocalDateTime.parse(timestamp);
+        } catch (DateTimeParseException e) {
+            return fallback;
+        }
+    }
+
+    private MappedByteBuffer window(long base) throws IOException {
+        MappedByteBuffer window = windows.get(base);
+        if (window == null) {
+            window = channel.map(FileChannel.MapMode.READ_ONLY, base, Math.min(WINDOW, size - base));
+            windows.put(base, window);
+        }
+        return window;
+    }
+
+    private byte[] readAcross(long offset) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(8192);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long position = offset;
+        while (position < size) {
+            chunk.clear();
+            int read = channel.read(chunk, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = chunk.get(i);
+                if (b == '\n') {
+                    return out.toByteArray();
+                }
+                out.write(b);
+            }
+            position += read;
+        }
+        return null;
+    }
+}
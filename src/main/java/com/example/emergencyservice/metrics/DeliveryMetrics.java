@@ -0,0 +1,72 @@
+package com.example.emergencyservice.metrics;
+
+import com.example.emergencyservice.model.Channel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-channel delivery meters: latency of each transport call (one call may carry a whole batch),
+ * results per recipient tagged by outcome and error class, and the number of calls in flight.
+ */
+@Component
+public class DeliveryMetrics {
+
+    public static final String NONE = "none";
+
+    private final MeterRegistry registry;
+    private final Map<Channel, Timer> latency = new EnumMap<>(Channel.class);
+    private final Map<Channel, AtomicInteger> inFlight = new EnumMap<>(Channel.class);
+
+    public DeliveryMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Channel channel : Channel.values()) {
+            latency.put(channel, Timer.builder("delivery.latency")
+                    .description("Time of one transport call")
+                    .tag("channel", channel.getName())
+                    .publishPercentiles(0.5, 0.99)
+                    .publishPercentileHistogram()
+                    .register(registry));
+            AtomicInteger gauge = new AtomicInteger();
+            Gauge.builder("delivery.in.flight", gauge, AtomicInteger::get)
+                    .description("Transport calls currently in progress")
+                    .tag("channel", channel.getName())
+                    .register(registry);
+            inFlight.put(channel, gauge);
+        }
+    }
+
+    /**
+     * Marks a transport call as started. Pass the returned value to {@link #finish}.
+     */
+    public long start(Channel channel) {
+        inFlight.get(channel).incrementAndGet();
+        return System.nanoTime();
+    }
+
+    public void finish(Channel channel, long started) {
+        latency.get(channel).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        inFlight.get(channel).decrementAndGet();
+    }
+
+    /**
+     * Counts one recipient's result. {@code error} is a short, low-cardinality class such as
+     * {@code http_429} or an exception name, and is ignored on success.
+     */
+    public void result(Channel channel, boolean success, String error) {
+        Counter.builder("delivery.results")
+                .description("Delivery results per recipient")
+                .tag("channel", channel.getName())
+                .tag("outcome", success ? "success" : "failure")
+                .tag("error", success || error == null ? NONE : error)
+                .register(registry)
+                .increment();
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.emergencyservice.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Progress of one broadcast. Counters are updated by delivery threads and read by pollers.
+ * A recipient waiting for a retry is neither sent nor failed; the job is settled once every
+ * recipient is one or the other.
+ */
+public class BroadcastJob {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED
+    }
+
+    private final String id;
+    private final String username;
+    private final Priority priority;
+    private final LocalDateTime createdAt;
+    private final List<String> recipients;
+    private final AtomicReferenceArray<DeliveryStatus> statuses;
+    private final AtomicInteger sent = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger retrying = new AtomicInteger();
+    private volatile State state = State.QUEUED;
+
+    public BroadcastJob(String id, String username, List<String> recipients, Priority priority) {
+        this(id, username, recipients, priority, LocalDateTime.now());
+    }
+
+    public BroadcastJob(String id, String username, List<String> recipients, Priority priority,
+                        LocalDateTime createdAt) {
+        this.id = id;
+        this.username = username;
+        this.priority = priority;
+        this.createdAt = createdAt;
+        this.recipients = List.copyOf(recipients);
+        this.statuses = new AtomicReferenceArray<>(recipients.size());
+        for (int i = 0; i < recipients.size(); i++) {
+            statuses.set(i, DeliveryStatus.QUEUED);
+        }
+    }
+
+    public void record(int index, boolean success) {
+        DeliveryStatus previous = statuses.getAndSet(index, success ? DeliveryStatus.SENT : DeliveryStatus.FAILED);
+        if (previous == DeliveryStatus.RETRYING) {
+            retrying.decrementAndGet();
+        }
+        if (success) {
+            sent.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+        }
+    }
+
+    public void recordRetry(int index) {
+        if (statuses.getAndSet(index, DeliveryStatus.RETRYING) != DeliveryStatus.RETRYING) {
+            retrying.incrementAndGet();
+        }
+    }
+
+    /**
+     * Sets a recipient's status as reported from elsewhere, such as another instance, keeping the
+     * counters in step.
+     */
+    public void update(int index, DeliveryStatus status) {
+        DeliveryStatus previous = statuses.getAndSet(index, status);
+        if (previous != status) {
+            counter(previous, -1);
+            counter(status, 1);
+        }
+    }
+
+    public DeliveryStatus status(int index) {
+        return statuses.get(index);
+    }
+
+    public boolean isSettled() {
+        return sent.get() + failed.get() == recipients.size();
+    }
+
+    /**
+     * Marks the job completed. Returns false if it already was.
+     */
+    public synchronized boolean complete() {
+        if (state == State.COMPLETED) {
+            return false;
+        }
+        state = State.COMPLETED;
+        return true;
+    }
+
+    public Progress progress() {
+        List<RecipientProgress> items = new ArrayList<>(recipients.size());
+        for (int i = 0; i < recipients.size(); i++) {
+            items.add(new RecipientProgress(recipients.get(i), statuses.get(i)));
+        }
+        int sentCount = sent.get();
+        int failedCount = failed.get();
+        int retryingCount = retrying.get();
+        return new Progress(id, state, priority, createdAt, recipients.size(),
+                recipients.size() - sentCount - failedCount - retryingCount, retryingCount, sentCount, failedCount,
+                items);
+    }
+
+    private void counter(DeliveryStatus status, int delta) {
+        switch (status) {
+            case SENT -> sent.addAndGet(delta);
+            case FAILED -> failed.addAndGet(delta);
+            case RETRYING -> retrying.addAndGet(delta);
+            case QUEUED -> {
+            }
+        }
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Priority getPriority() {
+        return priority;
+    }
+
+    public List<String> getRecipients() {
+        return recipients;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public void setState(State state) {
+        this.state = state;
+    }
+
+    public record RecipientProgress(String recipient, DeliveryStatus status) {
+    }
+
+    public record Progress(String id, State state, Priority priority, LocalDateTime createdAt, int total,
+                           int queued, int retrying, int sent, int failed, List<RecipientProgress> recipients) {
+    }
+}
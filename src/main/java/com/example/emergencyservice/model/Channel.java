@@ -0,0 +1,33 @@
+package com.example.emergencyservice.model;
+
+import com.example.emergencyservice.util.PhoneNumbers;
+
+public enum Channel {
+    TELEGRAM("telegram"),
+    EMAIL("email"),
+    SMS("sms");
+
+    private final String name;
+
+    Channel(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Resolves the delivery channel from the recipient address. A leading '@' marks a public Telegram
+     * {@code @username}, any other '@' an email address.
+     */
+    public static Channel of(String recipient) {
+        if (recipient.startsWith("@")) {
+            return TELEGRAM;
+        }
+        if (recipient.contains("@")) {
+            return EMAIL;
+        }
+        return PhoneNumbers.isPhone(recipient) ? SMS : TELEGRAM;
+    }
+}
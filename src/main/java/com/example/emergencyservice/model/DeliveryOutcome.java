@@ -0,0 +1,22 @@
+package com.example.emergencyservice.model;
+
+/**
+ * Result of one delivery attempt. A transient failure (timeout, connection error, 429, 5xx) may succeed
+ * if retried later; a permanent one (rejected address, unknown chat) will not. A refused delivery was
+ * not attempted because the channel's circuit was open, and can be retried like a transient failure
+ * without counting as an attempt.
+ */
+public enum DeliveryOutcome {
+    SENT,
+    FAILED_TRANSIENT,
+    FAILED_PERMANENT,
+    REFUSED;
+
+    public boolean isSent() {
+        return this == SENT;
+    }
+
+    public boolean isRetryable() {
+        return this == FAILED_TRANSIENT || this == REFUSED;
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.emergencyservice.model;
+
+public record DeliveryResult(String recipient, Channel channel, DeliveryOutcome outcome) {
+
+    public boolean success() {
+        return outcome.isSent();
+    }
+}
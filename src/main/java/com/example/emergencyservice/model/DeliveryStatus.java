@@ -0,0 +1,8 @@
+package com.example.emergencyservice.model;
+
+public enum DeliveryStatus {
+    QUEUED,
+    RETRYING,
+    SENT,
+    FAILED
+}
@@ -0,0 +1,54 @@
+package com.example.emergencyservice.model;
+
+import java.util.Locale;
+
+/**
+ * Dispatch lane of a broadcast. Declared from most to least urgent.
+ */
+public enum Priority {
+    URGENT("urgent"),
+    NORMAL("normal"),
+    BULK("bulk");
+
+    /**
+     * Prefix of messages written from the {@code urgent} template.
+     */
+    public static final String URGENT_PREFIX = "СРОЧНО";
+
+    private final String name;
+
+    Priority(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Priority by name, or null if the name is blank or unknown.
+     */
+    public static Priority byName(String name) {
+        if (name == null) {
+            return null;
+        }
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        for (Priority priority : values()) {
+            if (priority.name.equals(normalized)) {
+                return priority;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Priority implied by a broadcast itself: urgent if the message starts with {@value #URGENT_PREFIX},
+     * bulk if it goes to at least {@code bulkThreshold} recipients, normal otherwise.
+     */
+    public static Priority of(String message, int recipients, int bulkThreshold) {
+        if (message.stripLeading().toUpperCase(Locale.ROOT).startsWith(URGENT_PREFIX)) {
+            return URGENT;
+        }
+        return bulkThreshold > 0 && recipients >= bulkThreshold ? BULK : NORMAL;
+    }
+}
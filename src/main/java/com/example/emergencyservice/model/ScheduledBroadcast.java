@@ -0,0 +1,57 @@
+package com.example.emergencyservice.model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * A broadcast to be sent at {@code nextRun}, and again at every later time {@code cron} matches if it is
+ * set. Recipients come from {@code audience}, resolved when the broadcast fires, or else from the fixed
+ * {@code recipients}. {@code priority} is null to classify each run like a manual send.
+ * <p>
+ * {@code dueAt} is the run time the next run stands for. It equals {@code nextRun} except for a missed
+ * run that is being made up, which is sent at {@code nextRun} but still identified by its original time.
+ */
+public record ScheduledBroadcast(String id, String username, String message, Priority priority, String audience,
+                                 List<String> recipients, String cron, CatchUp catchUp, long nextRun, long dueAt) {
+
+    public ScheduledBroadcast(String id, String username, String message, Priority priority, String audience,
+                              List<String> recipients, String cron, CatchUp catchUp, long nextRun) {
+        this(id, username, message, priority, audience, recipients, cron, catchUp, nextRun, nextRun);
+    }
+
+    /**
+     * What to do about runs missed while the service was down.
+     */
+    public enum CatchUp {
+        /**
+         * Send once as soon as possible, however many runs were missed.
+         */
+        ONCE,
+        /**
+         * Drop missed runs and wait for the next one.
+         */
+        SKIP
+    }
+
+    public boolean isRecurring() {
+        return cron != null;
+    }
+
+    public ScheduledBroadcast withNextRun(long nextRun) {
+        return new ScheduledBroadcast(id, username, message, priority, audience, recipients, cron, catchUp, nextRun);
+    }
+
+    /**
+     * The same run, made up at {@code runAt} instead of when it was due.
+     */
+    public ScheduledBroadcast withCatchUpAt(long runAt) {
+        return new ScheduledBroadcast(id, username, message, priority, audience, recipients, cron, catchUp, runAt,
+                dueAt);
+    }
+
+    public LocalDateTime getNextRunTime() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(nextRun), ZoneId.systemDefault());
+    }
+}
@@ -0,0 +1,598 @@
+package com.example.emergencyservice.queue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only write-ahead log of outbound deliveries, stored as memory-mapped segment files.
+ * <p>
+ * Record layout: {@code [int length][int crc32c][payload]}, where the payload starts with a type byte.
+ * A job record carries the message once, delivery records reference it by job ID, and ack records mark
+ * deliveries as done. The length is written last, so a torn write is detected on replay.
+ * Syncs are batched: appenders wait for a background flusher that forces all dirty segments at once.
+ * Sealed segments are deleted once fully acknowledged, or rewritten into the active segment when only
+ * a small fraction of their deliveries is still pending. A segment whose acks refer to deliveries in an
+ * older segment is kept, deliveries and all, until that segment is gone, or those deliveries would be
+ * pending again on replay.
+ */
+public class QueueJournal implements Closeable {
+
+    private static final byte JOB = 1;
+    private static final byte DELIVERY = 2;
+    private static final byte ACK = 3;
+    private static final int HEADER_SIZE = 8;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int syncBatchSize;
+    private final long syncIntervalNanos;
+    private final long compactionIntervalNanos;
+    private final double compactionThreshold;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition syncRequested = lock.newCondition();
+    private final Condition synced = lock.newCondition();
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private final Map<Long, Pending> pending = new HashMap<>();
+    private final Map<String, JobHeader> jobs = new HashMap<>();
+    private final List<Segment> dirty = new ArrayList<>();
+
+    private Segment active;
+    private long nextId = 1;
+    private long appendedSeq;
+    private long syncedSeq;
+    private boolean closed;
+    private Thread flusher;
+
+    public QueueJournal(Path directory, int segmentSize, int syncBatchSize, long syncIntervalMillis,
+                        long compactionIntervalMillis, double compactionThreshold) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncBatchSize = Math.max(1, syncBatchSize);
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, syncIntervalMillis));
+        this.compactionIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, compactionIntervalMillis));
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Replays all segments to rebuild the pending set and starts the background flusher.
+     */
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream
+                    .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        lock.lock();
+        try {
+            for (Path file : files) {
+                Segment segment = Segment.open(file, segmentNumber(file));
+                segments.put(segment.number, segment);
+                replay(segment);
+            }
+            for (Pending entry : pending.values()) {
+                JobHeader header = jobs.get(entry.jobId);
+                if (header != null) {
+                    header.live++;
+                }
+            }
+            jobs.values().removeIf(header -> header.live == 0);
+            if (segments.isEmpty()) {
+                active = createSegment(1, segmentSize);
+            } else {
+                active = segments.lastEntry().getValue();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        flusher = new Thread(this::runFlusher, "queue-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Durably appends one job and its deliveries. Returns the delivery IDs in recipient order once the
+     * records have been synced to disk.
+     */
+    public long[] enqueue(String jobId, String username, String message, List<String> recipients)
+            throws IOException, InterruptedException {
+        long[] ids = new long[recipients.size()];
+        if (ids.length == 0) {
+            return ids;
+        }
+        long seq;
+        lock.lock();
+        try {
+            ensureOpen();
+            byte[] job = utf8(jobId);
+            append(JOB, job, utf8(username), utf8(message));
+            jobs.put(jobId, new JobHeader(jobId, username, message, active));
+            JobHeader header = jobs.get(jobId);
+
+            for (int i = 0; i < recipients.size(); i++) {
+                long id = nextId++;
+                append(DELIVERY, id, job, utf8(recipients.get(i)));
+                ids[i] = id;
+                Pending entry = new Pending(id, jobId, recipients.get(i), active);
+                pending.put(id, entry);
+                active.live++;
+                active.written++;
+                header.live++;
+            }
+            seq = appendedSeq;
+            if (seq - syncedSeq >= syncBatchSize) {
+                syncRequested.signal();
+            }
+            while (syncedSeq < seq && !closed) {
+                synced.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return ids;
+    }
+
+    /**
+     * Marks a delivery as done. Acks are not awaited: a lost ack only causes a redelivery on replay.
+     */
+    public void ack(long id) throws IOException {
+        lock.lock();
+        try {
+            ensureOpen();
+            Pending entry = pending.remove(id);
+            if (entry == null) {
+                return;
+            }
+            append(ACK, id);
+            if (entry.segment != active) {
+                active.ackedSegments.add(entry.segment.number);
+            }
+            release(entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deliveries that were enqueued but not acknowledged, grouped by job.
+     */
+    public List<PendingJob> pendingJobs() {
+        lock.lock();
+        try {
+            Map<String, List<Pending>> byJob = new LinkedHashMap<>();
+            pending.values().stream()
+                    .sorted((a, b) -> Long.compare(a.id, b.id))
+                    .forEach(entry -> byJob.computeIfAbsent(entry.jobId, key -> new ArrayList<>()).add(entry));
+
+            List<PendingJob> result = new ArrayList<>(byJob.size());
+            byJob.forEach((jobId, entries) -> {
+                JobHeader header = jobs.get(jobId);
+                if (header == null) {
+                    return;
+                }
+                long[] ids = new long[entries.size()];
+                List<String> recipients = new ArrayList<>(entries.size());
+                for (int i = 0; i < entries.size(); i++) {
+                    ids[i] = entries.get(i).id;
+                    recipients.add(entries.get(i).recipient);
+                }
+                result.add(new PendingJob(jobId, header.username, header.message, ids, recipients));
+            });
+            return result;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Whether a job still has unacknowledged deliveries in the journal.
+     */
+    public boolean hasJob(String jobId) {
+        lock.lock();
+        try {
+            return jobs.containsKey(jobId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int pendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Deletes fully acknowledged segments and rewrites sparsely populated ones into the active segment.
+     * Segments are visited oldest first, so a segment whose acks only refer to segments deleted in the
+     * same pass can go as well.
+     */
+    public void compact() throws IOException {
+        lock.lock();
+        try {
+            ensureOpen();
+            List<Segment> sealed = new ArrayList<>(segments.headMap(active.number, false).values());
+            List<Segment> rewritten = new ArrayList<>();
+            Set<Long> deleted = new HashSet<>();
+            for (Segment segment : sealed) {
+                if (segment.live > 0 && segment.live >= segment.written * compactionThreshold) {
+                    continue;
+                }
+                if (referencesKeptSegment(segment, deleted)) {
+                    // Left as it is: its delivery records would outlive copies moved elsewhere, and bring
+                    // them back on replay once those are acknowledged and compacted away
+                    continue;
+                }
+                for (JobHeader header : jobs.values()) {
+                    if (header.segment == segment) {
+                        append(JOB, utf8(header.jobId), utf8(header.username), utf8(header.message));
+                        header.segment = active;
+                    }
+                }
+                for (Pending entry : new ArrayList<>(pending.values())) {
+                    if (entry.segment == segment) {
+                        relocate(entry);
+                    }
+                }
+                deleted.add(segment.number);
+                rewritten.add(segment);
+            }
+            if (rewritten.isEmpty()) {
+                return;
+            }
+
+            forceDirty();
+            for (Segment segment : rewritten) {
+                segments.remove(segment.number);
+                segment.close();
+                Files.deleteIfExists(segment.path);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            forceDirty();
+            syncedSeq = appendedSeq;
+            closed = true;
+            synced.signalAll();
+            syncRequested.signalAll();
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (flusher != null) {
+            flusher.interrupt();
+        }
+    }
+
+    private boolean referencesKeptSegment(Segment segment, Set<Long> deleted) {
+        for (long number : segment.ackedSegments) {
+            if (segments.containsKey(number) && !deleted.contains(number)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void relocate(Pending entry) throws IOException {
+        entry.segment.live--;
+        append(DELIVERY, entry.id, utf8(entry.jobId), utf8(entry.recipient));
+        entry.segment = active;
+        active.live++;
+        active.written++;
+    }
+
+    private void release(Pending entry) {
+        entry.segment.live--;
+        JobHeader header = jobs.get(entry.jobId);
+        if (header != null && --header.live <= 0) {
+            jobs.remove(entry.jobId);
+        }
+    }
+
+    private void replay(Segment segment) {
+        MappedByteBuffer buffer = segment.buffer;
+        int position = 0;
+        CRC32C crc = new CRC32C();
+        while (position + HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            ByteBuffer payload = buffer.slice(position + HEADER_SIZE, length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            apply(payload, segment);
+            position += HEADER_SIZE + length;
+        }
+        segment.position = position;
+    }
+
+    private void apply(ByteBuffer payload, Segment segment) {
+        byte type = payload.get();
+        switch (type) {
+            case JOB -> {
+                String jobId = readString(payload);
+                jobs.put(jobId, new JobHeader(jobId, readString(payload), readString(payload), segment));
+            }
+            case DELIVERY -> {
+                long id = payload.getLong();
+                String jobId = readString(payload);
+                Pending entry = new Pending(id, jobId, readString(payload), segment);
+                Pending previous = pending.put(id, entry);
+                if (previous != null) {
+                    previous.segment.live--;
+                }
+                segment.live++;
+                segment.written++;
+                nextId = Math.max(nextId, id + 1);
+            }
+            case ACK -> {
+                long id = payload.getLong();
+                Pending entry = pending.remove(id);
+                if (entry != null) {
+                    entry.segment.live--;
+                    if (entry.segment != segment) {
+                        segment.ackedSegments.add(entry.segment.number);
+                    }
+                }
+                nextId = Math.max(nextId, id + 1);
+            }
+            default -> throw new IllegalStateException("Unknown journal record type " + type);
+        }
+    }
+
+    private void append(byte type, Object... fields) throws IOException {
+        int payloadSize = 1;
+        for (Object field : fields) {
+            payloadSize += field instanceof byte[] bytes ? 4 + bytes.length : 8;
+        }
+        int recordSize = HEADER_SIZE + payloadSize;
+        if (active.position + recordSize > active.buffer.capacity()) {
+            roll(recordSize);
+        }
+
+        MappedByteBuffer buffer = active.buffer;
+        int start = active.position;
+        int position = start + HEADER_SIZE;
+        buffer.put(position++, type);
+        for (Object field : fields) {
+            if (field instanceof byte[] bytes) {
+                buffer.putInt(position, bytes.length);
+                buffer.put(position + 4, bytes);
+                position += 4 + bytes.length;
+            } else {
+                buffer.putLong(position, (Long) field);
+                position += 8;
+            }
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(start + HEADER_SIZE, payloadSize));
+        buffer.putInt(start + 4, (int) crc.getValue());
+        buffer.putInt(start, payloadSize);
+
+        active.position = position;
+        appendedSeq++;
+        if (!active.dirty) {
+            active.dirty = true;
+            dirty.add(active);
+        }
+    }
+
+    private void roll(int recordSize) throws IOException {
+        active = createSegment(active.number + 1, Math.max(segmentSize, recordSize + HEADER_SIZE));
+    }
+
+    private Segment createSegment(long number, int size) throws IOException {
+        Path path = directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        Segment segment = Segment.create(path, number, size);
+        segments.put(number, segment);
+        return segment;
+    }
+
+    private void runFlusher() {
+        long nextCompaction = System.nanoTime() + compactionIntervalNanos;
+        while (true) {
+            long target;
+            List<Segment> toForce;
+            lock.lock();
+            try {
+                if (syncedSeq == appendedSeq && !closed) {
+                    syncRequested.awaitNanos(syncIntervalNanos);
+                }
+                if (closed) {
+                    return;
+                }
+                target = appendedSeq;
+                toForce = new ArrayList<>(dirty);
+                for (Segment segment : toForce) {
+                    segment.dirty = false;
+                }
+                dirty.clear();
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            // Force outside the lock so appenders can keep filling the next batch meanwhile
+            try {
+                for (Segment segment : toForce) {
+                    segment.buffer.force();
+                }
+                lock.lock();
+                try {
+                    syncedSeq = Math.max(syncedSeq, target);
+                    synced.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Error syncing queue journal: " + e.getMessage());
+                lock.lock();
+                try {
+                    for (Segment segment : toForce) {
+                        if (!segment.dirty) {
+                            segment.dirty = true;
+                            dirty.add(segment);
+                        }
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            if (System.nanoTime() >= nextCompaction) {
+                try {
+                    compact();
+                } catch (IOException e) {
+                    System.err.println("Error compacting queue journal: " + e.getMessage());
+                }
+                nextCompaction = System.nanoTime() + compactionIntervalNanos;
+            }
+        }
+    }
+
+    private void forceDirty() throws IOException {
+        for (Segment segment : dirty) {
+            segment.buffer.force();
+            segment.dirty = false;
+        }
+        dirty.clear();
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Queue journal is closed");
+        }
+    }
+
+    private static long segmentNumber(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static byte[] utf8(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public record PendingJob(String jobId, String username, String message, long[] ids, List<String> recipients) {
+    }
+
+    private static class Segment {
+        private final long number;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        // Older segments holding deliveries this segment's acks refer to
+        private final Set<Long> ackedSegments = new HashSet<>();
+        private int position;
+        private int live;
+        private int written;
+        private boolean dirty;
+
+        private Segment(long number, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.number = number;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment open(Path path, long number) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(number, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+        }
+
+        static Segment create(Path path, long number, int size) throws IOException {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(number, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static class Pending {
+        private final long id;
+        private final String jobId;
+        private final String recipient;
+        private Segment segment;
+
+        Pending(long id, String jobId, String recipient, Segment segment) {
+            this.id = id;
+            this.jobId = jobId;
+            this.recipient = recipient;
+            this.segment = segment;
+        }
+    }
+
+    private static class JobHeader {
+        private final String jobId;
+        private final String username;
+        private final String message;
+        private Segment segment;
+        private int live;
+
+        JobHeader(String jobId, String username, String message, Segment segment) {
+            this.jobId = jobId;
+            this.username = username;
+            this.message = message;
+            this.segment = segment;
+        }
+    }
+}
@@ -0,0 +1,372 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.audience.AudienceExpression;
+import com.example.emergencyservice.audience.RoaringBitmap;
+import com.example.emergencyservice.model.Channel;
+import com.example.emergencyservice.util.EmailAddresses;
+import com.example.emergencyservice.util.PhoneNumbers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Tags on recipients and audience selection by boolean tag expressions.
+ * <p>
+ * Every address gets a dense integer ID the first time it is seen; IDs are never reused, so a tag is
+ * stored as a {@link RoaringBitmap} of IDs. The address dictionary and the tag bitmaps live together
+ * in one binary file under the data directory. Besides stored tags, an expression can use
+ * {@code channel:telegram}, {@code channel:email}, {@code channel:sms} and {@code all}; these come from
+ * the current recipient files, and only recipients still listed in one of them are ever selected.
+ * <p>
+ * Readers work on immutable snapshots without locking. Writers are serialized, persist a modified
+ * copy by writing a temp file and renaming it, and only then publish it.
+ */
+@Service
+public class AudienceService {
+
+    static final String FILE = "recipient_tags.bin";
+
+    private static final int MAGIC = 0x41554431;
+    private static final int VERSION = 1;
+    private static final String CHANNEL_PREFIX = "channel:";
+    private static final String ALL = "all";
+
+    private final ContentRepository contentRepository;
+    private final Path file;
+    private final Object writeLock = new Object();
+
+    private volatile Snapshot snapshot;
+    private volatile Members members;
+
+    public AudienceService(ContentRepository contentRepository,
+                           @Value("${app.data.directory}") String dataDirectory) {
+        this.contentRepository = contentRepository;
+        this.file = Paths.get(dataDirectory, FILE);
+        this.snapshot = load();
+    }
+
+    /**
+     * Addresses selected by {@code expression}, in the order they were first seen.
+     *
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    public List<String> resolve(String expression) {
+        Members current = members();
+        // IDs are never reassigned, so any later snapshot knows every ID the members refer to
+        Snapshot tagged = snapshot;
+        RoaringBitmap selected = select(AudienceExpression.parse(expression), current, tagged);
+        List<String> addresses = new ArrayList<>(selected.cardinality());
+        selected.forEach(id -> addresses.add(tagged.addresses.get(id)));
+        return addresses;
+    }
+
+    /**
+     * Number of recipients {@code expression} selects, without materializing their addresses.
+     */
+    public int count(String expression) {
+        Members current = members();
+        return select(AudienceExpression.parse(expression), current, snapshot).cardinality();
+    }
+
+    /**
+     * The first {@code limit} addresses {@code expression} selects, in the order {@link #resolve} returns them.
+     */
+    public List<String> sample(String expression, int limit) {
+        Members current = members();
+        Snapshot tagged = snapshot;
+        int[] ids = select(AudienceExpression.parse(expression), current, tagged).first(limit);
+        List<String> addresses = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            addresses.add(tagged.addresses.get(id));
+        }
+        return addresses;
+    }
+
+    /**
+     * Stored tags with the number of currently listed recipients carrying each.
+     */
+    public Map<String, Integer> tags() {
+        Members current = members();
+        Map<String, Integer> counts = new TreeMap<>();
+        snapshot.tags.forEach((tag, ids) -> counts.put(tag, ids.and(current.all).cardinality()));
+        return counts;
+    }
+
+    /**
+     * Replaces the members of {@code tag}; an empty collection deletes the tag.
+     */
+    public int setTag(String tag, Collection<String> addresses) throws IOException {
+        String name = tagName(tag);
+        synchronized (writeLock) {
+            Dictionary dictionary = new Dictionary(snapshot);
+            RoaringBitmap ids = dictionary.ids(addresses);
+            Map<String, RoaringBitmap> tags = new HashMap<>(snapshot.tags);
+            if (ids.isEmpty()) {
+                tags.remove(name);
+            } else {
+                tags.put(name, ids);
+            }
+            publish(dictionary.snapshot(tags));
+            return ids.cardinality();
+        }
+    }
+
+    public int addToTag(String tag, Collection<String> addresses) throws IOException {
+        String name = tagName(tag);
+        synchronized (writeLock) {
+            Dictionary dictionary = new Dictionary(snapshot);
+            RoaringBitmap ids = dictionary.ids(addresses);
+            Map<String, RoaringBitmap> tags = new HashMap<>(snapshot.tags);
+            RoaringBitmap existing = tags.get(name);
+            RoaringBitmap updated = existing != null ? existing.or(ids) : ids;
+            tags.put(name, updated);
+            publish(dictionary.snapshot(tags));
+            return updated.cardinality();
+        }
+    }
+
+    public int removeFromTag(String tag, Collection<String> addresses) throws IOException {
+        String name = tagName(tag);
+        synchronized (writeLock) {
+            RoaringBitmap existing = snapshot.tags.get(name);
+            if (existing == null) {
+                return 0;
+            }
+            RoaringBitmap ids = new RoaringBitmap();
+            for (String address : addresses) {
+                Integer id = address != null ? snapshot.ids.get(address(address)) : null;
+                if (id != null) {
+                    ids.add(id);
+                }
+            }
+            RoaringBitmap updated = existing.andNot(ids);
+            Map<String, RoaringBitmap> tags = new HashMap<>(snapshot.tags);
+            if (updated.isEmpty()) {
+                tags.remove(name);
+            } else {
+                tags.put(name, updated);
+            }
+            publish(new Snapshot(snapshot.addresses, snapshot.ids, tags));
+            return updated.cardinality();
+        }
+    }
+
+    private RoaringBitmap select(AudienceExpression expression, Members current, Snapshot tagged) {
+        return expression.evaluate(term -> {
+            if (term.equals(ALL)) {
+                return current.all;
+            }
+            if (term.startsWith(CHANNEL_PREFIX)) {
+                Channel channel = channel(term.substring(CHANNEL_PREFIX.length()));
+                return channel != null ? current.channels.get(channel) : null;
+            }
+            return tagged.tags.get(term);
+        }, current.all);
+    }
+
+    /**
+     * Channel bitmaps for the recipient files as they are now. They are rebuilt only when the content
+     * repository hands out a different list for some channel, which happens after the file changed.
+     */
+    private Members members() {
+        List<List<String[]>> sources = new ArrayList<>(Channel.values().length);
+        for (Channel channel : Channel.values()) {
+            sources.add(contentRepository.getRecipients(channel.getName() + "_recipients.txt"));
+        }
+        Members current = members;
+        if (current != null && sameLists(current.sources, sources)) {
+            return current;
+        }
+        synchronized (writeLock) {
+            Dictionary dictionary = new Dictionary(snapshot);
+            Map<Channel, RoaringBitmap> channels = new EnumMap<>(Channel.class);
+            RoaringBitmap all = new RoaringBitmap();
+            for (Channel channel : Channel.values()) {
+                RoaringBitmap ids = new RoaringBitmap();
+                for (String[] recipient : sources.get(channel.ordinal())) {
+                    // Saved lists are not always normalized, so match them the way tags are
+                    ids.add(dictionary.id(address(recipient[1])));
+                }
+                channels.put(channel, ids);
+                all = all.or(ids);
+            }
+            // Addresses only listed in recipient files are not persisted until a tag refers to them
+            if (dictionary.grown()) {
+                snapshot = dictionary.snapshot(snapshot.tags);
+            }
+            current = new Members(sources, channels, all);
+            members = current;
+            return current;
+        }
+    }
+
+    private static boolean sameLists(List<List<String[]>> a, List<List<String[]>> b) {
+        for (int i = 0; i < a.size(); i++) {
+            if (a.get(i) != b.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Channel channel(String name) {
+        for (Channel channel : Channel.values()) {
+            if (channel.getName().equals(name)) {
+                return channel;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lower-cased tag name. Tags may not contain whitespace or parentheses, be an operator, or use a
+     * name that expressions reserve.
+     */
+    static String tagName(String tag) {
+        String name = tag == null ? "" : tag.trim().toLowerCase(Locale.ROOT);
+        boolean valid = !name.isEmpty() && !name.equals(ALL) && !name.startsWith(CHANNEL_PREFIX)
+                && !name.equals("and") && !name.equals("or") && !name.equals("not")
+                && name.chars().noneMatch(c -> Character.isWhitespace(c) || c == '(' || c == ')');
+        if (!valid) {
+            throw new IllegalArgumentException("Invalid tag name: " + tag);
+        }
+        return name;
+    }
+
+    /**
+     * A tagged address in the form recipient imports store it: e-mail addresses lower-cased and phone
+     * numbers without separators. Anything else, such as a Telegram chat ID, is only trimmed.
+     */
+    static String address(String value) {
+        String email = EmailAddresses.normalize(value);
+        if (email != null) {
+            return email;
+        }
+        String phone = PhoneNumbers.normalize(value);
+        return phone != null ? phone : value.trim();
+    }
+
+    private void publish(Snapshot updated) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(updated.addresses.size());
+            for (String address : updated.addresses) {
+                out.writeUTF(address);
+            }
+            out.writeInt(updated.tags.size());
+            for (Map.Entry<String, RoaringBitmap> tag : updated.tags.entrySet()) {
+                out.writeUTF(tag.getKey());
+                tag.getValue().writeTo(out);
+            }
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        snapshot = updated;
+    }
+
+    private Snapshot load() {
+        if (!Files.exists(file)) {
+            return new Snapshot(List.of(), Map.of(), Map.of());
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("unrecognized format");
+            }
+            int count = in.readInt();
+            List<String> addresses = new ArrayList<>(count);
+            Map<String, Integer> ids = new HashMap<>(count * 2);
+            for (int i = 0; i < count; i++) {
+                String address = in.readUTF();
+                addresses.add(address);
+                ids.put(address, i);
+            }
+            int tagCount = in.readInt();
+            Map<String, RoaringBitmap> tags = new HashMap<>(tagCount * 2);
+            for (int i = 0; i < tagCount; i++) {
+                tags.put(in.readUTF(), RoaringBitmap.readFrom(in));
+            }
+            return new Snapshot(List.copyOf(addresses), ids, tags);
+        } catch (IOException e) {
+            System.err.println("Error loading recipient tags, starting without tags: " + e.getMessage());
+            return new Snapshot(List.of(), Map.of(), Map.of());
+        }
+    }
+
+    private record Snapshot(List<String> addresses, Map<String, Integer> ids, Map<String, RoaringBitmap> tags) {
+    }
+
+    private record Members(List<List<String[]>> sources, Map<Channel, RoaringBitmap> channels, RoaringBitmap all) {
+    }
+
+    /**
+     * Copy-on-write view of the address dictionary that assigns IDs to new addresses.
+     */
+    private static final class Dictionary {
+        private final Snapshot base;
+        private List<String> addresses;
+        private Map<String, Integer> ids;
+
+        Dictionary(Snapshot base) {
+            this.base = base;
+            this.addresses = base.addresses;
+            this.ids = base.ids;
+        }
+
+        int id(String address) {
+            Integer id = ids.get(address);
+            if (id != null) {
+                return id;
+            }
+            if (!grown()) {
+                addresses = new ArrayList<>(base.addresses);
+                ids = new HashMap<>(base.ids);
+            }
+            addresses.add(address);
+            ids.put(address, addresses.size() - 1);
+            return addresses.size() - 1;
+        }
+
+        RoaringBitmap ids(Collection<String> values) {
+            RoaringBitmap bitmap = new RoaringBitmap();
+            for (String value : values) {
+                if (value != null && !value.isBlank()) {
+                    bitmap.add(id(address(value)));
+                }
+            }
+            return bitmap;
+        }
+
+        boolean grown() {
+            return addresses != base.addresses;
+        }
+
+        Snapshot snapshot(Map<String, RoaringBitmap> tags) {
+            return grown() ? new Snapshot(List.copyOf(addresses), Map.copyOf(ids), tags)
+                    : new Snapshot(base.addresses, base.ids, tags);
+        }
+    }
+}
@@ -1,5 +1,12 @@
 package com.example.emergencyservice.service;
 
+import com.example.emergencyservice.auth.PasswordVerifier;
+import com.example.emergencyservice.auth.PasswordVerifier.Verification;
+import com.example.emergencyservice.auth.UserStore;
+import com.example.emergencyservice.config.AuthConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCrypt;
 import org.springframework.stereotype.Service;
@@ -11,10 +18,13 @@ import javax.naming.directory.DirContext;
 import javax.naming.directory.InitialDirContext;
 import javax.naming.directory.SearchControls;
 import javax.naming.directory.SearchResult;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -25,68 +35,101 @@ public class AuthService {
 
     private final FileService fileService;
     private final LogService logService;
-
-    public AuthService(FileService fileService, LogService logService) {
+    private final UserStore userStore;
+    private final PasswordVerifier passwordVerifier;
+    private final MeterRegistry meterRegistry;
+
+    public AuthService(FileService fileService, LogService logService, AuthConfig authConfig,
+                       MeterRegistry meterRegistry,
+                       @Value("${app.data.directory}") String dataDirectory,
+                       @Value("${file.users.path:users.txt}") String usersPath) throws IOException {
         this.fileService = fileService;
         this.logService = logService;
+        this.meterRegistry = meterRegistry;
         initializeDefaultData();
+        this.userStore = new UserStore(Paths.get(dataDirectory, usersPath));
+        userStore.open();
+        this.passwordVerifier = new PasswordVerifier(authConfig.getVerifier().getThreads(),
+                authConfig.getVerifier().getQueueCapacity(),
+                authConfig.getVerifier().getTimeoutMs(),
+                authConfig.getCache().isEnabled(),
+                authConfig.getCache().getTtlMs(),
+                authConfig.getCache().getMaxEntries());
     }
 
     /**
      * Main authentication method with LDAP primary and file fallback
      */
-    public boolean authenticate(String username, String password) {
-        return authenticateWithFile(username, password);
+    public Verification authenticate(String username, String password) {
+        long started = System.nanoTime();
+        Verification result = authenticateWithFile(username, password);
+        Timer.builder("auth.latency")
+                .description("Login verification time, including the wait for a verifier thread")
+                .tag("result", result.name().toLowerCase())
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return result;
     }
 
     /**
      * File-based authentication (original implementation)
      */
-    private boolean authenticateWithFile(String username, String password) {
-        List<String[]> users = fileService.loadRecipients("users.txt");
-
-        for (String[] user : users) {
-            if (user[0].equals(username)) {
-                boolean success = BCrypt.checkpw(password, user[1]);
-                logService.logAuthAttempt(username, success);
+    private Verification authenticateWithFile(String username, String password) {
+        String hash = userStore.passwordHash(username);
+        if (hash != null) {
+            Verification result = passwordVerifier.verify(username, password, hash);
+            if (result == Verification.REJECTED) {
                 logService.logMessage("file", "auth_attempt",
-                        "File authentication " + (success ? "successful" : "failed") + " for: " + username,
-                        username, success ? "success" : "failure");
-                return success;
+                        "File authentication rejected - verifier overloaded for: " + username,
+                        username, "rejected");
+                return result;
             }
+            boolean success = result == Verification.MATCH;
+            logService.logAuthAttempt(username, success);
+            logService.logMessage("file", "auth_attempt",
+                    "File authentication " + (success ? "successful" : "failed") + " for: " + username,
+                    username, success ? "success" : "failure");
+            return result;
         }
 
         logService.logAuthAttempt(username, false);
         logService.logMessage("file", "auth_attempt",
                 "File authentication failed - user not found: " + username,
                 username, "failure");
-        return false;
+        return Verification.MISMATCH;
     }
 
     public boolean createUser(String username, String password) {
-        List<String[]> users = fileService.loadRecipients("users.txt");
+        if (userStore.passwordHash(username) != null) {
+            return false;
+        }
 
-        for (String[] user : users) {
-            if (user[0].equals(username)) {
+        String hashedPassword = BCrypt.hashpw(password, BCrypt.gensalt());
+        try {
+            if (!userStore.add(username, hashedPassword)) {
                 return false;
             }
+        } catch (IOException e) {
+            logService.logError("create_user", e.getMessage(), "system");
+            return false;
         }
 
-        String hashedPassword = BCrypt.hashpw(password, BCrypt.gensalt());
-        users.add(new String[]{username, hashedPassword});
-        fileService.saveRecipients("users.txt", users);
-
         logService.logMessage("system", "new_user", "User created: " + username, "system", "success");
         return true;
     }
 
     public boolean deleteUser(String username) {
-        List<String[]> users = fileService.loadRecipients("users.txt");
-
-        boolean removed = users.removeIf(user -> user[0].equals(username));
+        boolean removed;
+        try {
+            removed = userStore.remove(username);
+        } catch (IOException e) {
+            logService.logError("delete_user", e.getMessage(), "system");
+            return false;
+        }
 
         if (removed) {
-            fileService.saveRecipients("users.txt", users);
+            passwordVerifier.invalidate(username);
             logService.logMessage("system", "delete_user", "User deleted: " + username, "system", "success");
             return true;
         }
@@ -95,7 +138,17 @@ public class AuthService {
     }
 
     public List<String[]> getAllUsers() {
-        return fileService.loadRecipients("users.txt");
+        return userStore.list();
+    }
+
+    public PasswordVerifier.Metrics verificationMetrics() {
+        return passwordVerifier.metrics();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        userStore.close();
+        passwordVerifier.close();
     }
 
     private void initializeDefaultData() {
@@ -0,0 +1,374 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.config.DispatchConfig;
+import com.example.emergencyservice.model.BroadcastJob;
+import com.example.emergencyservice.model.DeliveryOutcome;
+import com.example.emergencyservice.model.DeliveryResult;
+import com.example.emergencyservice.model.Priority;
+import com.example.emergencyservice.queue.QueueJournal;
+import com.example.emergencyservice.util.FingerprintWindow;
+import com.example.emergencyservice.util.Fingerprints;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Registry of broadcast jobs. Each job is delivered in the background so /send returns immediately.
+ * Transient failures are handed to the {@link RetryScheduler}; deliveries that fail permanently or run
+ * out of attempts are written to the {@link DeadLetterStore}. Deliveries refused by an open circuit are
+ * retried as well; the refusals do not count as attempts but have a limit of their own. A delivery is
+ * acknowledged in the outbound queue only once it is settled either way.
+ * <p>
+ * Submissions are deduplicated twice: repeated recipients are dropped before a job is created, and a
+ * submission that repeats an idempotency key, or the message and recipients of a job still in flight,
+ * attaches to the existing job instead of starting another. Only fingerprints and job IDs are kept for
+ * this, in bounded expiring windows.
+ * <p>
+ * Each job runs in a priority lane of the {@link DispatchService}. Unless the submitter picks one, the
+ * lane follows from the broadcast itself, see {@link Priority#of}; resumed and redriven jobs are
+ * classified the same way, and retries stay in the lane of their job.
+ * <p>
+ * In a cluster, accepted broadcasts are handed to the {@link ClusterService} instead of being delivered
+ * here, and this service runs whatever parts of broadcasts the cluster assigns to this instance.
+ * Idempotency keys are then also claimed cluster-wide, and jobs are looked up from the progress their
+ * shard owners report.
+ */
+@Service
+public class BroadcastJobService {
+
+    private final DispatchService dispatchService;
+    private final OutboundQueue outboundQueue;
+    private final DispatchConfig dispatchConfig;
+    private final RetryScheduler retryScheduler;
+    private final DeadLetterStore deadLetterStore;
+    private final ClusterService clusterService;
+    private final Map<String, BroadcastJob> jobs = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> completed = new ConcurrentLinkedQueue<>();
+    private final FingerprintWindow submittedKeys;
+    private final FingerprintWindow submittedContent;
+    private final Object submitLock = new Object();
+
+    public BroadcastJobService(DispatchService dispatchService, OutboundQueue outboundQueue,
+                               DispatchConfig dispatchConfig, RetryScheduler retryScheduler,
+                               DeadLetterStore deadLetterStore, ClusterService clusterService) {
+        this.dispatchService = dispatchService;
+        this.outboundQueue = outboundQueue;
+        this.dispatchConfig = dispatchConfig;
+        this.retryScheduler = retryScheduler;
+        this.deadLetterStore = deadLetterStore;
+        this.clusterService = clusterService;
+        DispatchConfig.Dedup dedup = dispatchConfig.getDedup();
+        this.submittedKeys = new FingerprintWindow(dedup.getKeyTtlMs(), dedup.getMaxEntries());
+        this.submittedContent = new FingerprintWindow(dedup.getWindowMs(), dedup.getMaxEntries());
+    }
+
+    /**
+     * Starts a broadcast to the distinct recipients, without duplicate detection.
+     */
+    public BroadcastJob submit(List<String> recipients, String message, String username) {
+        List<String> distinct = distinct(recipients);
+        return start(newJobId(), distinct, message, username, classify(message, distinct));
+    }
+
+    /**
+     * Starts a broadcast unless it duplicates an earlier submission, in which case the earlier job is
+     * returned. {@code idempotencyKey} and {@code priority} may be null.
+     */
+    public Submission submit(List<String> recipients, String message, String username, String idempotencyKey,
+                             Priority priority) {
+        List<String> distinct = distinct(recipients);
+        Priority lane = priority != null ? priority : classify(message, distinct);
+        long key = idempotencyKey != null && !idempotencyKey.isBlank()
+                ? Fingerprints.combine(Fingerprints.of(username), Fingerprints.of(idempotencyKey)) : 0;
+        long content = Fingerprints.combine(Fingerprints.of(message), Fingerprints.ofSet(distinct));
+
+        String jobId;
+        synchronized (submitLock) {
+            String existing = key != 0 ? submittedKeys.get(key) : null;
+            if (existing == null) {
+                String previous = submittedContent.get(content);
+                if (previous != null && isInFlight(previous)) {
+                    existing = previous;
+                }
+            }
+            jobId = newJobId();
+            if (existing == null && key != 0 && clusterService.isEnabled()) {
+                String holder = clusterService.claim(key, jobId);
+                if (!holder.equals(jobId)) {
+                    existing = holder;
+                }
+            }
+            if (existing != null) {
+                if (key != 0) {
+                    submittedKeys.put(key, existing);
+                }
+                return new Submission(existing, findJob(existing).orElse(null), true);
+            }
+            if (key != 0) {
+                submittedKeys.put(key, jobId);
+            }
+            submittedContent.put(content, jobId);
+            BroadcastJob job = new BroadcastJob(jobId, username, distinct, lane);
+            // Registered or handed off before the lock is released, so a concurrent duplicate finds it in flight
+            if (clusterService.isEnabled()) {
+                return new Submission(jobId, publish(job, message), false);
+            }
+            jobs.put(jobId, job);
+        }
+        return new Submission(jobId, start(jobId, distinct, message, username, lane), false);
+    }
+
+    /**
+     * Restarts delivery of everything left in the outbound queue by a previous run.
+     * Returns the number of resumed deliveries. In a cluster this joins it instead, and every shard's
+     * pending deliveries are resumed by whichever instance acquires the shard.
+     */
+    public int resumePending() {
+        if (clusterService.isEnabled()) {
+            clusterService.join(this::runShard);
+            return 0;
+        }
+        int resumed = 0;
+        for (QueueJournal.PendingJob pending : outboundQueue.pendingJobs()) {
+            BroadcastJob job = new BroadcastJob(pending.jobId(), pending.username(), pending.recipients(),
+                    classify(pending.message(), pending.recipients()));
+            start(job, pending.message(), pending.ids());
+            resumed += pending.recipients().size();
+        }
+        return resumed;
+    }
+
+    /**
+     * Sends every dead letter again as new broadcasts on behalf of {@code username}, one job per
+     * distinct message. Returns the started jobs.
+     */
+    public List<BroadcastJob> redriveDeadLetters(String username) {
+        List<BroadcastJob> started = new ArrayList<>();
+        deadLetterStore.redrive(letters -> {
+            Map<String, List<String>> byMessage = new LinkedHashMap<>();
+            for (DeadLetterStore.DeadLetter letter : letters) {
+                byMessage.computeIfAbsent(letter.message(), key -> new ArrayList<>()).add(letter.recipient());
+            }
+            byMessage.forEach((message, recipients) -> started.add(submit(recipients, message, username)));
+        });
+        return started;
+    }
+
+    public Optional<BroadcastJob> findJob(String id) {
+        BroadcastJob job = jobs.get(id);
+        if (job == null && clusterService.isEnabled()) {
+            job = clusterService.findJob(id);
+        }
+        return Optional.ofNullable(job);
+    }
+
+    private BroadcastJob start(String jobId, List<String> recipients, String message, String username,
+                               Priority priority) {
+        if (clusterService.isEnabled()) {
+            return publish(new BroadcastJob(jobId, username, recipients, priority), message);
+        }
+        BroadcastJob job = jobs.computeIfAbsent(jobId, id -> new BroadcastJob(id, username, recipients, priority));
+        long[] deliveryIds = outboundQueue.enqueue(jobId, username, message, recipients);
+        start(job, message, deliveryIds);
+        return job;
+    }
+
+    /**
+     * Hands a job to the cluster. Recipients whose part could not be handed off are delivered by this
+     * instance, without journaling them; the parts that were handed off are left to their shard owners.
+     */
+    private BroadcastJob publish(BroadcastJob job, String message) {
+        List<String> remaining = clusterService.publish(job, message);
+        if (remaining.isEmpty()) {
+            return job;
+        }
+        System.err.println("Delivering " + remaining.size() + " recipients of job " + job.getId()
+                + " here, as they could not be handed off");
+        BroadcastJob local = remaining.size() == job.getRecipients().size() ? job
+                : new BroadcastJob(job.getId(), job.getUsername(), remaining, job.getPriority());
+        start(local, message, new long[remaining.size()]);
+        return job;
+    }
+
+    /**
+     * Delivers the part of a broadcast that falls into a shard this instance holds. The part is tracked
+     * by the cluster, not registered here, since other parts of the same job may run here as well.
+     */
+    private Run runShard(String jobId, String username, Priority priority, String message,
+                         List<String> recipients, long[] deliveryIds) {
+        BroadcastJob job = new BroadcastJob(jobId, username, recipients,
+                priority != null ? priority : classify(message, recipients));
+        return launch(job, message, deliveryIds);
+    }
+
+    private Priority classify(String message, List<String> recipients) {
+        return Priority.of(message, recipients.size(), dispatchConfig.getPriorities().getBulkThreshold());
+    }
+
+    private boolean isInFlight(String jobId) {
+        BroadcastJob job = findJob(jobId).orElse(null);
+        return job != null && job.getState() != BroadcastJob.State.COMPLETED;
+    }
+
+    private static List<String> distinct(List<String> recipients) {
+        LinkedHashSet<String> distinct = new LinkedHashSet<>(recipients.size() * 2);
+        for (String recipient : recipients) {
+            if (recipient != null && !recipient.isBlank()) {
+                distinct.add(recipient.trim());
+            }
+        }
+        return List.copyOf(distinct);
+    }
+
+    private void start(BroadcastJob job, String message, long[] deliveryIds) {
+        jobs.put(job.getId(), job);
+        launch(job, message, deliveryIds);
+    }
+
+    private Run launch(BroadcastJob job, String message, long[] deliveryIds) {
+        Run run = new Run(job);
+        run.thread = Thread.ofVirtual().name("broadcast-" + job.getId()).unstarted(() -> run(run, message, deliveryIds));
+        run.thread.start();
+        return run;
+    }
+
+    private void run(Run run, String message, long[] deliveryIds) {
+        BroadcastJob job = run.job;
+        job.setState(BroadcastJob.State.RUNNING);
+        try {
+            dispatchService.dispatch(job.getRecipients(), message, job.getUsername(), job.getPriority(),
+                    run::isStopped, (index, result) -> settle(run, message, deliveryIds[index], index, 0, 0, result));
+        } finally {
+            completeIfSettled(job);
+        }
+    }
+
+    /**
+     * Settles a delivery's result, given the {@code attempts} made and the {@code refusals} by an open
+     * circuit before it.
+     */
+    private void settle(Run run, String message, long deliveryId, int index, int attempts, int refusals,
+                        DeliveryResult result) {
+        BroadcastJob job = run.job;
+        if (result.success()) {
+            job.record(index, true);
+            outboundQueue.ack(deliveryId);
+        } else {
+            run.lock.lock();
+            try {
+                if (run.stopped) {
+                    // Left unacknowledged for whoever delivers the job's pending deliveries next
+                    return;
+                }
+                // A delivery refused by an open circuit never reached the channel and is counted apart
+                boolean refused = result.outcome() == DeliveryOutcome.REFUSED;
+                int made = refused ? attempts : attempts + 1;
+                int turnedAway = refused ? refusals + 1 : refusals;
+                Consumer<DeliveryResult> retried = next -> settle(run, message, deliveryId, index, made, turnedAway,
+                        next);
+                boolean scheduled = result.outcome().isRetryable() && (refused
+                        ? retryScheduler.scheduleRefused(run, result.recipient(), message, job.getUsername(),
+                        job.getPriority(), turnedAway, retried)
+                        : retryScheduler.schedule(run, result.recipient(), message, job.getUsername(),
+                        job.getPriority(), made, retried));
+                if (scheduled) {
+                    job.recordRetry(index);
+                } else {
+                    String reason = refused ? "circuit open"
+                            : result.outcome().isRetryable() ? "retries exhausted" : "rejected";
+                    deadLetterStore.add(job.getId(), result.recipient(), result.channel().getName(), message,
+                            job.getUsername(), made, reason);
+                    job.record(index, false);
+                    outboundQueue.ack(deliveryId);
+                }
+            } finally {
+                run.lock.unlock();
+            }
+        }
+        completeIfSettled(job);
+    }
+
+    private void completeIfSettled(BroadcastJob job) {
+        if (job.getState() == BroadcastJob.State.RUNNING && job.isSettled() && job.complete()) {
+            retire(job);
+        }
+    }
+
+    private void retire(BroadcastJob job) {
+        if (jobs.get(job.getId()) != job) {
+            return;
+        }
+        completed.add(job.getId());
+        while (completed.size() > dispatchConfig.getJobs().getRetained()) {
+            String oldest = completed.poll();
+            if (oldest != null) {
+                jobs.remove(oldest);
+            }
+        }
+    }
+
+    private String newJobId() {
+        return UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * The deliveries of one job on this instance: its dispatch thread and the retries it scheduled.
+     */
+    private final class Run implements ClusterService.ShardRun, RetryScheduler.Owner {
+        private final BroadcastJob job;
+        // Held while a failure is settled, so that no retry is scheduled once the run has stopped
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile boolean stopped;
+        private Thread thread;
+
+        Run(BroadcastJob job) {
+            this.job = job;
+        }
+
+        @Override
+        public BroadcastJob job() {
+            return job;
+        }
+
+        @Override
+        public boolean isStopped() {
+            return stopped;
+        }
+
+        @Override
+        public void stop() {
+            lock.lock();
+            try {
+                stopped = true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public boolean awaitStopped(long timeoutMillis) {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+            boolean ended = RetryScheduler.join(thread, deadline);
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            return retryScheduler.cancel(this, Math.max(0, remaining)) && ended;
+        }
+    }
+
+    /**
+     * Outcome of a deduplicated submission. {@code job} is null if a duplicate's original job has
+     * already been dropped from the registry.
+     */
+    public record Submission(String jobId, BroadcastJob job, boolean duplicate) {
+    }
+}
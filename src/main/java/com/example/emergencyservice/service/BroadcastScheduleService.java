@@ -0,0 +1,311 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.config.ScheduleConfig;
+import com.example.emergencyservice.model.Priority;
+import com.example.emergencyservice.model.ScheduledBroadcast;
+import com.example.emergencyservice.util.TimerWheel;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One-off and recurring broadcasts, kept in a file under the data directory and fired by a
+ * {@link TimerWheel} that a single thread advances once per tick.
+ * <p>
+ * Recurring schedules use cron expressions; the usual five fields are accepted as well as Spring's six.
+ * Each run is submitted with an idempotency key made of the schedule ID and the time the run was due,
+ * which a made-up run keeps. The file is rewritten after every change, and before each run is submitted
+ * it already shows the run as done, so a run is never sent again after a restart; one interrupted by a
+ * crash between the two is lost instead. Runs missed while the service was down are handled on startup
+ * according to each schedule's {@link ScheduledBroadcast.CatchUp} policy and the catch-up window.
+ */
+@Service
+public class BroadcastScheduleService {
+
+    private final BroadcastJobService broadcastJobService;
+    private final AudienceService audienceService;
+    private final Path file;
+    private final long tickMillis;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final TimerWheel<String> wheel;
+    private final Map<String, Entry> schedules = new HashMap<>();
+    private final Thread ticker;
+    private volatile boolean closed;
+
+    public BroadcastScheduleService(ScheduleConfig scheduleConfig, BroadcastJobService broadcastJobService,
+                                    AudienceService audienceService,
+                                    @Value("${app.data.directory}") String dataDirectory) {
+        this.broadcastJobService = broadcastJobService;
+        this.audienceService = audienceService;
+        this.file = Paths.get(dataDirectory, scheduleConfig.getFile());
+        this.tickMillis = Math.max(10, scheduleConfig.getTickMs());
+
+        long now = System.currentTimeMillis();
+        this.wheel = new TimerWheel<>(tickMillis, now);
+        restore(now, scheduleConfig.getCatchUpWindowMs());
+
+        ticker = new Thread(this::runTicker, "broadcast-scheduler");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    /**
+     * Schedules a broadcast for {@code at}, or for the first time {@code cron} matches if {@code at} is
+     * null. Recipients are taken from {@code audience} on every run if it is set, otherwise from
+     * {@code recipients}. {@code priority} may be null.
+     *
+     * @throws IllegalArgumentException if the cron expression is malformed, the time has passed or
+     *                                  there is nothing to send to
+     */
+    public ScheduledBroadcast schedule(String username, String message, List<String> recipients, String audience,
+                                       Priority priority, LocalDateTime at, String cron,
+                                       ScheduledBroadcast.CatchUp catchUp) {
+        String expression = cron != null && !cron.isBlank() ? normalizeCron(cron) : null;
+        String source = audience != null && !audience.isBlank() ? audience.trim() : null;
+        List<String> fixed = source == null && recipients != null ? List.copyOf(recipients) : List.of();
+        if (source == null && fixed.isEmpty()) {
+            throw new IllegalArgumentException("no recipients");
+        }
+
+        long now = System.currentTimeMillis();
+        long first;
+        if (at != null) {
+            first = at.atZone(zone).toInstant().toEpochMilli();
+            if (first <= now) {
+                throw new IllegalArgumentException("time has already passed");
+            }
+        } else if (expression != null) {
+            first = nextRun(expression, now, zone);
+        } else {
+            throw new IllegalArgumentException("neither a time nor a cron expression given");
+        }
+        if (first < 0) {
+            throw new IllegalArgumentException("cron expression never matches");
+        }
+
+        ScheduledBroadcast schedule = new ScheduledBroadcast(UUID.randomUUID().toString().substring(0, 8),
+                username, message, priority, source, fixed, expression,
+                catchUp != null ? catchUp : ScheduledBroadcast.CatchUp.ONCE, first);
+        lock.lock();
+        try {
+            add(schedule);
+            persist();
+        } finally {
+            lock.unlock();
+        }
+        return schedule;
+    }
+
+    /**
+     * Removes a schedule. Returns false if there is no such schedule, for example because it has run.
+     */
+    public boolean cancel(String id) {
+        lock.lock();
+        try {
+            Entry entry = schedules.remove(id);
+            if (entry == null) {
+                return false;
+            }
+            wheel.cancel(entry.timer);
+            persist();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * All schedules, soonest first.
+     */
+    public List<ScheduledBroadcast> list() {
+        List<ScheduledBroadcast> list = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Entry entry : schedules.values()) {
+                list.add(entry.schedule);
+            }
+        } finally {
+            lock.unlock();
+        }
+        list.sort(Comparator.comparingLong(ScheduledBroadcast::nextRun));
+        return list;
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        closed = true;
+        ticker.interrupt();
+        ticker.join(tickMillis * 10);
+        lock.lock();
+        try {
+            persist();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A schedule loaded at {@code now} as it should continue, or null if it should be dropped. A run missed
+     * by at most {@code catchUpWindow} is made up once at {@code now} for {@link ScheduledBroadcast.CatchUp#ONCE};
+     * otherwise a recurring schedule moves on to its next run after {@code now} and a one-off is dropped.
+     */
+    static ScheduledBroadcast resume(ScheduledBroadcast schedule, long now, long catchUpWindow, ZoneId zone) {
+        if (schedule.nextRun() > now) {
+            return schedule;
+        }
+        if (schedule.catchUp() == ScheduledBroadcast.CatchUp.ONCE && now - schedule.dueAt() <= catchUpWindow) {
+            return schedule.withCatchUpAt(now);
+        }
+        long next = schedule.isRecurring() ? nextRun(schedule.cron(), now, zone) : -1;
+        return next >= 0 ? schedule.withNextRun(next) : null;
+    }
+
+    /**
+     * First time after {@code afterMillis} that {@code cron} matches, or -1 if there is none.
+     */
+    static long nextRun(String cron, long afterMillis, ZoneId zone) {
+        ZonedDateTime next = CronExpression.parse(cron)
+                .next(ZonedDateTime.ofInstant(Instant.ofEpochMilli(afterMillis), zone));
+        return next != null ? next.toInstant().toEpochMilli() : -1;
+    }
+
+    /**
+     * Adds the seconds field to a five-field cron expression and checks that it parses.
+     */
+    static String normalizeCron(String cron) {
+        String expression = cron.trim().replaceAll("\\s+", " ");
+        if (!expression.startsWith("@") && expression.split(" ").length == 5) {
+            expression = "0 " + expression;
+        }
+        CronExpression.parse(expression);
+        return expression;
+    }
+
+    private void restore(long now, long catchUpWindow) {
+        List<ScheduledBroadcast> loaded;
+        try {
+            loaded = ScheduleFile.read(file);
+        } catch (IOException e) {
+            System.err.println("Error loading scheduled broadcasts, starting without them: " + e.getMessage());
+            return;
+        }
+
+        lock.lock();
+        try {
+            for (ScheduledBroadcast schedule : loaded) {
+                ScheduledBroadcast resumed;
+                try {
+                    resumed = resume(schedule, now, catchUpWindow, zone);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Dropping scheduled broadcast " + schedule.id() + ": " + e.getMessage());
+                    continue;
+                }
+                if (resumed == null) {
+                    System.out.println("Dropping missed scheduled broadcast " + schedule.id());
+                    continue;
+                }
+                add(resumed);
+            }
+            if (schedules.size() != loaded.size()) {
+                persist();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (!loaded.isEmpty()) {
+            System.out.println("Restored " + schedules.size() + " scheduled broadcasts");
+        }
+    }
+
+    private void runTicker() {
+        List<ScheduledBroadcast> due = new ArrayList<>();
+        while (!closed) {
+            try {
+                Thread.sleep(tickMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            lock.lock();
+            try {
+                wheel.advance(now, id -> {
+                    Entry entry = schedules.remove(id);
+                    if (entry == null) {
+                        return;
+                    }
+                    due.add(entry.schedule);
+                    if (entry.schedule.isRecurring()) {
+                        long next = nextRun(entry.schedule.cron(), Math.max(now, entry.schedule.nextRun()), zone);
+                        if (next >= 0) {
+                            add(entry.schedule.withNextRun(next));
+                        }
+                    }
+                });
+                if (!due.isEmpty()) {
+                    // Saved before the runs are sent: outside a cluster their idempotency keys are only kept
+                    // in memory, so a run still on file after a crash would be sent twice
+                    persist();
+                }
+            } finally {
+                lock.unlock();
+            }
+            for (ScheduledBroadcast schedule : due) {
+                fire(schedule);
+            }
+            due.clear();
+        }
+    }
+
+    private void fire(ScheduledBroadcast schedule) {
+        try {
+            List<String> recipients = schedule.audience() != null
+                    ? audienceService.resolve(schedule.audience()) : schedule.recipients();
+            if (recipients.isEmpty()) {
+                System.err.println("Scheduled broadcast " + schedule.id() + " has no recipients, skipping run");
+                return;
+            }
+            BroadcastJobService.Submission submission = broadcastJobService.submit(recipients, schedule.message(),
+                    schedule.username(), "schedule-" + schedule.id() + "-" + schedule.dueAt(), schedule.priority());
+            System.out.println("Scheduled broadcast " + schedule.id() + " started job " + submission.jobId());
+        } catch (RuntimeException e) {
+            System.err.println("Error running scheduled broadcast " + schedule.id() + ": " + e.getMessage());
+        }
+    }
+
+    private void add(ScheduledBroadcast schedule) {
+        schedules.put(schedule.id(), new Entry(schedule, wheel.schedule(schedule.nextRun(), schedule.id())));
+    }
+
+    private void persist() {
+        List<ScheduledBroadcast> snapshot = new ArrayList<>(schedules.size());
+        for (Entry entry : schedules.values()) {
+            snapshot.add(entry.schedule);
+        }
+        try {
+            ScheduleFile.write(file, snapshot);
+        } catch (IOException e) {
+            System.err.println("Error saving scheduled broadcasts: " + e.getMessage());
+        }
+    }
+
+    private record Entry(ScheduledBroadcast schedule, TimerWheel.Timer<String> timer) {
+    }
+}
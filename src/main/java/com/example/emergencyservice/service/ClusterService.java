@@ -0,0 +1,414 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.cluster.ClusterFiles;
+import com.example.emergencyservice.cluster.ShardLeases;
+import com.example.emergencyservice.config.ClusterConfig;
+import com.example.emergencyservice.config.DispatchConfig;
+import com.example.emergencyservice.model.BroadcastJob;
+import com.example.emergencyservice.model.Priority;
+import com.example.emergencyservice.queue.QueueJournal;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Membership in a cluster of instances sharing {@code app.cluster.directory}, or nothing at all when
+ * clustering is off.
+ * <p>
+ * Accepted broadcasts are split by recipient hash into shards and handed off through the shared
+ * directory. A single worker thread keeps this instance's shard leases, and for every shard it holds it
+ * opens the shard's queue journal, resumes what the previous owner left pending, and takes over new
+ * handoffs from the shard's inbox. Progress of the deliveries it runs is written back for any instance
+ * to report.
+ * <p>
+ * A shard this instance holds more of than its fair share stops taking handoffs and is handed back once
+ * its running deliveries have settled, or after one lease TTL at the latest. Before a shard's journal is
+ * closed, and its lease given up, the deliveries running there are stopped: no new attempt or retry is
+ * started, and the sends already under way are waited for, for a bounded time, and acknowledged, so the
+ * next owner resumes exactly what is left. A shard whose lease was lost is stopped and closed at once; only the sends that
+ * were under way at that moment may be made again by the new owner.
+ */
+@Service
+public class ClusterService {
+
+    private static final long CLEANUP_INTERVAL_MILLIS = 60_000;
+
+    private final ClusterConfig config;
+    private final OutboundQueue outboundQueue;
+    private final long keyTtlMillis;
+    private final ShardLeases leases;
+    private final ClusterFiles files;
+
+    private final Map<Integer, Long> draining = new HashMap<>();
+    private final Set<Integer> open = new TreeSet<>();
+    private final Set<Integer> release = new HashSet<>();
+    private final Map<String, Execution> executions = new HashMap<>();
+
+    private volatile Thread worker;
+    private volatile boolean closed;
+    private ShardHandler handler;
+    private long lastRenewed;
+
+    public ClusterService(ClusterConfig config, DispatchConfig dispatchConfig, OutboundQueue outboundQueue) {
+        this.config = config;
+        this.outboundQueue = outboundQueue;
+        this.keyTtlMillis = dispatchConfig.getDedup().getKeyTtlMs();
+        if (config.isEnabled()) {
+            String nodeId = config.getNodeId().isBlank() ? defaultNodeId() : config.getNodeId();
+            this.leases = new ShardLeases(Paths.get(config.getDirectory()), nodeId, config.getShards(),
+                    config.getLeaseTtlMs());
+            this.files = new ClusterFiles(Paths.get(config.getDirectory()), config.getShards());
+        } else {
+            this.leases = null;
+            this.files = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return leases != null;
+    }
+
+    /**
+     * Starts taking part in the cluster, running the shard parts this instance takes over through
+     * {@code handler}. Does nothing when clustering is off or already started.
+     */
+    public synchronized void join(ShardHandler handler) {
+        if (!isEnabled() || worker != null) {
+            return;
+        }
+        this.handler = handler;
+        Thread thread = new Thread(this::run, "cluster-" + leases.nodeId());
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
+
+    /**
+     * Hands a broadcast over to the owners of its recipients' shards. Returns the recipients that could
+     * not be handed off, for the caller to deliver.
+     */
+    public List<String> publish(BroadcastJob job, String message) {
+        List<String> remaining = files.publish(job, message);
+        Thread thread = worker;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+        return remaining;
+    }
+
+    /**
+     * A broadcast as last reported by the owners of its shards, or null if no instance knows it.
+     */
+    public BroadcastJob findJob(String jobId) {
+        try {
+            return files.job(jobId);
+        } catch (IOException e) {
+            System.err.println("Error reading progress of job " + jobId + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Claims an idempotency key fingerprint for {@code jobId} across the cluster. Returns the job that
+     * holds the key, which is {@code jobId} unless another instance claimed it first.
+     */
+    public String claim(long key, String jobId) {
+        try {
+            return files.claim(key, jobId);
+        } catch (IOException e) {
+            System.err.println("Error claiming idempotency key: " + e.getMessage());
+            return jobId;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            closed = true;
+            thread = worker;
+        }
+        if (thread == null) {
+            return;
+        }
+        thread.interrupt();
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        long nextRenewal = 0;
+        long nextCleanup = 0;
+        long pollNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, config.getPollMs()));
+        while (!closed) {
+            long now = System.currentTimeMillis();
+            if (now >= nextRenewal || !release.isEmpty()) {
+                renew(now);
+                nextRenewal = now + config.getHeartbeatMs();
+            }
+            for (int shard : open) {
+                if (!draining.containsKey(shard)) {
+                    takeHandoffs(shard);
+                }
+            }
+            reportProgress(now);
+            windDown(now);
+            if (now >= nextCleanup) {
+                try {
+                    files.cleanup(config.getRetentionMs(), keyTtlMillis);
+                } catch (IOException e) {
+                    System.err.println("Error cleaning up cluster directory: " + e.getMessage());
+                }
+                nextCleanup = now + CLEANUP_INTERVAL_MILLIS;
+            }
+            LockSupport.parkNanos(pollNanos);
+        }
+
+        // Cleared so that the file channels used below are not closed by the interrupt
+        Thread.interrupted();
+        closeShards(Set.copyOf(open));
+        try {
+            leases.releaseAll();
+        } catch (IOException e) {
+            System.err.println("Error releasing shard leases: " + e.getMessage());
+        }
+    }
+
+    private void renew(long now) {
+        ShardLeases.Assignment assignment;
+        try {
+            assignment = leases.renew(release);
+            lastRenewed = now;
+            release.clear();
+        } catch (IOException e) {
+            System.err.println("Error renewing shard leases: " + e.getMessage());
+            if (now - lastRenewed >= config.getLeaseTtlMs()) {
+                // Others may already have taken the shards over
+                closeShards(Set.copyOf(open));
+            }
+            return;
+        }
+
+        List<Integer> lost = new ArrayList<>();
+        for (int shard : open) {
+            if (!assignment.owned().contains(shard)) {
+                System.err.println("Lost the lease on queue shard " + shard);
+                lost.add(shard);
+            }
+        }
+        closeShards(lost);
+        for (int shard : assignment.owned()) {
+            if (!open.contains(shard)) {
+                openShard(shard);
+            }
+        }
+        for (int shard : assignment.surplus()) {
+            draining.putIfAbsent(shard, now + config.getLeaseTtlMs());
+        }
+    }
+
+    private void openShard(int shard) {
+        List<QueueJournal.PendingJob> pending;
+        try {
+            pending = outboundQueue.openShard(shard);
+        } catch (IOException e) {
+            System.err.println("Error opening queue shard " + shard + ": " + e.getMessage());
+            release.add(shard);
+            return;
+        }
+        open.add(shard);
+        for (QueueJournal.PendingJob job : pending) {
+            start(shard, job.jobId(), job.username(), null, job.message(), job.recipients(), job.ids());
+        }
+        if (!pending.isEmpty()) {
+            System.out.println("Took over queue shard " + shard + " with " + pending.size() + " pending jobs");
+        }
+    }
+
+    /**
+     * Stops the deliveries running on some shards, then closes their journals. Whatever they left
+     * unacknowledged stays pending there for the next owner. The sends under way are waited for at most
+     * a fifth of the lease TTL, so that leases are renewed in time while a slow send goes on; one that
+     * has not ended by then may be made again by the next owner.
+     */
+    private void closeShards(Collection<Integer> shards) {
+        if (shards.isEmpty()) {
+            return;
+        }
+        List<Execution> stopping = new ArrayList<>();
+        Iterator<Execution> iterator = executions.values().iterator();
+        while (iterator.hasNext()) {
+            Execution execution = iterator.next();
+            if (shards.contains(execution.shard)) {
+                execution.run.stop();
+                stopping.add(execution);
+                iterator.remove();
+            }
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getLeaseTtlMs() / 5);
+        for (Execution execution : stopping) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            if (!execution.run.awaitStopped(Math.max(0, remaining))) {
+                System.err.println("Sends of job " + execution.job.getId() + " on queue shard " + execution.shard
+                        + " still under way, closing the shard anyway");
+            }
+        }
+        for (int shard : shards) {
+            outboundQueue.closeShard(shard);
+            open.remove(shard);
+            draining.remove(shard);
+        }
+    }
+
+    private void takeHandoffs(int shard) {
+        List<ClusterFiles.Handoff> handoffs;
+        try {
+            handoffs = files.inbox(shard);
+        } catch (IOException e) {
+            System.err.println("Error reading inbox of shard " + shard + ": " + e.getMessage());
+            return;
+        }
+        for (ClusterFiles.Handoff handoff : handoffs) {
+            try {
+                // Already journaled if the previous owner stopped between enqueueing and removing it
+                if (!outboundQueue.hasJob(shard, handoff.jobId())) {
+                    long[] ids = outboundQueue.enqueue(shard, handoff.jobId(), handoff.username(),
+                            handoff.message(), handoff.recipients());
+                    Execution execution = start(shard, handoff.jobId(), handoff.username(), handoff.priority(),
+                            handoff.message(), handoff.recipients(), ids);
+                    report(execution, System.currentTimeMillis());
+                }
+                files.remove(handoff);
+            } catch (IOException e) {
+                System.err.println("Error taking over job " + handoff.jobId() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private Execution start(int shard, String jobId, String username, Priority priority, String message,
+                            List<String> recipients, long[] ids) {
+        ShardRun run = handler.start(jobId, username, priority, message, recipients, ids);
+        Execution execution = new Execution(shard, run);
+        executions.put(jobId + "/" + shard, execution);
+        return execution;
+    }
+
+    /**
+     * Writes the progress of running shard parts that changed, at most once per progress interval each,
+     * and for the last time once they complete.
+     */
+    private void reportProgress(long now) {
+        Iterator<Execution> iterator = executions.values().iterator();
+        while (iterator.hasNext()) {
+            Execution execution = iterator.next();
+            boolean completed = execution.job.getState() == BroadcastJob.State.COMPLETED;
+            if (!completed && now - execution.reportedAt < config.getProgressIntervalMs()) {
+                continue;
+            }
+            BroadcastJob.Progress progress = execution.job.progress();
+            long signature = ((long) progress.sent() << 42) ^ ((long) progress.failed() << 21) ^ progress.retrying();
+            if (signature == execution.signature && !completed) {
+                continue;
+            }
+            try {
+                report(execution, now);
+                execution.signature = signature;
+            } catch (IOException e) {
+                System.err.println("Error writing progress of job " + execution.job.getId() + ": " + e.getMessage());
+                continue;
+            }
+            if (completed) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private void report(Execution execution, long now) throws IOException {
+        files.writeProgress(execution.shard, execution.job);
+        execution.reportedAt = now;
+    }
+
+    /**
+     * Hands back surplus shards once nothing runs on them any more or their grace period is over, in
+     * which case what still runs is stopped first.
+     */
+    private void windDown(long now) {
+        List<Integer> done = draining.entrySet().stream()
+                .filter(entry -> now >= entry.getValue() || executions.values().stream()
+                        .noneMatch(execution -> execution.shard == entry.getKey()))
+                .map(Map.Entry::getKey)
+                .toList();
+        closeShards(done);
+        release.addAll(done);
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            host = "node";
+        }
+        return host.replaceAll("[^A-Za-z0-9.-]", "_") + "-" + ProcessHandle.current().pid();
+    }
+
+    /**
+     * Runs the part of a broadcast that falls into one of this instance's shards. {@code priority} is
+     * null for parts resumed from a journal, which does not record it.
+     */
+    @FunctionalInterface
+    public interface ShardHandler {
+        ShardRun start(String jobId, String username, Priority priority, String message,
+                       List<String> recipients, long[] deliveryIds);
+    }
+
+    /**
+     * A shard part started by a {@link ShardHandler}.
+     */
+    public interface ShardRun {
+        BroadcastJob job();
+
+        /**
+         * Starts no further delivery attempts or retries of the part. Sends already under way go on, and
+         * deliveries they do not settle are left unacknowledged.
+         */
+        void stop();
+
+        /**
+         * Waits up to {@code timeoutMillis} for the sends of a stopped part to end. Returns false if some
+         * are still under way.
+         */
+        boolean awaitStopped(long timeoutMillis);
+    }
+
+    private static final class Execution {
+        private final int shard;
+        private final ShardRun run;
+        private final BroadcastJob job;
+        private long signature = -1;
+        private long reportedAt;
+
+        Execution(int shard, ShardRun run) {
+            this.shard = shard;
+            this.run = run;
+            this.job = run.job();
+        }
+    }
+}
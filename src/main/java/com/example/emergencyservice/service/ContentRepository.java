@@ -0,0 +1,265 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.model.Channel;
+import com.example.emergencyservice.template.MessageTemplate;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache of recipient lists and message templates on top of {@link FileService}.
+ * Recipient files are also indexed by address for name lookups, and templates are kept in compiled
+ * form as well.
+ * <p>
+ * Entries are dropped when they are saved through this class or when a watcher sees the backing file
+ * change, so a steady-state dashboard render touches no files. Every invalidation bumps a generation
+ * counter, and a load that raced with an invalidation is returned but not cached.
+ */
+@Service
+public class ContentRepository {
+
+    private static final String RECIPIENTS_SUFFIX = "_recipients.txt";
+    private static final String TEMPLATE_SUFFIX = ".txt";
+
+    private final FileService fileService;
+    private final Path dataDirectory;
+    private final Path templatesDirectory;
+
+    private final Map<String, RecipientFile> recipients = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> recipientGenerations = new ConcurrentHashMap<>();
+    private volatile Map<String, String> templates;
+    private final Map<String, MessageTemplate> compiledTemplates = new ConcurrentHashMap<>();
+    private final AtomicLong templatesGeneration = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    private WatchService watchService;
+    private volatile boolean cacheable = true;
+
+    public ContentRepository(FileService fileService,
+                             @Value("${app.data.directory}") String dataDirectory,
+                             @Value("${app.data.templates-dir}") String templatesDirectory) {
+        this.fileService = fileService;
+        this.dataDirectory = Paths.get(dataDirectory).toAbsolutePath().normalize();
+        this.templatesDirectory = Paths.get(templatesDirectory).toAbsolutePath().normalize();
+        startWatcher();
+    }
+
+    public List<String[]> getRecipients(String filename) {
+        return recipientFile(filename).entries();
+    }
+
+    /**
+     * Display name of an address from its channel's recipient file, or null if it is not listed there.
+     */
+    public String getRecipientName(String address) {
+        String filename = Channel.of(address).getName() + "_recipients.txt";
+        if (!cacheable) {
+            // Nothing would be kept, so only scan as far as the address
+            return fileService.findRecipientName(filename, address);
+        }
+        return recipientFile(filename).names().get(address);
+    }
+
+    public void saveRecipients(String filename, List<String[]> list) {
+        fileService.saveRecipients(filename, list);
+        invalidateRecipients(filename);
+    }
+
+    public RecipientImport.Result importRecipients(String filename, Channel channel, InputStream in)
+            throws IOException {
+        try {
+            return fileService.importRecipients(filename, channel, in);
+        } finally {
+            invalidateRecipients(filename);
+        }
+    }
+
+    /**
+     * Template names mapped to their contents, in directory listing order.
+     */
+    public Map<String, String> getTemplates() {
+        Map<String, String> cached = templates;
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        long generation = templatesGeneration.get();
+        Map<String, String> loaded = new LinkedHashMap<>();
+        for (String name : fileService.getTemplateNames()) {
+            loaded.put(name, fileService.loadTemplate(name));
+        }
+        loaded = Collections.unmodifiableMap(loaded);
+        if (cacheable && templatesGeneration.get() == generation) {
+            templates = loaded;
+        }
+        return loaded;
+    }
+
+    /**
+     * The named template compiled for server-side rendering, or null if there is no such template.
+     */
+    public MessageTemplate getCompiledTemplate(String name) {
+        MessageTemplate compiled = compiledTemplates.get(name);
+        if (compiled != null) {
+            return compiled;
+        }
+        long generation = templatesGeneration.get();
+        String source = getTemplates().get(name);
+        if (source == null) {
+            return null;
+        }
+        compiled = MessageTemplate.compile(source);
+        if (cacheable && templatesGeneration.get() == generation) {
+            compiledTemplates.put(name, compiled);
+        }
+        return compiled;
+    }
+
+    public void saveTemplate(String name, String content) {
+        fileService.saveTemplate(name, content);
+        invalidateTemplates();
+    }
+
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), invalidations.sum(), recipients.size(), templates != null);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+
+    private RecipientFile recipientFile(String filename) {
+        RecipientFile cached = recipients.get(filename);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        AtomicLong counter = generation(filename);
+        long generation = counter.get();
+        RecipientFile loaded = RecipientFile.of(fileService.loadRecipients(filename));
+        if (cacheable && counter.get() == generation) {
+            recipients.put(filename, loaded);
+        }
+        return loaded;
+    }
+
+    private void invalidateRecipients(String filename) {
+        generation(filename).incrementAndGet();
+        if (recipients.remove(filename) != null) {
+            invalidations.increment();
+        }
+    }
+
+    private AtomicLong generation(String filename) {
+        return recipientGenerations.computeIfAbsent(filename, key -> new AtomicLong());
+    }
+
+    private void invalidateTemplates() {
+        templatesGeneration.incrementAndGet();
+        compiledTemplates.clear();
+        if (templates != null) {
+            templates = null;
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * Watches both directories. Without a watcher the cache would go stale on external edits, so
+     * caching is switched off instead. The data directory also holds logs, the queue and other state
+     * written all the time, so only events for recipient and template files are acted on.
+     */
+    private void startWatcher() {
+        try {
+            Files.createDirectories(dataDirectory);
+            Files.createDirectories(templatesDirectory);
+            watchService = dataDirectory.getFileSystem().newWatchService();
+            register(dataDirectory);
+            if (!templatesDirectory.equals(dataDirectory)) {
+                register(templatesDirectory);
+            }
+        } catch (IOException e) {
+            System.err.println("Error watching data directories, content caching disabled: " + e.getMessage());
+            cacheable = false;
+            watchService = null;
+            return;
+        }
+
+        Thread watcher = new Thread(this::runWatcher, "content-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private void register(Path directory) throws IOException {
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    private void runWatcher() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    recipientGenerations.keySet().forEach(this::invalidateRecipients);
+                    invalidateTemplates();
+                    continue;
+                }
+                String name = event.context().toString();
+                if (directory.equals(dataDirectory) && name.endsWith(RECIPIENTS_SUFFIX)) {
+                    invalidateRecipients(name);
+                } else if (directory.equals(templatesDirectory) && name.endsWith(TEMPLATE_SUFFIX)) {
+                    invalidateTemplates();
+                }
+            }
+            if (!key.reset()) {
+                return;
+            }
+        }
+    }
+
+    private record RecipientFile(List<String[]> entries, Map<String, String> names) {
+        static RecipientFile of(List<String[]> entries) {
+            Map<String, String> names = new HashMap<>(entries.size() * 2);
+            for (String[] entry : entries) {
+                names.putIfAbsent(entry[1], entry[0]);
+            }
+            return new RecipientFile(Collections.unmodifiableList(entries), names);
+        }
+    }
+
+    public record Stats(long hits, long misses, long invalidations, int cachedRecipientFiles,
+                        boolean templatesCached) {
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.config.DispatchConfig;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Deliveries that failed for good, one JSON object per line in a file under the data directory.
+ * Dead letters are only appended until an operator re-drives them, which hands the whole file to a
+ * consumer and truncates it afterwards; a crash in between re-sends some messages rather than losing them.
+ */
+@Service
+public class DeadLetterStore {
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private final Object lock = new Object();
+    private int count;
+
+    public DeadLetterStore(DispatchConfig dispatchConfig, ObjectMapper objectMapper,
+                           @Value("${app.data.directory}") String dataDirectory) {
+        this.file = Paths.get(dataDirectory, dispatchConfig.getRetry().getDeadLetterFile());
+        this.objectMapper = objectMapper;
+        this.count = read().size();
+    }
+
+    public void add(String jobId, String recipient, String channel, String message, String username,
+                    int attempts, String reason) {
+        DeadLetter letter = new DeadLetter(jobId, recipient, channel, message, username, attempts, reason,
+                LocalDateTime.now().toString());
+        synchronized (lock) {
+            try {
+                Files.createDirectories(file.getParent());
+                Files.writeString(file, objectMapper.writeValueAsString(letter) + "\n", StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                count++;
+            } catch (IOException e) {
+                System.err.println("Error writing dead letter for " + recipient + ": " + e.getMessage());
+            }
+        }
+    }
+
+    public List<DeadLetter> list() {
+        synchronized (lock) {
+            return read();
+        }
+    }
+
+    public int count() {
+        synchronized (lock) {
+            return count;
+        }
+    }
+
+    /**
+     * Passes every dead letter to the consumer and then empties the file. If the consumer throws,
+     * the file is left as it was. Returns the number of dead letters handed over.
+     */
+    public int redrive(Consumer<List<DeadLetter>> consumer) {
+        synchronized (lock) {
+            List<DeadLetter> letters = read();
+            if (letters.isEmpty()) {
+                return 0;
+            }
+            consumer.accept(letters);
+            try {
+                Files.deleteIfExists(file);
+                count = 0;
+            } catch (IOException e) {
+                System.err.println("Error clearing dead letters: " + e.getMessage());
+            }
+            return letters.size();
+        }
+    }
+
+    private List<DeadLetter> read() {
+        List<DeadLetter> letters = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return letters;
+        }
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    letters.add(objectMapper.readValue(line, DeadLetter.class));
+                } catch (JsonProcessingException e) {
+                    System.err.println("Skipping malformed dead letter: " + e.getOriginalMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading dead letters: " + e.getMessage());
+        }
+        return letters;
+    }
+
+    public record DeadLetter(String jobId, String recipient, String channel, String message, String username,
+                             int attempts, String reason, String failedAt) {
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.config.DispatchConfig;
+import com.example.emergencyservice.config.MailPoolConfig;
+import com.example.emergencyservice.model.Channel;
+import com.example.emergencyservice.model.DeliveryOutcome;
+import com.example.emergencyservice.model.DeliveryResult;
+import com.example.emergencyservice.model.Priority;
+import com.example.emergencyservice.template.MessageTemplate;
+import com.example.emergencyservice.transport.SmsTransport;
+import com.example.emergencyservice.util.PriorityGate;
+import com.example.emergencyservice.util.TokenBucket;
+import org.springframework.stereotype.Service;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+@Service
+public class DispatchService {
+
+    static final String EMAIL_SUBJECT = "Сообщение от сервиса";
+
+    private final MessageService messageService;
+    private final MailPoolConfig mailPoolConfig;
+    private final SmsTransport smsTransport;
+    private final ContentRepository contentRepository;
+    private final DispatchConfig.Reactive reactive;
+    private final Map<Channel, Lane> lanes = new EnumMap<>(Channel.class);
+
+    public DispatchService(MessageService messageService, DispatchConfig dispatchConfig,
+                           MailPoolConfig mailPoolConfig, SmsTransport smsTransport,
+                           ContentRepository contentRepository) {
+        this.messageService = messageService;
+        this.mailPoolConfig = mailPoolConfig;
+        this.smsTransport = smsTransport;
+        this.contentRepository = contentRepository;
+        this.reactive = dispatchConfig.getReactive();
+        for (Channel channel : Channel.values()) {
+            lanes.put(channel, new Lane(dispatchConfig.getLimits(channel), dispatchConfig.getPriorities()));
+        }
+    }
+
+    /**
+     * Delivers the message to every recipient concurrently on virtual threads.
+     * Concurrency and send rate are capped per channel and shared by all broadcasts.
+     * Results are returned in recipient order.
+     */
+    public List<DeliveryResult> dispatch(List<String> recipients, String message, String username) {
+        return dispatch(recipients, message, username, Priority.NORMAL, (index, result) -> {
+        });
+    }
+
+    /**
+     * Same as {@link #dispatch(List, String, String)} in the given priority lane, reporting each result
+     * to the listener as soon as the recipient is done.
+     * <p>
+     * Every delivery unit waits for a slot of its channel on its own, so priority applies per recipient
+     * or batch rather than per broadcast: a slot freed by a bulk delivery goes to a waiting urgent one
+     * first, and the lanes then share the channel by their weights.
+     * <p>
+     * The message is compiled once as a template. If it uses {@code {name}} or {@code {recipient}}, each
+     * recipient gets a personalized copy, with the name taken from the recipient files. Batching is then
+     * off, because batched recipients must all get identical content.
+     * <p>
+     * With {@code dispatch.reactive.enabled}, Telegram recipients do not get a thread each but are sent
+     * without blocking, see {@link #deliverReactive}.
+     */
+    public List<DeliveryResult> dispatch(List<String> recipients, String message, String username,
+                                         Priority priority, DeliveryListener listener) {
+        return dispatch(recipients, message, username, priority, () -> false, listener);
+    }
+
+    /**
+     * Same as {@link #dispatch(List, String, String, Priority, DeliveryListener)}, except that no delivery
+     * is started any more once {@code cancelled} returns true. Deliveries already under way are finished
+     * and reported; the others are not passed to the listener and are returned as
+     * {@link DeliveryOutcome#FAILED_TRANSIENT}.
+     */
+    public List<DeliveryResult> dispatch(List<String> recipients, String message, String username,
+                                         Priority priority, BooleanSupplier cancelled, DeliveryListener listener) {
+        MessageTemplate template = MessageTemplate.compile(message);
+        boolean personalized = template.references("name") || template.references("recipient");
+        DeliveryResult[] results = new DeliveryResult[recipients.size()];
+        List<Pending> nonBlocking = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int[] batch : plan(recipients, personalized)) {
+                String text = personalized ? personalize(template, recipients.get(batch[0])) : message;
+                if (reactive.isEnabled() && Channel.of(recipients.get(batch[0])) == Channel.TELEGRAM) {
+                    nonBlocking.add(new Pending(batch[0], text));
+                    continue;
+                }
+                executor.submit(() -> deliver(batch, recipients, text, username, priority, cancelled, results,
+                        listener));
+            }
+            if (!nonBlocking.isEmpty()) {
+                deliverReactive(nonBlocking, recipients, username, priority, cancelled, results, listener);
+            }
+        }
+
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = new DeliveryResult(recipients.get(i), Channel.of(recipients.get(i)),
+                        DeliveryOutcome.FAILED_TRANSIENT);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Splits recipients into delivery units: one per recipient, except SMS numbers, which are submitted
+     * to the gateway in batches, and emails, which are grouped into BCC batches when enabled. Batching is
+     * possible because every recipient of a broadcast gets identical content.
+     */
+    private List<int[]> plan(List<String> recipients, boolean personalized) {
+        List<int[]> batches = new ArrayList<>(recipients.size());
+        Map<Channel, List<Integer>> batched = new EnumMap<>(Channel.class);
+        for (int i = 0; i < recipients.size(); i++) {
+            Channel channel = Channel.of(recipients.get(i));
+            if (!personalized && batchSize(channel) > 1) {
+                batched.computeIfAbsent(channel, key -> new ArrayList<>()).add(i);
+            } else {
+                batches.add(new int[]{i});
+            }
+        }
+
+        batched.forEach((channel, indexes) -> {
+            int batchSize = batchSize(channel);
+            for (int from = 0; from < indexes.size(); from += batchSize) {
+                batches.add(indexes.subList(from, Math.min(from + batchSize, indexes.size()))
+                        .stream().mapToInt(Integer::intValue).toArray());
+            }
+        });
+        return batches;
+    }
+
+    private int batchSize(Channel channel) {
+        return switch (channel) {
+            case EMAIL -> mailPoolConfig.isBccEnabled() ? Math.max(1, mailPoolConfig.getBccBatchSize()) : 1;
+            case SMS -> smsTransport.getBatchSize();
+            case TELEGRAM -> 1;
+        };
+    }
+
+    private void deliver(int[] batch, List<String> recipients, String message, String username,
+                         Priority priority, BooleanSupplier cancelled, DeliveryResult[] results,
+                         DeliveryListener listener) {
+        Channel channel = Channel.of(recipients.get(batch[0]));
+        Lane lane = lanes.get(channel);
+        DeliveryOutcome[] outcomes = new DeliveryOutcome[batch.length];
+        Arrays.fill(outcomes, DeliveryOutcome.FAILED_TRANSIENT);
+        try {
+            // Checked before every wait, so a cancelled broadcast neither queues for slots nor spends tokens;
+            // what it leaves is reported as transient failures, for whoever takes the deliveries over
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+            lane.permits.acquire(priority.ordinal());
+            try {
+                if (cancelled.getAsBoolean()) {
+                    return;
+                }
+                // The token is taken only once admitted, so queued bulk deliveries do not hold reservations
+                lane.bucket.acquire();
+                if (cancelled.getAsBoolean()) {
+                    return;
+                }
+                if (batchSize(channel) > 1) {
+                    List<String> batchRecipients = new ArrayList<>(batch.length);
+                    for (int index : batch) {
+                        batchRecipients.add(recipients.get(index));
+                    }
+                    outcomes = sendBatch(channel, batchRecipients, message, username);
+                } else {
+                    outcomes[0] = send(channel, recipients.get(batch[0]), message, username);
+                }
+            } finally {
+                lane.permits.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            System.err.println("Error delivering to " + recipients.get(batch[0]) + ": " + e.getMessage());
+        }
+
+        for (int i = 0; i < batch.length; i++) {
+            DeliveryResult result = new DeliveryResult(recipients.get(batch[i]), channel, outcomes[i]);
+            results[batch[i]] = result;
+            listener.onResult(batch[i], result);
+        }
+    }
+
+    /**
+     * Sends Telegram deliveries on the HTTP client's event loop, up to {@code dispatch.reactive.max-in-flight}
+     * at a time, while the other channels run on their threads. Each delivery still waits for a slot and a
+     * token of the Telegram lane, on a timer rather than a thread. Results are handed to the listener on
+     * the calling thread, so listeners that write to disk never run on the event loop.
+     */
+    private void deliverReactive(List<Pending> pending, List<String> recipients, String username,
+                                 Priority priority, BooleanSupplier cancelled, DeliveryResult[] results,
+                                 DeliveryListener listener) {
+        Lane lane = lanes.get(Channel.TELEGRAM);
+        Flux<Delivered> deliveries = Flux.fromIterable(pending)
+                .flatMap(unit -> deliverAsync(lane, unit.index(), recipients.get(unit.index()), unit.text(),
+                        username, priority, cancelled), Math.max(1, reactive.getMaxInFlight()));
+        try {
+            for (Delivered delivered : deliveries.toIterable()) {
+                results[delivered.index()] = delivered.result();
+                listener.onResult(delivered.index(), delivered.result());
+            }
+        } catch (RuntimeException e) {
+            if (Exceptions.unwrap(e) instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            } else {
+                System.err.println("Error delivering Telegram messages: " + e.getMessage());
+            }
+        }
+    }
+
+    private Mono<Delivered> deliverAsync(Lane lane, int index, String recipient, String message, String username,
+                                         Priority priority, BooleanSupplier cancelled) {
+        if (cancelled.getAsBoolean()) {
+            return Mono.empty();
+        }
+        return Mono.fromFuture(() -> lane.permits.acquireAsync(priority.ordinal()))
+                .then(Mono.defer(() -> {
+                    if (cancelled.getAsBoolean()) {
+                        lane.permits.release();
+                        return Mono.<DeliveryOutcome>empty();
+                    }
+                    long waitNanos = lane.bucket.reserve();
+                    Mono<DeliveryOutcome> send = Mono.defer(() -> cancelled.getAsBoolean() ? Mono.empty()
+                            : messageService.sendTelegramMessageAsync(recipient, message, username));
+                    return (waitNanos > 0 ? Mono.delay(Duration.ofNanos(waitNanos)).then(send) : send)
+                            .doFinally(signal -> lane.permits.release());
+                }))
+                .onErrorResume(e -> {
+                    System.err.println("Error delivering to " + recipient + ": " + e.getMessage());
+                    return Mono.just(DeliveryOutcome.FAILED_TRANSIENT);
+                })
+                .map(outcome -> new Delivered(index, new DeliveryResult(recipient, Channel.TELEGRAM, outcome)));
+    }
+
+    private String personalize(MessageTemplate template, String recipient) {
+        return template.render(field -> switch (field) {
+            case "recipient" -> recipient;
+            case "name" -> {
+                String name = contentRepository.getRecipientName(recipient);
+                yield name != null ? name : recipient;
+            }
+            default -> null;
+        });
+    }
+
+    private DeliveryOutcome send(Channel channel, String recipient, String message, String username) {
+        return switch (channel) {
+            case EMAIL -> messageService.sendEmail(recipient, EMAIL_SUBJECT, message, username);
+            case TELEGRAM -> messageService.sendTelegramMessage(recipient, message, username);
+            case SMS -> messageService.sendSmsBatch(List.of(recipient), message, username)[0];
+        };
+    }
+
+    private DeliveryOutcome[] sendBatch(Channel channel, List<String> recipients, String message, String username) {
+        return switch (channel) {
+            case EMAIL -> messageService.sendEmailBatch(recipients, EMAIL_SUBJECT, message, username);
+            case SMS -> messageService.sendSmsBatch(recipients, message, username);
+            case TELEGRAM -> throw new IllegalArgumentException("Telegram messages are not batched");
+        };
+    }
+
+    @FunctionalInterface
+    public interface DeliveryListener {
+        void onResult(int index, DeliveryResult result);
+    }
+
+    private record Pending(int index, String text) {
+    }
+
+    private record Delivered(int index, DeliveryResult result) {
+    }
+
+    private static class Lane {
+        private final PriorityGate permits;
+        private final TokenBucket bucket;
+
+        Lane(DispatchConfig.Limits limits, DispatchConfig.Priorities priorities) {
+            int[] weights = new int[Priority.values().length];
+            for (Priority priority : Priority.values()) {
+                weights[priority.ordinal()] = priorities.getWeight(priority);
+            }
+            this.permits = new PriorityGate(limits.getMaxConcurrency(), weights);
+            this.bucket = new TokenBucket(limits.getRatePerSecond(), limits.getBurst());
+        }
+    }
+}
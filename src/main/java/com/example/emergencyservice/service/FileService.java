@@ -1,14 +1,19 @@
 package com.example.emergencyservice.service;
 
+import com.example.emergencyservice.model.Channel;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 public class FileService {
@@ -24,37 +29,67 @@ public class FileService {
 
     public List<String[]> loadRecipients(String filename) {
         List<String[]> recipients = new ArrayList<>();
+        forEachRecipient(filename, (name, address) -> recipients.add(new String[]{name, address}));
+        return recipients;
+    }
+
+    /**
+     * Streams the entries of a recipient file to the visitor without loading the whole list; see
+     * {@link RecipientCodec}. A missing file has no entries.
+     */
+    public void forEachRecipient(String filename, RecipientCodec.Visitor visitor) {
         try {
             Path filePath = Paths.get(dataDirectory + filename);
             if (Files.exists(filePath)) {
-                List<String> lines = Files.readAllLines(filePath);
-                for (String line : lines) {
-                    if (line.trim().isEmpty()) continue;
-                    String[] parts = line.split(":", 2);
-                    if (parts.length == 2) {
-                        recipients.add(new String[]{parts[0].trim(), parts[1].trim()});
-                    }
-                }
+                RecipientCodec.read(filePath, visitor);
             }
         } catch (IOException e) {
             System.err.println("Error loading recipients: " + e.getMessage());
         }
-        return recipients;
+    }
+
+    /**
+     * Name of the first entry for {@code address}, or null. Reading stops at the match.
+     */
+    public String findRecipientName(String filename, String address) {
+        String[] found = new String[1];
+        forEachRecipient(filename, (name, candidate) -> {
+            if (candidate.equals(address)) {
+                found[0] = name;
+                return false;
+            }
+            return true;
+        });
+        return found[0];
     }
 
     public void saveRecipients(String filename, List<String[]> recipients) {
         try {
             Path filePath = Paths.get(dataDirectory + filename);
-            List<String> lines = new ArrayList<>();
-            for (String[] recipient : recipients) {
-                lines.add(recipient[0] + ":" + recipient[1]);
+            Path temp = Files.createTempFile(filePath.toAbsolutePath().getParent(), filePath.getFileName() + ".", ".tmp");
+            try {
+                RecipientCodec.write(temp, recipients);
+                try {
+                    Files.move(temp, filePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, filePath, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
             }
-            Files.write(filePath, lines);
         } catch (IOException e) {
             System.err.println("Error saving recipients: " + e.getMessage());
         }
     }
 
+    /**
+     * Replaces a recipient file with a streamed upload; see {@link RecipientImport}.
+     */
+    public RecipientImport.Result importRecipients(String filename, Channel channel, InputStream in)
+            throws IOException {
+        return RecipientImport.run(in, channel, Paths.get(dataDirectory + filename));
+    }
+
     public String loadTemplate(String name) {
         try {
             Path templatePath = Paths.get(templatesDir + name + ".txt");
@@ -78,9 +113,8 @@ public class FileService {
 
     public List<String> getTemplateNames() {
         List<String> templates = new ArrayList<>();
-        try {
-            Files.list(Paths.get(templatesDir))
-                    .filter(path -> path.toString().endsWith(".txt"))
+        try (Stream<Path> files = Files.list(Paths.get(templatesDir))) {
+            files.filter(path -> path.toString().endsWith(".txt"))
                     .forEach(path -> {
                         String filename = path.getFileName().toString();
                         templates.add(filename.substring(0, filename.length() - 4));
@@ -91,17 +125,6 @@ public class FileService {
         return templates;
     }
 
-    public void appendToFile(String filename, String content) {
-        try {
-            Path filePath = Paths.get(dataDirectory + filename);
-            Files.write(filePath, (content + System.lineSeparator()).getBytes(),
-                    java.nio.file.StandardOpenOption.CREATE,
-                    java.nio.file.StandardOpenOption.APPEND);
-        } catch (IOException e) {
-            System.err.println("Error appending to file: " + e.getMessage());
-        }
-    }
-
     public void createDefaultFiles() {
         List<String[]> users = loadRecipients("users.txt");
         if (users.isEmpty()) {
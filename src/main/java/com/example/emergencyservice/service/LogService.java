@@ -1,56 +1,113 @@
 package com.example.emergencyservice.service;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.example.emergencyservice.config.LogConfig;
+import com.example.emergencyservice.logging.LogSearch;
+import com.example.emergencyservice.logging.LogWriter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Writes delivery, error and auth records as JSON lines. Callers only enqueue; the files are written
+ * by a single background {@link LogWriter}, which is drained when the application shuts down.
+ * The user, channel and status fields are indexed as they are written, for {@link #search}.
+ */
 @Service
 public class LogService {
 
-    @Value("${app.data.directory}")
-    private String dataDirectory;
+    private static final Set<String> INDEXED_FIELDS = Set.of("user", "channel", "status");
 
-    private final FileService fileService;
+    private final LogWriter writer;
+    private final LogSearch search;
+    private final boolean console;
+    private final long drainTimeoutMs;
 
-    public LogService(FileService fileService) {
-        this.fileService = fileService;
+    public LogService(LogConfig logConfig, ObjectMapper objectMapper) throws IOException {
+        this.writer = new LogWriter(Paths.get(logConfig.getDirectory()),
+                logConfig.getCapacity(),
+                logConfig.getFlushBytes(),
+                logConfig.getFlushIntervalMs(),
+                logConfig.getMaxFileSize(),
+                logConfig.getMaxHistory(),
+                objectMapper,
+                INDEXED_FIELDS);
+        this.search = new LogSearch(Paths.get(logConfig.getDirectory()), logConfig.getMaxHistory(), writer,
+                objectMapper);
+        this.console = logConfig.isConsole();
+        this.drainTimeoutMs = logConfig.getDrainTimeoutMs();
+        writer.open();
     }
 
     public void logMessage(String channel, String recipient, String message,
                            String username, String status) {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        if (console) {
+            System.out.println(username + " -> " + channel + ": " + recipient + " - " + status);
+        }
 
-        String shortLogEntry = String.format("[%s] %s -> %s: %s - %s",
-                timestamp, username, channel, recipient, status);
-
-        String fullLogEntry = String.format("{\"timestamp\": \"%s\", \"user\": \"%s\", " +
-                        "\"channel\": \"%s\", \"recipient\": \"%s\", \"message\": \"%s\", \"status\": \"%s\"}",
-                timestamp, username, channel, recipient,
-                message.replace("\"", "\\\"").replace("\n", " "), status);
-
-        System.out.println(shortLogEntry);
-
-        fileService.appendToFile("logs.txt", fullLogEntry);
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("user", username);
+        fields.put("channel", channel);
+        fields.put("recipient", recipient);
+        fields.put("message", message);
+        fields.put("status", status);
+        append("logs.txt", fields);
     }
 
     public void logError(String operation, String errorMessage, String username) {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
-        String logEntry = String.format("[%s] ERROR - %s: %s - User: %s",
-                timestamp, operation, errorMessage, username);
+        System.err.println("ERROR - " + operation + ": " + errorMessage + " - User: " + username);
 
-        System.err.println(logEntry);
-        fileService.appendToFile("error_logs.txt", logEntry);
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("operation", operation);
+        fields.put("error", errorMessage);
+        fields.put("user", username);
+        append("error_logs.txt", fields);
     }
 
     public void logAuthAttempt(String username, boolean success) {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
         String status = success ? "SUCCESS" : "FAILED";
-        String logEntry = String.format("[%s] AUTH %s - User: %s",
-                timestamp, status, username);
+        if (console) {
+            System.out.println("AUTH " + status + " - User: " + username);
+        }
+
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("user", username);
+        fields.put("status", status);
+        append("auth_logs.txt", fields);
+    }
+
+    /**
+     * One page of entries from {@code file} and its rotated segments, newest first.
+     */
+    public LogSearch.LogPage search(String file, LogSearch.LogQuery query) throws IOException {
+        return search.search(file, query);
+    }
+
+    /**
+     * Blocks until every record logged so far is on disk, or the drain timeout passes.
+     */
+    public boolean drain() {
+        try {
+            return writer.flush(drainTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        writer.close();
+    }
 
-        System.out.println(logEntry);
-        fileService.appendToFile("auth_logs.txt", logEntry);
+    private void append(String file, Map<String, String> fields) {
+        if (!writer.append(file, fields)) {
+            System.err.println("Log entry for " + file + " dropped: " + fields);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,74 +1,352 @@
 package com.example.emergencyservice.service;
 
-import com.example.emergencyservice.config.TelegramConfig;
-import org.springframework.http.ResponseEntity;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
+import com.example.emergencyservice.config.DispatchConfig;
+import com.example.emergencyservice.config.ResilienceConfig;
+import com.example.emergencyservice.metrics.DeliveryMetrics;
+import com.example.emergencyservice.model.Channel;
+import com.example.emergencyservice.model.DeliveryOutcome;
+import com.example.emergencyservice.transport.SmsTransport;
+import com.example.emergencyservice.transport.SmtpTransportPool;
+import com.example.emergencyservice.transport.TelegramTransport;
+import com.example.emergencyservice.util.AdaptiveLimiter;
+import com.example.emergencyservice.util.CircuitBreaker;
+import jakarta.mail.SendFailedException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Mono;
 
-import java.util.HashMap;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * Sends through the channel transports. Every transport call is guarded per channel: an adaptive
+ * concurrency limit shrinks parallelism when the remote side slows down, and a circuit breaker stops
+ * calls to a channel that keeps failing, so a broadcast to an unreachable host fails fast instead of
+ * waiting out one timeout per recipient. Only remote faults count as failures: timeouts, connection
+ * errors, 429s and 5xx, not rejected addresses, and a call that was never made, for example because
+ * no bot token is configured, does not count at all. The same faults are reported as
+ * {@link DeliveryOutcome#FAILED_TRANSIENT} so the caller can retry them, and calls refused by an open
+ * circuit as {@link DeliveryOutcome#REFUSED}, since they never reached the channel.
+ * <p>
+ * Telegram can also be sent without blocking, through {@link #sendTelegramMessageAsync}, under the same
+ * guard; a permit is then awaited in the limiter's queue, and only waiting for the breaker is done by
+ * polling on a timer.
+ */
 @Service
 public class MessageService {
 
-    private final JavaMailSender mailSender;
-    private final RestTemplate restTemplate;
-    private final TelegramConfig telegramConfig;
+    static final String CIRCUIT_OPEN = "circuit_open";
+
+    private static final Duration BREAKER_POLL = Duration.ofMillis(10);
+
+    private final SmtpTransportPool smtpTransportPool;
+    private final TelegramTransport telegramTransport;
+    private final SmsTransport smsTransport;
     private final LogService logService;
+    private final DeliveryMetrics metrics;
+    private final Map<Channel, Guard> guards = new EnumMap<>(Channel.class);
 
-    public MessageService(JavaMailSender mailSender, RestTemplate restTemplate,
-                          TelegramConfig telegramConfig, LogService logService) {
-        this.mailSender = mailSender;
-        this.restTemplate = restTemplate;
-        this.telegramConfig = telegramConfig;
+    public MessageService(SmtpTransportPool smtpTransportPool, TelegramTransport telegramTransport,
+                          SmsTransport smsTransport, LogService logService, DeliveryMetrics metrics,
+                          DispatchConfig dispatchConfig, ResilienceConfig resilienceConfig) {
+        this.smtpTransportPool = smtpTransportPool;
+        this.telegramTransport = telegramTransport;
+        this.smsTransport = smsTransport;
         this.logService = logService;
+        this.metrics = metrics;
+        for (Channel channel : Channel.values()) {
+            guards.put(channel, new Guard(dispatchConfig.getLimits(channel), resilienceConfig.getBreaker(channel),
+                    resilienceConfig.getAdaptive()));
+        }
     }
 
-    public boolean sendTelegramMessage(String chatId, String message, String username) {
+    public DeliveryOutcome sendTelegramMessage(String chatId, String message, String username) {
+        if (!admit(Channel.TELEGRAM)) {
+            rejected(Channel.TELEGRAM, chatId, message, username);
+            return DeliveryOutcome.REFUSED;
+        }
+        long started = metrics.start(Channel.TELEGRAM);
+        TelegramTransport.Result result = null;
         try {
-            String token = telegramConfig.getBot().getToken();
-            if (token == null || token.isEmpty()) {
-                logService.logMessage("telegram", chatId, message, username, "error: Telegram token not configured");
-                return false;
-            }
+            result = telegramTransport.send(chatId, message);
+        } finally {
+            metrics.finish(Channel.TELEGRAM, started);
+            completeTelegram(started, result);
+        }
+        return telegramOutcome(chatId, message, username, result);
+    }
 
-            String url = "https://api.telegram.org/bot" + token + "/sendMessage";
+    /**
+     * Same as {@link #sendTelegramMessage}, completing with the outcome instead of blocking.
+     */
+    public Mono<DeliveryOutcome> sendTelegramMessageAsync(String chatId, String message, String username) {
+        return admitAsync(Channel.TELEGRAM).flatMap(admitted -> {
+            if (!admitted) {
+                rejected(Channel.TELEGRAM, chatId, message, username);
+                return Mono.just(DeliveryOutcome.REFUSED);
+            }
+            long started = metrics.start(Channel.TELEGRAM);
+            return telegramTransport.sendAsync(chatId, message)
+                    .doOnCancel(() -> {
+                        metrics.finish(Channel.TELEGRAM, started);
+                        abandon(Channel.TELEGRAM);
+                    })
+                    .map(result -> {
+                        metrics.finish(Channel.TELEGRAM, started);
+                        completeTelegram(started, result);
+                        return telegramOutcome(chatId, message, username, result);
+                    });
+        });
+    }
 
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("chat_id", chatId);
-            payload.put("text", message);
-            payload.put("parse_mode", "HTML");
+    private DeliveryOutcome telegramOutcome(String chatId, String message, String username,
+                                            TelegramTransport.Result result) {
+        metrics.result(Channel.TELEGRAM, result.success(), switch (result.status()) {
+            case TelegramTransport.Result.NO_REPLY -> "io";
+            case TelegramTransport.Result.NOT_CONFIGURED -> "not_configured";
+            case TelegramTransport.Result.INTERRUPTED -> "interrupted";
+            default -> "http_" + result.status();
+        });
+        logService.logMessage("telegram", chatId, message, username,
+                result.success() ? "success" : "error: " + result.error());
+        if (result.success()) {
+            return DeliveryOutcome.SENT;
+        }
+        return isRemoteFault(result.status()) || result.status() == TelegramTransport.Result.INTERRUPTED
+                ? DeliveryOutcome.FAILED_TRANSIENT : DeliveryOutcome.FAILED_PERMANENT;
+    }
 
-            ResponseEntity<String> response = restTemplate.postForEntity(url, payload, String.class);
+    public DeliveryOutcome sendEmail(String email, String subject, String message, String username) {
+        if (!admit(Channel.EMAIL)) {
+            rejected(Channel.EMAIL, email, message, username);
+            return DeliveryOutcome.REFUSED;
+        }
+        long started = metrics.start(Channel.EMAIL);
+        boolean fault = false;
+        try {
+            smtpTransportPool.send(email, subject, message);
 
-            boolean success = response.getStatusCode().is2xxSuccessful();
-            logService.logMessage("telegram", chatId, message, username,
-                    success ? "success" : "error: " + response.getBody());
+            metrics.result(Channel.EMAIL, true, null);
+            logService.logMessage("email", email, message, username, "success");
+            return DeliveryOutcome.SENT;
+        } catch (Exception e) {
+            fault = !(e instanceof SendFailedException);
+            metrics.result(Channel.EMAIL, false, e.getClass().getSimpleName());
+            logService.logMessage("email", email, message, username, "error: " + e.getMessage());
+            return fault ? DeliveryOutcome.FAILED_TRANSIENT : DeliveryOutcome.FAILED_PERMANENT;
+        } finally {
+            metrics.finish(Channel.EMAIL, started);
+            complete(Channel.EMAIL, started, fault);
+        }
+    }
 
-            return success;
+    /**
+     * Sends one message to a batch of addresses in BCC. Returns per-address outcomes in input order.
+     */
+    public DeliveryOutcome[] sendEmailBatch(List<String> emails, String subject, String message, String username) {
+        DeliveryOutcome[] results = new DeliveryOutcome[emails.size()];
+        Arrays.fill(results, DeliveryOutcome.FAILED_TRANSIENT);
+        if (!admit(Channel.EMAIL)) {
+            Arrays.fill(results, DeliveryOutcome.REFUSED);
+            for (String email : emails) {
+                rejected(Channel.EMAIL, email, message, username);
+            }
+            return results;
+        }
+        long started = metrics.start(Channel.EMAIL);
+        boolean fault = false;
+        try {
+            List<String> rejected = smtpTransportPool.sendBcc(emails, subject, message);
+            for (int i = 0; i < emails.size(); i++) {
+                String email = emails.get(i);
+                boolean sent = !rejected.contains(email);
+                results[i] = sent ? DeliveryOutcome.SENT : DeliveryOutcome.FAILED_PERMANENT;
+                metrics.result(Channel.EMAIL, sent, "rejected");
+                logService.logMessage("email", email, message, username,
+                        sent ? "success" : "error: address rejected");
+            }
         } catch (Exception e) {
-            logService.logMessage("telegram", chatId, message, username, "error: " + e.getMessage());
-            return false;
+            fault = !(e instanceof SendFailedException);
+            if (!fault) {
+                Arrays.fill(results, DeliveryOutcome.FAILED_PERMANENT);
+            }
+            for (String email : emails) {
+                metrics.result(Channel.EMAIL, false, e.getClass().getSimpleName());
+                logService.logMessage("email", email, message, username, "error: " + e.getMessage());
+            }
+        } finally {
+            metrics.finish(Channel.EMAIL, started);
+            complete(Channel.EMAIL, started, fault);
         }
+        return results;
     }
 
-    public boolean sendEmail(String email, String subject, String message, String username) {
+    /**
+     * Submits one SMS batch to the gateway. Returns per-number outcomes in input order: a failed
+     * submission is transient for the whole batch, a number the gateway rejected is permanent.
+     */
+    public DeliveryOutcome[] sendSmsBatch(List<String> phones, String message, String username) {
+        DeliveryOutcome[] results = new DeliveryOutcome[phones.size()];
+        if (!admit(Channel.SMS)) {
+            Arrays.fill(results, DeliveryOutcome.REFUSED);
+            for (String phone : phones) {
+                rejected(Channel.SMS, phone, message, username);
+            }
+            return results;
+        }
+        long started = metrics.start(Channel.SMS);
+        SmsTransport.BatchResult result = null;
         try {
-            SimpleMailMessage mailMessage = new SimpleMailMessage();
-            mailMessage.setTo(email);
-            mailMessage.setSubject(subject);
-            mailMessage.setText(message);
-            mailMessage.setFrom("no-reply@paynet.uz");
+            result = smsTransport.sendBatch(phones, message);
+        } finally {
+            metrics.finish(Channel.SMS, started);
+            complete(Channel.SMS, started, result == null || result.error() != null);
+        }
+        for (int i = 0; i < phones.size(); i++) {
+            String phone = phones.get(i);
+            boolean sent = result.isDelivered(phone);
+            results[i] = sent ? DeliveryOutcome.SENT
+                    : result.error() != null ? DeliveryOutcome.FAILED_TRANSIENT : DeliveryOutcome.FAILED_PERMANENT;
+            metrics.result(Channel.SMS, sent, result.error() != null ? "gateway" : "rejected");
+            logService.logMessage("sms", phone, message, username, sent ? "success"
+                    : "error: " + (result.error() != null ? result.error() : "rejected by gateway"));
+        }
+        return results;
+    }
 
-            mailSender.send(mailMessage);
+    public CircuitBreaker.State circuitState(Channel channel) {
+        CircuitBreaker breaker = guards.get(channel).breaker;
+        return breaker != null ? breaker.state() : CircuitBreaker.State.CLOSED;
+    }
 
-            logService.logMessage("email", email, message, username, "success");
-            return true;
-        } catch (Exception e) {
-            logService.logMessage("email", email, message, username, "error: " + e.getMessage());
+    public int concurrencyLimit(Channel channel) {
+        AdaptiveLimiter limiter = guards.get(channel).limiter;
+        return limiter != null ? limiter.limit() : guards.get(channel).maxConcurrency;
+    }
+
+    /**
+     * Takes a concurrency permit, then asks the breaker to let the call through, waiting for it to
+     * close if so configured. Returns false, holding nothing, if the call must not be made.
+     */
+    private boolean admit(Channel channel) {
+        Guard guard = guards.get(channel);
+        try {
+            if (guard.limiter != null) {
+                guard.limiter.acquire();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
             return false;
         }
+
+        boolean admitted;
+        try {
+            admitted = guard.breaker == null || (guard.maxWaitMillis > 0
+                    ? guard.breaker.acquire(guard.maxWaitMillis)
+                    : guard.breaker.tryAcquire());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted && guard.limiter != null) {
+            guard.limiter.cancel();
+        }
+        return admitted;
+    }
+
+    /**
+     * Non-blocking {@link #admit}: completes with true once a permit is taken and the breaker lets the
+     * call through, or with false, holding nothing, if the call must not be made.
+     */
+    private Mono<Boolean> admitAsync(Channel channel) {
+        Guard guard = guards.get(channel);
+        return admitAsync(guard, System.nanoTime() + Duration.ofMillis(guard.maxWaitMillis).toNanos());
+    }
+
+    private Mono<Boolean> admitAsync(Guard guard, long deadline) {
+        Mono<Void> permit = guard.limiter != null ? Mono.fromFuture(guard.limiter::acquireAsync) : Mono.empty();
+        return permit.then(Mono.fromSupplier(() -> {
+            if (guard.breaker == null || guard.breaker.tryAcquire()) {
+                return true;
+            }
+            if (guard.limiter != null) {
+                guard.limiter.cancel();
+            }
+            return false;
+        })).flatMap(admitted -> admitted || guard.maxWaitMillis == 0 || System.nanoTime() >= deadline
+                ? Mono.just(admitted)
+                // The permit was given back; both are asked for again once the breaker may have moved on
+                : Mono.delay(BREAKER_POLL).then(Mono.defer(() -> admitAsync(guard, deadline))));
+    }
+
+    /**
+     * Gives back the permit, and a trial call's slot in the breaker, of a call that ended before its
+     * outcome was known or without reaching the remote side.
+     */
+    private void abandon(Channel channel) {
+        Guard guard = guards.get(channel);
+        if (guard.breaker != null) {
+            guard.breaker.cancel();
+        }
+        if (guard.limiter != null) {
+            guard.limiter.cancel();
+        }
+    }
+
+    /**
+     * Records a Telegram call with the guard. One that was not made at all, for lack of a token or
+     * because the thread was interrupted, tells nothing about the remote side and is not counted.
+     */
+    private void completeTelegram(long started, TelegramTransport.Result result) {
+        if (result != null && result.status() < 0) {
+            abandon(Channel.TELEGRAM);
+        } else {
+            complete(Channel.TELEGRAM, started, result == null || isRemoteFault(result.status()));
+        }
+    }
+
+    private void complete(Channel channel, long started, boolean fault) {
+        Guard guard = guards.get(channel);
+        if (guard.breaker != null) {
+            if (fault) {
+                guard.breaker.onFailure();
+            } else {
+                guard.breaker.onSuccess();
+            }
+        }
+        if (guard.limiter != null) {
+            guard.limiter.release(System.nanoTime() - started, fault);
+        }
+    }
+
+    private void rejected(Channel channel, String recipient, String message, String username) {
+        metrics.result(channel, false, CIRCUIT_OPEN);
+        logService.logMessage(channel.getName(), recipient, message, username, "error: circuit open");
+    }
+
+    private static boolean isRemoteFault(int status) {
+        return status == TelegramTransport.Result.NO_REPLY || status == 429 || status >= 500;
+    }
+
+    private static class Guard {
+        private final CircuitBreaker breaker;
+        private final AdaptiveLimiter limiter;
+        private final long maxWaitMillis;
+        private final int maxConcurrency;
+
+        Guard(DispatchConfig.Limits limits, ResilienceConfig.Breaker breaker, ResilienceConfig.Adaptive adaptive) {
+            this.maxConcurrency = Math.max(1, limits.getMaxConcurrency());
+            this.breaker = breaker.isEnabled()
+                    ? new CircuitBreaker(breaker.getWindowSize(), breaker.getMinimumCalls(),
+                    breaker.getFailureRateThreshold(), breaker.getOpenDurationMs(), breaker.getHalfOpenProbes())
+                    : null;
+            this.maxWaitMillis = breaker.getWhenOpen() == ResilienceConfig.WhenOpen.WAIT
+                    ? Math.max(0, breaker.getMaxWaitMs()) : 0;
+            this.limiter = adaptive.isEnabled()
+                    ? new AdaptiveLimiter(maxConcurrency, adaptive.getLatencyTolerance(), adaptive.getBackoffRatio())
+                    : null;
+        }
     }
-}
\ No newline at end of file
+}
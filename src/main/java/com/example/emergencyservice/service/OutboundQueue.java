@@ -0,0 +1,154 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.config.ClusterConfig;
+import com.example.emergencyservice.config.QueueConfig;
+import com.example.emergencyservice.queue.QueueJournal;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Durable record of deliveries that have been accepted but not yet attempted.
+ * <p>
+ * A single instance keeps one journal. In a cluster every shard has its own journal under the shared
+ * directory, opened only by the instance holding the shard's lease. Delivery IDs carry the shard in
+ * their top bits, so an ack finds its journal. A shard's deliveries are stopped before its journal is
+ * closed; an ack that still arrives for a shard this instance no longer holds is dropped, and the new
+ * owner delivers that delivery again.
+ */
+@Service
+public class OutboundQueue {
+
+    private static final int SHARD_SHIFT = 48;
+    private static final long LOCAL_ID_MASK = (1L << SHARD_SHIFT) - 1;
+
+    private final QueueConfig queueConfig;
+    private final Path shardDirectory;
+    private final Map<Integer, QueueJournal> journals = new ConcurrentHashMap<>();
+
+    public OutboundQueue(QueueConfig queueConfig, ClusterConfig clusterConfig) throws IOException {
+        this.queueConfig = queueConfig;
+        this.shardDirectory = Paths.get(clusterConfig.getDirectory(), "queue");
+        if (!clusterConfig.isEnabled()) {
+            journals.put(0, open(Paths.get(queueConfig.getDirectory())));
+        }
+    }
+
+    /**
+     * Journals the deliveries of a job. If the journal is unavailable the broadcast still goes out,
+     * it just won't survive a restart; the returned IDs are then all zero and acks are no-ops.
+     */
+    public long[] enqueue(String jobId, String username, String message, List<String> recipients) {
+        return enqueue(0, jobId, username, message, recipients);
+    }
+
+    public long[] enqueue(int shard, String jobId, String username, String message, List<String> recipients) {
+        QueueJournal journal = journals.get(shard);
+        if (journal == null) {
+            System.err.println("Error journaling job " + jobId + ": shard " + shard + " is not open");
+            return new long[recipients.size()];
+        }
+        try {
+            return withShard(shard, journal.enqueue(jobId, username, message, recipients));
+        } catch (IOException e) {
+            System.err.println("Error journaling job " + jobId + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new long[recipients.size()];
+    }
+
+    public void ack(long id) {
+        QueueJournal journal = journals.get((int) (id >>> SHARD_SHIFT));
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.ack(id & LOCAL_ID_MASK);
+        } catch (IOException e) {
+            System.err.println("Error acknowledging delivery " + id + ": " + e.getMessage());
+        }
+    }
+
+    public List<QueueJournal.PendingJob> pendingJobs() {
+        QueueJournal journal = journals.get(0);
+        return journal != null ? journal.pendingJobs() : List.of();
+    }
+
+    /**
+     * Opens a shard's journal after its lease was acquired and returns what the previous owner left
+     * pending there.
+     */
+    public List<QueueJournal.PendingJob> openShard(int shard) throws IOException {
+        QueueJournal journal = open(shardDirectory.resolve(String.format("shard-%03d", shard)));
+        QueueJournal previous = journals.put(shard, journal);
+        if (previous != null) {
+            previous.close();
+        }
+        List<QueueJournal.PendingJob> pending = new ArrayList<>();
+        for (QueueJournal.PendingJob job : journal.pendingJobs()) {
+            pending.add(new QueueJournal.PendingJob(job.jobId(), job.username(), job.message(),
+                    withShard(shard, job.ids()), job.recipients()));
+        }
+        return pending;
+    }
+
+    public void closeShard(int shard) {
+        QueueJournal journal = journals.remove(shard);
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Error closing queue shard " + shard + ": " + e.getMessage());
+        }
+    }
+
+    public boolean hasJob(int shard, String jobId) {
+        QueueJournal journal = journals.get(shard);
+        return journal != null && journal.hasJob(jobId);
+    }
+
+    public int pendingCount() {
+        int count = 0;
+        for (QueueJournal journal : journals.values()) {
+            count += journal.pendingCount();
+        }
+        return count;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        for (QueueJournal journal : journals.values()) {
+            journal.close();
+        }
+        journals.clear();
+    }
+
+    private QueueJournal open(Path directory) throws IOException {
+        QueueJournal journal = new QueueJournal(directory,
+                queueConfig.getSegmentSize(),
+                queueConfig.getSyncBatchSize(),
+                queueConfig.getSyncIntervalMs(),
+                queueConfig.getCompactionIntervalMs(),
+                queueConfig.getCompactionThreshold());
+        journal.open();
+        return journal;
+    }
+
+    private static long[] withShard(int shard, long[] ids) {
+        long[] result = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            result[i] = ((long) shard << SHARD_SHIFT) | ids[i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.emergencyservice.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes {@code name:address} recipient files over a file channel.
+ * <p>
+ * Reading scans the raw bytes for line breaks and the first colon, trims both fields by index and
+ * decodes each straight into its final string, so an entry costs two strings and no intermediate line,
+ * array or trimmed copy. Entries are handed to a {@link Visitor} as they are found, which can stop the
+ * scan early. Blank lines and lines without a colon are skipped. Writing encodes into one buffer that is
+ * flushed to the channel whenever it fills up.
+ */
+public final class RecipientCodec {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private RecipientCodec() {
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * Returns false to stop reading.
+         */
+        boolean visit(String name, String address);
+    }
+
+    public static void read(Path file, Visitor visitor) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            while (true) {
+                boolean eof = channel.read(buffer) < 0;
+                byte[] bytes = buffer.array();
+                int limit = buffer.position();
+                int start = 0;
+                for (int i = 0; i < limit; i++) {
+                    if (bytes[i] == '\n') {
+                        if (!line(bytes, start, i, visitor)) {
+                            return;
+                        }
+                        start = i + 1;
+                    }
+                }
+                if (eof) {
+                    line(bytes, start, limit, visitor);
+                    return;
+                }
+
+                if (start == 0 && limit == bytes.length) {
+                    // A line longer than the buffer
+                    buffer = ByteBuffer.allocate(bytes.length * 2).put(bytes, 0, limit);
+                } else {
+                    System.arraycopy(bytes, start, bytes, 0, limit - start);
+                    buffer.position(limit - start);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the entries to {@code file}, replacing its contents, one {@code name:address} per line.
+     */
+    public static void write(Path file, Iterable<String[]> entries) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Encoder out = new Encoder(channel);
+            for (String[] entry : entries) {
+                out.write(entry[0]);
+                out.write(':');
+                out.write(entry[1]);
+                out.write('\n');
+            }
+            out.flush();
+        }
+    }
+
+    private static boolean line(byte[] bytes, int from, int to, Visitor visitor) {
+        int colon = -1;
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == ':') {
+                colon = i;
+                break;
+            }
+        }
+        if (colon < 0) {
+            return true;
+        }
+        return visitor.visit(field(bytes, from, colon), field(bytes, colon + 1, to));
+    }
+
+    /**
+     * Decodes a byte range without its leading and trailing whitespace, as {@link String#trim()} would
+     * strip it. Bytes of multi-byte UTF-8 sequences are never below 0x80, so they are never trimmed.
+     */
+    private static String field(byte[] bytes, int from, int to) {
+        while (from < to && (bytes[from] & 0xff) <= ' ') {
+            from++;
+        }
+        while (to > from && (bytes[to - 1] & 0xff) <= ' ') {
+            to--;
+        }
+        return from == to ? "" : new String(bytes, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    private static final class Encoder {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        Encoder(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void write(char c) throws IOException {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            buffer.put((byte) c);
+        }
+
+        void write(String s) throws IOException {
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c >= 0x80) {
+                    // Everything from the first non-ASCII character on goes through the encoder
+                    encode(CharBuffer.wrap(s, i, s.length()));
+                    return;
+                }
+                write(c);
+            }
+        }
+
+        private void encode(CharBuffer chars) throws IOException {
+            encoder.reset();
+            while (true) {
+                CoderResult result = encoder.encode(chars, buffer, true);
+                if (result.isOverflow()) {
+                    flush();
+                } else if (encoder.flush(buffer).isOverflow()) {
+                    flush();
+                    encoder.flush(buffer);
+                    return;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
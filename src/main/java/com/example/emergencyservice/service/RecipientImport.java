@@ -0,0 +1,304 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.model.Channel;
+import com.example.emergencyservice.util.EmailAddresses;
+import com.example.emergencyservice.util.Fingerprints;
+import com.example.emergencyservice.util.PhoneNumbers;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams an uploaded recipient list into a recipient file without holding the list in memory.
+ * <p>
+ * Lines are either {@code name:address} or CSV with a comma or semicolon separator and optional
+ * quotes; extra CSV columns are ignored, and a line with only an address uses it as the name. Each
+ * address is normalized for its channel and checked against a set of 64-bit hashes of the addresses
+ * seen so far, so a repeat costs a probe instead of a stored string. Accepted lines go through a
+ * buffered writer into a temporary file that replaces the target only once the whole upload has been
+ * read, so a failed import leaves the old list in place.
+ */
+public final class RecipientImport {
+
+    static final int MAX_LINE = 1024;
+    private static final int MAX_REJECTED = 20;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Channel channel;
+    private final HashSet64 seen = new HashSet64();
+    private final List<String> rejected = new ArrayList<>();
+    private int imported;
+    private int duplicates;
+    private int invalid;
+
+    private RecipientImport(Channel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Reads {@code in} to the end and, if at least one recipient was accepted, atomically replaces
+     * {@code target} with the accepted recipients.
+     */
+    public static Result run(InputStream in, Channel channel, Path target) throws IOException {
+        return new RecipientImport(channel).copy(new InputStreamReader(in, StandardCharsets.UTF_8), target);
+    }
+
+    private Result copy(Reader in, Path target) throws IOException {
+        // Unique, so that concurrent imports and saves of the same file never share a temp file
+        Path temp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName() + ".", ".tmp");
+        try {
+            try (FileChannel file = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                 Writer out = new BufferedWriter(Channels.newWriter(file, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                LineReader lines = new LineReader(in);
+                String line;
+                while ((line = lines.next()) != null) {
+                    accept(line, lines.number(), lines.truncated(), out);
+                }
+                out.flush();
+                file.force(false);
+            }
+            if (imported > 0) {
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return new Result(imported, duplicates, invalid, List.copyOf(rejected));
+    }
+
+    private void accept(String line, int number, boolean truncated, Writer out) throws IOException {
+        if (number == 1 && line.startsWith("\uFEFF")) {
+            line = line.substring(1);
+        }
+        if (line.isBlank()) {
+            return;
+        }
+        String[] fields = truncated ? null : fields(line.trim());
+        String address = fields != null ? normalize(fields[1]) : null;
+        if (address == null) {
+            if (number == 1 && fields != null && isHeader(fields[1])) {
+                return;
+            }
+            invalid++;
+            if (rejected.size() < MAX_REJECTED) {
+                String shown = line.length() > 80 ? line.substring(0, 80) + "…" : line;
+                rejected.add(number + ": " + shown.trim());
+            }
+            return;
+        }
+        if (!seen.add(Fingerprints.of(address))) {
+            duplicates++;
+            return;
+        }
+        String name = fields[0].replace(':', ' ').trim();
+        out.write(name.isEmpty() ? address : name);
+        out.write(':');
+        out.write(address);
+        out.write('\n');
+        imported++;
+    }
+
+    /**
+     * A first-line address field with neither digits nor '@' is a CSV header, not a bad address.
+     */
+    private static boolean isHeader(String address) {
+        return address.chars().noneMatch(c -> c == '@' || Character.isDigit(c));
+    }
+
+    private String normalize(String address) {
+        String value = address.trim();
+        return switch (channel) {
+            // Without its country code a number cannot be told apart from one in another country
+            case SMS -> PhoneNumbers.normalize(value);
+            case EMAIL -> EmailAddresses.normalize(value);
+            case TELEGRAM -> isChatId(value) ? value : null;
+        };
+    }
+
+    /**
+     * A numeric chat ID, negative for groups and channels, or a public {@code @username}.
+     */
+    private static boolean isChatId(String value) {
+        if (value.startsWith("@")) {
+            return value.length() >= 6 && value.length() <= 33
+                    && value.substring(1).chars().allMatch(c -> c == '_' || Character.isLetterOrDigit(c) && c < 128);
+        }
+        int start = value.startsWith("-") ? 1 : 0;
+        return value.length() > start && value.length() <= 21
+                && value.substring(start).chars().allMatch(c -> c >= '0' && c <= '9');
+    }
+
+    /**
+     * Name and address of a line. No address contains a colon, so a line with one outside quotes is
+     * {@code name:address}; otherwise it is split on the first ',' or ';' outside quotes. A line
+     * without a separator is an address alone.
+     */
+    static String[] fields(String line) {
+        char separator = 0;
+        boolean quoted = false;
+        for (int i = 0; i < line.length() && separator != ':'; i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (!quoted && (c == ':' || separator == 0 && (c == ',' || c == ';'))) {
+                separator = c;
+            }
+        }
+        if (separator == 0) {
+            String address = unquote(line);
+            return new String[]{address, address};
+        }
+        String[] fields = new String[2];
+        StringBuilder field = new StringBuilder();
+        int count = 0;
+        quoted = false;
+        for (int i = 0; i < line.length() && count < 2; i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == separator && !quoted) {
+                fields[count++] = field.toString().trim();
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (count < 2) {
+            fields[count] = field.toString().trim();
+        }
+        return fields;
+    }
+
+    private static String unquote(String value) {
+        return value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")
+                ? value.substring(1, value.length() - 1).replace("\"\"", "\"").trim()
+                : value;
+    }
+
+    public record Result(int imported, int duplicates, int invalid, List<String> rejected) {
+    }
+
+    /**
+     * Open-addressing set of non-zero longs with linear probing, kept at most half full.
+     */
+    private static final class HashSet64 {
+        private long[] slots = new long[1024];
+        private int size;
+
+        boolean add(long value) {
+            if (size * 2 >= slots.length) {
+                grow();
+            }
+            if (!insert(slots, value)) {
+                return false;
+            }
+            size++;
+            return true;
+        }
+
+        private static boolean insert(long[] table, long value) {
+            int mask = table.length - 1;
+            int slot = (int) (value ^ (value >>> 32)) & mask;
+            while (table[slot] != 0) {
+                if (table[slot] == value) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = value;
+            return true;
+        }
+
+        private void grow() {
+            long[] larger = new long[slots.length * 2];
+            for (long value : slots) {
+                if (value != 0) {
+                    insert(larger, value);
+                }
+            }
+            slots = larger;
+        }
+    }
+
+    /**
+     * Splits a reader into lines of at most {@value #MAX_LINE} characters, skipping the rest of a longer
+     * line, so a file without newlines cannot exhaust memory.
+     */
+    private static final class LineReader {
+        private final Reader in;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder line = new StringBuilder();
+        private int position;
+        private int limit;
+        private int number;
+        private boolean truncated;
+
+        LineReader(Reader in) {
+            this.in = in;
+        }
+
+        String next() throws IOException {
+            line.setLength(0);
+            truncated = false;
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        if (line.isEmpty() && !truncated) {
+                            return null;
+                        }
+                        number++;
+                        return line.toString();
+                    }
+                }
+                char c = buffer[position++];
+                if (c == '\n') {
+                    number++;
+                    return line.toString();
+                }
+                if (c == '\r') {
+                    continue;
+                }
+                if (line.length() < MAX_LINE) {
+                    line.append(c);
+                } else {
+                    truncated = true;
+                }
+            }
+        }
+
+        int number() {
+            return number;
+        }
+
+        boolean truncated() {
+            return truncated;
+        }
+    }
+}
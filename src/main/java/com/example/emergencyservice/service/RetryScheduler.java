@@ -0,0 +1,195 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.config.DispatchConfig;
+import com.example.emergencyservice.model.DeliveryResult;
+import com.example.emergencyservice.model.Priority;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Re-attempts transiently failed deliveries after a jittered exponential backoff. Waiting retries sit
+ * in one {@link DelayQueue} drained by a single thread, which starts each due attempt on a virtual
+ * thread, so thousands of pending retries cost no threads.
+ * <p>
+ * Retries are not persisted here: the delivery stays unacknowledged in the outbound queue until it
+ * finally succeeds or is dead-lettered, so retries pending at shutdown are replayed on the next start.
+ * For the same reason the retries of an {@link Owner} that stops, such as a queue shard handed to
+ * another instance, are dropped rather than attempted.
+ */
+@Service
+public class RetryScheduler {
+
+    private final DispatchService dispatchService;
+    private final DispatchConfig.Retry config;
+    private final DelayQueue<Retry> queue = new DelayQueue<>();
+    private final Map<Retry, Thread> running = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Thread worker;
+    private volatile boolean closed;
+
+    public RetryScheduler(DispatchService dispatchService, DispatchConfig dispatchConfig) {
+        this.dispatchService = dispatchService;
+        this.config = dispatchConfig.getRetry();
+        this.worker = new Thread(this::run, "delivery-retry");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Schedules another attempt of a delivery that has failed {@code attempts} times, in the given
+     * priority lane, passing its result to the listener. Returns false, without calling the listener, if no attempts are left.
+     */
+    public boolean schedule(Owner owner, String recipient, String message, String username, Priority priority,
+                            int attempts, Consumer<DeliveryResult> listener) {
+        if (attempts >= config.getMaxAttempts()) {
+            return false;
+        }
+        return add(owner, recipient, message, username, priority, backoffMillis(attempts), listener);
+    }
+
+    /**
+     * Same as {@link #schedule} for a delivery that an open circuit has refused {@code refusals} times,
+     * which are not attempts. The waits grow the same way; returns false once {@code maxRefusals} is reached.
+     */
+    public boolean scheduleRefused(Owner owner, String recipient, String message, String username,
+                                   Priority priority, int refusals, Consumer<DeliveryResult> listener) {
+        if (refusals >= config.getMaxRefusals()) {
+            return false;
+        }
+        return add(owner, recipient, message, username, priority, backoffMillis(refusals), listener);
+    }
+
+    /**
+     * Drops the waiting retries of an owner that has stopped and waits up to {@code timeoutMillis} for
+     * its running attempts to end. Returns false if some are still running; an attempt already sending
+     * is finished, and its listener called, meanwhile.
+     */
+    public boolean cancel(Owner owner, long timeoutMillis) {
+        queue.removeIf(retry -> retry.owner == owner);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        boolean finished = true;
+        for (Map.Entry<Retry, Thread> attempt : running.entrySet()) {
+            if (attempt.getKey().owner == owner) {
+                finished &= join(attempt.getValue(), deadline);
+            }
+        }
+        return finished;
+    }
+
+    private boolean add(Owner owner, String recipient, String message, String username, Priority priority,
+                        long delayMillis, Consumer<DeliveryResult> listener) {
+        if (closed) {
+            return false;
+        }
+        long dueAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        queue.add(new Retry(owner, recipient, message, username, priority, listener, dueAt,
+                sequence.incrementAndGet()));
+        return true;
+    }
+
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    /**
+     * Delay before retry number {@code retry}: a random value between half and all of the
+     * exponential step, so recipients that failed together do not retry together.
+     */
+    long backoffMillis(int retry) {
+        double step = config.getInitialDelayMs() * Math.pow(config.getMultiplier(), Math.max(0, retry - 1));
+        long capped = (long) Math.min(step, config.getMaxDelayMs());
+        return capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1);
+    }
+
+    /**
+     * Waits for {@code thread} to end until {@code System.nanoTime()} reaches {@code deadline}. Returns
+     * whether it has ended; an interrupt meanwhile is passed on once the wait is over.
+     */
+    static boolean join(Thread thread, long deadline) {
+        boolean interrupted = false;
+        long remaining;
+        while (thread.isAlive() && (remaining = deadline - System.nanoTime()) > 0) {
+            try {
+                thread.join(Duration.ofNanos(remaining));
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return !thread.isAlive();
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        worker.interrupt();
+        queue.clear();
+    }
+
+    private void run() {
+        while (!closed) {
+            Retry retry;
+            try {
+                retry = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            Thread.ofVirtual().name("retry-" + retry.sequence).start(() -> attempt(retry));
+        }
+    }
+
+    private void attempt(Retry retry) {
+        // Registered before the owner is checked, so an owner stopping meanwhile waits for this attempt
+        running.put(retry, Thread.currentThread());
+        try {
+            if (retry.owner.isStopped()) {
+                return;
+            }
+            List<DeliveryResult> results = dispatchService.dispatch(List.of(retry.recipient), retry.message,
+                    retry.username, retry.priority, retry.owner::isStopped, (index, result) -> {
+                    });
+            retry.listener.accept(results.get(0));
+        } finally {
+            running.remove(retry);
+        }
+    }
+
+    /**
+     * Whatever retries are scheduled on behalf of, typically the run of one job.
+     */
+    public interface Owner {
+        /**
+         * Whether the owner has stopped, in which case its retries are no longer attempted.
+         */
+        boolean isStopped();
+    }
+
+    private record Retry(Owner owner, String recipient, String message, String username, Priority priority,
+                         Consumer<DeliveryResult> listener, long dueAt, long sequence) implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            Retry that = (Retry) other;
+            int byTime = Long.compare(dueAt - that.dueAt, 0);
+            return byTime != 0 ? byTime : Long.compare(sequence, that.sequence);
+        }
+    }
+}
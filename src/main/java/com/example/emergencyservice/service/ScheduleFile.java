@@ -0,0 +1,126 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.model.Priority;
+import com.example.emergencyservice.model.ScheduledBroadcast;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Binary snapshot of all scheduled broadcasts. Absent optional fields are written as empty strings, and
+ * the message, which has no length limit, as a length-prefixed UTF-8 byte array.
+ * The whole file is rewritten through a temp file and a rename whenever a schedule changes, so a crash
+ * leaves either the old or the new set.
+ */
+final class ScheduleFile {
+
+    private static final int MAGIC = 0x53434831;
+    private static final int VERSION = 2;
+    /**
+     * Stored the message with {@code writeUTF} and had no due time.
+     */
+    private static final int VERSION_1 = 1;
+
+    private ScheduleFile() {
+    }
+
+    /**
+     * Schedules stored in {@code file}, or none if it does not exist.
+     */
+    static List<ScheduledBroadcast> read(Path file) throws IOException {
+        List<ScheduledBroadcast> schedules = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return schedules;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("unrecognized format");
+            }
+            int version = in.readInt();
+            if (version != VERSION && version != VERSION_1) {
+                throw new IOException("unrecognized format");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String id = in.readUTF();
+                String username = in.readUTF();
+                String message = version == VERSION_1 ? in.readUTF() : readText(in);
+                Priority priority = Priority.byName(in.readUTF());
+                String audience = optional(in.readUTF());
+                int recipientCount = in.readInt();
+                List<String> recipients = new ArrayList<>(recipientCount);
+                for (int j = 0; j < recipientCount; j++) {
+                    recipients.add(in.readUTF());
+                }
+                String cron = optional(in.readUTF());
+                ScheduledBroadcast.CatchUp catchUp = ScheduledBroadcast.CatchUp.values()[in.readByte()];
+                long nextRun = in.readLong();
+                long dueAt = version == VERSION_1 ? nextRun : in.readLong();
+                schedules.add(new ScheduledBroadcast(id, username, message, priority, audience,
+                        List.copyOf(recipients), cron, catchUp, nextRun, dueAt));
+            }
+        }
+        return schedules;
+    }
+
+    static void write(Path file, Collection<ScheduledBroadcast> schedules) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(schedules.size());
+            for (ScheduledBroadcast schedule : schedules) {
+                out.writeUTF(schedule.id());
+                out.writeUTF(schedule.username());
+                writeText(out, schedule.message());
+                out.writeUTF(schedule.priority() != null ? schedule.priority().getName() : "");
+                out.writeUTF(schedule.audience() != null ? schedule.audience() : "");
+                out.writeInt(schedule.recipients().size());
+                for (String recipient : schedule.recipients()) {
+                    out.writeUTF(recipient);
+                }
+                out.writeUTF(schedule.cron() != null ? schedule.cron() : "");
+                out.writeByte(schedule.catchUp().ordinal());
+                out.writeLong(schedule.nextRun());
+                out.writeLong(schedule.dueAt());
+            }
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeText(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readText(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("corrupt text length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String optional(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
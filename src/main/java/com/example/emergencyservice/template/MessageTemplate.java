@@ -0,0 +1,97 @@
+package com.example.emergencyservice.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A message template parsed once into alternating literal text and {@code {placeholder}} names.
+ * <p>
+ * A placeholder is a brace-enclosed run of letters, digits and underscores; any other brace is
+ * literal text. Rendering resolves every placeholder first, so the output is built in a single
+ * exactly-sized {@link StringBuilder}. Placeholders the resolver returns null for are kept verbatim.
+ */
+public final class MessageTemplate {
+
+    private final String[] literals;
+    private final String[] names;
+    private final String[] raw;
+    private final int literalLength;
+
+    private MessageTemplate(String[] literals, String[] names) {
+        this.literals = literals;
+        this.names = names;
+        this.raw = new String[names.length];
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        for (int i = 0; i < names.length; i++) {
+            raw[i] = "{" + names[i] + "}";
+        }
+        this.literalLength = length;
+    }
+
+    public static MessageTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        int literalStart = 0;
+        int i = 0;
+        while (i < source.length()) {
+            if (source.charAt(i) != '{') {
+                i++;
+                continue;
+            }
+            int end = i + 1;
+            while (end < source.length() && isNameChar(source.charAt(end))) {
+                end++;
+            }
+            if (end > i + 1 && end < source.length() && source.charAt(end) == '}') {
+                literals.add(source.substring(literalStart, i));
+                names.add(source.substring(i + 1, end));
+                literalStart = end + 1;
+                i = end + 1;
+            } else {
+                i++;
+            }
+        }
+        literals.add(source.substring(literalStart));
+        return new MessageTemplate(literals.toArray(String[]::new), names.toArray(String[]::new));
+    }
+
+    public boolean hasPlaceholders() {
+        return names.length > 0;
+    }
+
+    public boolean references(String name) {
+        for (String placeholder : names) {
+            if (placeholder.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String render(Function<String, String> values) {
+        if (names.length == 0) {
+            return literals[0];
+        }
+        String[] resolved = new String[names.length];
+        int length = literalLength;
+        for (int i = 0; i < names.length; i++) {
+            String value = values.apply(names[i]);
+            resolved[i] = value != null ? value : raw[i];
+            length += resolved[i].length();
+        }
+
+        StringBuilder out = new StringBuilder(length);
+        for (int i = 0; i < names.length; i++) {
+            out.append(literals[i]).append(resolved[i]);
+        }
+        return out.append(literals[names.length]).toString();
+    }
+
+    private static boolean isNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.emergencyservice.transport;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Collects the per-host pool gauges that Reactor Netty reports for the outbound connection pool, and
+ * publishes them to the meter registry as {@code http.pool.*} gauges tagged by pool and host.
+ */
+public class HttpPoolMetrics implements ConnectionProvider.MeterRegistrar {
+
+    private final MeterRegistry registry;
+    private final Map<String, ConnectionPoolMetrics> pools = new ConcurrentHashMap<>();
+    private final Map<String, List<Meter>> meters = new ConcurrentHashMap<>();
+
+    public HttpPoolMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public synchronized void registerMetrics(String poolName, String id, SocketAddress remoteAddress,
+                                             ConnectionPoolMetrics metrics) {
+        String host = remoteAddress.toString();
+        // A gauge registered again under the same name and tags would keep reading the pool it replaces
+        removeMeters(host);
+        pools.put(host, metrics);
+        Tags tags = Tags.of("pool", poolName, "host", host);
+        meters.put(host, List.of(
+                gauge("http.pool.acquired", "Connections in use", tags, metrics,
+                        ConnectionPoolMetrics::acquiredSize),
+                gauge("http.pool.idle", "Idle connections", tags, metrics, ConnectionPoolMetrics::idleSize),
+                gauge("http.pool.pending", "Requests waiting for a connection", tags, metrics,
+                        ConnectionPoolMetrics::pendingAcquireSize),
+                gauge("http.pool.max", "Connection limit of the pool", tags, metrics,
+                        ConnectionPoolMetrics::maxAllocatedSize),
+                gauge("http.pool.saturation", "Share of the connection limit in use", tags, metrics,
+                        HttpPoolMetrics::saturation)));
+    }
+
+    @Override
+    public synchronized void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+        String host = remoteAddress.toString();
+        pools.remove(host);
+        removeMeters(host);
+    }
+
+    public Map<String, ConnectionPoolMetrics> getPools() {
+        return pools;
+    }
+
+    public List<PoolSnapshot> snapshot() {
+        List<PoolSnapshot> result = new ArrayList<>(pools.size());
+        pools.forEach((host, metrics) -> result.add(new PoolSnapshot(host,
+                metrics.acquiredSize(),
+                metrics.idleSize(),
+                metrics.pendingAcquireSize(),
+                metrics.maxAllocatedSize(),
+                saturation(metrics))));
+        return result;
+    }
+
+    private Meter gauge(String name, String description, Tags tags, ConnectionPoolMetrics metrics,
+                        ToDoubleFunction<ConnectionPoolMetrics> value) {
+        return Gauge.builder(name, metrics, value)
+                .description(description)
+                .tags(tags)
+                .strongReference(true)
+                .register(registry);
+    }
+
+    private void removeMeters(String host) {
+        List<Meter> registered = meters.remove(host);
+        if (registered != null) {
+            registered.forEach(registry::remove);
+        }
+    }
+
+    private static double saturation(ConnectionPoolMetrics metrics) {
+        return metrics.maxAllocatedSize() > 0 ? (double) metrics.acquiredSize() / metrics.maxAllocatedSize() : 0;
+    }
+
+    public record PoolSnapshot(String host, int acquired, int idle, int pending, int max, double saturation) {
+    }
+}
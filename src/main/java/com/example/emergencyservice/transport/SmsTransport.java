@@ -0,0 +1,98 @@
+package com.example.emergencyservice.transport;
+
+import com.example.emergencyservice.config.SmsConfig;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SMS gateway client. One request submits a whole batch of numbers with the same text:
+ * {@code {"recipients": [...], "text": "..."}}. A 2xx reply accepts the batch; numbers the gateway
+ * could not take are listed in an optional {@code "failed"} array of the reply.
+ */
+@Component
+public class SmsTransport {
+
+    private final SmsConfig.Api api;
+    private final WebClient webClient;
+    private final ObjectMapper objectMapper;
+
+    public SmsTransport(SmsConfig smsConfig, WebClient webClient, ObjectMapper objectMapper) {
+        this.api = smsConfig.getApi();
+        this.webClient = webClient;
+        this.objectMapper = objectMapper;
+    }
+
+    public int getBatchSize() {
+        return Math.max(1, api.getBatchSize());
+    }
+
+    public Mono<BatchResult> submit(List<String> phones, String text) {
+        if (!api.isEnabled()) {
+            return Mono.just(BatchResult.failure("SMS gateway disabled"));
+        }
+        if (api.getUrl() == null || api.getUrl().isEmpty()) {
+            return Mono.just(BatchResult.failure("SMS gateway URL not configured"));
+        }
+
+        return webClient.post()
+                .uri(api.getUrl())
+                .contentType(MediaType.APPLICATION_JSON)
+                .headers(headers -> {
+                    if (api.getToken() != null && !api.getToken().isEmpty()) {
+                        headers.setBearerAuth(api.getToken());
+                    }
+                })
+                .bodyValue(new BatchRequest(phones, text))
+                .exchangeToMono(response -> response.bodyToMono(String.class)
+                        .defaultIfEmpty("")
+                        .map(body -> response.statusCode().is2xxSuccessful()
+                                ? BatchResult.accepted(failedNumbers(body))
+                                : BatchResult.failure("HTTP " + response.statusCode().value() + ": " + body)))
+                .timeout(Duration.ofMillis(api.getTimeoutMs()))
+                .onErrorResume(e -> Mono.just(BatchResult.failure(e.getMessage())));
+    }
+
+    public BatchResult sendBatch(List<String> phones, String text) {
+        return submit(phones, text).block();
+    }
+
+    private List<String> failedNumbers(String body) {
+        List<String> failed = new ArrayList<>();
+        try {
+            JsonNode node = objectMapper.readTree(body).path("failed");
+            node.forEach(number -> failed.add(number.asText()));
+        } catch (Exception e) {
+            // Not every gateway replies with JSON; a 2xx alone means the batch was accepted
+        }
+        return failed;
+    }
+
+    private record BatchRequest(List<String> recipients, String text) {
+    }
+
+    /**
+     * Outcome of one batch: {@code error} is set when the whole batch failed, otherwise
+     * {@code failed} lists the individual numbers the gateway rejected.
+     */
+    public record BatchResult(List<String> failed, String error) {
+        static BatchResult accepted(List<String> failed) {
+            return new BatchResult(failed, null);
+        }
+
+        static BatchResult failure(String error) {
+            return new BatchResult(List.of(), error);
+        }
+
+        public boolean isDelivered(String phone) {
+            return error == null && !failed.contains(phone);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.emergencyservice.transport;
+
+import com.example.emergencyservice.config.MailPoolConfig;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.Address;
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a few authenticated SMTP connections open and reuses them for many messages,
+ * so the STARTTLS handshake and login are paid once per connection instead of once per email.
+ * A reused connection is checked with a NOOP first and reopened if the server has dropped it. A failure
+ * once the message is on its way is reported as is: the server may already have accepted the message,
+ * so sending it again here could deliver it twice.
+ */
+@Component
+public class SmtpTransportPool {
+
+    static final String UNDISCLOSED_RECIPIENTS = "undisclosed-recipients:;";
+
+    private final JavaMailSenderImpl mailSender;
+    private final MailPoolConfig mailPoolConfig;
+    private final BlockingQueue<PooledConnection> idle;
+
+    public SmtpTransportPool(JavaMailSenderImpl mailSender, MailPoolConfig mailPoolConfig) {
+        this.mailSender = mailSender;
+        this.mailPoolConfig = mailPoolConfig;
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, mailPoolConfig.getSize()));
+        for (int i = 0; i < mailPoolConfig.getSize(); i++) {
+            idle.add(new PooledConnection());
+        }
+    }
+
+    public void send(String to, String subject, String text) throws MessagingException {
+        MimeMessage message = createMessage(subject, text);
+        InternetAddress recipient = new InternetAddress(to);
+        message.setRecipient(Message.RecipientType.TO, recipient);
+        send(message, new Address[]{recipient});
+    }
+
+    /**
+     * Sends one message with all recipients in BCC. Returns the addresses the server rejected;
+     * throws if nothing could be sent at all.
+     */
+    public List<String> sendBcc(List<String> recipients, String subject, String text) throws MessagingException {
+        MimeMessage message = createMessage(subject, text);
+        message.setHeader("To", UNDISCLOSED_RECIPIENTS);
+        InternetAddress[] bcc = new InternetAddress[recipients.size()];
+        for (int i = 0; i < bcc.length; i++) {
+            bcc[i] = new InternetAddress(recipients.get(i));
+        }
+        message.setRecipients(Message.RecipientType.BCC, bcc);
+
+        try {
+            send(message, bcc);
+            return List.of();
+        } catch (SendFailedException e) {
+            if (e.getValidSentAddresses() == null || e.getValidSentAddresses().length == 0) {
+                throw e;
+            }
+            List<String> rejected = new ArrayList<>();
+            addAll(rejected, e.getInvalidAddresses());
+            addAll(rejected, e.getValidUnsentAddresses());
+            return rejected;
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        for (PooledConnection connection : idle) {
+            connection.close();
+        }
+    }
+
+    private void send(MimeMessage message, Address[] recipients) throws MessagingException {
+        PooledConnection connection = borrow();
+        try {
+            connection.send(message, recipients);
+        } finally {
+            idle.offer(connection);
+        }
+    }
+
+    private PooledConnection borrow() throws MessagingException {
+        try {
+            PooledConnection connection = idle.poll(mailPoolConfig.getBorrowTimeoutMs(), TimeUnit.MILLISECONDS);
+            if (connection == null) {
+                throw new MessagingException("No SMTP connection available within "
+                        + mailPoolConfig.getBorrowTimeoutMs() + " ms");
+            }
+            return connection;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrupted while waiting for an SMTP connection", e);
+        }
+    }
+
+    private MimeMessage createMessage(String subject, String text) throws MessagingException {
+        MimeMessage message = new MimeMessage(mailSender.getSession());
+        message.setFrom(new InternetAddress(mailPoolConfig.getFrom()));
+        message.setSubject(subject, StandardCharsets.UTF_8.name());
+        message.setText(text, StandardCharsets.UTF_8.name());
+        message.setSentDate(new Date());
+        message.saveChanges();
+        return message;
+    }
+
+    private static void addAll(List<String> target, Address[] addresses) {
+        if (addresses != null) {
+            for (Address address : addresses) {
+                target.add(address.toString());
+            }
+        }
+    }
+
+    private class PooledConnection {
+        private Transport transport;
+        private int sent;
+
+        void send(MimeMessage message, Address[] recipients) throws MessagingException {
+            // The server may have dropped an idle connection; isConnected() asks it with a NOOP
+            if (transport != null && !transport.isConnected()) {
+                close();
+            }
+            try {
+                connected().sendMessage(message, recipients);
+            } catch (SendFailedException e) {
+                throw e;
+            } catch (MessagingException e) {
+                // The connection is in an unknown state now
+                close();
+                throw e;
+            }
+            if (++sent >= mailPoolConfig.getMaxMessagesPerConnection()) {
+                close();
+            }
+        }
+
+        private Transport connected() throws MessagingException {
+            if (transport == null) {
+                Session session = mailSender.getSession();
+                String protocol = mailSender.getProtocol();
+                transport = session.getTransport(protocol != null ? protocol : JavaMailSenderImpl.DEFAULT_PROTOCOL);
+                transport.connect(mailSender.getHost(), mailSender.getPort(),
+                        mailSender.getUsername(), mailSender.getPassword());
+                sent = 0;
+            }
+            return transport;
+        }
+
+        void close() {
+            if (transport != null) {
+                try {
+                    transport.close();
+                } catch (MessagingException e) {
+                    System.err.println("Error closing SMTP connection: " + e.getMessage());
+                }
+                transport = null;
+            }
+        }
+    }
+}
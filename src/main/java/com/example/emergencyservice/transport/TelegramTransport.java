@@ -0,0 +1,213 @@
+package com.example.emergencyservice.transport;
+
+import com.example.emergencyservice.config.TelegramConfig;
+import com.example.emergencyservice.util.TokenBucket;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Telegram Bot API sender. Requests go through the shared outbound connection pool and are throttled to the
+ * bot-wide limit and, for group chats, to the per-chat limit. A 429 reply pauses the chat for the
+ * {@code retry_after} seconds Telegram asks for and the message is retried instead of failing.
+ * <p>
+ * {@link #send} blocks the calling thread for the whole exchange. {@link #sendAsync} does the same without
+ * holding a thread: throttling waits on a timer and the request runs on the client's event loop.
+ */
+@Component
+public class TelegramTransport {
+
+    private static final int MAX_TRACKED_CHATS = 10_000;
+    private static final long CHAT_IDLE_NANOS = TimeUnit.MINUTES.toNanos(5);
+
+    private final TelegramConfig.Bot bot;
+    private final ObjectMapper objectMapper;
+    private final WebClient webClient;
+    private final TokenBucket globalBucket;
+    private final Map<String, ChatThrottle> chats = new ConcurrentHashMap<>();
+    private final URI sendMessageUri;
+
+    public TelegramTransport(TelegramConfig telegramConfig, WebClient webClient, ObjectMapper objectMapper) {
+        this.bot = telegramConfig.getBot();
+        this.webClient = webClient;
+        this.objectMapper = objectMapper;
+        this.globalBucket = new TokenBucket(bot.getGlobalRatePerSecond(), (int) Math.ceil(bot.getGlobalRatePerSecond()));
+        this.sendMessageUri = isConfigured()
+                ? URI.create(bot.getApiUrl() + "/bot" + bot.getToken() + "/sendMessage")
+                : null;
+    }
+
+    public boolean isConfigured() {
+        return bot.getToken() != null && !bot.getToken().isEmpty();
+    }
+
+    public Result send(String chatId, String text) {
+        if (sendMessageUri == null) {
+            return Result.failure(Result.NOT_CONFIGURED, "Telegram token not configured");
+        }
+
+        SendMessageRequest request = new SendMessageRequest(chatId, text, "HTML");
+        try {
+            for (int attempt = 0; ; attempt++) {
+                throttle(chatId);
+                Result result = result(chatId, post(request).block(), attempt);
+                if (result != null) {
+                    return result;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.failure(Result.INTERRUPTED, "interrupted");
+        } catch (RuntimeException e) {
+            return Result.failure(Result.NO_REPLY, e.getMessage());
+        }
+    }
+
+    /**
+     * Same as {@link #send}, completing with the result instead of blocking. Never completes with an error.
+     */
+    public Mono<Result> sendAsync(String chatId, String text) {
+        if (sendMessageUri == null) {
+            return Mono.just(Result.failure(Result.NOT_CONFIGURED, "Telegram token not configured"));
+        }
+        return sendAsync(chatId, new SendMessageRequest(chatId, text, "HTML"), 0)
+                .onErrorResume(e -> Mono.just(Result.failure(Result.NO_REPLY, e.getMessage())));
+    }
+
+    private Mono<Result> sendAsync(String chatId, SendMessageRequest request, int attempt) {
+        return Mono.defer(() -> {
+            long waitNanos = Math.max(throttleFor(chatId).reserve(), globalBucket.reserve());
+            return waitNanos > 0 ? Mono.delay(Duration.ofNanos(waitNanos)).then(post(request)) : post(request);
+        }).flatMap(response -> {
+            Result result = result(chatId, response, attempt);
+            return result != null ? Mono.just(result) : sendAsync(chatId, request, attempt + 1);
+        });
+    }
+
+    /**
+     * The result of an API reply, or null if the request is to be retried after a 429. The chat is then
+     * paused for as long as Telegram asked.
+     */
+    private Result result(String chatId, ApiResponse response, int attempt) {
+        if (response.status() >= 200 && response.status() < 300) {
+            return Result.success(response.status());
+        }
+
+        JsonNode body = parse(response.body());
+        int retryAfter = body.path("parameters").path("retry_after").asInt(0);
+        if (response.status() != 429 || attempt >= bot.getMaxRetries()
+                || retryAfter > bot.getMaxRetryAfterSeconds()) {
+            String description = body.path("description").asText(response.body());
+            return Result.failure(response.status(), description);
+        }
+        throttleFor(chatId).pause(TimeUnit.SECONDS.toNanos(Math.max(1, retryAfter)));
+        return null;
+    }
+
+    private Mono<ApiResponse> post(SendMessageRequest request) {
+        return webClient.post()
+                .uri(sendMessageUri)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(request)
+                .exchangeToMono(response -> response.bodyToMono(String.class)
+                        .defaultIfEmpty("")
+                        .map(body -> new ApiResponse(response.statusCode().value(), body)))
+                .timeout(Duration.ofMillis(bot.getTimeoutMs()));
+    }
+
+    private void throttle(String chatId) throws InterruptedException {
+        throttleFor(chatId).acquire();
+        globalBucket.acquire();
+    }
+
+    private ChatThrottle throttleFor(String chatId) {
+        if (chats.size() > MAX_TRACKED_CHATS) {
+            long now = System.nanoTime();
+            chats.values().removeIf(chat -> now - chat.lastUsed > CHAT_IDLE_NANOS);
+        }
+        // Only group chats (negative IDs) are subject to the per-chat limit
+        double rate = chatId.startsWith("-") ? bot.getGroupChatRatePerSecond() : 0;
+        return chats.computeIfAbsent(chatId, key -> new ChatThrottle(rate));
+    }
+
+    private JsonNode parse(String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (Exception e) {
+            return objectMapper.createObjectNode();
+        }
+    }
+
+    private record SendMessageRequest(@JsonProperty("chat_id") String chatId,
+                                      @JsonProperty("text") String text,
+                                      @JsonProperty("parse_mode") String parseMode) {
+    }
+
+    private record ApiResponse(int status, String body) {
+    }
+
+    /**
+     * Outcome of a send. {@code status} is the HTTP status of the reply, or one of the constants below
+     * if there was none; the negative ones mean the request was never made.
+     */
+    public record Result(boolean success, int status, String error) {
+        /**
+         * No reply: the connection failed or timed out.
+         */
+        public static final int NO_REPLY = 0;
+        public static final int NOT_CONFIGURED = -1;
+        public static final int INTERRUPTED = -2;
+
+        static Result success(int status) {
+            return new Result(true, status, null);
+        }
+
+        static Result failure(int status, String error) {
+            return new Result(false, status, error);
+        }
+    }
+
+    private static class ChatThrottle {
+        private final TokenBucket bucket;
+        private volatile long pausedUntil;
+        private volatile long lastUsed = System.nanoTime();
+
+        ChatThrottle(double ratePerSecond) {
+            this.bucket = ratePerSecond > 0 ? new TokenBucket(ratePerSecond, 1) : null;
+        }
+
+        void pause(long nanos) {
+            pausedUntil = Math.max(pausedUntil, System.nanoTime() + nanos);
+        }
+
+        void acquire() throws InterruptedException {
+            lastUsed = System.nanoTime();
+            long wait = pausedUntil - lastUsed;
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            if (bucket != null) {
+                bucket.acquire();
+            }
+        }
+
+        /**
+         * Takes this chat's turn without waiting and returns how long to wait before sending.
+         */
+        long reserve() {
+            lastUsed = System.nanoTime();
+            long wait = Math.max(0, pausedUntil - lastUsed);
+            return bucket != null ? Math.max(wait, bucket.reserve()) : wait;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.emergencyservice.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that adapts to latency, AIMD style. The limit starts at {@code maxLimit}. It grows
+ * by {@code 1/limit} for each fast call made while the limit was actually in use, and it is multiplied
+ * by {@code backoffRatio} when a call fails, or when a call made while the limit was in use takes longer
+ * than {@code latencyTolerance} times the baseline. A slow call with the limit barely used says nothing
+ * about concurrency, so it is only sampled. The baseline is the lowest latency seen in the current or previous window of samples.
+ * It backs off at most once per observed round trip, so a batch of slow calls that were already in
+ * flight counts as a single congestion signal.
+ * <p>
+ * Asynchronous waiters queue in arrival order and are handed freed permits before blocked threads are
+ * woken.
+ */
+public class AdaptiveLimiter {
+
+    private static final int WINDOW = 100;
+
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final double backoffRatio;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private final ArrayDeque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+
+    private double limit;
+    private int inFlight;
+    private long baseline = Long.MAX_VALUE;
+    private long windowMin = Long.MAX_VALUE;
+    private int samples;
+    private long lastBackoff;
+
+    public AdaptiveLimiter(int maxLimit, double latencyTolerance, double backoffRatio) {
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+        }
+        this.maxLimit = Math.max(1, maxLimit);
+        this.latencyTolerance = Math.max(1, latencyTolerance);
+        this.backoffRatio = backoffRatio;
+        this.limit = this.maxLimit;
+        this.lastBackoff = System.nanoTime();
+    }
+
+    public void acquire() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (inFlight >= (int) limit) {
+                released.await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Like {@link #acquire()}, but returns at once with a future that completes when the permit is
+     * granted, for callers that must not block. Cancelling the future gives up the place in the queue;
+     * a permit granted at the same moment is released again.
+     */
+    public CompletableFuture<Void> acquireAsync() {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit && waiters.isEmpty()) {
+                inFlight++;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> permit = new CompletableFuture<>();
+            waiters.add(permit);
+            permit.whenComplete((ignored, e) -> {
+                if (permit.isCancelled()) {
+                    withdraw(permit);
+                }
+            });
+            return permit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a permit and feeds the call's outcome into the limit. {@code dropped} marks a call that
+     * failed because of the remote side, such as a timeout or a 5xx.
+     */
+    public void release(long latencyNanos, boolean dropped) {
+        List<CompletableFuture<Void>> granted;
+        lock.lock();
+        try {
+            boolean saturated = inFlight >= limit / 2;
+            inFlight--;
+            sample(latencyNanos);
+
+            long now = System.nanoTime();
+            if (dropped || saturated && latencyNanos > latencyTolerance * Math.min(baseline, windowMin)) {
+                if (now - lastBackoff >= latencyNanos) {
+                    limit = Math.max(1, limit * backoffRatio);
+                    lastBackoff = now;
+                }
+            } else if (saturated) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            granted = grant();
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        complete(granted);
+    }
+
+    /**
+     * Releases a permit without a sample, for calls that never reached the remote side.
+     */
+    public void cancel() {
+        List<CompletableFuture<Void>> granted;
+        lock.lock();
+        try {
+            inFlight--;
+            granted = grant();
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        complete(granted);
+    }
+
+    public int limit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void withdraw(CompletableFuture<Void> permit) {
+        lock.lock();
+        try {
+            waiters.remove(permit);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes permits for as many queued waiters as the limit allows, for the caller to complete once it
+     * has let go of the lock.
+     */
+    private List<CompletableFuture<Void>> grant() {
+        List<CompletableFuture<Void>> granted = List.of();
+        while (inFlight < (int) limit && !waiters.isEmpty()) {
+            if (granted.isEmpty()) {
+                granted = new ArrayList<>();
+            }
+            granted.add(waiters.poll());
+            inFlight++;
+        }
+        return granted;
+    }
+
+    // Completed outside the lock, as completion runs the waiter's continuation
+    private void complete(List<CompletableFuture<Void>> granted) {
+        for (CompletableFuture<Void> permit : granted) {
+            if (!permit.complete(null)) {
+                cancel();
+            }
+        }
+    }
+
+    private void sample(long latencyNanos) {
+        windowMin = Math.min(windowMin, latencyNanos);
+        if (++samples >= WINDOW) {
+            // Let the baseline follow a lasting shift in latency instead of pinning it to an old minimum
+            baseline = windowMin;
+            windowMin = Long.MAX_VALUE;
+            samples = 0;
+        }
+    }
+}
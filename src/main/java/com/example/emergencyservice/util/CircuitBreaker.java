@@ -0,0 +1,187 @@
+package com.example.emergencyservice.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Count-based circuit breaker.
+ * <p>
+ * While closed, the outcomes of the last {@code windowSize} calls are kept; once at least
+ * {@code minimumCalls} are recorded and the failure rate reaches the threshold, the breaker opens and
+ * refuses calls for {@code openDuration}. It then lets up to {@code halfOpenProbes} trial calls
+ * through: if all of them succeed it closes again, and a single failure reopens it. Waiting callers
+ * sleep outside the lock, so parked virtual threads are never pinned.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final long PROBE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final boolean[] window;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenProbes;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private State state = State.CLOSED;
+    private int recorded;
+    private int next;
+    private int failures;
+    private long openedAt;
+    private int probesInFlight;
+    private int probeSuccesses;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                          long openDurationMillis, int halfOpenProbes) {
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, window.length));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMillis);
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+    }
+
+    /**
+     * Admits a call if the breaker is closed, or as one of the trial calls once the open period is over.
+     */
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            return admit(System.nanoTime());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Like {@link #tryAcquire()}, but waits up to {@code maxWaitMillis} for the breaker to admit the call.
+     */
+    public boolean acquire(long maxWaitMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        while (true) {
+            long waitNanos;
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                if (admit(now)) {
+                    return true;
+                }
+                long remaining = deadline - now;
+                if (remaining <= 0) {
+                    return false;
+                }
+                waitNanos = state == State.OPEN ? openedAt + openDurationNanos - now : PROBE_POLL_NANOS;
+                waitNanos = Math.max(1, Math.min(waitNanos, remaining));
+            } finally {
+                lock.unlock();
+            }
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    public void onSuccess() {
+        record(false);
+    }
+
+    public void onFailure() {
+        record(true);
+    }
+
+    /**
+     * Gives back the admission of a call that ended without an outcome, for example because it was
+     * cancelled. A trial call frees its slot for another one.
+     */
+    public void cancel() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                probesInFlight = Math.max(0, probesInFlight - 1);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State state() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+                return State.HALF_OPEN;
+            }
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean admit(long now) {
+        if (state == State.OPEN) {
+            if (now - openedAt < openDurationNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+            probeSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight + probeSuccesses >= halfOpenProbes) {
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    private void record(boolean failed) {
+        lock.lock();
+        try {
+            switch (state) {
+                case CLOSED -> {
+                    if (recorded == window.length && window[next]) {
+                        failures--;
+                    }
+                    window[next] = failed;
+                    next = (next + 1) % window.length;
+                    recorded = Math.min(recorded + 1, window.length);
+                    if (failed) {
+                        failures++;
+                    }
+                    if (recorded >= minimumCalls && failures >= failureRateThreshold * recorded) {
+                        open();
+                    }
+                }
+                case HALF_OPEN -> {
+                    probesInFlight = Math.max(0, probesInFlight - 1);
+                    if (failed) {
+                        open();
+                    } else if (++probeSuccesses >= halfOpenProbes) {
+                        reset();
+                        state = State.CLOSED;
+                    }
+                }
+                case OPEN -> {
+                    // Outcome of a call admitted before the breaker opened
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        reset();
+    }
+
+    private void reset() {
+        recorded = 0;
+        next = 0;
+        failures = 0;
+        probesInFlight = 0;
+        probeSuccesses = 0;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.emergencyservice.util;
+
+import java.util.Locale;
+
+/**
+ * Recognizes plain e-mail addresses of the form {@code local@domain.tld}. This is a sanity check for
+ * recipient lists, not full RFC 5322 parsing: quoted local parts and address literals are rejected.
+ */
+public final class EmailAddresses {
+
+    private static final int MAX_LENGTH = 254;
+
+    private EmailAddresses() {
+    }
+
+    /**
+     * Returns the address trimmed and lower-cased, or null if it is not an e-mail address.
+     */
+    public static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        int at = trimmed.indexOf('@');
+        if (at <= 0 || at != trimmed.lastIndexOf('@') || trimmed.length() > MAX_LENGTH) {
+            return null;
+        }
+        String domain = trimmed.substring(at + 1);
+        int dot = domain.lastIndexOf('.');
+        if (dot <= 0 || dot == domain.length() - 1 || domain.startsWith("-") || domain.contains("..")) {
+            return null;
+        }
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c <= ' ' || c == '"' || c == ',' || c == ';' || c == '<' || c == '>' || c == '(' || c == ')') {
+                return null;
+            }
+        }
+        return trimmed.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.emergencyservice.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers 64-bit fingerprints for a fixed time, each with a short value such as a job ID.
+ * <p>
+ * Entries are kept in insertion order, which is also expiry order since every entry lives equally long,
+ * so expired entries are dropped from the head on each call. The window also never holds more than
+ * {@code maxEntries}; past that the oldest entries go first, even if they have not expired yet.
+ */
+public final class FingerprintWindow {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>();
+
+    public FingerprintWindow(long ttlMillis, int maxEntries) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    /**
+     * Value stored for {@code fingerprint}, or null if there is none or it has expired.
+     */
+    public synchronized String get(long fingerprint) {
+        expire(System.nanoTime());
+        Entry entry = entries.get(fingerprint);
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * Stores {@code value} for {@code fingerprint} for the full window, replacing any previous value.
+     */
+    public synchronized void put(long fingerprint, String value) {
+        long now = System.nanoTime();
+        expire(now);
+        // Re-inserted at the tail, so insertion order stays expiry order
+        entries.remove(fingerprint);
+        entries.put(fingerprint, new Entry(value, now + ttlNanos));
+        Iterator<Entry> oldest = entries.values().iterator();
+        while (entries.size() > maxEntries) {
+            oldest.next();
+            oldest.remove();
+        }
+    }
+
+    public synchronized int size() {
+        expire(System.nanoTime());
+        return entries.size();
+    }
+
+    private void expire(long now) {
+        Iterator<Map.Entry<Long, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext() && iterator.next().getValue().expiresAt - now <= 0) {
+            iterator.remove();
+        }
+    }
+
+    private record Entry(String value, long expiresAt) {
+    }
+}
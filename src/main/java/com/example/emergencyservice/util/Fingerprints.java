@@ -0,0 +1,54 @@
+package com.example.emergencyservice.util;
+
+import java.util.Collection;
+
+/**
+ * 64-bit fingerprints for deduplication, so sets of seen values can hold longs instead of strings.
+ * At the volumes involved here (up to millions of values) the chance of two values colliding is
+ * negligible.
+ */
+public final class Fingerprints {
+
+    private Fingerprints() {
+    }
+
+    /**
+     * 64-bit FNV-1a with a final avalanche step. Never returns 0, so 0 can mark an empty slot.
+     */
+    public static long of(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h = mix(h);
+        return h != 0 ? h : 1;
+    }
+
+    /**
+     * Fingerprint of a set of distinct values that does not depend on their order.
+     */
+    public static long ofSet(Collection<String> values) {
+        long sum = values.size();
+        for (String value : values) {
+            sum += mix(of(value) + 0x9e3779b97f4a7c15L);
+        }
+        return mix(sum);
+    }
+
+    /**
+     * Combines fingerprints in order: {@code combine(a, b) != combine(b, a)}.
+     */
+    public static long combine(long first, long second) {
+        return mix(first * 31 + second);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
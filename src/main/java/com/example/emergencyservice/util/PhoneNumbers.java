@@ -0,0 +1,44 @@
+package com.example.emergencyservice.util;
+
+/**
+ * Recognizes phone numbers in international (E.164) form. A leading '+' is required so that
+ * numeric Telegram chat IDs are never mistaken for phone numbers.
+ */
+public final class PhoneNumbers {
+
+    private static final int MIN_DIGITS = 7;
+    private static final int MAX_DIGITS = 15;
+
+    private PhoneNumbers() {
+    }
+
+    public static boolean isPhone(String value) {
+        return normalize(value) != null;
+    }
+
+    /**
+     * Returns the number as '+' followed by digits, dropping spaces, dashes, dots and parentheses,
+     * or null if the value is not a phone number.
+     */
+    public static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        if (trimmed.isEmpty() || trimmed.charAt(0) != '+') {
+            return null;
+        }
+
+        StringBuilder digits = new StringBuilder(MAX_DIGITS + 1).append('+');
+        for (int i = 1; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            } else if (c != ' ' && c != '-' && c != '.' && c != '(' && c != ')') {
+                return null;
+            }
+        }
+        int count = digits.length() - 1;
+        return count >= MIN_DIGITS && count <= MAX_DIGITS ? digits.toString() : null;
+    }
+}
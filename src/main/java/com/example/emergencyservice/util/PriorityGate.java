@@ -0,0 +1,197 @@
+package com.example.emergencyservice.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit whose waiters are queued per priority class and admitted by weighted fair queuing.
+ * <p>
+ * Each class has a virtual pass that advances by {@code 1/weight} whenever one of its waiters gets a
+ * permit, and a freed permit goes to the waiting class with the lowest pass, the lower class index on a
+ * tie. While all classes are busy, each gets permits in proportion to its weight. A class that had no
+ * waiters starts again at the current virtual time instead of keeping credit or debt from earlier, so
+ * its first waiter is admitted with the very next free permit, however many waiters other classes have.
+ * <p>
+ * Blocking and asynchronous waiters share the same queues.
+ */
+public class PriorityGate {
+
+    private final int permits;
+    private final double[] stride;
+    private final double[] pass;
+    private final ArrayDeque<Waiter>[] queues;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private double virtualTime;
+    private int inUse;
+
+    /**
+     * @param weights relative share of each class, index 0 being the highest priority
+     */
+    @SuppressWarnings("unchecked")
+    public PriorityGate(int permits, int... weights) {
+        if (weights.length == 0) {
+            throw new IllegalArgumentException("At least one priority class is required");
+        }
+        this.permits = Math.max(1, permits);
+        this.stride = new double[weights.length];
+        this.pass = new double[weights.length];
+        this.queues = new ArrayDeque[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            stride[i] = 1.0 / Math.max(1, weights[i]);
+            queues[i] = new ArrayDeque<>();
+        }
+    }
+
+    public void acquire(int priority) throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            if (inUse < permits && idle()) {
+                inUse++;
+                return;
+            }
+            ArrayDeque<Waiter> queue = queues[priority];
+            if (queue.isEmpty()) {
+                pass[priority] = virtualTime;
+            }
+            Waiter waiter = new Waiter(lock.newCondition(), null);
+            queue.add(waiter);
+            try {
+                while (!waiter.granted) {
+                    waiter.condition.await();
+                }
+            } catch (InterruptedException e) {
+                if (waiter.granted) {
+                    release();
+                } else {
+                    queue.remove(waiter);
+                }
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Like {@link #acquire(int)}, but returns at once with a future that completes when the permit is
+     * granted, for callers that must not block. Cancelling the future gives up the place in the queue;
+     * a permit granted at the same moment is released again.
+     */
+    public CompletableFuture<Void> acquireAsync(int priority) {
+        lock.lock();
+        try {
+            if (inUse < permits && idle()) {
+                inUse++;
+                return CompletableFuture.completedFuture(null);
+            }
+            ArrayDeque<Waiter> queue = queues[priority];
+            if (queue.isEmpty()) {
+                pass[priority] = virtualTime;
+            }
+            CompletableFuture<Void> permit = new CompletableFuture<>();
+            Waiter waiter = new Waiter(null, permit);
+            queue.add(waiter);
+            permit.whenComplete((ignored, e) -> {
+                if (permit.isCancelled()) {
+                    withdraw(queue, waiter);
+                }
+            });
+            return permit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void release() {
+        List<Waiter> granted;
+        lock.lock();
+        try {
+            inUse--;
+            granted = grant();
+        } finally {
+            lock.unlock();
+        }
+        // Completed outside the lock, as completion runs the waiter's continuation
+        for (Waiter waiter : granted) {
+            if (!waiter.permit.complete(null)) {
+                release();
+            }
+        }
+    }
+
+    public int waiting(int priority) {
+        lock.lock();
+        try {
+            return queues[priority].size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void withdraw(ArrayDeque<Waiter> queue, Waiter waiter) {
+        lock.lock();
+        try {
+            queue.remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands free permits to waiters. Blocking waiters are signalled; asynchronous ones are returned for
+     * the caller to complete once it has let go of the lock.
+     */
+    private List<Waiter> grant() {
+        List<Waiter> asynchronous = List.of();
+        while (inUse < permits) {
+            int next = -1;
+            for (int i = 0; i < queues.length; i++) {
+                if (!queues[i].isEmpty() && (next < 0 || pass[i] < pass[next])) {
+                    next = i;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            virtualTime = pass[next];
+            pass[next] += stride[next];
+            Waiter waiter = queues[next].poll();
+            waiter.granted = true;
+            inUse++;
+            if (waiter.condition != null) {
+                waiter.condition.signal();
+            } else {
+                if (asynchronous.isEmpty()) {
+                    asynchronous = new ArrayList<>();
+                }
+                asynchronous.add(waiter);
+            }
+        }
+        return asynchronous;
+    }
+
+    private boolean idle() {
+        for (ArrayDeque<Waiter> queue : queues) {
+            if (!queue.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static final class Waiter {
+        private final Condition condition;
+        private final CompletableFuture<Void> permit;
+        private boolean granted;
+
+        Waiter(Condition condition, CompletableFuture<Void> permit) {
+            this.condition = condition;
+            this.permit = permit;
+        }
+    }
+}
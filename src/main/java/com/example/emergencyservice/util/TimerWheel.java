@@ -0,0 +1,210 @@
+package com.example.emergencyservice.util;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: four levels of 64 slots, each slot of a level spanning a whole turn of the
+ * level below. With one-second ticks it covers about 194 days; later deadlines wait in an overflow list
+ * that is looked at once per turn of the top level.
+ * <p>
+ * A timer goes into the lowest level whose range covers its deadline and moves down a level each time
+ * the wheel reaches its slot, so scheduling and cancelling are O(1) and every timer is moved at most
+ * three times before it fires. Slots are intrusive doubly-linked lists, so a cancelled timer is
+ * unlinked on the spot.
+ * <p>
+ * Not thread-safe; callers hold their own lock.
+ */
+public class TimerWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long RANGE = 1L << (BITS * LEVELS);
+
+    private final long tickMillis;
+    private final long origin;
+    private final Timer<T>[][] wheels;
+    private Timer<T> overflow;
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.origin = nowMillis;
+        this.wheels = new Timer[LEVELS][SLOTS];
+    }
+
+    /**
+     * Adds a timer that fires on the first {@link #advance} to reach {@code deadlineMillis}, or on the
+     * next one if the deadline has already passed.
+     */
+    public Timer<T> schedule(long deadlineMillis, T payload) {
+        long tick = Math.max(currentTick + 1, ticks(deadlineMillis));
+        Timer<T> timer = new Timer<>(deadlineMillis, tick, payload);
+        place(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Removes a timer that has not fired yet. Returns false if it already fired or was cancelled.
+     */
+    public boolean cancel(Timer<T> timer) {
+        if (!timer.scheduled) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the wheel forward to {@code nowMillis}, passing the payload of every timer that became due to
+     * {@code expired}, in deadline order across ticks. The consumer may schedule new timers.
+     */
+    public void advance(long nowMillis, Consumer<T> expired) {
+        long target = ticks(nowMillis);
+        if (size == 0) {
+            currentTick = Math.max(currentTick, target);
+            return;
+        }
+        while (currentTick < target && size > 0) {
+            long tick = ++currentTick;
+            // Top down, so that timers moved into a slot that is due now move on down in the same tick
+            if ((tick & (RANGE / SLOTS - 1)) == 0) {
+                cascadeOverflow();
+            }
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((tick & ((1L << (BITS * level)) - 1)) == 0) {
+                    cascade(level, (int) ((tick >>> (BITS * level)) & MASK));
+                }
+            }
+
+            // All of the slot counts as fired before any consumer runs and perhaps cancels one of them
+            Timer<T> due = detach(0, (int) (tick & MASK));
+            for (Timer<T> timer = due; timer != null; timer = timer.next) {
+                timer.scheduled = false;
+                size--;
+            }
+            while (due != null) {
+                Timer<T> next = due.next;
+                due.prev = null;
+                due.next = null;
+                expired.accept(due.payload);
+                due = next;
+            }
+        }
+        currentTick = Math.max(currentTick, target);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private long ticks(long millis) {
+        return Math.floorDiv(millis - origin, tickMillis);
+    }
+
+    private void place(Timer<T> timer) {
+        long delta = timer.tick - currentTick;
+        timer.scheduled = true;
+        if (delta >= RANGE) {
+            timer.level = -1;
+            push(timer, null, 0);
+            return;
+        }
+        int level = 0;
+        while (delta >= 1L << (BITS * (level + 1))) {
+            level++;
+        }
+        int slot = (int) ((timer.tick >>> (BITS * level)) & MASK);
+        timer.level = level;
+        timer.slot = slot;
+        push(timer, wheels[level], slot);
+    }
+
+    private void push(Timer<T> timer, Timer<T>[] wheel, int slot) {
+        Timer<T> head = wheel != null ? wheel[slot] : overflow;
+        timer.prev = null;
+        timer.next = head;
+        if (head != null) {
+            head.prev = timer;
+        }
+        if (wheel != null) {
+            wheel[slot] = timer;
+        } else {
+            overflow = timer;
+        }
+    }
+
+    private void unlink(Timer<T> timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else if (timer.level < 0) {
+            overflow = timer.next;
+        } else {
+            wheels[timer.level][timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.prev = null;
+        timer.next = null;
+        timer.scheduled = false;
+    }
+
+    private Timer<T> detach(int level, int slot) {
+        Timer<T> head = wheels[level][slot];
+        wheels[level][slot] = null;
+        return head;
+    }
+
+    private void cascade(int level, int slot) {
+        Timer<T> timer = detach(level, slot);
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            place(timer);
+            timer = next;
+        }
+    }
+
+    private void cascadeOverflow() {
+        Timer<T> timer = overflow;
+        overflow = null;
+        while (timer != null) {
+            Timer<T> next = timer.next;
+            place(timer);
+            timer = next;
+        }
+    }
+
+    public static final class Timer<T> {
+        private final long deadline;
+        private final long tick;
+        private final T payload;
+        private Timer<T> prev;
+        private Timer<T> next;
+        private int level;
+        private int slot;
+        private boolean scheduled;
+
+        private Timer(long deadline, long tick, T payload) {
+            this.deadline = deadline;
+            this.tick = tick;
+            this.payload = payload;
+        }
+
+        public long deadline() {
+            return deadline;
+        }
+
+        public T payload() {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.emergencyservice.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket rate limiter. Callers reserve a token up front and sleep outside the lock
+ * until it becomes available, so waiting virtual threads are never pinned.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+    private final double nanosPerToken;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double ratePerSecond, int burst) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("ratePerSecond must be positive");
+        }
+        this.capacity = Math.max(1, burst);
+        this.nanosPerToken = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Takes a token without waiting and returns how long the caller must wait before using it, for
+     * callers that wait on a timer instead of a thread.
+     */
+    public long reserve() {
+        lock.lock();
+        try {
+            refill(System.nanoTime());
+            tokens -= 1;
+            return tokens >= 0 ? 0 : (long) (-tokens * nanosPerToken);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean tryAcquire() {
+        lock.lock();
+        try {
+            refill(System.nanoTime());
+            if (tokens >= 1) {
+                tokens -= 1;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefill;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed / nanosPerToken);
+            lastRefill = now;
+        }
+    }
+}
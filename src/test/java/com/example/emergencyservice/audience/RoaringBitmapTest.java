@@ -0,0 +1,102 @@
+package com.example.emergencyservice.audience;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RoaringBitmapTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    void matchesBitSetForSparseAndDenseChunks() {
+        for (int round = 0; round < 20; round++) {
+            // Mix sparse chunks with ones dense enough to switch to the bitmap form
+            BitSet expectedA = new BitSet();
+            BitSet expectedB = new BitSet();
+            RoaringBitmap a = fill(expectedA, round % 2 == 0 ? 3_000 : 30_000);
+            RoaringBitmap b = fill(expectedB, round % 3 == 0 ? 50_000 : 2_000);
+
+            assertEquals(expectedA.cardinality(), a.cardinality());
+            assertSame(and(expectedA, expectedB), a.and(b));
+            assertSame(or(expectedA, expectedB), a.or(b));
+            assertSame(andNot(expectedA, expectedB), a.andNot(b));
+            assertSame(andNot(expectedB, expectedA), b.andNot(a));
+        }
+    }
+
+    @Test
+    void containsAndIteratesInOrder() {
+        RoaringBitmap bitmap = RoaringBitmap.of(70_000, 5, 65_536, 5, 1);
+        assertArrayEquals(new int[]{1, 5, 65_536, 70_000}, bitmap.toArray());
+        assertTrue(bitmap.contains(65_536));
+        assertFalse(bitmap.contains(65_537));
+        assertTrue(bitmap.andNot(bitmap).isEmpty());
+        assertArrayEquals(new int[]{1, 5, 65_536}, bitmap.first(3));
+        assertArrayEquals(bitmap.toArray(), bitmap.first(10));
+    }
+
+    @Test
+    void firstStopsInsideADenseChunk() {
+        RoaringBitmap bitmap = fill(new BitSet(), 30_000);
+        int[] all = bitmap.toArray();
+        assertArrayEquals(Arrays.copyOf(all, 1_000), bitmap.first(1_000));
+    }
+
+    @Test
+    void roundTripsThroughItsBinaryForm() throws IOException {
+        RoaringBitmap bitmap = fill(new BitSet(), 40_000);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bitmap.writeTo(new DataOutputStream(bytes));
+
+        RoaringBitmap read = RoaringBitmap.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(bitmap, read);
+        assertTrue(bytes.size() < 40_000 * 4, "should be smaller than a plain int array");
+    }
+
+    private RoaringBitmap fill(BitSet expected, int count) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int i = 0; i < count; i++) {
+            int value = random.nextInt(200_000);
+            bitmap.add(value);
+            expected.set(value);
+        }
+        return bitmap;
+    }
+
+    private static void assertSame(BitSet expected, RoaringBitmap actual) {
+        assertArrayEquals(expected.stream().toArray(), actual.toArray());
+        assertEquals(expected.cardinality(), actual.cardinality());
+    }
+
+    private static BitSet and(BitSet a, BitSet b) {
+        BitSet result = (BitSet) a.clone();
+        result.and(b);
+        return result;
+    }
+
+    private static BitSet or(BitSet a, BitSet b) {
+        BitSet result = (BitSet) a.clone();
+        result.or(b);
+        return result;
+    }
+
+    private static BitSet andNot(BitSet a, BitSet b) {
+        BitSet result = (BitSet) a.clone();
+        result.andNot(b);
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.emergencyservice.auth;
+
+import com.example.emergencyservice.auth.PasswordVerifier.Verification;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PasswordVerifierTest {
+
+    @Test
+    void cachesSuccessfulVerificationsOnly() {
+        String hash = BCrypt.hashpw("secret", BCrypt.gensalt(4));
+        PasswordVerifier verifier = new PasswordVerifier(1, 4, 5_000, true, 60_000, 10);
+
+        assertEquals(Verification.MISMATCH, verifier.verify("admin", "wrong", hash));
+        assertEquals(Verification.MATCH, verifier.verify("admin", "secret", hash));
+        assertEquals(Verification.MATCH, verifier.verify("admin", "secret", hash));
+        assertEquals(Verification.MISMATCH, verifier.verify("admin", "wrong", hash));
+
+        PasswordVerifier.Metrics metrics = verifier.metrics();
+        assertEquals(3, metrics.verified());
+        assertEquals(1, metrics.cacheHits());
+        verifier.close();
+    }
+
+    @Test
+    void cacheEntryStopsMatchingWhenHashChanges() {
+        String oldHash = BCrypt.hashpw("secret", BCrypt.gensalt(4));
+        String newHash = BCrypt.hashpw("changed", BCrypt.gensalt(4));
+        PasswordVerifier verifier = new PasswordVerifier(1, 4, 5_000, true, 60_000, 10);
+
+        assertEquals(Verification.MATCH, verifier.verify("admin", "secret", oldHash));
+        assertEquals(Verification.MISMATCH, verifier.verify("admin", "secret", newHash));
+        verifier.close();
+    }
+
+    @Test
+    void rejectsWhenPoolAndQueueAreFull() throws Exception {
+        String hash = BCrypt.hashpw("secret", BCrypt.gensalt(4));
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordVerifier verifier = new PasswordVerifier(1, 1, 30_000, false, 0, 1, (password, stored) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return BCrypt.checkpw(password, stored);
+        });
+
+        Thread.ofVirtual().start(() -> verifier.verify("a", "secret", hash));
+        Thread.ofVirtual().start(() -> verifier.verify("b", "secret", hash));
+        long deadline = System.currentTimeMillis() + 10_000;
+        while ((verifier.metrics().active() < 1 || verifier.metrics().queued() < 1)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertEquals(Verification.REJECTED, verifier.verify("c", "secret", hash));
+        assertEquals(1, verifier.metrics().rejected());
+        release.countDown();
+        verifier.close();
+    }
+}
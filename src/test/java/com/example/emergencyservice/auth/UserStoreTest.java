@@ -0,0 +1,84 @@
+package com.example.emergencyservice.auth;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void persistsChangesAtomically() throws Exception {
+        Path file = directory.resolve("users.txt");
+        Files.write(file, List.of("admin:hash-admin"));
+        UserStore store = new UserStore(file);
+        store.open();
+
+        assertTrue(store.add("operator", "hash-operator"));
+        assertFalse(store.add("operator", "other"));
+        assertTrue(store.remove("admin"));
+        assertFalse(store.remove("admin"));
+
+        assertEquals(List.of("operator:hash-operator"), Files.readAllLines(file));
+        assertFalse(Files.exists(directory.resolve("users.txt.tmp")));
+        assertNull(store.passwordHash("admin"));
+        assertEquals("hash-operator", store.passwordHash("operator"));
+        store.close();
+    }
+
+    @Test
+    void concurrentAddsAreNotLost() throws Exception {
+        Path file = directory.resolve("users.txt");
+        UserStore store = new UserStore(file);
+        store.open();
+
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            int id = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10; i++) {
+                    try {
+                        store.add("user" + id + "-" + i, "hash");
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(80, store.list().size());
+        assertEquals(80, Files.readAllLines(file).size());
+        store.close();
+    }
+
+    @Test
+    void reloadsExternalEdits() throws Exception {
+        Path file = directory.resolve("users.txt");
+        Files.write(file, List.of("admin:hash-admin"));
+        UserStore store = new UserStore(file);
+        store.open();
+
+        Files.write(file, List.of("admin:hash-admin", "editor:hash-editor"));
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (store.passwordHash("editor") == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals("hash-editor", store.passwordHash("editor"));
+        store.close();
+    }
+}
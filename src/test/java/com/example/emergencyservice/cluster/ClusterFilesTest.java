@@ -0,0 +1,103 @@
+package com.example.emergencyservice.cluster;
+
+import com.example.emergencyservice.model.BroadcastJob;
+import com.example.emergencyservice.model.Priority;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterFilesTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void handoffsSplitByShardAndProgressIsReportedBack() throws Exception {
+        ClusterFiles submitter = new ClusterFiles(directory, 4);
+        ClusterFiles owner = new ClusterFiles(directory, 4);
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            recipients.add("9989012345" + (10 + i));
+        }
+        assertTrue(submitter.publish(new BroadcastJob("job1", "admin", recipients, Priority.URGENT), "СРОЧНО: тест")
+                .isEmpty());
+
+        BroadcastJob queued = owner.job("job1");
+        assertEquals(BroadcastJob.State.QUEUED, queued.getState());
+        assertEquals(40, queued.progress().queued());
+        assertEquals(Priority.URGENT, queued.getPriority());
+
+        int handedOff = 0;
+        int parts = 0;
+        for (int shard = 0; shard < 4; shard++) {
+            for (ClusterFiles.Handoff handoff : owner.inbox(shard)) {
+                assertEquals("job1", handoff.jobId());
+                assertEquals("СРОЧНО: тест", handoff.message());
+                assertTrue(handoff.recipients().stream().allMatch(r -> owner.shardOf(r) == handoff.shard()));
+                handedOff += handoff.recipients().size();
+                parts++;
+
+                BroadcastJob part = new BroadcastJob("job1", "admin", handoff.recipients(), handoff.priority());
+                part.record(0, true);
+                if (shard == 0) {
+                    part.complete();
+                }
+                owner.writeProgress(shard, part);
+                owner.remove(handoff);
+            }
+        }
+        assertEquals(40, handedOff);
+
+        BroadcastJob.Progress progress = submitter.job("job1").progress();
+        assertEquals(BroadcastJob.State.RUNNING, progress.state());
+        assertEquals(40, progress.total());
+        assertEquals(parts, progress.sent());
+        assertEquals(40 - parts, progress.queued());
+        assertNull(submitter.job("missing"));
+        assertNull(submitter.job("../job1"));
+    }
+
+    @Test
+    void failedHandoffReturnsOnlyTheRecipientsOfThatShard() throws Exception {
+        ClusterFiles files = new ClusterFiles(directory, 4);
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            recipients.add("user" + i + "@example.com");
+        }
+        // A file where shard 1's inbox directory should be
+        Files.createDirectories(directory.resolve("inbox"));
+        Files.createFile(directory.resolve("inbox").resolve("shard-001"));
+
+        List<String> remaining = files.publish(new BroadcastJob("job1", "admin", recipients, Priority.NORMAL), "Тест");
+
+        List<String> expected = recipients.stream().filter(r -> files.shardOf(r) == 1).toList();
+        assertTrue(!expected.isEmpty() && expected.size() < recipients.size());
+        assertEquals(expected, remaining);
+        int handedOff = 0;
+        for (int shard : new int[]{0, 2, 3}) {
+            for (ClusterFiles.Handoff handoff : files.inbox(shard)) {
+                handedOff += handoff.recipients().size();
+            }
+        }
+        assertEquals(recipients.size() - expected.size(), handedOff);
+        // Only the shards handed off are reported on
+        assertEquals(handedOff, files.job("job1").progress().total());
+    }
+
+    @Test
+    void firstClaimOfAKeyWins() throws Exception {
+        ClusterFiles a = new ClusterFiles(directory, 4);
+        ClusterFiles b = new ClusterFiles(directory, 4);
+        assertEquals("job1", a.claim(42L, "job1"));
+        assertEquals("job1", b.claim(42L, "job2"));
+        assertEquals("job3", b.claim(43L, "job3"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.emergencyservice.cluster;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShardLeasesTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void joiningNodeGetsItsShareOnceSurplusIsHandedBack() throws Exception {
+        ShardLeases a = new ShardLeases(directory, "a", 4, 60_000);
+        ShardLeases b = new ShardLeases(directory, "b", 4, 60_000);
+        assertEquals(Set.of(0, 1, 2, 3), a.renew(Set.of()).owned());
+
+        ShardLeases.Assignment joined = b.renew(Set.of());
+        assertTrue(joined.owned().isEmpty());
+        assertEquals(2, joined.liveNodes());
+
+        ShardLeases.Assignment crowded = a.renew(Set.of());
+        assertEquals(2, crowded.surplus().size());
+        assertEquals(2, a.renew(crowded.surplus()).owned().size());
+
+        Set<Integer> ofB = b.renew(Set.of()).owned();
+        Set<Integer> ofA = a.renew(Set.of()).owned();
+        assertEquals(2, ofB.size());
+        Set<Integer> all = new HashSet<>(ofA);
+        all.addAll(ofB);
+        assertEquals(4, all.size());
+    }
+
+    @Test
+    void shardsOfANodeThatStopsRenewingPassToOthers() throws Exception {
+        ShardLeases a = new ShardLeases(directory, "a", 3, 100);
+        ShardLeases b = new ShardLeases(directory, "b", 3, 100);
+        assertEquals(3, a.renew(Set.of()).owned().size());
+        assertTrue(b.renew(Set.of()).owned().isEmpty());
+
+        Thread.sleep(250);
+        ShardLeases.Assignment takeover = b.renew(Set.of());
+        assertEquals(Set.of(0, 1, 2), takeover.owned());
+        assertEquals(1, takeover.liveNodes());
+        assertTrue(a.renew(Set.of()).owned().size() < 3);
+    }
+
+    @Test
+    void releasedShardsAreFreeForOthersImmediately() throws Exception {
+        ShardLeases a = new ShardLeases(directory, "a", 2, 60_000);
+        a.renew(Set.of());
+        a.releaseAll();
+
+        ShardLeases b = new ShardLeases(directory, "b", 2, 60_000);
+        ShardLeases.Assignment assignment = b.renew(Set.of());
+        assertEquals(Set.of(0, 1), assignment.owned());
+        assertEquals(1, assignment.liveNodes());
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.emergencyservice.logging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogSearchTest {
+
+    private static final Set<String> FIELDS = Set.of("user", "channel", "status");
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void filtersAndPagesAcrossRotatedSegments() throws Exception {
+        LogWriter writer = new LogWriter(directory, 64, 1024, 60_000, 8 * 1024, 5, objectMapper, FIELDS);
+        writer.open();
+        for (int i = 0; i < 300; i++) {
+            writer.append("logs.txt", fields(i % 3 == 0 ? "alice" : "bob", i % 2 == 0 ? "EMAIL" : "SMS",
+                    i % 5 == 0 ? "error: timeout" : "SUCCESS", i));
+            if (i % 20 == 0) {
+                writer.flush(5_000);
+            }
+        }
+        assertTrue(writer.flush(5_000));
+        assertTrue(Files.exists(directory.resolve("logs.txt.1")));
+        assertTrue(Files.exists(directory.resolve("logs.txt.1.idx")));
+
+        LogSearch search = new LogSearch(directory, 5, writer, objectMapper);
+        LogSearch.LogPage first = search.search("logs.txt", query("alice", "email", null, 0, 10));
+        // i divisible by 6 below 300
+        assertEquals(50, first.total());
+        assertEquals(10, first.entries().size());
+        assertEquals("294", first.entries().get(0).get("message"));
+        assertEquals("240", first.entries().get(9).get("message"));
+
+        LogSearch.LogPage last = search.search("logs.txt", query("alice", "email", null, 4, 10));
+        assertEquals("54", last.entries().get(0).get("message"));
+        assertEquals("0", last.entries().get(9).get("message"));
+
+        LogSearch.LogPage errors = search.search("logs.txt", query(null, null, "error", 0, 500));
+        assertEquals(60, errors.entries().size());
+        writer.close();
+    }
+
+    @Test
+    void narrowsByTimeAndReloadsSavedIndex() throws Exception {
+        LogWriter writer = new LogWriter(directory, 64, 1024, 60_000, 10 * 1024 * 1024, 2, objectMapper, FIELDS);
+        writer.open();
+        for (int i = 0; i < 400; i++) {
+            writer.append("logs.txt", fields("alice", "EMAIL", "SUCCESS", i));
+        }
+        assertTrue(writer.flush(5_000));
+        Thread.sleep(20);
+        LocalDateTime cutoff = LocalDateTime.now();
+        Thread.sleep(20);
+        for (int i = 400; i < 450; i++) {
+            writer.append("logs.txt", fields("alice", "EMAIL", "SUCCESS", i));
+        }
+        writer.close();
+        assertTrue(Files.exists(directory.resolve("logs.txt.idx")));
+
+        LogWriter reopened = new LogWriter(directory, 64, 1024, 60_000, 10 * 1024 * 1024, 2, objectMapper, FIELDS);
+        reopened.open();
+        LogSearch search = new LogSearch(directory, 2, reopened, objectMapper);
+        LogSearch.LogPage after = search.search("logs.txt",
+                new LogSearch.LogQuery("alice", null, null, cutoff, null, 0, 100));
+        assertEquals(50, after.total());
+        assertEquals("449", after.entries().get(0).get("message"));
+
+        LogSearch.LogPage before = search.search("logs.txt",
+                new LogSearch.LogQuery(null, null, null, null, cutoff, 0, 1));
+        assertEquals(400, before.total());
+        assertEquals("399", before.entries().get(0).get("message"));
+        reopened.close();
+    }
+
+    private static LogSearch.LogQuery query(String user, String channel, String status, int page, int size) {
+        return new LogSearch.LogQuery(user, channel, status, null, null, page, size);
+    }
+
+    private static Map<String, String> fields(String user, String channel, String status, int i) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("user", user);
+        fields.put("channel", channel);
+        fields.put("status", status);
+        fields.put("message", String.valueOf(i));
+        return fields;
+    }
+}
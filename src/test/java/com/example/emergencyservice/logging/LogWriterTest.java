@@ -0,0 +1,91 @@
+package com.example.emergencyservice.logging;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LogWriterTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void writesEscapedJsonLinesFromConcurrentProducers() throws Exception {
+        LogWriter writer = new LogWriter(directory, 16, 4096, 60_000, 10 * 1024 * 1024, 2, objectMapper, Set.of());
+        writer.open();
+
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int producer = t;
+            producers.add(Thread.ofVirtual().start(() -> {
+                for (int i = 0; i < 250; i++) {
+                    writer.append("logs.txt", fields("user" + producer, "\"quoted\"\nline " + i));
+                }
+            }));
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        assertTrue(writer.flush(5_000));
+
+        List<String> lines = Files.readAllLines(directory.resolve("logs.txt"));
+        assertEquals(1000, lines.size());
+        JsonNode first = objectMapper.readTree(lines.get(0));
+        assertTrue(first.has("timestamp"));
+        assertTrue(first.get("message").asText().startsWith("\"quoted\"\nline "));
+        writer.close();
+    }
+
+    @Test
+    void closeDrainsPendingEntries() throws Exception {
+        LogWriter writer = new LogWriter(directory, 1024, 64 * 1024, 60_000, 10 * 1024 * 1024, 2, objectMapper, Set.of());
+        writer.open();
+        for (int i = 0; i < 100; i++) {
+            writer.append("auth_logs.txt", fields("admin", "attempt " + i));
+        }
+        writer.close();
+
+        assertEquals(100, Files.readAllLines(directory.resolve("auth_logs.txt")).size());
+        assertFalse(writer.append("auth_logs.txt", fields("admin", "late")));
+    }
+
+    @Test
+    void rotatesFilesPastSizeLimit() throws Exception {
+        LogWriter writer = new LogWriter(directory, 64, 1024, 60_000, 2048, 2, objectMapper, Set.of());
+        writer.open();
+        for (int i = 0; i < 200; i++) {
+            writer.append("logs.txt", fields("admin", "message " + i));
+            if (i % 20 == 0) {
+                writer.flush(5_000);
+            }
+        }
+        writer.close();
+
+        assertTrue(Files.exists(directory.resolve("logs.txt.1")));
+        assertTrue(Files.exists(directory.resolve("logs.txt.2")));
+        assertFalse(Files.exists(directory.resolve("logs.txt.3")));
+        assertTrue(Files.size(directory.resolve("logs.txt")) <= 2048);
+    }
+
+    private static Map<String, String> fields(String user, String message) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("user", user);
+        fields.put("message", message);
+        return fields;
+    }
+}
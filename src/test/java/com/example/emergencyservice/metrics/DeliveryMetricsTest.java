@@ -0,0 +1,35 @@
+package com.example.emergencyservice.metrics;
+
+import com.example.emergencyservice.model.Channel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DeliveryMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final DeliveryMetrics metrics = new DeliveryMetrics(registry);
+
+    @Test
+    void tracksInFlightCallsAndLatency() {
+        long started = metrics.start(Channel.TELEGRAM);
+        assertEquals(1, registry.get("delivery.in.flight").tag("channel", "telegram").gauge().value());
+
+        metrics.finish(Channel.TELEGRAM, started);
+        assertEquals(0, registry.get("delivery.in.flight").tag("channel", "telegram").gauge().value());
+        assertEquals(1, registry.get("delivery.latency").tag("channel", "telegram").timer().count());
+    }
+
+    @Test
+    void countsResultsByErrorClass() {
+        metrics.result(Channel.EMAIL, true, "rejected");
+        metrics.result(Channel.EMAIL, false, "rejected");
+        metrics.result(Channel.EMAIL, false, "rejected");
+
+        assertEquals(1, registry.get("delivery.results")
+                .tags("channel", "email", "outcome", "success", "error", DeliveryMetrics.NONE).counter().count());
+        assertEquals(2, registry.get("delivery.results")
+                .tags("channel", "email", "outcome", "failure", "error", "rejected").counter().count());
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.emergencyservice.queue;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QueueJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replaysUnacknowledgedDeliveries() throws Exception {
+        QueueJournal journal = open();
+        long[] ids = journal.enqueue("job1", "admin", "Сообщение", List.of("a@example.com", "-100", "b@example.com"));
+        journal.ack(ids[1]);
+        journal.close();
+
+        QueueJournal reopened = open();
+        List<QueueJournal.PendingJob> pending = reopened.pendingJobs();
+        assertEquals(1, pending.size());
+        assertEquals("Сообщение", pending.get(0).message());
+        assertEquals(List.of("a@example.com", "b@example.com"), pending.get(0).recipients());
+        assertArrayEquals(new long[]{ids[0], ids[2]}, pending.get(0).ids());
+
+        long[] next = reopened.enqueue("job2", "admin", "x", List.of("c@example.com"));
+        assertEquals(ids[2] + 1, next[0]);
+        reopened.close();
+    }
+
+    @Test
+    void compactionKeepsPendingDeliveriesAndDropsAcknowledgedSegments() throws Exception {
+        QueueJournal journal = open();
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            recipients.add("user" + i + "@example.com");
+        }
+        long[] first = journal.enqueue("job1", "admin", "first", recipients);
+        long[] second = journal.enqueue("job2", "admin", "second", recipients);
+        for (long id : first) {
+            journal.ack(id);
+        }
+        for (int i = 1; i < second.length; i++) {
+            journal.ack(second[i]);
+        }
+        journal.compact();
+        journal.close();
+
+        QueueJournal reopened = open();
+        List<QueueJournal.PendingJob> pending = reopened.pendingJobs();
+        assertEquals(1, pending.size());
+        assertEquals("job2", pending.get(0).jobId());
+        assertEquals("second", pending.get(0).message());
+        assertArrayEquals(new long[]{second[0]}, pending.get(0).ids());
+        reopened.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void segmentHoldingAcksOutlivesTheSegmentTheyReferTo() throws Exception {
+        QueueJournal journal = open();
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < 70; i++) {
+            recipients.add("user" + i + "@example.com");
+        }
+        // Segment 1: job1's deliveries. A message too large for its remaining space starts segment 2.
+        long[] first = journal.enqueue("job1", "admin", "first", recipients);
+        long[] second = journal.enqueue("job2", "admin", "x".repeat(2500), List.of("a@example.com"));
+        // Segment 2 then holds only acks, most of them for deliveries in segment 1
+        journal.ack(second[0]);
+        for (int i = 0; i < 40; i++) {
+            journal.ack(first[i]);
+        }
+        // Seals segment 2
+        long[] third = journal.enqueue("job3", "admin", "y".repeat(3000), List.of("b@example.com"));
+        journal.compact();
+        journal.close();
+
+        QueueJournal reopened = open();
+        List<QueueJournal.PendingJob> pending = reopened.pendingJobs();
+        assertEquals(List.of("job1", "job3"), pending.stream().map(QueueJournal.PendingJob::jobId).toList());
+        assertEquals(recipients.subList(40, 70), pending.get(0).recipients());
+
+        // Once segment 1 is fully acknowledged, both go in the same pass
+        for (int i = 40; i < first.length; i++) {
+            reopened.ack(first[i]);
+        }
+        reopened.compact();
+        reopened.close();
+
+        QueueJournal last = open();
+        pending = last.pendingJobs();
+        assertEquals(1, pending.size());
+        assertArrayEquals(third, pending.get(0).ids());
+        last.close();
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    void segmentKeptForItsAcksKeepsItsPendingDeliveries() throws Exception {
+        QueueJournal journal = open();
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < 70; i++) {
+            recipients.add("user" + i + "@example.com");
+        }
+        List<String> others = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            others.add("d" + i + "@example.com");
+        }
+        // Segment 1 stays densely pending. Segment 2 holds job2, all but one of it acknowledged, and acks
+        // for segment 1, so it is sparse but has to stay.
+        long[] first = journal.enqueue("job1", "admin", "first", recipients);
+        long[] second = journal.enqueue("job2", "admin", "x".repeat(800), others);
+        for (int i = 1; i < second.length; i++) {
+            journal.ack(second[i]);
+        }
+        for (int i = 0; i < 10; i++) {
+            journal.ack(first[i]);
+        }
+        long[] third = journal.enqueue("job3", "admin", "y".repeat(2700), List.of("a@example.com"));
+        journal.compact();
+
+        // Acknowledged in segment 3, which is then sealed and compacted
+        journal.ack(second[0]);
+        journal.ack(third[0]);
+        long[] fourth = journal.enqueue("job4", "admin", "z".repeat(2700), List.of("b@example.com"));
+        journal.compact();
+        journal.close();
+
+        QueueJournal reopened = open();
+        List<QueueJournal.PendingJob> pending = reopened.pendingJobs();
+        assertEquals(List.of("job1", "job4"), pending.stream().map(QueueJournal.PendingJob::jobId).toList());
+        assertEquals(recipients.subList(10, 70), pending.get(0).recipients());
+        assertArrayEquals(fourth, pending.get(1).ids());
+        reopened.close();
+    }
+
+    private QueueJournal open() throws Exception {
+        QueueJournal journal = new QueueJournal(directory, 4096, 16, 1, 60_000, 0.25);
+        journal.open();
+        return journal;
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.emergencyservice.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AudienceServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private ContentRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path templates = Files.createDirectories(directory.resolve("templates"));
+        Files.write(directory.resolve("sms_recipients.txt"),
+                List.of("Директор:+998901234567", "Менеджер:+998902345678", "Дежурный:+998903456789"));
+        Files.write(directory.resolve("email_recipients.txt"), List.of("Менеджер:manager@example.com"));
+        Files.write(directory.resolve("telegram_recipients.txt"), List.of("Рабочая группа:-1001234567890"));
+
+        FileService fileService = new FileService();
+        ReflectionTestUtils.setField(fileService, "dataDirectory", directory + "/");
+        ReflectionTestUtils.setField(fileService, "templatesDir", templates + "/");
+        repository = new ContentRepository(fileService, directory + "/", templates + "/");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        repository.close();
+    }
+
+    @Test
+    void resolvesBooleanExpressionsOverTagsAndChannels() throws Exception {
+        AudienceService audience = new AudienceService(repository, directory + "/");
+        audience.setTag("region:tashkent", List.of("+998901234567", "+998902345678", "manager@example.com"));
+        audience.setTag("team:network", List.of("+998902345678", "+998903456789"));
+
+        assertEquals(List.of("+998902345678"), audience.resolve("region:tashkent AND team:network"));
+        assertEquals(List.of("+998901234567", "manager@example.com"),
+                audience.resolve("Region:Tashkent and not team:network"));
+        assertEquals(List.of("+998903456789"),
+                audience.resolve("channel:sms (region:tashkent OR team:network) NOT region:tashkent"));
+        assertEquals(5, audience.count("all"));
+        assertEquals(1, audience.count("NOT (region:tashkent OR team:network)"));
+        assertEquals(0, audience.count("region:samarkand"));
+        assertEquals(Map.of("region:tashkent", 3, "team:network", 2), audience.tags());
+    }
+
+    @Test
+    void persistsTagsAndOnlySelectsListedRecipients() throws Exception {
+        AudienceService audience = new AudienceService(repository, directory + "/");
+        audience.setTag("oncall", List.of("+998903456789", "+998909999999"));
+        audience.addToTag("oncall", List.of("manager@example.com"));
+        audience.removeFromTag("oncall", List.of("+998903456789"));
+
+        AudienceService reloaded = new AudienceService(repository, directory + "/");
+        // +998909999999 is tagged but not in any recipient file
+        assertEquals(List.of("manager@example.com"), reloaded.resolve("oncall"));
+
+        repository.saveRecipients("sms_recipients.txt", List.<String[]>of(new String[]{"Новый", "+998909999999"}));
+        assertEquals(List.of("+998909999999", "manager@example.com"), reloaded.resolve("oncall"));
+    }
+
+    @Test
+    void normalizesTaggedAddressesLikeImportsAndSamplesTheSelection() throws Exception {
+        AudienceService audience = new AudienceService(repository, directory + "/");
+        audience.setTag("oncall", List.of(" Manager@Example.COM ", "+998 (90) 123-45-67", "-1001234567890"));
+
+        assertEquals(List.of("manager@example.com", "+998901234567", "-1001234567890"), audience.resolve("oncall"));
+        assertEquals(List.of("manager@example.com", "+998901234567"), audience.sample("oncall", 2));
+        assertEquals(List.of(), audience.sample("region:samarkand", 20));
+
+        audience.removeFromTag("oncall", List.of("MANAGER@example.com", "+998-90-123-45-67"));
+        assertEquals(List.of("-1001234567890"), audience.resolve("oncall"));
+    }
+
+    @Test
+    void matchesSavedAddressesWrittenDifferentlyFromTheTaggedOnes() throws Exception {
+        repository.saveRecipients("email_recipients.txt", List.<String[]>of(new String[]{"Иван", "Ivan@Paynet.uz"}));
+        AudienceService audience = new AudienceService(repository, directory + "/");
+        audience.setTag("finance", List.of("ivan@paynet.uz"));
+
+        assertEquals(Map.of("finance", 1), audience.tags());
+        assertEquals(List.of("ivan@paynet.uz"), audience.resolve("finance AND channel:email"));
+        assertEquals(1, audience.count("all AND finance"));
+    }
+
+    @Test
+    void rejectsMalformedExpressionsAndTags() {
+        AudienceService audience = new AudienceService(repository, directory + "/");
+        assertThrows(IllegalArgumentException.class, () -> audience.resolve("region:tashkent AND"));
+        assertThrows(IllegalArgumentException.class, () -> audience.resolve("(team:network"));
+        assertThrows(IllegalArgumentException.class, () -> audience.resolve("team:network )"));
+        assertThrows(IllegalArgumentException.class, () -> audience.setTag("channel:sms", List.of("+998901234567")));
+        assertThrows(IllegalArgumentException.class, () -> audience.setTag("on call", List.of("+998901234567")));
+    }
+
+    @Test
+    void selectsLargeAudiencesFromBitmaps() throws Exception {
+        List<String> lines = new ArrayList<>();
+        List<String> tashkent = new ArrayList<>();
+        List<String> network = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            String phone = "+99890" + (1_000_000 + i);
+            lines.add("Абонент " + i + ":" + phone);
+            if (i % 2 == 0) {
+                tashkent.add(phone);
+            }
+            if (i % 3 == 0) {
+                network.add(phone);
+            }
+        }
+        Files.write(directory.resolve("sms_recipients.txt"), lines);
+        AudienceService audience = new AudienceService(repository, directory + "/");
+        audience.setTag("region:tashkent", tashkent);
+        audience.setTag("team:network", network);
+        audience.count("all");
+
+        long started = System.nanoTime();
+        int count = audience.count("region:tashkent AND team:network");
+        long elapsedMicros = (System.nanoTime() - started) / 1000;
+
+        assertEquals(16_667, count);
+        assertTrue(elapsedMicros < 50_000, "took " + elapsedMicros + "us");
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.config.ClusterConfig;
+import com.example.emergencyservice.config.DispatchConfig;
+import com.example.emergencyservice.config.MailPoolConfig;
+import com.example.emergencyservice.config.QueueConfig;
+import com.example.emergencyservice.config.ResilienceConfig;
+import com.example.emergencyservice.model.BroadcastJob;
+import com.example.emergencyservice.model.DeliveryOutcome;
+import com.example.emergencyservice.model.DeliveryStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs broadcasts through the job registry against a scripted Telegram channel, to follow jobs and the
+ * status of each recipient the way /jobs/{id} reports them, and to see which submissions are duplicates.
+ */
+class BroadcastJobServiceTest {
+
+    private static final String SENT = "100";
+    private static final String REJECTED = "200";
+    private static final String HELD = "300";
+    private static final String FLAKY = "400";
+
+    @TempDir
+    Path directory;
+
+    private final DispatchConfig dispatchConfig = new DispatchConfig();
+    private ScriptedMessages messages;
+    private RetryScheduler retries;
+    private OutboundQueue queue;
+    private BroadcastJobService jobs;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        dispatchConfig.getRetry().setInitialDelayMs(500);
+        dispatchConfig.getJobs().setRetained(2);
+        messages = new ScriptedMessages(dispatchConfig);
+        DispatchService dispatch = new DispatchService(messages, dispatchConfig, new MailPoolConfig(), null, null);
+        retries = new RetryScheduler(dispatch, dispatchConfig);
+        DeadLetterStore deadLetters = new DeadLetterStore(dispatchConfig, new ObjectMapper(),
+                directory.resolve("data").toString());
+        QueueConfig queueConfig = new QueueConfig();
+        queueConfig.setDirectory(directory.resolve("queue").toString());
+        queue = new OutboundQueue(queueConfig, new ClusterConfig());
+        jobs = new BroadcastJobService(dispatch, queue, dispatchConfig, retries, deadLetters,
+                new ClusterService(new ClusterConfig(), dispatchConfig, queue));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        messages.release();
+        retries.close();
+        queue.close();
+    }
+
+    @Test
+    void reportsProgressAndTheStatusOfEachRecipient() throws Exception {
+        BroadcastJob job = jobs.submit(List.of(SENT, REJECTED, HELD, FLAKY), "Авария на линии", "admin");
+        assertEquals(job, jobs.findJob(job.getId()).orElseThrow());
+
+        awaitStatus(job, 3, DeliveryStatus.RETRYING);
+        awaitStatus(job, 1, DeliveryStatus.FAILED);
+        BroadcastJob.Progress progress = job.progress();
+        assertEquals(BroadcastJob.State.RUNNING, progress.state());
+        assertEquals(4, progress.total());
+        assertEquals(1, progress.sent());
+        assertEquals(1, progress.failed());
+        assertEquals(1, progress.retrying());
+        assertEquals(1, progress.queued());
+        assertEquals(List.of(
+                        new BroadcastJob.RecipientProgress(SENT, DeliveryStatus.SENT),
+                        new BroadcastJob.RecipientProgress(REJECTED, DeliveryStatus.FAILED),
+                        new BroadcastJob.RecipientProgress(HELD, DeliveryStatus.QUEUED),
+                        new BroadcastJob.RecipientProgress(FLAKY, DeliveryStatus.RETRYING)),
+                progress.recipients());
+
+        messages.release();
+        awaitCompletion(job);
+        progress = job.progress();
+        assertEquals(3, progress.sent());
+        assertEquals(1, progress.failed());
+        assertEquals(0, progress.retrying() + progress.queued());
+        assertEquals(DeliveryStatus.SENT, job.status(3));
+        assertEquals(2, messages.attempts(FLAKY));
+        assertEquals(0, queue.pendingCount());
+    }
+
+    @Test
+    void keepsOnlyTheLatestCompletedJobs() throws Exception {
+        BroadcastJob first = jobs.submit(List.of(SENT), "Первое", "admin");
+        awaitCompletion(first);
+        BroadcastJob second = jobs.submit(List.of(SENT), "Второе", "admin");
+        awaitCompletion(second);
+        BroadcastJob third = jobs.submit(List.of(SENT), "Третье", "admin");
+        awaitCompletion(third);
+
+        assertTrue(jobs.findJob(first.getId()).isEmpty());
+        assertEquals(second, jobs.findJob(second.getId()).orElseThrow());
+        assertEquals(third, jobs.findJob(third.getId()).orElseThrow());
+        assertFalse(jobs.findJob("missing").isPresent());
+    }
+
+    @Test
+    void reusedIdempotencyKeyReturnsTheOriginalJob() throws Exception {
+        BroadcastJobService.Submission first = jobs.submit(List.of(SENT), "Отключение света", "admin", "key-1",
+                null);
+        assertFalse(first.duplicate());
+        awaitCompletion(first.job());
+
+        // The key is honoured after the job completed and whatever the content
+        BroadcastJobService.Submission again = jobs.submit(List.of(SENT, "500"), "Другое", "admin", "key-1", null);
+        assertTrue(again.duplicate());
+        assertEquals(first.jobId(), again.jobId());
+        assertEquals(first.job(), again.job());
+
+        BroadcastJobService.Submission otherUser = jobs.submit(List.of("500"), "Другое", "operator", "key-1", null);
+        assertFalse(otherUser.duplicate());
+        awaitCompletion(otherUser.job());
+        assertEquals(1, messages.attempts(SENT));
+        assertEquals(1, messages.attempts("500"));
+    }
+
+    @Test
+    void sameContentIsADuplicateOnlyWhileInFlight() throws Exception {
+        BroadcastJobService.Submission first = jobs.submit(List.of(HELD, SENT), "Сбой связи", "admin", null, null);
+        assertFalse(first.duplicate());
+
+        BroadcastJobService.Submission repeated = jobs.submit(List.of(SENT, " 300 ", HELD), "Сбой связи", "operator",
+                null, null);
+        assertTrue(repeated.duplicate());
+        assertEquals(first.jobId(), repeated.jobId());
+        assertFalse(jobs.submit(List.of(SENT), "Сбой связи", "admin", null, null).duplicate());
+        assertFalse(jobs.submit(List.of(HELD, SENT), "Связь восстановлена", "admin", null, null).duplicate());
+
+        messages.release();
+        awaitCompletion(first.job());
+        BroadcastJobService.Submission resent = jobs.submit(List.of(HELD, SENT), "Сбой связи", "admin", null, null);
+        assertFalse(resent.duplicate());
+        assertFalse(first.jobId().equals(resent.jobId()));
+        awaitCompletion(resent.job());
+        assertEquals(3, messages.attempts(HELD));
+    }
+
+    @Test
+    void sendsToRepeatedRecipientsOnce() throws Exception {
+        BroadcastJobService.Submission submission = jobs.submit(Arrays.asList(SENT, " 100 ", "500", "", null, "500"),
+                "Учения", "admin", null, null);
+        assertEquals(List.of(SENT, "500"), submission.job().getRecipients());
+
+        awaitCompletion(submission.job());
+        assertEquals(2, submission.job().progress().sent());
+        assertEquals(1, messages.attempts(SENT));
+        assertEquals(1, messages.attempts("500"));
+    }
+
+    private static void awaitStatus(BroadcastJob job, int index, DeliveryStatus status) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (job.status(index) != status && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(status, job.status(index));
+    }
+
+    private static void awaitCompletion(BroadcastJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (job.getState() != BroadcastJob.State.COMPLETED && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(BroadcastJob.State.COMPLETED, job.getState());
+    }
+
+    /**
+     * Telegram channel that rejects one chat, holds another until released and fails a third once.
+     */
+    private static final class ScriptedMessages extends MessageService {
+        final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        final CountDownLatch held = new CountDownLatch(1);
+
+        ScriptedMessages(DispatchConfig dispatchConfig) {
+            super(null, null, null, null, null, dispatchConfig, new ResilienceConfig());
+        }
+
+        @Override
+        public DeliveryOutcome sendTelegramMessage(String chatId, String message, String username) {
+            int attempt = attempts.computeIfAbsent(chatId, key -> new AtomicInteger()).incrementAndGet();
+            return switch (chatId) {
+                case REJECTED -> DeliveryOutcome.FAILED_PERMANENT;
+                case FLAKY -> attempt == 1 ? DeliveryOutcome.FAILED_TRANSIENT : DeliveryOutcome.SENT;
+                case HELD -> {
+                    try {
+                        held.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    yield DeliveryOutcome.SENT;
+                }
+                default -> DeliveryOutcome.SENT;
+            };
+        }
+
+        int attempts(String chatId) {
+            AtomicInteger count = attempts.get(chatId);
+            return count == null ? 0 : count.get();
+        }
+
+        void release() {
+            held.countDown();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.config.DispatchConfig;
+import com.example.emergencyservice.config.ScheduleConfig;
+import com.example.emergencyservice.model.Priority;
+import com.example.emergencyservice.model.ScheduledBroadcast;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BroadcastScheduleServiceTest {
+
+    private static final ZoneId ZONE = ZoneOffset.UTC;
+    private static final long HOUR = 60 * 60 * 1000L;
+    private static final long NOW = millis(LocalDateTime.of(2026, 3, 10, 12, 0));
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void futureRunsAreKept() {
+        ScheduledBroadcast schedule = schedule(null, ScheduledBroadcast.CatchUp.SKIP, NOW + HOUR);
+        assertEquals(schedule, BroadcastScheduleService.resume(schedule, NOW, 6 * HOUR, ZONE));
+    }
+
+    @Test
+    void missedRunIsMadeUpOnceWithinTheWindow() {
+        ScheduledBroadcast resumed = BroadcastScheduleService.resume(
+                schedule(null, ScheduledBroadcast.CatchUp.ONCE, NOW - 2 * HOUR), NOW, 6 * HOUR, ZONE);
+        assertEquals(NOW, resumed.nextRun());
+        assertEquals(NOW - 2 * HOUR, resumed.dueAt());
+        assertEquals(NOW, BroadcastScheduleService.resume(schedule("0 0 9 * * *", ScheduledBroadcast.CatchUp.ONCE,
+                NOW - 3 * HOUR), NOW, 6 * HOUR, ZONE).nextRun());
+
+        // Restarted again before the made-up run was sent: still the same run, while it is in the window
+        assertEquals(NOW - 2 * HOUR, BroadcastScheduleService.resume(resumed, NOW + HOUR, 6 * HOUR, ZONE).dueAt());
+        assertNull(BroadcastScheduleService.resume(resumed, NOW + 5 * HOUR, 6 * HOUR, ZONE));
+    }
+
+    @Test
+    void otherMissedRunsAreSkipped() {
+        long tomorrowAtNine = millis(LocalDateTime.of(2026, 3, 11, 9, 0));
+        assertEquals(tomorrowAtNine, BroadcastScheduleService.resume(
+                schedule("0 0 9 * * *", ScheduledBroadcast.CatchUp.SKIP, NOW - 3 * HOUR), NOW, 6 * HOUR, ZONE).dueAt());
+        assertEquals(tomorrowAtNine, BroadcastScheduleService.resume(
+                schedule("0 0 9 * * *", ScheduledBroadcast.CatchUp.ONCE, NOW - 27 * HOUR), NOW, 6 * HOUR, ZONE).nextRun());
+        assertNull(BroadcastScheduleService.resume(
+                schedule(null, ScheduledBroadcast.CatchUp.ONCE, NOW - 7 * HOUR), NOW, 6 * HOUR, ZONE));
+    }
+
+    @Test
+    void madeUpRunKeepsItsIdempotencyKeyAcrossRestarts() throws Exception {
+        long due = System.currentTimeMillis() - HOUR;
+        ScheduleFile.write(directory.resolve("schedules.dat"), List.of(new ScheduledBroadcast("a1b2c3d4", "admin",
+                "Проверка связи", null, null, List.of("ops@example.com"), null, ScheduledBroadcast.CatchUp.ONCE, due)));
+
+        // Stopped before the made-up run fired; the rewritten file now holds the catch-up time
+        RecordingJobs jobs = new RecordingJobs();
+        service(jobs, 60_000).close();
+        assertEquals(List.of(), jobs.keys);
+        ScheduledBroadcast saved = ScheduleFile.read(directory.resolve("schedules.dat")).get(0);
+        assertTrue(saved.nextRun() > due);
+        assertEquals(due, saved.dueAt());
+
+        BroadcastScheduleService restarted = service(jobs, 10);
+        try {
+            assertTrue(jobs.fired.await(5, TimeUnit.SECONDS));
+        } finally {
+            restarted.close();
+        }
+        assertEquals(List.of("schedule-a1b2c3d4-" + due), jobs.keys);
+        assertTrue(ScheduleFile.read(directory.resolve("schedules.dat")).isEmpty());
+    }
+
+    @Test
+    void runIsNotSentAgainAfterACrashRightAfterItWasSubmitted() throws Exception {
+        Path crashed = directory.resolve("crashed");
+        ScheduleFile.write(directory.resolve("schedules.dat"), List.of(new ScheduledBroadcast("a1b2c3d4", "admin",
+                "Проверка связи", null, null, List.of("ops@example.com"), null, ScheduledBroadcast.CatchUp.ONCE,
+                System.currentTimeMillis() + 50)));
+
+        // The file as a crash right after the submission would leave it
+        RecordingJobs jobs = new RecordingJobs(() -> Files.copy(directory.resolve("schedules.dat"),
+                Files.createDirectories(crashed).resolve("schedules.dat")));
+        BroadcastScheduleService service = service(jobs, 10);
+        try {
+            assertTrue(jobs.fired.await(5, TimeUnit.SECONDS));
+        } finally {
+            service.close();
+        }
+
+        RecordingJobs restartedJobs = new RecordingJobs();
+        BroadcastScheduleService restarted = service(restartedJobs, 10, crashed);
+        try {
+            Thread.sleep(200);
+        } finally {
+            restarted.close();
+        }
+        assertEquals(List.of(), restartedJobs.keys);
+    }
+
+    @Test
+    void fiveFieldCronGetsSeconds() {
+        assertEquals("0 30 8 * * *", BroadcastScheduleService.normalizeCron("  30  8 * * * "));
+        assertEquals("0 0 9 * * *", BroadcastScheduleService.normalizeCron("0 0 9 * * *"));
+        assertThrows(IllegalArgumentException.class, () -> BroadcastScheduleService.normalizeCron("every day"));
+    }
+
+    private BroadcastScheduleService service(BroadcastJobService jobs, long tickMs) {
+        return service(jobs, tickMs, directory);
+    }
+
+    private BroadcastScheduleService service(BroadcastJobService jobs, long tickMs, Path dataDirectory) {
+        ScheduleConfig config = new ScheduleConfig();
+        config.setTickMs(tickMs);
+        return new BroadcastScheduleService(config, jobs, null, dataDirectory + "/");
+    }
+
+    private static ScheduledBroadcast schedule(String cron, ScheduledBroadcast.CatchUp catchUp, long nextRun) {
+        return new ScheduledBroadcast("id", "admin", "Проверка связи", null, null, List.of("ops@example.com"),
+                cron, catchUp, nextRun);
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Records the idempotency keys of submitted runs instead of sending them.
+     */
+    private static final class RecordingJobs extends BroadcastJobService {
+        final List<String> keys = new CopyOnWriteArrayList<>();
+        final CountDownLatch fired = new CountDownLatch(1);
+        final Callable<?> onSubmit;
+
+        RecordingJobs() {
+            this(() -> null);
+        }
+
+        RecordingJobs(Callable<?> onSubmit) {
+            super(null, null, new DispatchConfig(), null, null, null);
+            this.onSubmit = onSubmit;
+        }
+
+        @Override
+        public Submission submit(List<String> recipients, String message, String username, String idempotencyKey,
+                                 Priority priority) {
+            try {
+                onSubmit.call();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            keys.add(idempotencyKey);
+            fired.countDown();
+            return new Submission("job1", null, false);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.config.ClusterConfig;
+import com.example.emergencyservice.config.DispatchConfig;
+import com.example.emergencyservice.config.QueueConfig;
+import com.example.emergencyservice.config.ResilienceConfig;
+import com.example.emergencyservice.model.Channel;
+import com.example.emergencyservice.model.DeliveryOutcome;
+import com.example.emergencyservice.model.DeliveryResult;
+import com.example.emergencyservice.model.Priority;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClusterServiceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void closedShardLeavesExactlyItsUnsettledDeliveriesToTheNextOwner() throws Exception {
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            recipients.add("user" + i + "@example.com");
+        }
+        DispatchConfig dispatchConfig = new DispatchConfig();
+        dispatchConfig.getRetry().setInitialDelayMs(60_000);
+        DeadLetterStore deadLetters = new DeadLetterStore(dispatchConfig, new ObjectMapper(), directory.toString());
+
+        // user5 and user6 fail and wait for a retry; the shard is closed while user7 is being sent to
+        ScriptedDispatch first = new ScriptedDispatch(dispatchConfig, Set.of(recipients.get(5), recipients.get(6)),
+                recipients.get(7));
+        Node a = new Node("a", first, dispatchConfig, deadLetters);
+        a.jobs.submit(recipients, "Учения", "admin", null, null);
+        assertTrue(first.sending.await(5, TimeUnit.SECONDS));
+        assertEquals(2, a.retries.pendingCount());
+
+        Thread closing = Thread.ofVirtual().start(a.cluster::close);
+        awaitTrue(() -> first.cancelled.getAsBoolean());
+        assertTrue(closing.isAlive(), "shard closed while a send was under way");
+        first.proceed.countDown();
+        closing.join();
+        a.close();
+
+        assertEquals(recipients.subList(0, 8), first.attempted);
+        assertEquals(0, a.retries.pendingCount());
+
+        ScriptedDispatch second = new ScriptedDispatch(dispatchConfig, Set.of(), null);
+        Node b = new Node("b", second, dispatchConfig, deadLetters);
+        try {
+            awaitTrue(() -> second.attempted.size() >= 4);
+            Thread.sleep(100);
+            assertEquals(List.of(recipients.get(5), recipients.get(6), recipients.get(8), recipients.get(9)),
+                    second.attempted);
+        } finally {
+            b.cluster.close();
+            b.close();
+        }
+    }
+
+    @Test
+    void stoppingALargeRateLimitedShardPartDoesNotWaitForItsQueue() throws Exception {
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            recipients.add(String.valueOf(100_000 + i));
+        }
+        DispatchConfig dispatchConfig = new DispatchConfig();
+        dispatchConfig.getTelegram().setRatePerSecond(20);
+        dispatchConfig.getTelegram().setBurst(1);
+        DeadLetterStore deadLetters = new DeadLetterStore(dispatchConfig, new ObjectMapper(), directory.toString());
+        CountingMessages messages = new CountingMessages(dispatchConfig);
+        DispatchService dispatch = new DispatchService(messages, dispatchConfig, null, null, null);
+        // With this TTL the shard's sends would be waited for longer than closing the cluster does
+        Node a = new Node(clusterConfig("a", 60_000), dispatch, dispatchConfig, deadLetters);
+        try {
+            a.jobs.submit(recipients, "Учения", "admin", null, null);
+            awaitTrue(() -> messages.sent.get() >= 3);
+
+            long started = System.nanoTime();
+            a.cluster.close();
+            assertTrue(System.nanoTime() - started < TimeUnit.SECONDS.toNanos(2), "stopping took too long");
+            int sent = messages.sent.get();
+            Thread.sleep(300);
+            assertEquals(sent, messages.sent.get(), "sends went on after the shard was closed");
+            assertTrue(sent < 100);
+        } finally {
+            a.close();
+        }
+    }
+
+    private ClusterConfig clusterConfig(String nodeId) {
+        return clusterConfig(nodeId, 2_000);
+    }
+
+    private ClusterConfig clusterConfig(String nodeId, long leaseTtlMillis) {
+        ClusterConfig config = new ClusterConfig();
+        config.setEnabled(true);
+        config.setDirectory(directory.resolve("cluster").toString());
+        config.setNodeId(nodeId);
+        config.setShards(1);
+        config.setLeaseTtlMs(leaseTtlMillis);
+        config.setHeartbeatMs(50);
+        config.setPollMs(10);
+        return config;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    /**
+     * One cluster member with its own queue, cluster membership and retries.
+     */
+    private final class Node {
+        final OutboundQueue queue;
+        final ClusterService cluster;
+        final RetryScheduler retries;
+        final BroadcastJobService jobs;
+
+        Node(String nodeId, DispatchService dispatch, DispatchConfig dispatchConfig, DeadLetterStore deadLetters)
+                throws Exception {
+            this(clusterConfig(nodeId), dispatch, dispatchConfig, deadLetters);
+        }
+
+        Node(ClusterConfig config, DispatchService dispatch, DispatchConfig dispatchConfig,
+             DeadLetterStore deadLetters) throws Exception {
+            QueueConfig queueConfig = new QueueConfig();
+            queueConfig.setSegmentSize(64 * 1024);
+            queue = new OutboundQueue(queueConfig, config);
+            cluster = new ClusterService(config, dispatchConfig, queue);
+            retries = new RetryScheduler(dispatch, dispatchConfig);
+            jobs = new BroadcastJobService(dispatch, queue, dispatchConfig, retries, deadLetters, cluster);
+            jobs.resumePending();
+        }
+
+        void close() throws Exception {
+            retries.close();
+            queue.close();
+        }
+    }
+
+    /**
+     * Telegram channel that accepts every message at once.
+     */
+    private static final class CountingMessages extends MessageService {
+        final AtomicInteger sent = new AtomicInteger();
+
+        CountingMessages(DispatchConfig dispatchConfig) {
+            super(null, null, null, null, null, dispatchConfig, new ResilienceConfig());
+        }
+
+        @Override
+        public DeliveryOutcome sendTelegramMessage(String chatId, String message, String username) {
+            sent.incrementAndGet();
+            return DeliveryOutcome.SENT;
+        }
+    }
+
+    /**
+     * Sends to one recipient after another, failing some transiently and holding one until released.
+     */
+    private static final class ScriptedDispatch extends DispatchService {
+        final List<String> attempted = new CopyOnWriteArrayList<>();
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch proceed = new CountDownLatch(1);
+        final Set<String> failing;
+        final String held;
+        volatile BooleanSupplier cancelled = () -> false;
+
+        ScriptedDispatch(DispatchConfig dispatchConfig, Set<String> failing, String held) {
+            super(null, dispatchConfig, null, null, null);
+            this.failing = failing;
+            this.held = held;
+        }
+
+        @Override
+        public List<DeliveryResult> dispatch(List<String> recipients, String message, String username,
+                                             Priority priority, BooleanSupplier cancelled,
+                                             DeliveryListener listener) {
+            List<DeliveryResult> results = new ArrayList<>();
+            for (int i = 0; i < recipients.size(); i++) {
+                String recipient = recipients.get(i);
+                DeliveryResult result = new DeliveryResult(recipient, Channel.EMAIL, DeliveryOutcome.FAILED_TRANSIENT);
+                if (!cancelled.getAsBoolean()) {
+                    attempted.add(recipient);
+                    if (recipient.equals(held)) {
+                        this.cancelled = cancelled;
+                        sending.countDown();
+                        awaitProceed();
+                    }
+                    if (!failing.contains(recipient)) {
+                        result = new DeliveryResult(recipient, Channel.EMAIL, DeliveryOutcome.SENT);
+                    }
+                    listener.onResult(i, result);
+                }
+                results.add(result);
+            }
+            return results;
+        }
+
+        private void awaitProceed() {
+            try {
+                proceed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.model.Channel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContentRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    private ContentRepository repository;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Path templates = Files.createDirectories(directory.resolve("templates"));
+        Files.write(directory.resolve("email_recipients.txt"), List.of("Менеджер:manager@example.com"));
+        Files.writeString(templates.resolve("urgent.txt"), "СРОЧНО: {content}");
+
+        FileService fileService = new FileService();
+        ReflectionTestUtils.setField(fileService, "dataDirectory", directory + "/");
+        ReflectionTestUtils.setField(fileService, "templatesDir", templates + "/");
+        repository = new ContentRepository(fileService, directory + "/", templates + "/");
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        repository.close();
+    }
+
+    @Test
+    void servesRepeatedReadsFromMemory() {
+        assertEquals("manager@example.com", repository.getRecipients("email_recipients.txt").get(0)[1]);
+        repository.getRecipients("email_recipients.txt");
+        assertEquals("СРОЧНО: {content}", repository.getTemplates().get("urgent"));
+        repository.getTemplates();
+
+        ContentRepository.Stats stats = repository.stats();
+        assertEquals(2, stats.misses());
+        assertEquals(2, stats.hits());
+    }
+
+    @Test
+    void savesInvalidateCachedEntries() {
+        repository.getRecipients("email_recipients.txt");
+        repository.saveRecipients("email_recipients.txt",
+                List.<String[]>of(new String[]{"Бухгалтер", "accountant@example.com"}));
+        assertEquals("accountant@example.com", repository.getRecipients("email_recipients.txt").get(0)[1]);
+
+        repository.getTemplates();
+        repository.saveTemplate("info", "Информация: {content}");
+        assertEquals(2, repository.getTemplates().size());
+    }
+
+    @Test
+    void namesImportedTelegramUsernames() throws Exception {
+        repository.importRecipients("telegram_recipients.txt", Channel.TELEGRAM,
+                new ByteArrayInputStream("Канал:@alerts_channel\n".getBytes(StandardCharsets.UTF_8)));
+        assertEquals("Канал", repository.getRecipientName("@alerts_channel"));
+    }
+
+    @Test
+    void recompilesTemplatesAfterSave() {
+        assertEquals("Менеджер", repository.getRecipientName("manager@example.com"));
+        assertEquals("СРОЧНО: пожар", repository.getCompiledTemplate("urgent").render(field -> "пожар"));
+
+        repository.saveTemplate("urgent", "ВНИМАНИЕ: {content}");
+        assertEquals("ВНИМАНИЕ: пожар", repository.getCompiledTemplate("urgent").render(field -> "пожар"));
+    }
+
+    @Test
+    void externalEditsInvalidateCachedEntries() throws Exception {
+        repository.getRecipients("email_recipients.txt");
+        Files.write(directory.resolve("email_recipients.txt"), List.of("Директор:director@example.com"));
+
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!repository.getRecipients("email_recipients.txt").get(0)[1].equals("director@example.com")
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals("director@example.com", repository.getRecipients("email_recipients.txt").get(0)[1]);
+    }
+
+    @Test
+    void ignoresOtherFilesInTheDataDirectory() throws Exception {
+        repository.getRecipients("email_recipients.txt");
+        repository.getRecipients("sms_recipients.txt");
+        repository.getTemplates();
+        Files.writeString(directory.resolve("logs.txt"), "{}\n");
+        Files.writeString(directory.resolve("schedules.dat"), "x");
+        Files.writeString(directory.resolve("templates").resolve("urgent.txt.tmp"), "x");
+        Files.write(directory.resolve("email_recipients.txt"), List.of("Директор:director@example.com"));
+
+        // Wait for the recipient file event, then give the watcher time for the rest
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (repository.stats().invalidations() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Thread.sleep(200);
+        ContentRepository.Stats stats = repository.stats();
+        assertEquals(1, stats.invalidations());
+        assertEquals(1, stats.cachedRecipientFiles());
+        assertTrue(stats.templatesCached());
+    }
+}
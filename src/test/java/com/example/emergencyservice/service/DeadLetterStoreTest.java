@@ -0,0 +1,56 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.config.DispatchConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadLetterStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void redriveHandsOverEverythingAndClearsTheFile() {
+        DeadLetterStore store = store();
+        store.add("job1", "123", "telegram", "Сообщение", "admin", 5, "retries exhausted");
+        store.add("job1", "a@example.com", "email", "Сообщение", "admin", 1, "rejected");
+
+        // A new instance picks up dead letters left by a previous run
+        DeadLetterStore reopened = store();
+        assertEquals(2, reopened.count());
+
+        List<DeadLetterStore.DeadLetter> handed = new ArrayList<>();
+        assertEquals(2, reopened.redrive(handed::addAll));
+        assertEquals("123", handed.get(0).recipient());
+        assertEquals(5, handed.get(0).attempts());
+        assertEquals("rejected", handed.get(1).reason());
+        assertEquals(0, reopened.count());
+        assertTrue(reopened.list().isEmpty());
+    }
+
+    @Test
+    void failedRedriveKeepsDeadLetters() throws Exception {
+        DeadLetterStore store = store();
+        store.add("job1", "123", "telegram", "Сообщение", "admin", 5, "retries exhausted");
+
+        assertThrows(IllegalStateException.class, () -> store.redrive(letters -> {
+            throw new IllegalStateException("queue unavailable");
+        }));
+        assertEquals(1, store.count());
+        assertEquals(1, Files.readAllLines(directory.resolve("dead_letters.txt")).size());
+    }
+
+    private DeadLetterStore store() {
+        return new DeadLetterStore(new DispatchConfig(), new ObjectMapper(), directory.toString());
+    }
+}
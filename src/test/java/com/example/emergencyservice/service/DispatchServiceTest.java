@@ -0,0 +1,179 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.config.DispatchConfig;
+import com.example.emergencyservice.config.MailPoolConfig;
+import com.example.emergencyservice.config.ResilienceConfig;
+import com.example.emergencyservice.model.Channel;
+import com.example.emergencyservice.model.DeliveryOutcome;
+import com.example.emergencyservice.model.DeliveryResult;
+import com.example.emergencyservice.model.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fans broadcasts out over a channel stub that only counts and times the deliveries it gets.
+ */
+class DispatchServiceTest {
+
+    private final DispatchConfig dispatchConfig = new DispatchConfig();
+
+    @Test
+    void returnsOneResultPerRecipientInRecipientOrder() {
+        dispatchConfig.setTelegram(new DispatchConfig.Limits(4, 1000, 1000));
+        dispatchConfig.setEmail(new DispatchConfig.Limits(4, 1000, 1000));
+        CountingMessages messages = new CountingMessages(0);
+        messages.rejected.add("-1009");
+        DispatchService dispatch = dispatch(messages);
+
+        List<String> recipients = List.of("-1001", "duty@example.com", "-1009", "-1002", "chief@example.com");
+        Map<Integer, DeliveryResult> reported = new ConcurrentHashMap<>();
+        List<DeliveryResult> results = dispatch.dispatch(recipients, "Проверка", "admin", Priority.NORMAL,
+                (index, result) -> assertNull(reported.put(index, result)));
+
+        assertEquals(List.of(
+                new DeliveryResult("-1001", Channel.TELEGRAM, DeliveryOutcome.SENT),
+                new DeliveryResult("duty@example.com", Channel.EMAIL, DeliveryOutcome.SENT),
+                new DeliveryResult("-1009", Channel.TELEGRAM, DeliveryOutcome.FAILED_PERMANENT),
+                new DeliveryResult("-1002", Channel.TELEGRAM, DeliveryOutcome.SENT),
+                new DeliveryResult("chief@example.com", Channel.EMAIL, DeliveryOutcome.SENT)), results);
+        assertEquals(5, reported.size());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(results.get(i), reported.get(i));
+        }
+    }
+
+    @Test
+    void sendsConcurrentlyUpToTheLimitOfEachChannel() {
+        dispatchConfig.setTelegram(new DispatchConfig.Limits(3, 1000, 1000));
+        dispatchConfig.setEmail(new DispatchConfig.Limits(2, 1000, 1000));
+        CountingMessages messages = new CountingMessages(30);
+        DispatchService dispatch = dispatch(messages);
+
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            recipients.add("-100" + i);
+            recipients.add("user" + i + "@example.com");
+        }
+        long started = System.nanoTime();
+        List<DeliveryResult> results = dispatch.dispatch(recipients, "Проверка", "admin");
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        assertTrue(results.stream().allMatch(DeliveryResult::success));
+        assertEquals(3, messages.maxInFlight(Channel.TELEGRAM));
+        assertEquals(2, messages.maxInFlight(Channel.EMAIL));
+        // 24 e-mails two at a time take 12 rounds; one at a time would take 24
+        assertTrue(elapsedMillis < 24 * 30, "took " + elapsedMillis + "ms");
+    }
+
+    @Test
+    void sendsNoFasterThanTheRateOfTheChannel() {
+        dispatchConfig.setTelegram(new DispatchConfig.Limits(50, 20, 1));
+        CountingMessages messages = new CountingMessages(0);
+        DispatchService dispatch = dispatch(messages);
+
+        List<String> recipients = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            recipients.add("-100" + i);
+        }
+        long started = System.nanoTime();
+        dispatch.dispatch(recipients, "Проверка", "admin");
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        assertEquals(11, messages.sent(Channel.TELEGRAM));
+        // The first token is there at once, the other ten arrive every 50ms
+        assertTrue(elapsedMillis >= 450, "took " + elapsedMillis + "ms");
+    }
+
+    @Test
+    void cancelledBroadcastStartsNoFurtherDeliveries() {
+        dispatchConfig.setTelegram(new DispatchConfig.Limits(1, 1, 1));
+        CountingMessages messages = new CountingMessages(0);
+        DispatchService dispatch = dispatch(messages);
+
+        AtomicInteger reported = new AtomicInteger();
+        long started = System.nanoTime();
+        List<DeliveryResult> results = dispatch.dispatch(List.of("-1001", "-1002", "-1003", "-1004"), "Проверка",
+                "admin", Priority.NORMAL, () -> messages.sent(Channel.TELEGRAM) > 0,
+                (index, result) -> reported.incrementAndGet());
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        assertEquals(1, messages.sent(Channel.TELEGRAM));
+        assertEquals(1, reported.get());
+        assertEquals(1, results.stream().filter(DeliveryResult::success).count());
+        assertTrue(results.stream().filter(result -> !result.success())
+                .allMatch(result -> result.outcome() == DeliveryOutcome.FAILED_TRANSIENT));
+        // Waiting for the next token would take a second
+        assertTrue(elapsedMillis < 900, "took " + elapsedMillis + "ms");
+    }
+
+    private DispatchService dispatch(MessageService messages) {
+        return new DispatchService(messages, dispatchConfig, new MailPoolConfig(), null, null);
+    }
+
+    /**
+     * Telegram and e-mail channels that take {@code latencyMillis} per message, rejecting the listed
+     * recipients and recording how many messages of each channel were sent at the same time.
+     */
+    private final class CountingMessages extends MessageService {
+        final List<String> rejected = new ArrayList<>();
+        private final long latencyMillis;
+        private final Map<Channel, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+        private final Map<Channel, AtomicInteger> maxInFlight = new ConcurrentHashMap<>();
+        private final Map<Channel, AtomicInteger> sent = new ConcurrentHashMap<>();
+
+        CountingMessages(long latencyMillis) {
+            super(null, null, null, null, null, dispatchConfig, new ResilienceConfig());
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public DeliveryOutcome sendTelegramMessage(String chatId, String message, String username) {
+            return deliver(Channel.TELEGRAM, chatId);
+        }
+
+        @Override
+        public DeliveryOutcome sendEmail(String email, String subject, String message, String username) {
+            return deliver(Channel.EMAIL, email);
+        }
+
+        int maxInFlight(Channel channel) {
+            return counter(maxInFlight, channel).get();
+        }
+
+        int sent(Channel channel) {
+            return counter(sent, channel).get();
+        }
+
+        private DeliveryOutcome deliver(Channel channel, String recipient) {
+            int current = counter(inFlight, channel).incrementAndGet();
+            counter(maxInFlight, channel).accumulateAndGet(current, Math::max);
+            try {
+                if (latencyMillis > 0) {
+                    Thread.sleep(latencyMillis);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                counter(inFlight, channel).decrementAndGet();
+            }
+            if (rejected.contains(recipient)) {
+                return DeliveryOutcome.FAILED_PERMANENT;
+            }
+            counter(sent, channel).incrementAndGet();
+            return DeliveryOutcome.SENT;
+        }
+
+        private AtomicInteger counter(Map<Channel, AtomicInteger> counters, Channel channel) {
+            return counters.computeIfAbsent(channel, key -> new AtomicInteger());
+        }
+    }
+}
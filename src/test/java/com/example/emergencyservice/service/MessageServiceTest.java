@@ -0,0 +1,391 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.config.AppConfig;
+import com.example.emergencyservice.config.ClusterConfig;
+import com.example.emergencyservice.config.DispatchConfig;
+import com.example.emergencyservice.config.HttpClientConfig;
+import com.example.emergencyservice.config.LogConfig;
+import com.example.emergencyservice.config.MailPoolConfig;
+import com.example.emergencyservice.config.QueueConfig;
+import com.example.emergencyservice.config.ResilienceConfig;
+import com.example.emergencyservice.config.SmsConfig;
+import com.example.emergencyservice.config.TelegramConfig;
+import com.example.emergencyservice.metrics.DeliveryMetrics;
+import com.example.emergencyservice.model.BroadcastJob;
+import com.example.emergencyservice.model.Channel;
+import com.example.emergencyservice.model.DeliveryOutcome;
+import com.example.emergencyservice.transport.HttpPoolMetrics;
+import com.example.emergencyservice.transport.SmsTransport;
+import com.example.emergencyservice.transport.SmtpTransportPool;
+import com.example.emergencyservice.transport.TelegramTransport;
+import com.example.emergencyservice.util.CircuitBreaker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the Telegram channel against a local stub that injects 5xx replies and latency, on its own and
+ * under a whole broadcast with retries.
+ */
+class MessageServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private HttpServer server;
+    private ConnectionProvider connectionProvider;
+    private LogService logService;
+    private SmtpTransportPool smtpTransportPool;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int failStatus;
+    private volatile long delayMillis;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/bottest-token/sendMessage", exchange -> {
+            requests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            int status = failStatus > 0 ? failStatus : 200;
+            String reply = status == 200 ? "{\"ok\":true,\"result\":{}}"
+                    : "{\"ok\":false,\"error_code\":" + status + ",\"description\":\"Service Unavailable\"}";
+            byte[] bytes = reply.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stop() throws IOException {
+        if (connectionProvider != null) {
+            connectionProvider.dispose();
+        }
+        if (smtpTransportPool != null) {
+            smtpTransportPool.close();
+        }
+        if (logService != null) {
+            logService.close();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void failsFastWhileOpenAndClosesAfterProbe() throws Exception {
+        ResilienceConfig resilience = new ResilienceConfig();
+        resilience.getAdaptive().setEnabled(false);
+        resilience.getTelegram().setWindowSize(4);
+        resilience.getTelegram().setMinimumCalls(4);
+        resilience.getTelegram().setOpenDurationMs(200);
+        resilience.getTelegram().setHalfOpenProbes(1);
+        MessageService service = service(resilience);
+
+        failStatus = 503;
+        for (int i = 0; i < 4; i++) {
+            assertEquals(DeliveryOutcome.FAILED_TRANSIENT, service.sendTelegramMessage("123", "Сообщение", "admin"));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, service.circuitState(Channel.TELEGRAM));
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(DeliveryOutcome.REFUSED, service.sendTelegramMessage("123", "Сообщение", "admin"));
+        }
+        assertEquals(4, requests.get(), "calls must not reach the stub while the circuit is open");
+        assertEquals(5, registry.get("delivery.results")
+                .tags("channel", "telegram", "error", MessageService.CIRCUIT_OPEN).counter().count());
+
+        failStatus = 0;
+        Thread.sleep(250);
+        assertEquals(DeliveryOutcome.SENT, service.sendTelegramMessage("123", "Сообщение", "admin"));
+        assertEquals(5, requests.get());
+        assertEquals(CircuitBreaker.State.CLOSED, service.circuitState(Channel.TELEGRAM));
+    }
+
+    @Test
+    void asynchronousSendsGoThroughTheSameGuard() throws IOException {
+        ResilienceConfig resilience = new ResilienceConfig();
+        resilience.getAdaptive().setEnabled(false);
+        resilience.getTelegram().setWindowSize(4);
+        resilience.getTelegram().setMinimumCalls(4);
+        resilience.getTelegram().setOpenDurationMs(60_000);
+        MessageService service = service(resilience);
+
+        failStatus = 503;
+        List<DeliveryOutcome> outcomes = Flux.range(0, 4)
+                .flatMap(i -> service.sendTelegramMessageAsync("123", "Сообщение", "admin"))
+                .collectList()
+                .block();
+        assertEquals(List.of(DeliveryOutcome.FAILED_TRANSIENT, DeliveryOutcome.FAILED_TRANSIENT,
+                DeliveryOutcome.FAILED_TRANSIENT, DeliveryOutcome.FAILED_TRANSIENT), outcomes);
+        assertEquals(CircuitBreaker.State.OPEN, service.circuitState(Channel.TELEGRAM));
+
+        assertEquals(DeliveryOutcome.REFUSED,
+                service.sendTelegramMessageAsync("123", "Сообщение", "admin").block());
+        assertEquals(4, requests.get());
+    }
+
+    @Test
+    void refusalsWhileTheCircuitIsOpenDoNotUseUpRetries() throws Exception {
+        ResilienceConfig resilience = new ResilienceConfig();
+        resilience.getAdaptive().setEnabled(false);
+        resilience.getTelegram().setWindowSize(2);
+        resilience.getTelegram().setMinimumCalls(2);
+        resilience.getTelegram().setOpenDurationMs(100);
+        resilience.getTelegram().setHalfOpenProbes(1);
+        MessageService service = service(resilience);
+
+        DispatchConfig dispatchConfig = new DispatchConfig();
+        dispatchConfig.getTelegram().setRatePerSecond(1000);
+        dispatchConfig.getTelegram().setBurst(1000);
+        dispatchConfig.getRetry().setMaxAttempts(3);
+        dispatchConfig.getRetry().setMaxRefusals(1000);
+        dispatchConfig.getRetry().setInitialDelayMs(20);
+        dispatchConfig.getRetry().setMaxDelayMs(50);
+        Broadcasts broadcasts = new Broadcasts(service, dispatchConfig);
+
+        // Three chats against a channel that keeps failing: most sends meet the open circuit
+        failStatus = 503;
+        BroadcastJob job = broadcasts.jobs.submit(List.of("101", "102", "103"), "Учения", "admin");
+        try {
+            awaitCompletion(job);
+            assertEquals(3, job.progress().failed());
+            assertEquals(9, requests.get(), "every chat must be tried three times");
+            assertTrue(registry.get("delivery.results")
+                    .tags("channel", "telegram", "error", MessageService.CIRCUIT_OPEN).counter().count() > 0);
+
+            List<DeadLetterStore.DeadLetter> letters = broadcasts.deadLetters.list();
+            assertEquals(3, letters.size());
+            for (DeadLetterStore.DeadLetter letter : letters) {
+                assertEquals(3, letter.attempts());
+                assertEquals("retries exhausted", letter.reason());
+            }
+            assertEquals(0, broadcasts.queue.pendingCount());
+        } finally {
+            broadcasts.close();
+        }
+    }
+
+    @Test
+    void deliveriesRefusedTooOftenAreDeadLettered() throws Exception {
+        ResilienceConfig resilience = new ResilienceConfig();
+        resilience.getAdaptive().setEnabled(false);
+        resilience.getTelegram().setWindowSize(2);
+        resilience.getTelegram().setMinimumCalls(2);
+        resilience.getTelegram().setOpenDurationMs(60_000);
+        MessageService service = service(resilience);
+
+        DispatchConfig dispatchConfig = new DispatchConfig();
+        dispatchConfig.getTelegram().setMaxConcurrency(1);
+        dispatchConfig.getTelegram().setRatePerSecond(1000);
+        dispatchConfig.getTelegram().setBurst(1000);
+        dispatchConfig.getRetry().setMaxAttempts(3);
+        dispatchConfig.getRetry().setMaxRefusals(3);
+        dispatchConfig.getRetry().setInitialDelayMs(10);
+        dispatchConfig.getRetry().setMaxDelayMs(20);
+        Broadcasts broadcasts = new Broadcasts(service, dispatchConfig);
+
+        // The first two chats open the circuit, which then stays open
+        failStatus = 503;
+        BroadcastJob job = broadcasts.jobs.submit(List.of("101", "102", "103"), "Учения", "admin");
+        try {
+            awaitCompletion(job);
+            assertEquals(2, requests.get());
+            Map<String, DeadLetterStore.DeadLetter> letters = new HashMap<>();
+            for (DeadLetterStore.DeadLetter letter : broadcasts.deadLetters.list()) {
+                letters.put(letter.recipient(), letter);
+            }
+            assertEquals(Set.of("101", "102", "103"), letters.keySet());
+            assertEquals(1, letters.get("101").attempts());
+            assertEquals(1, letters.get("102").attempts());
+            assertEquals(0, letters.get("103").attempts());
+            for (DeadLetterStore.DeadLetter letter : letters.values()) {
+                assertEquals("circuit open", letter.reason());
+            }
+            assertEquals(9, registry.get("delivery.results")
+                    .tags("channel", "telegram", "error", MessageService.CIRCUIT_OPEN).counter().count());
+        } finally {
+            broadcasts.close();
+        }
+    }
+
+    @Test
+    void cancelledTrialCallFreesItsSlot() throws Exception {
+        ResilienceConfig resilience = new ResilienceConfig();
+        resilience.getAdaptive().setEnabled(false);
+        resilience.getTelegram().setWindowSize(2);
+        resilience.getTelegram().setMinimumCalls(2);
+        resilience.getTelegram().setOpenDurationMs(100);
+        resilience.getTelegram().setHalfOpenProbes(1);
+        MessageService service = service(resilience);
+
+        failStatus = 503;
+        for (int i = 0; i < 2; i++) {
+            service.sendTelegramMessage("123", "Сообщение", "admin");
+        }
+        assertEquals(CircuitBreaker.State.OPEN, service.circuitState(Channel.TELEGRAM));
+        Thread.sleep(150);
+
+        // The only trial call is given up while the stub is still answering
+        failStatus = 0;
+        delayMillis = 500;
+        Disposable probe = service.sendTelegramMessageAsync("123", "Сообщение", "admin").subscribe();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (requests.get() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        probe.dispose();
+
+        delayMillis = 0;
+        assertEquals(DeliveryOutcome.SENT, service.sendTelegramMessage("123", "Сообщение", "admin"));
+        assertEquals(CircuitBreaker.State.CLOSED, service.circuitState(Channel.TELEGRAM));
+    }
+
+    @Test
+    void missingTokenFailsPermanentlyWithoutOpeningTheCircuit() throws IOException {
+        ResilienceConfig resilience = new ResilienceConfig();
+        resilience.getTelegram().setWindowSize(2);
+        resilience.getTelegram().setMinimumCalls(2);
+        MessageService service = service(resilience, "");
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(DeliveryOutcome.FAILED_PERMANENT, service.sendTelegramMessage("123", "Сообщение", "admin"));
+            assertEquals(DeliveryOutcome.FAILED_PERMANENT,
+                    service.sendTelegramMessageAsync("123", "Сообщение", "admin").block());
+        }
+        assertEquals(0, requests.get());
+        assertEquals(CircuitBreaker.State.CLOSED, service.circuitState(Channel.TELEGRAM));
+    }
+
+    @Test
+    void clientErrorsDoNotOpenTheCircuit() throws IOException {
+        ResilienceConfig resilience = new ResilienceConfig();
+        resilience.getTelegram().setWindowSize(4);
+        resilience.getTelegram().setMinimumCalls(4);
+        MessageService service = service(resilience);
+
+        failStatus = 400;
+        for (int i = 0; i < 8; i++) {
+            assertEquals(DeliveryOutcome.FAILED_PERMANENT, service.sendTelegramMessage("123", "Сообщение", "admin"));
+        }
+        assertEquals(8, requests.get());
+        assertEquals(CircuitBreaker.State.CLOSED, service.circuitState(Channel.TELEGRAM));
+    }
+
+    @Test
+    void shrinksConcurrencyWhenLatencyRises() throws IOException {
+        ResilienceConfig resilience = new ResilienceConfig();
+        resilience.getTelegram().setEnabled(false);
+        MessageService service = service(resilience);
+        for (int i = 0; i < 20; i++) {
+            assertEquals(DeliveryOutcome.SENT, service.sendTelegramMessage("123", "Сообщение", "admin"));
+        }
+        assertEquals(8, service.concurrencyLimit(Channel.TELEGRAM));
+
+        delayMillis = 150;
+        for (int round = 0; round < 2; round++) {
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 8; i++) {
+                    executor.submit(() -> service.sendTelegramMessage("123", "Сообщение", "admin"));
+                }
+            }
+        }
+        assertTrue(service.concurrencyLimit(Channel.TELEGRAM) < 8,
+                "limit should back off, was " + service.concurrencyLimit(Channel.TELEGRAM));
+    }
+
+    private static void awaitCompletion(BroadcastJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (job.getState() != BroadcastJob.State.COMPLETED && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(BroadcastJob.State.COMPLETED, job.getState());
+    }
+
+    private MessageService service(ResilienceConfig resilience) throws IOException {
+        return service(resilience, "test-token");
+    }
+
+    private MessageService service(ResilienceConfig resilience, String token) throws IOException {
+        TelegramConfig telegramConfig = new TelegramConfig();
+        telegramConfig.getBot().setToken(token);
+        telegramConfig.getBot().setApiUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        telegramConfig.getBot().setGlobalRatePerSecond(1000);
+        AppConfig appConfig = new AppConfig();
+        HttpClientConfig httpClientConfig = new HttpClientConfig();
+        connectionProvider = appConfig.outboundConnectionProvider(httpClientConfig,
+                new HttpPoolMetrics(new SimpleMeterRegistry()));
+        WebClient webClient = appConfig.webClient(appConfig.outboundHttpClient(connectionProvider, httpClientConfig));
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        LogConfig logConfig = new LogConfig();
+        logConfig.setDirectory(directory + "/");
+        logService = new LogService(logConfig, objectMapper);
+        smtpTransportPool = new SmtpTransportPool(new JavaMailSenderImpl(), new MailPoolConfig());
+
+        return new MessageService(smtpTransportPool, new TelegramTransport(telegramConfig, webClient, objectMapper),
+                new SmsTransport(new SmsConfig(), webClient, objectMapper), logService,
+                new DeliveryMetrics(registry), new DispatchConfig(), resilience);
+    }
+
+    /**
+     * Broadcasts through the service, with retries, a dead-letter file and a queue journal of their own.
+     */
+    private final class Broadcasts {
+        final RetryScheduler retries;
+        final DeadLetterStore deadLetters;
+        final OutboundQueue queue;
+        final BroadcastJobService jobs;
+
+        Broadcasts(MessageService service, DispatchConfig dispatchConfig) throws IOException {
+            DispatchService dispatch = new DispatchService(service, dispatchConfig, new MailPoolConfig(), null, null);
+            retries = new RetryScheduler(dispatch, dispatchConfig);
+            deadLetters = new DeadLetterStore(dispatchConfig, new ObjectMapper(), directory.resolve("data").toString());
+            QueueConfig queueConfig = new QueueConfig();
+            queueConfig.setDirectory(directory.resolve("queue").toString());
+            queue = new OutboundQueue(queueConfig, new ClusterConfig());
+            jobs = new BroadcastJobService(dispatch, queue, dispatchConfig, retries, deadLetters,
+                    new ClusterService(new ClusterConfig(), dispatchConfig, queue));
+        }
+
+        void close() throws IOException {
+            retries.close();
+            queue.close();
+        }
+    }
+}
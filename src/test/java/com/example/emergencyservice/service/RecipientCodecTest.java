@@ -0,0 +1,77 @@
+package com.example.emergencyservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RecipientCodecTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void parsesLikeSplitAndTrim() throws Exception {
+        Path file = directory.resolve("recipients.txt");
+        Files.writeString(file, "  Директор : +998901234567 \r\n"
+                + "\n"
+                + "   \t\n"
+                + "no colon here\n"
+                + "Группа:-1001234567890:extra\n"
+                + ":\n"
+                + "Последний:last@example.com", StandardCharsets.UTF_8);
+
+        List<String[]> entries = read(file);
+
+        assertEquals(4, entries.size());
+        assertArrayEquals(new String[]{"Директор", "+998901234567"}, entries.get(0));
+        assertArrayEquals(new String[]{"Группа", "-1001234567890:extra"}, entries.get(1));
+        assertArrayEquals(new String[]{"", ""}, entries.get(2));
+        assertArrayEquals(new String[]{"Последний", "last@example.com"}, entries.get(3));
+    }
+
+    @Test
+    void roundTripsAcrossBufferBoundaries() throws Exception {
+        Path file = directory.resolve("recipients.txt");
+        List<String[]> written = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            written.add(new String[]{"Получатель №" + i, "user" + i + "@example.com"});
+        }
+        written.add(new String[]{"Длинный", "x".repeat(3 * RecipientCodec.BUFFER_SIZE) + "ё"});
+
+        RecipientCodec.write(file, written);
+        List<String[]> entries = read(file);
+
+        assertEquals(written.size(), entries.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertArrayEquals(written.get(i), entries.get(i));
+        }
+    }
+
+    @Test
+    void visitorCanStopEarly() throws Exception {
+        Path file = directory.resolve("recipients.txt");
+        RecipientCodec.write(file, List.of(new String[]{"a", "1"}, new String[]{"b", "2"}, new String[]{"c", "3"}));
+
+        List<String> visited = new ArrayList<>();
+        RecipientCodec.read(file, (name, address) -> {
+            visited.add(name);
+            return !address.equals("2");
+        });
+
+        assertEquals(List.of("a", "b"), visited);
+    }
+
+    private static List<String[]> read(Path file) throws Exception {
+        List<String[]> entries = new ArrayList<>();
+        RecipientCodec.read(file, (name, address) -> entries.add(new String[]{name, address}));
+        return entries;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.model.Channel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RecipientImportTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void normalizesDeduplicatesAndReportsInvalidLines() throws IOException {
+        String upload = "\uFEFFname;phone\r\n"
+                + "Директор;+998 90 123-45-67\r\n"
+                + "\"Иванов; Иван\";+998901234567\r\n"
+                + "Менеджер:+998902345678\n"
+                + "Бухгалтер;12ab\n"
+                + "Кассир;901234567\n"
+                + "\n"
+                + "+998903456789";
+        Path target = directory.resolve("sms_recipients.txt");
+
+        RecipientImport.Result result = RecipientImport.run(stream(upload), Channel.SMS, target);
+
+        assertEquals(3, result.imported());
+        assertEquals(1, result.duplicates());
+        assertEquals(2, result.invalid());
+        assertEquals(List.of("5: Бухгалтер;12ab", "6: Кассир;901234567"), result.rejected());
+        assertEquals(List.of("Директор:+998901234567", "Менеджер:+998902345678", "+998903456789:+998903456789"),
+                Files.readAllLines(target));
+    }
+
+    @Test
+    void validatesEmailsAndChatIds() throws IOException {
+        Path emails = directory.resolve("email_recipients.txt");
+        RecipientImport.Result result = RecipientImport.run(
+                stream("Менеджер,Manager@Example.com\nnot-an-email\nКопия,manager@example.COM\n"), Channel.EMAIL, emails);
+        assertEquals(1, result.imported());
+        assertEquals(1, result.duplicates());
+        assertEquals(List.of("Менеджер:manager@example.com"), Files.readAllLines(emails));
+
+        Path chats = directory.resolve("telegram_recipients.txt");
+        result = RecipientImport.run(stream("Группа:-1001234567890\nКанал:@alerts_channel\nОшибка:abc\n"),
+                Channel.TELEGRAM, chats);
+        assertEquals(2, result.imported());
+        assertEquals(1, result.invalid());
+        // Imported chats are sent to, and looked up, as Telegram recipients again
+        for (String line : Files.readAllLines(chats)) {
+            assertEquals(Channel.TELEGRAM, Channel.of(line.substring(line.indexOf(':') + 1)));
+        }
+    }
+
+    @Test
+    void keepsExistingListWhenNothingIsAccepted() throws IOException {
+        Path target = directory.resolve("sms_recipients.txt");
+        Files.write(target, List.of("Директор:+998901234567"));
+
+        RecipientImport.Result result = RecipientImport.run(stream("Бухгалтер:12ab\n"), Channel.SMS, target);
+
+        assertEquals(0, result.imported());
+        assertEquals(List.of("Директор:+998901234567"), Files.readAllLines(target));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of(target), files.toList());
+        }
+    }
+
+    @Test
+    void keepsExistingListWhenUploadFails() throws IOException {
+        Path target = directory.resolve("sms_recipients.txt");
+        Files.write(target, List.of("Директор:+998901234567"));
+        InputStream broken = new SequenceInputStream(stream("Менеджер:+998902345678\n"), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        });
+
+        assertThrows(IOException.class, () -> RecipientImport.run(broken, Channel.SMS, target));
+        assertEquals(List.of("Директор:+998901234567"), Files.readAllLines(target));
+    }
+
+    @Test
+    void concurrentImportsOfTheSameFileDoNotShareATempFile() throws Exception {
+        Path target = directory.resolve("sms_recipients.txt");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        InputStream slow = new SequenceInputStream(stream("Директор:+998901234567\n"), new InputStream() {
+            @Override
+            public int read() throws IOException {
+                started.countDown();
+                try {
+                    resume.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return -1;
+            }
+        });
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<RecipientImport.Result> first = executor.submit(() -> RecipientImport.run(slow, Channel.SMS, target));
+            started.await();
+            RecipientImport.run(stream("Менеджер:+998902345678\n"), Channel.SMS, target);
+            assertEquals(List.of("Менеджер:+998902345678"), Files.readAllLines(target));
+            resume.countDown();
+            assertEquals(1, first.get().imported());
+        }
+        assertEquals(List.of("Директор:+998901234567"), Files.readAllLines(target));
+    }
+
+    @Test
+    void streamsLargeListsAndRejectsOverlongLines() throws IOException {
+        StringBuilder upload = new StringBuilder("x".repeat(RecipientImport.MAX_LINE * 4)).append('\n');
+        for (int i = 0; i < 200_000; i++) {
+            upload.append("Абонент ").append(i).append(",+").append(998_900_000_000L + i % 150_000).append('\n');
+        }
+        Path target = directory.resolve("sms_recipients.txt");
+
+        RecipientImport.Result result = RecipientImport.run(stream(upload.toString()), Channel.SMS, target);
+
+        assertEquals(150_000, result.imported());
+        assertEquals(50_000, result.duplicates());
+        assertEquals(1, result.invalid());
+        assertEquals(150_000, Files.readAllLines(target).size());
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
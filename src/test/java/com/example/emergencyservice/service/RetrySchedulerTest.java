@@ -0,0 +1,79 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.config.DispatchConfig;
+import com.example.emergencyservice.model.Priority;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetrySchedulerTest {
+
+    @Test
+    void delaysGrowExponentiallyUpToTheCap() {
+        DispatchConfig config = new DispatchConfig();
+        config.getRetry().setInitialDelayMs(1000);
+        config.getRetry().setMaxDelayMs(5000);
+        RetryScheduler scheduler = new RetryScheduler(null, config);
+        try {
+            for (int i = 0; i < 100; i++) {
+                long first = scheduler.backoffMillis(1);
+                long third = scheduler.backoffMillis(3);
+                long capped = scheduler.backoffMillis(10);
+                assertTrue(first >= 500 && first <= 1000, "first retry " + first);
+                assertTrue(third >= 2000 && third <= 4000, "third retry " + third);
+                assertTrue(capped >= 2500 && capped <= 5000, "capped retry " + capped);
+            }
+            // Attempts are counted including the first one, so the fifth failure is final
+            assertTrue(scheduler.schedule(() -> false, "123", "Сообщение", "admin", Priority.NORMAL, 4, result -> {
+            }));
+            assertFalse(scheduler.schedule(() -> false, "123", "Сообщение", "admin", Priority.NORMAL, 5, result -> {
+            }));
+            assertEquals(1, scheduler.pendingCount());
+        } finally {
+            scheduler.close();
+        }
+    }
+
+    @Test
+    void refusalsHaveALimitOfTheirOwn() {
+        DispatchConfig config = new DispatchConfig();
+        config.getRetry().setMaxAttempts(2);
+        config.getRetry().setMaxRefusals(4);
+        RetryScheduler scheduler = new RetryScheduler(null, config);
+        try {
+            assertFalse(scheduler.schedule(() -> false, "123", "Сообщение", "admin", Priority.NORMAL, 2, result -> {
+            }));
+            assertTrue(scheduler.scheduleRefused(() -> false, "123", "Сообщение", "admin", Priority.NORMAL, 3,
+                    result -> {
+                    }));
+            assertFalse(scheduler.scheduleRefused(() -> false, "123", "Сообщение", "admin", Priority.NORMAL, 4,
+                    result -> {
+                    }));
+            assertEquals(1, scheduler.pendingCount());
+        } finally {
+            scheduler.close();
+        }
+    }
+
+    @Test
+    void cancelDropsOnlyTheRetriesOfTheStoppedOwner() {
+        RetryScheduler scheduler = new RetryScheduler(null, new DispatchConfig());
+        try {
+            RetryScheduler.Owner stopped = () -> true;
+            RetryScheduler.Owner running = () -> false;
+            scheduler.schedule(stopped, "123", "Сообщение", "admin", Priority.NORMAL, 1, result -> {
+            });
+            scheduler.schedule(running, "456", "Сообщение", "admin", Priority.NORMAL, 1, result -> {
+            });
+            scheduler.schedule(stopped, "789", "Сообщение", "admin", Priority.NORMAL, 2, result -> {
+            });
+
+            assertTrue(scheduler.cancel(stopped, 1_000));
+            assertEquals(1, scheduler.pendingCount());
+        } finally {
+            scheduler.close();
+        }
+    }
+}
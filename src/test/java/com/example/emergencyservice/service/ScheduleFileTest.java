@@ -0,0 +1,42 @@
+package com.example.emergencyservice.service;
+
+import com.example.emergencyservice.model.Priority;
+import com.example.emergencyservice.model.ScheduledBroadcast;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScheduleFileTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsSchedules() throws Exception {
+        Path file = directory.resolve("schedules.dat");
+        List<ScheduledBroadcast> written = List.of(
+                new ScheduledBroadcast("a1b2c3d4", "admin", "СРОЧНО: учения в 10:00", Priority.URGENT, null,
+                        List.of("+998901234567", "ops@example.com"), null, ScheduledBroadcast.CatchUp.ONCE,
+                        1_800_000_000_000L),
+                new ScheduledBroadcast("e5f6a7b8", "operator", "Проверка связи", null, "region-north and not sms",
+                        List.of(), "0 0 9 * * MON-FRI", ScheduledBroadcast.CatchUp.SKIP, 1_800_000_500_000L,
+                        1_799_999_000_000L),
+                // Longer than writeUTF allows once encoded
+                new ScheduledBroadcast("c9d0e1f2", "admin", "Ж".repeat(40_000), null, null,
+                        List.of("ops@example.com"), null, ScheduledBroadcast.CatchUp.ONCE, 1_800_000_900_000L));
+
+        ScheduleFile.write(file, written);
+
+        assertEquals(written, ScheduleFile.read(file));
+    }
+
+    @Test
+    void missingFileHasNoSchedules() throws Exception {
+        assertTrue(ScheduleFile.read(directory.resolve("schedules.dat")).isEmpty());
+    }
+}
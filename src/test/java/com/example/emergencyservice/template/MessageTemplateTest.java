@@ -0,0 +1,37 @@
+package com.example.emergencyservice.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MessageTemplateTest {
+
+    @Test
+    void rendersPlaceholdersAndKeepsUnknownOnes() {
+        MessageTemplate template = MessageTemplate.compile("{name}, СРОЧНО: {content} ({date})");
+
+        assertTrue(template.references("name"));
+        assertEquals("Директор, СРОЧНО: Сбой сети ({date})",
+                template.render(Map.of("name", "Директор", "content", "Сбой сети")::get));
+    }
+
+    @Test
+    void treatsNonPlaceholderBracesAsText() {
+        MessageTemplate template = MessageTemplate.compile("{\"a\": 1} {} {open {x}}");
+
+        assertFalse(template.references("a"));
+        assertEquals("{\"a\": 1} {} {open 42}", template.render(Map.of("x", "42")::get));
+    }
+
+    @Test
+    void staticTemplateRendersAsIs() {
+        MessageTemplate template = MessageTemplate.compile("Информация без подстановок");
+
+        assertFalse(template.hasPlaceholders());
+        assertEquals("Информация без подстановок", template.render(field -> "unused"));
+    }
+}
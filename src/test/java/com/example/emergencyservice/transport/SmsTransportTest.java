@@ -0,0 +1,81 @@
+package com.example.emergencyservice.transport;
+
+import com.example.emergencyservice.config.SmsConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SmsTransportTest {
+
+    private HttpServer server;
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private volatile int status = 200;
+    private volatile String reply = "{\"failed\":[\"+998902345678\"]}";
+
+    @BeforeEach
+    void startGateway() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/send", exchange -> {
+            bodies.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            authorizations.add(exchange.getRequestHeaders().getFirst("Authorization"));
+            byte[] bytes = reply.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopGateway() {
+        server.stop(0);
+    }
+
+    @Test
+    void submitsWholeBatchInOneRequest() {
+        SmsTransport.BatchResult result = transport().sendBatch(
+                List.of("+998901234567", "+998902345678", "+998903456789"), "Сообщение");
+
+        assertEquals(1, bodies.size());
+        assertTrue(bodies.get(0).contains("\"recipients\":[\"+998901234567\",\"+998902345678\",\"+998903456789\"]"));
+        assertEquals("Bearer secret", authorizations.get(0));
+        assertTrue(result.isDelivered("+998901234567"));
+        assertFalse(result.isDelivered("+998902345678"));
+        assertTrue(result.isDelivered("+998903456789"));
+    }
+
+    @Test
+    void failsWholeBatchOnGatewayError() {
+        status = 503;
+        reply = "maintenance";
+
+        SmsTransport.BatchResult result = transport().sendBatch(List.of("+998901234567"), "Сообщение");
+
+        assertNotNull(result.error());
+        assertFalse(result.isDelivered("+998901234567"));
+    }
+
+    private SmsTransport transport() {
+        SmsConfig config = new SmsConfig();
+        config.getApi().setUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/send");
+        config.getApi().setToken("secret");
+        return new SmsTransport(config, WebClient.create(), new ObjectMapper());
+    }
+}
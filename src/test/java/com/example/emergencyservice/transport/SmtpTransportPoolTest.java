@@ -0,0 +1,65 @@
+package com.example.emergencyservice.transport;
+
+import com.example.emergencyservice.config.MailPoolConfig;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SmtpTransportPoolTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Test
+    void reconnectsTransparentlyAfterServerRestart() throws Exception {
+        SmtpTransportPool pool = pool(false);
+
+        pool.send("first@example.com", "Тема", "Сообщение 1");
+        greenMail.stop();
+        greenMail.start();
+        pool.send("second@example.com", "Тема", "Сообщение 2");
+        pool.close();
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(1, received.length);
+        assertEquals("Тема", received[0].getSubject());
+        assertEquals("second@example.com", received[0].getAllRecipients()[0].toString());
+    }
+
+    @Test
+    void sendsBccBatchAsSingleMessage() throws Exception {
+        SmtpTransportPool pool = pool(true);
+
+        List<String> rejected = pool.sendBcc(List.of("a@example.com", "b@example.com", "c@example.com"),
+                "Тема", "Сообщение");
+        pool.close();
+
+        assertTrue(rejected.isEmpty());
+        // One copy per envelope recipient, none of them to the sender
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(3, received.length);
+        assertEquals("Сообщение", received[0].getContent().toString().trim());
+        assertEquals(SmtpTransportPool.UNDISCLOSED_RECIPIENTS, received[0].getHeader("To", null));
+        assertNull(received[0].getHeader("Bcc"));
+    }
+
+    private SmtpTransportPool pool(boolean bcc) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+
+        MailPoolConfig config = new MailPoolConfig();
+        config.setSize(2);
+        config.setBccEnabled(bcc);
+        return new SmtpTransportPool(mailSender, config);
+    }
+}
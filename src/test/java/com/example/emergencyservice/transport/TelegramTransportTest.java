@@ -0,0 +1,144 @@
+package com.example.emergencyservice.transport;
+
+import com.example.emergencyservice.config.AppConfig;
+import com.example.emergencyservice.config.HttpClientConfig;
+import com.example.emergencyservice.config.TelegramConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TelegramTransportTest {
+
+    private HttpServer server;
+    private ConnectionProvider connectionProvider;
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final HttpPoolMetrics poolMetrics = new HttpPoolMetrics(registry);
+    private final AtomicInteger requests = new AtomicInteger();
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private volatile int rateLimitedReplies;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/bottest-token/sendMessage", exchange -> {
+            requests.incrementAndGet();
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            bodies.add(body);
+            int status;
+            String reply;
+            if (body.contains("\"chat_id\":\"-42\"")) {
+                status = 400;
+                reply = "{\"ok\":false,\"error_code\":400,\"description\":\"Bad Request: chat not found\"}";
+            } else if (rateLimitedReplies > 0) {
+                rateLimitedReplies--;
+                status = 429;
+                reply = "{\"ok\":false,\"error_code\":429,\"description\":\"Too Many Requests\","
+                        + "\"parameters\":{\"retry_after\":1}}";
+            } else {
+                status = 200;
+                reply = "{\"ok\":true,\"result\":{}}";
+            }
+            byte[] bytes = reply.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        if (connectionProvider != null) {
+            connectionProvider.dispose();
+        }
+        server.stop(0);
+    }
+
+    @Test
+    void retriesAfterTooManyRequests() throws InterruptedException {
+        rateLimitedReplies = 1;
+        TelegramTransport transport = transport();
+
+        long start = System.nanoTime();
+        TelegramTransport.Result result = transport.send("123", "Сообщение");
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(result.success());
+        assertEquals(2, requests.get());
+        assertTrue(elapsedMillis >= 900, "retry_after must be honoured");
+        assertTrue(bodies.get(0).contains("\"chat_id\":\"123\""));
+        assertTrue(bodies.get(0).contains("\"parse_mode\":\"HTML\""));
+        assertEquals(1, poolMetrics.snapshot().size());
+        String host = poolMetrics.snapshot().get(0).host();
+        assertEquals(new HttpClientConfig().getMaxConnectionsPerHost(),
+                registry.get("http.pool.max").tags("pool", "outbound", "host", host).gauge().value());
+        double saturation = registry.get("http.pool.saturation").tag("host", host).gauge().value();
+        assertTrue(saturation >= 0 && saturation <= 1, "saturation " + saturation);
+
+        connectionProvider.dispose();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!registry.find("http.pool.saturation").gauges().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(registry.find("http.pool.saturation").gauges().isEmpty());
+    }
+
+    @Test
+    void sendsWithoutBlockingAndRetriesAfterTooManyRequests() {
+        rateLimitedReplies = 1;
+        TelegramTransport transport = transport();
+
+        long start = System.nanoTime();
+        TelegramTransport.Result rejected = transport.sendAsync("-42", "Сообщение").block();
+        TelegramTransport.Result result = transport.sendAsync("123", "Сообщение").block();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertFalse(rejected.success());
+        assertEquals("Bad Request: chat not found", rejected.error());
+        assertTrue(result.success());
+        assertEquals(3, requests.get());
+        assertTrue(elapsedMillis >= 900, "retry_after must be honoured");
+    }
+
+    @Test
+    void reportsOtherErrorsWithoutRetrying() {
+        TelegramTransport transport = transport();
+
+        TelegramTransport.Result result = transport.send("-42", "Сообщение");
+
+        assertFalse(result.success());
+        assertEquals(400, result.status());
+        assertEquals("Bad Request: chat not found", result.error());
+        assertEquals(1, requests.get());
+    }
+
+    private TelegramTransport transport() {
+        TelegramConfig config = new TelegramConfig();
+        config.getBot().setToken("test-token");
+        config.getBot().setApiUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        AppConfig appConfig = new AppConfig();
+        HttpClientConfig httpClientConfig = new HttpClientConfig();
+        connectionProvider = appConfig.outboundConnectionProvider(httpClientConfig, poolMetrics);
+        WebClient webClient = appConfig.webClient(appConfig.outboundHttpClient(connectionProvider, httpClientConfig));
+        return new TelegramTransport(config, webClient, new ObjectMapper());
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.emergencyservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveLimiterTest {
+
+    @Test
+    void asynchronousWaitersAreGrantedInOrderOnRelease() throws Exception {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(2, 2, 0.5);
+        limiter.acquire();
+        assertTrue(limiter.acquireAsync().isDone());
+        CompletableFuture<Void> first = limiter.acquireAsync();
+        CompletableFuture<Void> cancelled = limiter.acquireAsync();
+        CompletableFuture<Void> second = limiter.acquireAsync();
+        assertFalse(first.isDone());
+
+        cancelled.cancel(false);
+        limiter.release(1_000_000, false);
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+
+        // A call that never reached the remote side hands its permit on as well
+        limiter.cancel();
+        assertTrue(second.isDone());
+        assertEquals(2, limiter.inFlight());
+    }
+
+    @Test
+    void waitersAreNotGrantedBeyondAShrunkenLimit() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(4, 2, 0.5);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.acquireAsync().isDone());
+        }
+        CompletableFuture<Void> waiter = limiter.acquireAsync();
+
+        limiter.release(1_000, true);
+        assertEquals(2, limiter.limit());
+        assertFalse(waiter.isDone());
+
+        limiter.cancel();
+        assertFalse(waiter.isDone());
+        limiter.cancel();
+        assertTrue(waiter.isDone());
+        assertEquals(2, limiter.inFlight());
+    }
+}
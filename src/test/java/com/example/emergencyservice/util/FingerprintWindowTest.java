@@ -0,0 +1,47 @@
+package com.example.emergencyservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class FingerprintWindowTest {
+
+    @Test
+    void forgetsEntriesAfterTheWindow() throws InterruptedException {
+        FingerprintWindow window = new FingerprintWindow(100, 10);
+        window.put(1, "job-1");
+        assertEquals("job-1", window.get(1));
+
+        Thread.sleep(150);
+        assertNull(window.get(1));
+        assertEquals(0, window.size());
+    }
+
+    @Test
+    void dropsOldestEntriesPastCapacity() {
+        FingerprintWindow window = new FingerprintWindow(60_000, 3);
+        for (long fingerprint = 1; fingerprint <= 5; fingerprint++) {
+            window.put(fingerprint, "job-" + fingerprint);
+        }
+        assertEquals(3, window.size());
+        assertNull(window.get(2));
+        assertEquals("job-3", window.get(3));
+
+        // Re-putting moves an entry to the young end
+        window.put(3, "job-3");
+        window.put(6, "job-6");
+        assertEquals("job-3", window.get(3));
+        assertNull(window.get(4));
+    }
+
+    @Test
+    void setFingerprintsIgnoreOrder() {
+        assertEquals(Fingerprints.ofSet(List.of("+998901234567", "a@example.com")),
+                Fingerprints.ofSet(List.of("a@example.com", "+998901234567")));
+        assertNotEquals(Fingerprints.ofSet(List.of("a")), Fingerprints.ofSet(List.of("a", "b")));
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.emergencyservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PriorityGateTest {
+
+    @Test
+    void firstUrgentWaiterTakesTheNextFreePermit() throws Exception {
+        PriorityGate gate = new PriorityGate(1, 16, 4, 1);
+        gate.acquire(2);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            threads.add(waiter(gate, 2, order));
+        }
+        awaitWaiting(gate, 2, 50);
+        threads.add(waiter(gate, 0, order));
+        awaitWaiting(gate, 0, 1);
+
+        gate.release();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(51, order.size());
+        assertEquals(0, (int) order.get(0));
+    }
+
+    @Test
+    void busyClassesShareByWeight() throws Exception {
+        PriorityGate gate = new PriorityGate(1, 3, 1);
+        gate.acquire(0);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            threads.add(waiter(gate, 1, order));
+        }
+        awaitWaiting(gate, 1, 20);
+        for (int i = 0; i < 20; i++) {
+            threads.add(waiter(gate, 0, order));
+        }
+        awaitWaiting(gate, 0, 20);
+
+        gate.release();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // While both classes wait, every four permits go three to one
+        List<Integer> first = order.subList(0, 24);
+        assertEquals(18, Collections.frequency(first, 0));
+        assertEquals(6, Collections.frequency(first, 1));
+        assertEquals(40, order.size());
+    }
+
+    @Test
+    void interruptedWaiterLeavesTheQueue() throws Exception {
+        PriorityGate gate = new PriorityGate(1, 1, 1);
+        gate.acquire(0);
+        Thread waiter = Thread.ofVirtual().start(() -> {
+            try {
+                gate.acquire(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        awaitWaiting(gate, 1, 1);
+        waiter.interrupt();
+        waiter.join();
+        assertEquals(0, gate.waiting(1));
+
+        gate.release();
+        gate.acquire(1);
+        gate.release();
+    }
+
+    @Test
+    void asynchronousWaitersQueueAlongsideBlockingOnes() throws Exception {
+        PriorityGate gate = new PriorityGate(1, 16, 1);
+        gate.acquire(1);
+        CompletableFuture<Void> bulk = gate.acquireAsync(1);
+        CompletableFuture<Void> cancelled = gate.acquireAsync(0);
+        CompletableFuture<Void> urgent = gate.acquireAsync(0);
+        assertFalse(bulk.isDone());
+        assertEquals(2, gate.waiting(0));
+
+        cancelled.cancel(false);
+        assertEquals(1, gate.waiting(0));
+
+        gate.release();
+        assertTrue(urgent.isDone());
+        assertFalse(bulk.isDone());
+        gate.release();
+        assertTrue(bulk.isDone());
+        gate.release();
+        assertTrue(gate.acquireAsync(1).isDone());
+    }
+
+    private static Thread waiter(PriorityGate gate, int priority, List<Integer> order) {
+        return Thread.ofVirtual().start(() -> {
+            try {
+                gate.acquire(priority);
+                order.add(priority);
+                gate.release();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    private static void awaitWaiting(PriorityGate gate, int priority, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (gate.waiting(priority) < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(count, gate.waiting(priority));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.emergencyservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimerWheelTest {
+
+    @Test
+    void firesEveryTimerOnItsOwnTickAcrossAllLevels() {
+        TimerWheel<Long> wheel = new TimerWheel<>(1, 0);
+        Random random = new Random(42);
+        Map<Long, TimerWheel.Timer<Long>> timers = new HashMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            // Up to past the top level's range, so some go through the overflow list
+            long deadline = 1 + (random.nextLong() & Long.MAX_VALUE) % (1L << (6 * 4 + 1));
+            if (!timers.containsKey(deadline)) {
+                timers.put(deadline, wheel.schedule(deadline, deadline));
+            }
+        }
+        List<Long> cancelled = new ArrayList<>();
+        for (TimerWheel.Timer<Long> timer : timers.values()) {
+            if (timer.deadline() % 7 == 0) {
+                assertTrue(wheel.cancel(timer));
+                assertFalse(wheel.cancel(timer));
+                cancelled.add(timer.deadline());
+            }
+        }
+        assertEquals(timers.size() - cancelled.size(), wheel.size());
+
+        List<long[]> fired = new ArrayList<>();
+        long now = 0;
+        while (wheel.size() > 0) {
+            now += 1 + random.nextInt(5000);
+            long at = now;
+            wheel.advance(now, deadline -> fired.add(new long[]{deadline, at}));
+        }
+
+        assertEquals(timers.size() - cancelled.size(), fired.size());
+        long previous = 0;
+        for (long[] timer : fired) {
+            assertTrue(timer[0] % 7 != 0, "cancelled timer fired");
+            assertTrue(timer[0] <= timer[1], "fired early");
+            assertTrue(timer[0] > timer[1] - 5001, "fired late");
+            assertTrue(timer[0] > previous, "out of order");
+            previous = timer[0];
+        }
+    }
+
+    @Test
+    void overdueTimersFireOnTheNextAdvanceAndConsumersCanReschedule() {
+        TimerWheel<String> wheel = new TimerWheel<>(1000, 10_000);
+        List<String> fired = new ArrayList<>();
+        wheel.advance(70_000, fired::add);
+        wheel.schedule(5_000, "overdue");
+        TimerWheel.Timer<String> later = wheel.schedule(200_000, "later");
+
+        wheel.advance(71_000, name -> {
+            fired.add(name);
+            wheel.schedule(72_000, "again");
+            wheel.cancel(later);
+        });
+        assertEquals(List.of("overdue"), fired);
+        assertEquals(1, wheel.size());
+
+        wheel.advance(300_000, fired::add);
+        assertEquals(List.of("overdue", "again"), fired);
+        assertEquals(0, wheel.size());
+    }
+}